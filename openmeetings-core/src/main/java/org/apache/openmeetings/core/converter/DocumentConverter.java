@@ -23,8 +23,10 @@ import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_PDF;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_PATH_OFFICE;
 
 import java.io.File;
+import java.util.concurrent.CompletionStage;
 import java.util.function.Consumer;
 
+import org.apache.openmeetings.core.converter.ImageConverter.PageListener;
 import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
 import org.apache.openmeetings.db.entity.file.FileItem;
 import org.apache.openmeetings.util.StoredFile;
@@ -53,6 +55,23 @@ public class DocumentConverter {
 	}
 
 	public ProcessResultList convertPDF(FileItem f, StoredFile sf, ProcessResultList logs) throws Exception {
+		return convertPDF(f, sf, logs, null, null);
+	}
+
+	/**
+	 * Converts document to PDF (if necessary) and renders its pages
+	 *
+	 * @param f - document to be converted
+	 * @param sf - stored document
+	 * @param logs - logs of the conversion
+	 * @param stored - completed as soon as the item is stored, {@code null} to render all pages before return
+	 * @param listener - optional listener to be notified when pages are rendered
+	 * @return logs of the conversion
+	 * @throws Exception in case of any error
+	 */
+	public ProcessResultList convertPDF(FileItem f, StoredFile sf, ProcessResultList logs
+			, CompletionStage<FileItem> stored, PageListener listener) throws Exception
+	{
 		boolean fullProcessing = !sf.isPdf();
 		File original = f.getFile(sf.getExt());
 		File pdf = f.getFile(EXTENSION_PDF);
@@ -65,7 +84,7 @@ public class DocumentConverter {
 		}
 
 		log.debug("-- generate page images --");
-		return imageConverter.convertDocument(f, pdf, logs);
+		return imageConverter.convertDocument(f, pdf, logs, stored, listener);
 	}
 
 	public static void createOfficeManager(String officePath, Consumer<OfficeManager> consumer) {
@@ -35,8 +35,20 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.openmeetings.db.dao.file.FileItemDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.file.BaseFileItem;
 import org.apache.openmeetings.db.entity.file.FileItem;
@@ -46,6 +58,8 @@ import org.apache.openmeetings.util.StoredFile;
 import org.apache.openmeetings.util.process.ProcessHelper;
 import org.apache.openmeetings.util.process.ProcessResult;
 import org.apache.openmeetings.util.process.ProcessResultList;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.metadata.TIFF;
 import org.apache.tika.parser.ParseContext;
@@ -61,9 +75,53 @@ import org.xml.sax.helpers.DefaultHandler;
 public class ImageConverter extends BaseConverter {
 	private static final Logger log = LoggerFactory.getLogger(ImageConverter.class);
 	private static final String PAGE_TMPLT = DOC_PAGE_PREFIX + "-%04d." + EXTENSION_PNG;
+	private static final String CONVERT_DOC = "convert PDF to images";
+	private static final int PAGES_PER_TASK = 10;
+	private static final int RENDER_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+	private static final int RENDER_QUEUE_SIZE = 256;
+	// shared by all conversions, so the number of concurrently running convert processes is limited
+	private final ThreadPoolExecutor renderPool;
 
 	@Autowired
 	private UserDao userDao;
+	@Autowired
+	private FileItemDao fileDao;
+
+	/**
+	 * Will be notified each time range of document pages is rendered
+	 */
+	@FunctionalInterface
+	public interface PageListener {
+		/**
+		 * @param f - document being converted
+		 * @param from - first rendered page (zero based)
+		 * @param to - last rendered page (inclusive)
+		 * @param ready - count of pages available to the clients, all pages up to {@code to} are rendered
+		 */
+		void pagesReady(FileItem f, int from, int to, int ready);
+	}
+
+	public ImageConverter() {
+		final AtomicInteger count = new AtomicInteger();
+		renderPool = new ThreadPoolExecutor(RENDER_THREADS, RENDER_THREADS, 60, TimeUnit.SECONDS
+				, new ArrayBlockingQueue<>(RENDER_QUEUE_SIZE), r -> {
+					Thread t = new Thread(r, "om-doc-render-" + count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				}, (r, pool) -> {
+					if (pool.isShutdown()) {
+						throw new RejectedExecutionException("Render pool is shut down");
+					}
+					// pool is saturated, range is rendered by the converting thread, so conversions are throttled
+					r.run();
+				});
+		renderPool.allowCoreThreadTimeOut(true);
+	}
+
+	@PreDestroy
+	void destroy() {
+		renderPool.shutdownNow();
+	}
 
 	public ProcessResultList convertImage(BaseFileItem f, StoredFile sf) throws IOException {
 		return convertImage(f, sf, new ProcessResultList());
@@ -165,7 +223,8 @@ public class ImageConverter extends BaseConverter {
 	}
 
 	/**
-	 * Converts PDF document to the series of images
+	 * Converts PDF document to the series of images, all pages are rendered
+	 * before this method returns
 	 *
 	 * @param f - {@link FileItem} object to write number of pages and size
 	 * @param pdf - input PDF document
@@ -174,17 +233,34 @@ public class ImageConverter extends BaseConverter {
 	 * @throws IOException in case IO exception occurred
 	 */
 	public ProcessResultList convertDocument(FileItem f, File pdf, ProcessResultList logs) throws IOException {
+		return convertDocument(f, pdf, logs, null, null);
+	}
+
+	/**
+	 * Converts PDF document to the series of images
+	 *
+	 * Pages are rendered in ranges of {@link #PAGES_PER_TASK} in parallel. In case {@code stored} is passed
+	 * this method returns as soon as the first range is ready, number of pages of the item is set to the size
+	 * of this range. Number of pages is raised and persisted each time next range is ready (not earlier than
+	 * the item is stored), listener is notified. In case rendering of some range fails, number of pages
+	 * stays at the last successfully rendered page, error is written to the file log
+	 *
+	 * @param f - {@link FileItem} object to write number of pages and size
+	 * @param pdf - input PDF document
+	 * @param logs - logs of the conversion
+	 * @param stored - completed as soon as the item is stored, {@code null} to render all pages before return
+	 * @param listener - optional listener to be notified when pages are rendered
+	 * @return - result of conversion
+	 * @throws IOException in case IO exception occurred
+	 */
+	public ProcessResultList convertDocument(FileItem f, File pdf, ProcessResultList logs
+			, CompletionStage<FileItem> stored, PageListener listener) throws IOException
+	{
 		log.debug("convertDocument");
-		String[] argv = new String[] {
-			getPathToConvert()
-			, "-density", getDpi()
-			, pdf.getCanonicalPath()
-			, "-quality", getQuality()
-			, new File(pdf.getParentFile(), PAGE_TMPLT).getCanonicalPath()
-			};
-		ProcessResult res = ProcessHelper.executeScript("convert PDF to images", argv);
-		logs.add(res);
-		if (res.isOk()) {
+		final int count = getPageCount(pdf);
+		if (count < 1) {
+			// unable to get page count, whole document is converted at once
+			logs.add(renderPages(pdf, -1, -1));
 			File[] pages = pdf.getParentFile().listFiles(fi -> fi.isFile() && fi.getName().startsWith(DOC_PAGE_PREFIX) && fi.getName().endsWith(EXTENSION_PNG));
 			if (pages == null || pages.length == 0) {
 				f.setCount(0);
@@ -192,7 +268,105 @@ public class ImageConverter extends BaseConverter {
 				f.setCount(pages.length);
 				logs.add(initSize(f, pages[0], PNG_MIME_TYPE));
 			}
+			return logs;
+		}
+		List<CompletableFuture<ProcessResult>> ranges = new ArrayList<>();
+		for (int from = 0; from < count; from += PAGES_PER_TASK) {
+			final int start = from;
+			final int end = Math.min(from + PAGES_PER_TASK, count) - 1;
+			ranges.add(CompletableFuture.supplyAsync(() -> renderPages(pdf, start, end), renderPool));
+		}
+		ProcessResult first = ranges.get(0).join();
+		logs.add(first);
+		if (!first.isOk()) {
+			f.setCount(0);
+			return logs;
+		}
+		logs.add(initSize(f, f.getFile("0"), PNG_MIME_TYPE));
+		f.setCount(Math.min(PAGES_PER_TASK, count));
+		if (ranges.size() == 1) {
+			return logs;
+		}
+		if (stored == null) {
+			for (int i = 1; i < ranges.size(); ++i) {
+				ProcessResult res = ranges.get(i).join();
+				logs.add(res);
+				if (!res.isOk()) {
+					break;
+				}
+				f.setCount(Math.min((i + 1) * PAGES_PER_TASK, count));
+			}
+			return logs;
 		}
+		// ranges are counted in order, count is only raised up to the first failed range
+		CompletionStage<FileItem> chain = stored;
+		for (int i = 1; i < ranges.size(); ++i) {
+			final int start = i * PAGES_PER_TASK;
+			final int end = Math.min(start + PAGES_PER_TASK, count) - 1;
+			chain = chain.thenCombine(ranges.get(i), (fi, res) -> {
+				if (fi == null) {
+					return null;
+				}
+				if (!res.isOk()) {
+					log.error("Error while rendering pages of file {}: {}", fi.getId(), res.getError());
+					logDao.add(CONVERT_DOC, fi, res);
+					return null;
+				}
+				fi.setCount(end + 1);
+				fileDao.updateCount(fi);
+				if (listener != null) {
+					listener.pagesReady(fi, start, end, end + 1);
+				}
+				return fi;
+			});
+		}
+		chain.whenComplete((fi, err) -> {
+			if (err != null) {
+				log.error("Unexpected error while rendering pages of file {}", f.getId(), err);
+			}
+		});
+		// size is updated when all pages are rendered (successfully or not) and the item is stored
+		CompletableFuture<Void> rendered = CompletableFuture.allOf(ranges.toArray(new CompletableFuture<?>[0]))
+				.handle((v, err) -> null);
+		stored.thenAcceptBoth(rendered, (fi, v) -> fileDao.updateSize(fi));
 		return logs;
 	}
+
+	private static int getPageCount(File pdf) {
+		try (PDDocument doc = PDDocument.load(pdf, MemoryUsageSetting.setupTempFileOnly())) {
+			return doc.getNumberOfPages();
+		} catch (Exception e) {
+			log.warn("Unable to get number of pages", e);
+		}
+		return -1;
+	}
+
+	/**
+	 * @param pdf - input PDF document
+	 * @param from - first page to render (zero based), or -1 to render all pages
+	 * @param to - last page to render (inclusive)
+	 * @return - result of conversion
+	 */
+	private ProcessResult renderPages(File pdf, int from, int to) {
+		try {
+			List<String> argv = new ArrayList<>();
+			argv.add(getPathToConvert());
+			argv.add("-density");
+			argv.add(getDpi());
+			if (from < 0) {
+				argv.add(pdf.getCanonicalPath());
+			} else {
+				argv.add(String.format("%s[%d-%d]", pdf.getCanonicalPath(), from, to));
+				argv.add("-scene");
+				argv.add(String.valueOf(from));
+			}
+			argv.add("-quality");
+			argv.add(getQuality());
+			argv.add(new File(pdf.getParentFile(), PAGE_TMPLT).getCanonicalPath());
+			return ProcessHelper.executeScript(CONVERT_DOC, argv.toArray(new String[0]));
+		} catch (IOException e) {
+			log.error("Unexpected error while rendering pages", e);
+			return new ProcessResult(CONVERT_DOC, e.getMessage(), e);
+		}
+	}
 }
@@ -25,9 +25,11 @@ import static org.apache.openmeetings.util.OmFileHelper.getFileExt;
 import java.io.File;
 import java.io.InputStream;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.openmeetings.core.converter.DocumentConverter;
 import org.apache.openmeetings.core.converter.ImageConverter;
+import org.apache.openmeetings.core.converter.ImageConverter.PageListener;
 import org.apache.openmeetings.core.converter.VideoConverter;
 import org.apache.openmeetings.db.dao.file.FileItemDao;
 import org.apache.openmeetings.db.entity.file.BaseFileItem.Type;
@@ -56,6 +58,21 @@ public class FileProcessor {
 	private DocumentConverter docConverter;
 
 	public ProcessResultList processFile(FileItem f, InputStream is) throws Exception {
+		return processFile(f, is, null);
+	}
+
+	/**
+	 * Stores and converts uploaded file, in case of documents method returns
+	 * as soon as first pages are rendered, number of pages is raised while the rest
+	 * of pages are being rendered
+	 *
+	 * @param f - file to be processed
+	 * @param is - uploaded data
+	 * @param listener - optional listener to be notified when document pages are rendered
+	 * @return logs of the processing
+	 * @throws Exception in case of any error
+	 */
+	public ProcessResultList processFile(FileItem f, InputStream is, PageListener listener) throws Exception {
 		ProcessResultList logs = new ProcessResultList();
 		// Generate a random string to prevent any problems with
 		// foreign characters and duplicates
@@ -86,7 +103,7 @@ public class FileProcessor {
 			}
 			f.setHash(hash);
 
-			processFile(f, sf, temp, logs);
+			processFile(f, sf, temp, logs, listener);
 		} catch (Exception e) {
 			log.debug("Error while processing the file", e);
 			throw e;
@@ -98,7 +115,9 @@ public class FileProcessor {
 		return logs;
 	}
 
-	private void processFile(FileItem f, StoredFile sf, File temp, ProcessResultList logs) throws Exception {
+	private void processFile(FileItem f, StoredFile sf, File temp, ProcessResultList logs, PageListener listener) throws Exception {
+		// pages rendered in background are counted only after the item is stored
+		final CompletableFuture<FileItem> stored = new CompletableFuture<>();
 		try {
 			File file = f.getFile(sf.getExt());
 			log.debug("writing file to: {}", file);
@@ -111,7 +130,7 @@ public class FileProcessor {
 					log.debug("Office document: {}", file);
 					copyFile(temp, file);
 					// convert to pdf, thumbs, swf and xml-description
-					docConverter.convertPDF(f, sf, logs);
+					docConverter.convertPDF(f, sf, logs, stored, listener);
 					break;
 				case PollChart:
 					log.debug("uploaded chart file"); // NOT implemented yet
@@ -130,7 +149,13 @@ public class FileProcessor {
 					break;
 			}
 		} finally {
-			f = fileDao.update(f);
+			try {
+				f = fileDao.update(f);
+				stored.complete(f);
+			} catch (RuntimeException e) {
+				stored.completeExceptionally(e);
+				throw e;
+			}
 			log.debug("fileId: {}", f.getId());
 		}
 	}
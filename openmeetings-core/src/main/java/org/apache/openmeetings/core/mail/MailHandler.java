@@ -21,7 +21,10 @@ package org.apache.openmeetings.core.mail;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_REPLY_TO_ORGANIZER;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PASS;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_POOL_SIZE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PORT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_RATE_LIMIT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_RETRY_DELAY;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SERVER;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SYSTEM_EMAIL;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_TIMEOUT;
@@ -34,12 +37,27 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import javax.activation.DataHandler;
+import javax.annotation.PreDestroy;
 import javax.mail.Authenticator;
 import javax.mail.BodyPart;
 import javax.mail.Message;
@@ -63,7 +81,6 @@ import org.apache.wicket.util.string.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Component;
 
 /**
@@ -79,12 +96,14 @@ public class MailHandler {
 	private static final Logger log = LoggerFactory.getLogger(MailHandler.class);
 	private static final int MAIL_SEND_TIMEOUT = 60 * 60 * 1000; // 1 hour
 	private static final int MAXIMUM_ERROR_COUNT = 5;
+	private static final int MAIL_CLAIM_CHUNK = 50;
+	private static final int DEFAULT_POOL_SIZE = 3;
+	private static final long DEFAULT_RETRY_DELAY = 30 * 1000L; // 30 seconds
+	private static final int SEND_QUEUE_SIZE = 100;
 
 	@Autowired
 	private ConfigurationDao cfgDao;
 	@Autowired
-	private TaskExecutor taskExecutor;
-	@Autowired
 	private MailMessageDao mailMessageDao;
 
 	private String smtpServer;
@@ -96,6 +115,29 @@ public class MailHandler {
 	private boolean mailAddReplyTo;
 	private int smtpConnectionTimeOut;
 	private int smtpTimeOut;
+	private int poolSize = DEFAULT_POOL_SIZE;
+	private int rateLimit; // messages per second, 0 means no limit
+	private long retryDelay = DEFAULT_RETRY_DELAY;
+	// failed messages waiting for retry, status of such messages is kept SENDING
+	private final DelayQueue<Retry> retries = new DelayQueue<>();
+	// dedicated pool sized by poolSize, so mail sending doesn't compete with other background tasks
+	private final ThreadPoolExecutor sendPool;
+
+	public MailHandler() {
+		final AtomicInteger count = new AtomicInteger();
+		sendPool = new ThreadPoolExecutor(DEFAULT_POOL_SIZE, DEFAULT_POOL_SIZE, 60, TimeUnit.SECONDS
+				, new ArrayBlockingQueue<>(SEND_QUEUE_SIZE), r -> {
+					Thread t = new Thread(r, "om-mail-send-" + count.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		sendPool.allowCoreThreadTimeOut(true);
+	}
+
+	@PreDestroy
+	void destroy() {
+		sendPool.shutdownNow();
+	}
 
 	private void init() {
 		smtpServer = cfgDao.getString(CONFIG_SMTP_SERVER, null);
@@ -107,6 +149,29 @@ public class MailHandler {
 		mailAddReplyTo = cfgDao.getBool(CONFIG_REPLY_TO_ORGANIZER, true);
 		smtpConnectionTimeOut = cfgDao.getInt(CONFIG_SMTP_TIMEOUT_CON, 30000);
 		smtpTimeOut = cfgDao.getInt(CONFIG_SMTP_TIMEOUT, 30000);
+		init(cfgDao.getInt(CONFIG_SMTP_POOL_SIZE, DEFAULT_POOL_SIZE), cfgDao.getInt(CONFIG_SMTP_RATE_LIMIT, 0)
+				, cfgDao.getLong(CONFIG_SMTP_RETRY_DELAY, DEFAULT_RETRY_DELAY));
+	}
+
+	/**
+	 * @param poolSize - number of SMTP connections used to send queued messages
+	 * @param rateLimit - maximum number of messages sent per second, 0 means no limit
+	 * @param retryDelay - delay before first retry of failed message in millis, doubled for each next retry
+	 */
+	public void init(int poolSize, int rateLimit, long retryDelay) {
+		this.poolSize = Math.max(1, poolSize);
+		synchronized (sendPool) {
+			// core size should never exceed maximum size
+			if (this.poolSize > sendPool.getMaximumPoolSize()) {
+				sendPool.setMaximumPoolSize(this.poolSize);
+				sendPool.setCorePoolSize(this.poolSize);
+			} else {
+				sendPool.setCorePoolSize(this.poolSize);
+				sendPool.setMaximumPoolSize(this.poolSize);
+			}
+		}
+		this.rateLimit = Math.max(0, rateLimit);
+		this.retryDelay = retryDelay;
 	}
 
 	public void init(String smtpServer, int smtpPort, String from, String mailAuthUser, String mailAuthPass, boolean mailTls, boolean mailAddReplyTo) {
@@ -168,7 +233,10 @@ public class MailHandler {
 	}
 
 	public MimeMessage getBasicMimeMessage() throws Exception {
-		log.debug("getBasicMimeMessage");
+		return getBasicMimeMessage(getSession());
+	}
+
+	private Session getSession() {
 		if (smtpServer == null) {
 			init();
 		}
@@ -197,17 +265,21 @@ public class MailHandler {
 			// not use SMTP Authentication
 			session = Session.getInstance(props, null);
 		}
+		return session;
+	}
 
+	private MimeMessage getBasicMimeMessage(Session session) throws Exception {
+		log.debug("getBasicMimeMessage");
 		// Building MimeMessage
 		MimeMessage msg = new MimeMessage(session);
 		msg.setFrom(new InternetAddress(from));
 		return msg;
 	}
 
-	private MimeMessage getMimeMessage(MailMessage m) throws Exception {
+	private MimeMessage getMimeMessage(Session session, MailMessage m) throws Exception {
 		log.debug("getMimeMessage");
 		// Building MimeMessage
-		MimeMessage msg = getBasicMimeMessage();
+		MimeMessage msg = getBasicMimeMessage(session);
 		msg.setSubject(m.getSubject(), UTF_8.name());
 		String replyTo = m.getReplyTo();
 		if (replyTo != null && mailAddReplyTo) {
@@ -239,28 +311,30 @@ public class MailHandler {
 				m.setStatus(Status.SENDING);
 				mailMessageDao.update(m, null);
 			}
-			taskExecutor.execute(() -> {
-				log.debug("Message sending in progress");
-				log.debug("  To: " + m.getRecipients());
-				log.debug("  Subject: " + m.getSubject());
+			try {
+				sendPool.execute(() -> {
+					log.debug("Message sending in progress");
+					log.debug("  To: " + m.getRecipients());
+					log.debug("  Subject: " + m.getSubject());
 
-				// -- Send the message --
-				try {
-					Transport.send(getMimeMessage(m));
-					m.setLastError("");
-					m.setStatus(Status.DONE);
-				} catch (Exception e) {
-					log.error("Error while sending message", e);
-					m.setErrorCount(m.getErrorCount() + 1);
-					StringWriter sw = new StringWriter();
-					e.printStackTrace(new PrintWriter(sw));
-					m.setLastError(sw.getBuffer().toString());
-					m.setStatus(m.getErrorCount() < MAXIMUM_ERROR_COUNT ? Status.NONE : Status.ERROR);
-				}
-				if (m.getId() != null) {
-					mailMessageDao.update(m, null);
-				}
-			});
+					// -- Send the message --
+					try {
+						Transport.send(getMimeMessage(getSession(), m));
+						m.setLastError("");
+						m.setStatus(Status.DONE);
+					} catch (Exception e) {
+						setError(m, e);
+						m.setStatus(m.getErrorCount() < MAXIMUM_ERROR_COUNT ? Status.NONE : Status.ERROR);
+					}
+					if (m.getId() != null) {
+						mailMessageDao.update(m, null);
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				log.warn("Mail send pool is saturated, message is queued");
+				m.setStatus(Status.NONE);
+				mailMessageDao.update(m, null);
+			}
 		} else {
 			m.setStatus(Status.NONE);
 			mailMessageDao.update(m, null);
@@ -278,17 +352,179 @@ public class MailHandler {
 		log.trace("... resetSendingStatus done.");
 	}
 
+	private static void setError(MailMessage m, Exception e) {
+		log.error("Error while sending message", e);
+		m.setErrorCount(m.getErrorCount() + 1);
+		StringWriter sw = new StringWriter();
+		e.printStackTrace(new PrintWriter(sw));
+		m.setLastError(sw.getBuffer().toString());
+	}
+
 	public void sendMails() {
 		init();
 		log.trace("sendMails enter ...");
-		List<MailMessage> list = mailMessageDao.get(0, 1, MailMessage.Status.NONE);
-		if (!list.isEmpty()) {
-			log.debug("Number of emails in init queue {}", list.size());
-			while (!list.isEmpty()) {
-				send(list.get(0), true);
-				list = mailMessageDao.get(0, 1, MailMessage.Status.NONE);
+		int count = sendMails(sendPool, () -> mailMessageDao.claim(MAIL_CLAIM_CHUNK), m -> mailMessageDao.update(m, null));
+		if (count > 0) {
+			log.debug("... sendMails done, {} messages processed", count);
+		}
+	}
+
+	/**
+	 * Sends queued messages using {@code poolSize} workers, each worker keeps its own SMTP connection
+	 * open while there are messages to send. Failed messages are retried with exponential backoff,
+	 * retries not yet due are left for the next call.
+	 *
+	 * @param executor - executor to run workers
+	 * @param claim - supplier of the next chunk of messages to be sent, empty list means queue is drained
+	 * @param update - consumer to store the result of sending
+	 * @return number of processed messages
+	 */
+	int sendMails(Executor executor, Supplier<List<MailMessage>> claim, Consumer<MailMessage> update) {
+		final Session session = getSession();
+		final RateLimiter limiter = new RateLimiter(rateLimit);
+		final Queue<MailMessage> queue = new ConcurrentLinkedQueue<>();
+		List<CompletableFuture<Integer>> workers = new ArrayList<>(poolSize);
+		try {
+			for (int i = 0; i < poolSize; ++i) {
+				workers.add(CompletableFuture.supplyAsync(() -> deliver(session, limiter, () -> next(queue, claim), update), executor));
 			}
-			log.debug("... sendMails done.");
+		} catch (RejectedExecutionException e) {
+			// pool is busy with single messages, started workers will drain the queue
+			log.debug("Only {} of {} mail workers are started", workers.size(), poolSize);
+		}
+		int count = 0;
+		for (CompletableFuture<Integer> w : workers) {
+			count += w.join();
+		}
+		return count;
+	}
+
+	private MailMessage next(Queue<MailMessage> queue, Supplier<List<MailMessage>> claim) {
+		Retry r = retries.poll();
+		if (r != null) {
+			return r.msg;
+		}
+		MailMessage m = queue.poll();
+		if (m == null) {
+			synchronized (queue) {
+				m = queue.poll();
+				if (m == null) {
+					queue.addAll(claim.get());
+					m = queue.poll();
+				}
+			}
+		}
+		return m;
+	}
+
+	private int deliver(Session session, RateLimiter limiter, Supplier<MailMessage> next, Consumer<MailMessage> update) {
+		int count = 0;
+		Transport t = null;
+		try {
+			MailMessage m;
+			while ((m = next.get()) != null) {
+				log.debug("Message sending in progress, To: {}, Subject: {}", m.getRecipients(), m.getSubject());
+				try {
+					limiter.acquire();
+					if (t == null || !t.isConnected()) {
+						close(t);
+						t = session.getTransport("smtp");
+						t.connect();
+					}
+					MimeMessage msg = getMimeMessage(session, m);
+					t.sendMessage(msg, msg.getAllRecipients());
+					m.setLastError("");
+					m.setStatus(Status.DONE);
+				} catch (InterruptedException e) {
+					// not a send error, message will be claimed again by the next run
+					Thread.currentThread().interrupt();
+					m.setStatus(Status.NONE);
+					update.accept(m);
+					break;
+				} catch (Exception e) {
+					// connection might be broken, will be re-created
+					close(t);
+					t = null;
+					retry(m, e);
+				}
+				update.accept(m);
+				++count;
+				if (Thread.currentThread().isInterrupted()) {
+					break;
+				}
+			}
+		} finally {
+			close(t);
+		}
+		return count;
+	}
+
+	private void retry(MailMessage m, Exception e) {
+		setError(m, e);
+		if (m.getErrorCount() < MAXIMUM_ERROR_COUNT) {
+			retries.add(new Retry(m, retryDelay << (m.getErrorCount() - 1)));
+		} else {
+			m.setStatus(Status.ERROR);
+		}
+	}
+
+	private static void close(Transport t) {
+		if (t != null) {
+			try {
+				t.close();
+			} catch (MessagingException e) {
+				log.debug("Error while closing transport", e);
+			}
+		}
+	}
+
+	/**
+	 * Allows at most {@code perSecond} calls of {@link #acquire()} per second
+	 */
+	private static class RateLimiter {
+		private final long interval;
+		private long next = System.nanoTime();
+
+		RateLimiter(int perSecond) {
+			interval = perSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / perSecond : 0;
+		}
+
+		void acquire() throws InterruptedException {
+			if (interval == 0) {
+				return;
+			}
+			long wait;
+			synchronized (this) {
+				long now = System.nanoTime();
+				if (next < now) {
+					next = now;
+				}
+				wait = next - now;
+				next += interval;
+			}
+			if (wait > 0) {
+				TimeUnit.NANOSECONDS.sleep(wait);
+			}
+		}
+	}
+
+	private static class Retry implements Delayed {
+		private final MailMessage msg;
+		private final long time;
+
+		Retry(MailMessage msg, long delay) {
+			this.msg = msg;
+			this.time = System.currentTimeMillis() + delay;
+		}
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(time - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed o) {
+			return Long.compare(getDelay(TimeUnit.MILLISECONDS), o.getDelay(TimeUnit.MILLISECONDS));
 		}
 	}
 }
@@ -25,13 +25,14 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 import java.util.function.BiConsumer;
-import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.time.FastDateFormat;
 import org.apache.openmeetings.IApplication;
+import org.apache.openmeetings.core.util.ws.WsBroadcaster;
 import org.apache.openmeetings.core.util.ws.WsMessageAll;
 import org.apache.openmeetings.core.util.ws.WsMessageChat;
 import org.apache.openmeetings.core.util.ws.WsMessageRoom;
@@ -48,11 +49,11 @@ import org.apache.openmeetings.db.util.ws.RoomMessage;
 import org.apache.openmeetings.db.util.ws.TextRoomMessage;
 import org.apache.openmeetings.util.ws.IClusterWsMessage;
 import org.apache.wicket.Application;
+import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.protocol.ws.WebSocketSettings;
 import org.apache.wicket.protocol.ws.api.IWebSocketConnection;
 import org.apache.wicket.protocol.ws.api.registry.IWebSocketConnectionRegistry;
 import org.apache.wicket.protocol.ws.api.registry.PageIdKey;
-import org.apache.wicket.protocol.ws.concurrent.Executor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -65,6 +66,49 @@ public class WebSocketHelper {
 	public static final String ID_ALL = ID_TAB_PREFIX + "all";
 	public static final String ID_ROOM_PREFIX = ID_TAB_PREFIX + "r";
 	public static final String ID_USER_PREFIX = ID_TAB_PREFIX + "u";
+	protected static final String UID_PLACEHOLDER = "%%OM_UID%%";
+	private static final MetaDataKey<WsBroadcaster> BROADCASTER_KEY = new MetaDataKey<WsBroadcaster>() {
+		private static final long serialVersionUID = 1L;
+	};
+
+	/**
+	 * Creates broadcaster of the application, should be called on application start
+	 *
+	 * @param app - the application
+	 */
+	public static void startBroadcaster(Application app) {
+		app.setMetaData(BROADCASTER_KEY, new WsBroadcaster());
+	}
+
+	/**
+	 * Shuts down broadcaster of the application, should be called on application destroy
+	 *
+	 * @param app - the application
+	 */
+	public static void stopBroadcaster(Application app) {
+		WsBroadcaster b = app.getMetaData(BROADCASTER_KEY);
+		if (b != null) {
+			app.setMetaData(BROADCASTER_KEY, null);
+			b.shutdown();
+		}
+	}
+
+	public static WsBroadcaster getBroadcaster() {
+		return getBroadcaster((Application)getApp());
+	}
+
+	private static WsBroadcaster getBroadcaster(Application app) {
+		return app == null ? null : app.getMetaData(BROADCASTER_KEY);
+	}
+
+	private static void send(Application app, IWebSocketConnection wc, Consumer<IWebSocketConnection> frame) {
+		WsBroadcaster broadcaster = getBroadcaster(app);
+		if (broadcaster == null) {
+			log.warn("Broadcaster is not started, message is not sent");
+			return;
+		}
+		broadcaster.send(wc, frame);
+	}
 
 	private static JSONObject setScope(JSONObject o, ChatMessage m, long curUserId) {
 		String scope, scopeName = null;
@@ -139,13 +183,7 @@ public class WebSocketHelper {
 		Application app = (Application)getApp();
 		WebSocketSettings settings = WebSocketSettings.Holder.get(app);
 		IWebSocketConnectionRegistry reg = settings.getConnectionRegistry();
-		Executor executor = settings.getWebSocketPushMessageExecutor(); //FIXME TODO
-		final IWebSocketConnection wc = reg.getConnection(app, client.getSessionId(), new PageIdKey(client.getPageId()));
-		if (wc != null && wc.isOpen()) {
-			executor.run(() -> {
-				wsc.accept(wc);
-			});
-		}
+		send(app, reg.getConnection(app, client.getSessionId(), new PageIdKey(client.getPageId())), wsc);
 	}
 
 	public static void send(IClusterWsMessage _m) {
@@ -185,7 +223,7 @@ public class WebSocketHelper {
 		if (publish) {
 			publish(new WsMessageRoom(roomId, m));
 		}
-		sendRoom(roomId, m, null, null);
+		sendRoom(roomId, m, null);
 	}
 
 	public static void sendRoom(ChatMessage m, JSONObject msg) {
@@ -197,8 +235,7 @@ public class WebSocketHelper {
 			publish(new WsMessageChat(m, msg));
 		}
 		sendRoom(m.getToRoom().getId(), msg
-				, c -> !m.isNeedModeration() || (m.isNeedModeration() && c.hasRight(Right.moderator))
-				, null);
+				, c -> !m.isNeedModeration() || (m.isNeedModeration() && c.hasRight(Right.moderator)));
 	}
 
 	public static void sendUser(final Long userId, final String m) {
@@ -226,35 +263,42 @@ public class WebSocketHelper {
 		if (publish) {
 			publish(new WsMessageAll(m));
 		}
-		new Thread(() -> {
-			Application app = (Application)getApp();
-			WebSocketSettings settings = WebSocketSettings.Holder.get(app);
-			IWebSocketConnectionRegistry reg = settings.getConnectionRegistry();
-			Executor executor = settings.getWebSocketPushMessageExecutor(); // new NewThreadExecutor();
-			for (IWebSocketConnection c : reg.getConnections(app)) {
-				executor.run(() -> {
-					try {
-						c.sendMessage(m);
-					} catch (IOException e) {
-						log.error("Error while sending message to ALL", e);
-					}
-				});
-			}
-		}).start();
+		Application app = (Application)getApp();
+		WebSocketSettings settings = WebSocketSettings.Holder.get(app);
+		IWebSocketConnectionRegistry reg = settings.getConnectionRegistry();
+		for (IWebSocketConnection c : reg.getConnections(app)) {
+			send(app, c, wc -> {
+				try {
+					wc.sendMessage(m);
+				} catch (IOException e) {
+					log.error("Error while sending message to ALL", e);
+				}
+			});
+		}
 	}
 
 	protected static void publish(IClusterWsMessage m) {
-		IApplication app = getApp();
-		new Thread(() -> {
-			app.publishWsTopic(m);
-		}).start();
+		getApp().publishWsTopic(m);
 	}
 
-	protected static void sendRoom(final Long roomId, final JSONObject m, Predicate<Client> check, BiFunction<JSONObject, Client, String> func) {
+	protected static void sendRoom(final Long roomId, final JSONObject m, Predicate<Client> check) {
 		log.debug("Sending WebSocket message: {}", m);
+		sendRoom(roomId, m.toString(), check, null);
+	}
+
+	/**
+	 * Sends the message to the room, message is being encoded only once
+	 *
+	 * @param roomId - id of the room
+	 * @param m - encoded message
+	 * @param check - optional filter of the recipients
+	 * @param uidPlaceholder - optional placeholder, will be replaced with uid of each recipient
+	 */
+	protected static void sendRoom(final Long roomId, final String m, Predicate<Client> check, String uidPlaceholder) {
+		final String[] parts = uidPlaceholder == null ? null : m.split(Pattern.quote(uidPlaceholder), -1);
 		sendRoom(roomId, (t, c) -> {
 			try {
-				t.sendMessage(func == null ? m.toString() : func.apply(m, c));
+				t.sendMessage(parts == null ? m : String.join(c.getUid(), parts));
 			} catch (IOException e) {
 				log.error("Error while broadcasting message to room", e);
 			}
@@ -270,28 +314,15 @@ public class WebSocketHelper {
 			, BiConsumer<IWebSocketConnection, Client> consumer
 			, Predicate<Client> check)
 	{
-		new Thread(() -> {
-			Application app = (Application)getApp();
-			WebSocketSettings settings = WebSocketSettings.Holder.get(app);
-			IWebSocketConnectionRegistry reg = settings.getConnectionRegistry();
-			Executor executor = settings.getWebSocketPushMessageExecutor(); //new NewThreadExecutor();
-			for (Client c : func.apply(app)) {
-				if (check == null || check.test(c)) {
-					final IWebSocketConnection wc = reg.getConnection(app, c.getSessionId(), new PageIdKey(c.getPageId()));
-					if (wc != null && wc.isOpen()) {
-						executor.run(() -> consumer.accept(wc, c));
-					}
-				}
+		// recipients are resolved and frames are queued by the caller, so messages are kept in order, only sending is async
+		Application app = (Application)getApp();
+		WebSocketSettings settings = WebSocketSettings.Holder.get(app);
+		IWebSocketConnectionRegistry reg = settings.getConnectionRegistry();
+		for (Client c : func.apply(app)) {
+			if (check == null || check.test(c)) {
+				final IWebSocketConnection wc = reg.getConnection(app, c.getSessionId(), new PageIdKey(c.getPageId()));
+				send(app, wc, t -> consumer.accept(t, c));
 			}
-		}).start();
-	}
-
-	public static class NewThreadExecutor implements Executor {
-		@Override
-		public void run(Runnable command) {
-			new Thread(() -> {
-				command.run();
-			}).start();
 		}
 	}
 }
@@ -0,0 +1,259 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.util.ws;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.apache.wicket.protocol.ws.api.IWebSocketConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Broadcast engine used by {@link org.apache.openmeetings.core.util.WebSocketHelper}
+ *
+ * All WebSocket sends are performed by bounded pool of worker threads,
+ * each connection has its own ordered queue of pending frames, frames are dropped
+ * (oldest first) in case connection is too slow to consume them
+ *
+ * @author solomax
+ *
+ */
+public class WsBroadcaster {
+	private static final Logger log = LoggerFactory.getLogger(WsBroadcaster.class);
+	public static final int DEFAULT_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+	public static final int DEFAULT_TASK_QUEUE_SIZE = 10000;
+	public static final int DEFAULT_CONNECTION_QUEUE_SIZE = 256;
+	private static final int PURGE_INTERVAL = 1024;
+	private final ThreadPoolExecutor pool;
+	private final int connectionQueueSize;
+	private final Map<IWebSocketConnection, ConnectionQueue> queues = new ConcurrentHashMap<>();
+	private final AtomicLong sent = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicLong sendTime = new AtomicLong();
+	private final AtomicLong maxSendTime = new AtomicLong();
+	private final AtomicInteger purgeCounter = new AtomicInteger();
+
+	public WsBroadcaster() {
+		this(DEFAULT_POOL_SIZE, DEFAULT_TASK_QUEUE_SIZE, DEFAULT_CONNECTION_QUEUE_SIZE);
+	}
+
+	public WsBroadcaster(int poolSize, int taskQueueSize, int connectionQueueSize) {
+		this.connectionQueueSize = connectionQueueSize;
+		pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS
+				, new ArrayBlockingQueue<>(taskQueueSize), new WsThreadFactory());
+		pool.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Adds frame to the ordered queue of the connection, the frame will be sent asynchronously,
+	 * should be called by the thread producing the message, so frames are queued in order
+	 *
+	 * @param wc - the connection
+	 * @param frame - the frame to be sent
+	 */
+	public void send(IWebSocketConnection wc, Consumer<IWebSocketConnection> frame) {
+		if (wc == null || !wc.isOpen()) {
+			return;
+		}
+		queues.computeIfAbsent(wc, ConnectionQueue::new).offer(frame);
+		if (purgeCounter.incrementAndGet() % PURGE_INTERVAL == 0) {
+			purge();
+		}
+	}
+
+	/**
+	 * Removes queues of connections being closed
+	 */
+	private void purge() {
+		queues.entrySet().removeIf(e -> !e.getKey().isOpen() && !e.getValue().scheduled.get());
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+		queues.clear();
+	}
+
+	public int getQueueDepth() {
+		int depth = 0;
+		for (ConnectionQueue q : queues.values()) {
+			depth += q.size.get();
+		}
+		return depth;
+	}
+
+	public int getConnectionCount() {
+		return queues.size();
+	}
+
+	public int getPendingTasks() {
+		return pool.getQueue().size();
+	}
+
+	public long getSent() {
+		return sent.get();
+	}
+
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * @return average send latency in microseconds
+	 */
+	public long getAvgSendTime() {
+		long count = sent.get();
+		return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(sendTime.get() / count);
+	}
+
+	/**
+	 * @return maximum send latency in microseconds
+	 */
+	public long getMaxSendTime() {
+		return TimeUnit.NANOSECONDS.toMicros(maxSendTime.get());
+	}
+
+	@Override
+	public String toString() {
+		return String.format("WsBroadcaster [connections=%s, queueDepth=%s, pendingTasks=%s, sent=%s, dropped=%s, rejected=%s, avgSendTime=%sus, maxSendTime=%sus]"
+				, getConnectionCount(), getQueueDepth(), getPendingTasks(), getSent(), getDropped(), getRejected()
+				, getAvgSendTime(), getMaxSendTime());
+	}
+
+	private void onSent(long start) {
+		long time = System.nanoTime() - start;
+		sent.incrementAndGet();
+		sendTime.addAndGet(time);
+		maxSendTime.accumulateAndGet(time, Math::max);
+	}
+
+	private class ConnectionQueue implements Runnable {
+		private final IWebSocketConnection wc;
+		private final Queue<Consumer<IWebSocketConnection>> frames = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger size = new AtomicInteger();
+		private final AtomicBoolean scheduled = new AtomicBoolean();
+
+		ConnectionQueue(IWebSocketConnection wc) {
+			this.wc = wc;
+		}
+
+		void offer(Consumer<IWebSocketConnection> frame) {
+			frames.offer(frame);
+			if (size.incrementAndGet() > connectionQueueSize && frames.poll() != null) {
+				size.decrementAndGet();
+				dropped.incrementAndGet();
+				log.debug("Frame was dropped for slow connection {}", wc);
+			}
+			schedule();
+		}
+
+		private void schedule() {
+			if (scheduled.compareAndSet(false, true) && !submit()) {
+				if (pool.isShutdown()) {
+					scheduled.set(false);
+					clear();
+				} else {
+					// pool is saturated, frames are sent by the caller to keep them in order
+					drain();
+				}
+			}
+		}
+
+		/**
+		 * @return {@code true} if the queue was submitted to the pool
+		 */
+		private boolean submit() {
+			try {
+				pool.execute(this);
+				return true;
+			} catch (RejectedExecutionException e) {
+				rejected.incrementAndGet();
+				log.warn("Unable to schedule send for connection {}, pool is overloaded", wc);
+			}
+			return false;
+		}
+
+		private void clear() {
+			int count = size.getAndSet(0);
+			frames.clear();
+			dropped.addAndGet(count);
+		}
+
+		@Override
+		public void run() {
+			drain();
+		}
+
+		/**
+		 * Sends all pending frames, should only be called by the thread owning the {@code scheduled} flag
+		 */
+		private void drain() {
+			do {
+				Consumer<IWebSocketConnection> frame;
+				while ((frame = frames.poll()) != null) {
+					size.decrementAndGet();
+					if (!wc.isOpen()) {
+						continue;
+					}
+					long start = System.nanoTime();
+					try {
+						frame.accept(wc);
+					} catch (Exception e) {
+						log.error("Unexpected error while sending frame to {}", wc, e);
+					}
+					onSent(start);
+				}
+				scheduled.set(false);
+				if (!wc.isOpen()) {
+					queues.remove(wc, this);
+					clear();
+					return;
+				}
+				// frames added while flag was set are re-submitted, or sent by this thread if pool is saturated
+			} while (!frames.isEmpty() && scheduled.compareAndSet(false, true) && !submit());
+		}
+	}
+
+	private static class WsThreadFactory implements ThreadFactory {
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "om-ws-broadcast-" + count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
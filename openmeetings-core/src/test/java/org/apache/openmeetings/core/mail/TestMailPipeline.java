@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.core.mail;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.openmeetings.db.entity.basic.MailMessage;
+import org.apache.openmeetings.db.entity.basic.MailMessage.Status;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMailPipeline {
+	private static final int POOL_SIZE = 2;
+	private SmtpStub smtp;
+	private ExecutorService executor;
+
+	@Before
+	public void setUp() throws IOException {
+		smtp = new SmtpStub();
+		executor = Executors.newFixedThreadPool(POOL_SIZE);
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		executor.shutdownNow();
+		smtp.close();
+	}
+
+	private MailHandler getHandler(int rateLimit) {
+		MailHandler h = new MailHandler();
+		h.init("localhost", smtp.getPort(), "test-app@apache.org", null, null, false, true);
+		h.init(POOL_SIZE, rateLimit, 0);
+		return h;
+	}
+
+	private static List<MailMessage> getMessages(int count) {
+		List<MailMessage> list = new ArrayList<>();
+		for (int i = 0; i < count; ++i) {
+			list.add(new MailMessage("test-recipient@localhost", null, "subject " + i, "body " + i));
+		}
+		return list;
+	}
+
+	private static Supplier<List<MailMessage>> claim(List<MailMessage> list, int chunk) {
+		Queue<MailMessage> pending = new ConcurrentLinkedQueue<>(list);
+		return () -> {
+			List<MailMessage> result = new ArrayList<>();
+			MailMessage m;
+			while (result.size() < chunk && (m = pending.poll()) != null) {
+				m.setStatus(Status.SENDING);
+				result.add(m);
+			}
+			return result;
+		};
+	}
+
+	@Test
+	public void testConnectionReuse() {
+		List<MailMessage> list = getMessages(30);
+		int count = getHandler(0).sendMails(executor, claim(list, 7), m -> {});
+		assertEquals("All messages should be processed", list.size(), count);
+		assertEquals("All messages should be received", list.size(), smtp.messages.get());
+		assertTrue("Connections should be reused", smtp.connections.get() <= POOL_SIZE);
+		for (MailMessage m : list) {
+			assertEquals("Message should be sent", Status.DONE, m.getStatus());
+		}
+	}
+
+	@Test
+	public void testRetry() {
+		smtp.failures.set(1);
+		List<MailMessage> list = getMessages(5);
+		int count = getHandler(0).sendMails(executor, claim(list, 2), m -> {});
+		assertEquals("Failed message should be processed twice", list.size() + 1, count);
+		assertEquals("All messages should be received", list.size(), smtp.messages.get());
+		int errors = 0;
+		for (MailMessage m : list) {
+			assertEquals("Message should be sent", Status.DONE, m.getStatus());
+			errors += m.getErrorCount();
+		}
+		assertEquals("Single error expected", 1, errors);
+	}
+
+	@Test
+	public void testRateLimit() {
+		List<MailMessage> list = getMessages(6);
+		long start = System.currentTimeMillis();
+		getHandler(10).sendMails(executor, claim(list, 10), m -> {});
+		assertTrue("Rate limit should be respected", System.currentTimeMillis() - start >= 500);
+		assertEquals("All messages should be received", list.size(), smtp.messages.get());
+	}
+
+	/**
+	 * Minimal in-process SMTP server, accepts any message,
+	 * first {@code failures} messages are rejected with temporary error
+	 */
+	private static class SmtpStub implements AutoCloseable {
+		private final ServerSocket server;
+		private final AtomicInteger connections = new AtomicInteger();
+		private final AtomicInteger messages = new AtomicInteger();
+		private final AtomicInteger failures = new AtomicInteger();
+
+		SmtpStub() throws IOException {
+			server = new ServerSocket(0);
+			Thread t = new Thread(() -> {
+				while (!server.isClosed()) {
+					try {
+						Socket s = server.accept();
+						connections.incrementAndGet();
+						Thread h = new Thread(() -> handle(s));
+						h.setDaemon(true);
+						h.start();
+					} catch (IOException e) {
+						// server is closed
+					}
+				}
+			});
+			t.setDaemon(true);
+			t.start();
+		}
+
+		int getPort() {
+			return server.getLocalPort();
+		}
+
+		private void handle(Socket s) {
+			try (Socket socket = s
+					; BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))
+					; PrintWriter out = new PrintWriter(socket.getOutputStream(), true))
+			{
+				reply(out, "220 localhost SMTP stub");
+				String line;
+				while ((line = in.readLine()) != null) {
+					String cmd = line.length() < 4 ? line : line.substring(0, 4).toUpperCase();
+					if ("DATA".equals(cmd)) {
+						reply(out, "354 End data with <CR><LF>.<CR><LF>");
+						while ((line = in.readLine()) != null && !".".equals(line)) {
+							//skip message content
+						}
+						if (failures.getAndDecrement() > 0) {
+							reply(out, "451 Temporary failure");
+						} else {
+							messages.incrementAndGet();
+							reply(out, "250 OK");
+						}
+					} else if ("QUIT".equals(cmd)) {
+						reply(out, "221 Bye");
+						break;
+					} else {
+						reply(out, "250 OK");
+					}
+				}
+			} catch (IOException e) {
+				// connection is closed
+			}
+		}
+
+		private static void reply(PrintWriter out, String msg) {
+			out.print(msg + "\r\n");
+			out.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			server.close();
+		}
+	}
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.openmeetings;
 
+import java.util.List;
 import java.util.Locale;
 import java.util.function.Supplier;
 
@@ -50,4 +51,13 @@ public interface IApplication {
 
 	//WS
 	void publishWsTopic(IClusterWsMessage msg);
+
+	//Configuration
+	void publishConfigUpdate(String key);
+
+	//Users
+	void publishRightsUpdate(Long userId);
+
+	//Sessions
+	void publishSessionsRefreshed(List<Long> ids);
 }
@@ -73,8 +73,12 @@ import java.net.UnknownHostException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -98,6 +102,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.github.openjson.JSONObject;
 
@@ -112,6 +118,9 @@ import com.github.openjson.JSONObject;
  *
  * <b> {@link #get(String)} is deprecated!</b>
  *
+ * Values returned by typed getters are cached, cache entry is evicted on
+ * {@link #update(Configuration, Long)} and on all other cluster nodes
+ *
  * @author swagner
  *
  */
@@ -120,6 +129,10 @@ import com.github.openjson.JSONObject;
 public class ConfigurationDao implements IDataProviderDao<Configuration> {
 	private static final Logger log = LoggerFactory.getLogger(ConfigurationDao.class);
 	private static final String[] searchFields = {"key", "value"};
+	private static final Value MISSING = new Value(null);
+	private final Map<String, Value> cache = new ConcurrentHashMap<>();
+	// incremented on every eviction, values loaded while eviction was in progress are not kept
+	private final AtomicLong generation = new AtomicLong();
 
 	@PersistenceContext
 	private EntityManager em;
@@ -157,12 +170,19 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 	}
 
 	public List<Configuration> get(String... keys) {
-		List<Configuration> result = new ArrayList<>();
-		for (String key : keys) { //iteration is necessary to fill list with all values
-			List<Configuration> r = em.createNamedQuery("getConfigurationsByKeys", Configuration.class)
-					.setParameter("keys", Arrays.asList(key))
-					.getResultList();
-			result.add(r.isEmpty() ? null : r.get(0));
+		List<Configuration> result = new ArrayList<>(keys.length);
+		if (keys.length == 0) {
+			return result;
+		}
+		Map<String, Configuration> found = new HashMap<>();
+		for (Configuration c : em.createNamedQuery("getConfigurationsByKeys", Configuration.class)
+				.setParameter("keys", Arrays.asList(keys))
+				.getResultList())
+		{
+			found.put(c.getKey(), c);
+		}
+		for (String key : keys) { //list should contain value for each key
+			result.add(found.get(key));
 		}
 		return result;
 	}
@@ -177,49 +197,52 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 		return list.get(0);
 	}
 
-	public boolean getBool(String key, boolean def) {
+	private Value getValue(String key) {
+		Value v = cache.get(key);
+		if (v != null) {
+			return v;
+		}
+		// DB is queried outside of the map lock, generation check guarantees concurrent eviction will not be lost
+		final long gen = generation.get();
 		Configuration c = get(key);
-
-		if (c != null) {
-			try {
-				return c.getValueB();
-			} catch (Exception e) {
-				//no-op, parsing exception
-			}
+		v = c == null ? MISSING : new Value(c);
+		Value prev = cache.putIfAbsent(key, v);
+		if (prev != null) {
+			return prev;
+		}
+		if (gen != generation.get()) {
+			cache.remove(key, v);
 		}
-		return def;
+		return v;
 	}
 
-	public Long getLong(String key, Long def) {
-		Configuration c = get(key);
+	/**
+	 * Generation is incremented before removal: loader either sees changed
+	 * generation or its value is removed
+	 */
+	private void evictLocal(String key) {
+		generation.incrementAndGet();
+		cache.remove(key);
+	}
 
-		if (c != null) {
-			try {
-				return c.getValueN();
-			} catch (Exception e) {
-				//no-op, parsing exception
-			}
-		}
-		return def;
+	public boolean getBool(String key, boolean def) {
+		Value v = getValue(key);
+		return v.exists ? v.bool : def;
 	}
 
-	public int getInt(String key, int def) {
-		Configuration c = get(key);
+	public Long getLong(String key, Long def) {
+		Value v = getValue(key);
+		return v.num == null ? def : v.num;
+	}
 
-		if (c != null) {
-			try {
-				Long val = c.getValueN();
-				return val == null ? def : val.intValue();
-			} catch (Exception e) {
-				//no-op, parsing exception
-			}
-		}
-		return def;
+	public int getInt(String key, int def) {
+		Value v = getValue(key);
+		return v.num == null ? def : v.num.intValue();
 	}
 
 	public String getString(String key, String def) {
-		Configuration c = get(key);
-		return c != null && c.getValue() != null ? c.getValue() : def;
+		Value v = getValue(key);
+		return v.str == null ? def : v.str;
 	}
 
 	@Override
@@ -269,16 +292,80 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 	public Configuration update(Configuration entity, Long userId, boolean deleted) {
 		String key = entity.getKey();
 		String value = entity.getValue();
+		String prevKey = null;
 		if (entity.getId() == null || entity.getId().longValue() <= 0) {
 			entity.setInserted(new Date());
 			entity.setDeleted(deleted);
 			em.persist(entity);
 		} else {
+			prevKey = getKey(entity.getId());
 			entity.setUser(userDao.get(userId));
 			entity.setDeleted(deleted);
 			entity.setUpdated(new Date());
 			entity = em.merge(entity);
 		}
+		evictLocal(key);
+		afterCommit(key);
+		if (prevKey != null && !prevKey.equals(key)) {
+			// key was renamed, value of the old key should not be served from cache
+			evictLocal(prevKey);
+			afterCommit(prevKey);
+		}
+		reload(key, value);
+		return entity;
+	}
+
+	/**
+	 * @param id - id of the {@link Configuration}
+	 * @return key currently stored in DB, {@code null} if not found
+	 */
+	private String getKey(Long id) {
+		List<String> keys = em.createQuery("SELECT c.key FROM Configuration c WHERE c.id = :id", String.class)
+				.setParameter("id", id).getResultList();
+		return keys.isEmpty() ? null : keys.get(0);
+	}
+
+	/**
+	 * Evicts the key from local cache once transaction is committed
+	 * (value might be re-read by concurrent request before commit) and
+	 * notifies other cluster nodes
+	 */
+	private void afterCommit(String key) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			evict(key);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCompletion(int status) {
+				if (STATUS_COMMITTED == status) {
+					evict(key);
+				} else {
+					evictLocal(key);
+				}
+			}
+		});
+	}
+
+	private void evict(String key) {
+		evictLocal(key);
+		IApplication iapp = (IApplication)Application.get(getWicketApplicationName());
+		if (iapp != null) {
+			iapp.publishConfigUpdate(key);
+		}
+	}
+
+	/**
+	 * Should be called in case configuration was changed on other cluster node
+	 *
+	 * @param key - the key of changed {@link Configuration}
+	 */
+	public void reload(String key) {
+		evictLocal(key);
+		reload(key, getString(key, null));
+	}
+
+	private void reload(String key, String value) {
 		switch (key) {
 			case CONFIG_KEYCODE_ARRANGE:
 			case CONFIG_KEYCODE_EXCLUSIVE:
@@ -356,7 +443,6 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 				reloadLnameMinLength();
 				break;
 		}
-		return entity;
 	}
 
 	@Override
@@ -451,6 +537,11 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 	}
 
 	public void reinit() {
+		generation.incrementAndGet();
+		cache.clear();
+		for (Configuration c : em.createNamedQuery("getNondeletedConfiguration", Configuration.class).getResultList()) {
+			cache.put(c.getKey(), new Value(c));
+		}
 		reloadMaxUpload();
 		reloadCrypt();
 		setApplicationName(getString(CONFIG_APPLICATION_NAME, DEFAULT_APP_NAME));
@@ -485,4 +576,27 @@ public class ConfigurationDao implements IDataProviderDao<Configuration> {
 		}
 		return getRoomSettings();
 	}
+
+	/**
+	 * Parsed value of the {@link Configuration}
+	 */
+	private static class Value {
+		private final boolean exists;
+		private final String str;
+		private final Long num;
+		private final boolean bool;
+
+		Value(Configuration c) {
+			exists = c != null;
+			str = c == null ? null : c.getValue();
+			Long n = null;
+			try {
+				n = c == null ? null : c.getValueN();
+			} catch (Exception e) {
+				//no-op, parsing exception
+			}
+			num = n;
+			bool = c != null && c.getValueB();
+		}
+	}
 }
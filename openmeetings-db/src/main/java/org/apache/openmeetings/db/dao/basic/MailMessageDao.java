@@ -25,6 +25,7 @@ import java.util.Date;
 import java.util.List;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
 
@@ -62,6 +63,26 @@ public class MailMessageDao implements IDataProviderDao<MailMessage> {
 				.setFirstResult(start).setMaxResults(count).getResultList();
 	}
 
+	/**
+	 * Selects pending messages and marks them as being sent in single transaction,
+	 * selected rows are locked, so messages can't be claimed twice by concurrent senders
+	 *
+	 * @param count - maximum number of messages to claim
+	 * @return list of claimed messages with {@link Status#SENDING} status
+	 */
+	public List<MailMessage> claim(int count) {
+		List<MailMessage> list = em.createNamedQuery("getMailMessagesByStatus", MailMessage.class)
+				.setParameter(PARAM_STATUS, Status.NONE)
+				.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+				.setMaxResults(count).getResultList();
+		Date now = new Date();
+		for (MailMessage m : list) {
+			m.setStatus(Status.SENDING);
+			m.setUpdated(now);
+		}
+		return list;
+	}
+
 	private <T> TypedQuery<T> getQuery(boolean isCount, String search, String order, Class<T> clazz) {
 		StringBuilder sb = new StringBuilder("SELECT ");
 		sb.append(isCount ? "COUNT(m)" : "m")
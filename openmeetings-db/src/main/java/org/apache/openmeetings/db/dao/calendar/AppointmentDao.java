@@ -82,6 +82,12 @@ public class AppointmentDao {
 		return em.createNamedQuery("getAppointments", Appointment.class).getResultList();
 	}
 
+	public List<Appointment> get(int start, int count) {
+		return em.createNamedQuery("getAppointments", Appointment.class)
+				.setFirstResult(start).setMaxResults(count)
+				.getResultList();
+	}
+
 	public Appointment update(Appointment a, Long userId) {
 		return update(a, userId, true);
 	}
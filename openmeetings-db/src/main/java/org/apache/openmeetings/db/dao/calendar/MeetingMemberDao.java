@@ -48,6 +48,12 @@ public class MeetingMemberDao {
 		return em.createNamedQuery("getMeetingMembers", MeetingMember.class).getResultList();
 	}
 
+	public List<MeetingMember> getMeetingMembers(int start, int count) {
+		return em.createNamedQuery("getMeetingMembers", MeetingMember.class)
+				.setFirstResult(start).setMaxResults(count)
+				.getResultList();
+	}
+
 	public Set<Long> getMeetingMemberIdsByAppointment(Long appointmentId) {
 		log.debug("getMeetingMemberIdsByAppointment: " + appointmentId);
 
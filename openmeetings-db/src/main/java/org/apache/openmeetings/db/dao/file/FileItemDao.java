@@ -19,10 +19,17 @@
 package org.apache.openmeetings.db.dao.file;
 
 import java.io.File;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.persistence.FlushModeType;
 import javax.persistence.TypedQuery;
 
 import org.apache.openmeetings.db.entity.file.BaseFileItem;
@@ -34,6 +41,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * @author sebastianwagner
@@ -43,6 +52,9 @@ import org.springframework.transaction.annotation.Transactional;
 @Transactional
 public class FileItemDao extends BaseFileItemDao {
 	private static final Logger log = LoggerFactory.getLogger(FileItemDao.class);
+	private static final String SEPARATOR = "/";
+	private final Object pathsLock = new Object();
+	private volatile boolean pathsChecked = false;
 
 	public List<FileItem> getByRoom(Long roomId) {
 		log.debug("getByRoom roomId :: " + roomId);
@@ -119,6 +131,12 @@ public class FileItemDao extends BaseFileItemDao {
 		return em.createNamedQuery("getAllFiles", FileItem.class).getResultList();
 	}
 
+	public List<FileItem> get(int start, int count) {
+		return em.createNamedQuery("getAllFiles", FileItem.class)
+				.setFirstResult(start).setMaxResults(count)
+				.getResultList();
+	}
+
 	public void delete(String externalId, String externalType) {
 		log.debug("delete started");
 
@@ -143,18 +161,245 @@ public class FileItemDao extends BaseFileItemDao {
 	}
 
 	public FileItem update(FileItem f) {
-		return (FileItem)super._update(f);
+		return (FileItem)_update(f);
+	}
+
+	@Override
+	public BaseFileItem _update(BaseFileItem bf) {
+		if (bf instanceof FileItem) {
+			FileItem f = (FileItem)bf;
+			checkPaths();
+			return update(f, f.getId() == null ? null : getState(f.getId()));
+		}
+		return super._update(bf);
+	}
+
+	/**
+	 * Stores the item, updates sizes of its parent folders and,
+	 * in case the item was moved, the content of the folder
+	 *
+	 * @param f - item to be stored
+	 * @param prev - stored state of the item, {@code null} for new items
+	 * @return stored item
+	 */
+	private FileItem update(FileItem f, State prev) {
+		// path and size are maintained in the DB, the ones of the object might be outdated
+		if (prev == null) {
+			f.setPath(getPath(f.getParentId()));
+			f.setDiskSize(Type.Folder == f.getType() ? Long.valueOf(0) : calcSize(f));
+		} else {
+			String path = prev.path;
+			if (path == null || !Objects.equals(prev.parentId, f.getParentId())) {
+				path = getPath(f.getParentId());
+				if (path.contains(SEPARATOR + f.getId() + SEPARATOR)) {
+					log.warn("Attempt to move item {} into itself, parent {}", f.getId(), f.getParentId());
+					f.setParentId(prev.parentId);
+					f.setOwnerId(prev.ownerId);
+					f.setRoomId(prev.roomId);
+					path = prev.path;
+				}
+			}
+			f.setPath(path);
+			Long size = prev.size;
+			if (size == null && Type.Folder == f.getType()) {
+				size = fillSize(f, false);
+			}
+			f.setDiskSize(size);
+		}
+		f = (FileItem)super._update(f);
+		long size = f.isDeleted() || f.getDiskSize() == null ? 0 : f.getDiskSize();
+		if (prev == null) {
+			addSize(f.getPath(), size);
+		} else {
+			long prevSize = prev.deleted || prev.size == null ? 0 : prev.size;
+			if (Objects.equals(prev.path, f.getPath())) {
+				addSize(f.getPath(), size - prevSize);
+			} else {
+				addSize(prev.path, -prevSize);
+				addSize(f.getPath(), size);
+			}
+			if (Type.Folder == f.getType() && prev.path != null && (!prev.path.equals(f.getPath())
+					|| !Objects.equals(prev.ownerId, f.getOwnerId()) || !Objects.equals(prev.roomId, f.getRoomId())))
+			{
+				moveContent(f, prev.path + f.getId() + SEPARATOR);
+			}
+		}
+		return f;
+	}
+
+	/**
+	 * Moves the whole content of the folder with single statement
+	 *
+	 * @param f - moved folder
+	 * @param prevPrefix - previous path of the content
+	 */
+	private void moveContent(FileItem f, String prevPrefix) {
+		int count = em.createNamedQuery("moveFileContent")
+				.setParameter("prefix", prevPrefix + "%")
+				.setParameter("path", f.getPath() + f.getId() + SEPARATOR)
+				.setParameter("pos", prevPrefix.length() + 1)
+				.setParameter("ownerId", f.getOwnerId())
+				.setParameter("roomId", f.getRoomId())
+				.executeUpdate();
+		log.debug("Content of folder {} is moved, {} items", f.getId(), count);
+	}
+
+	/**
+	 * Re-calculates size of the item stored on disk, should be called
+	 * as soon as all files of the item are created
+	 *
+	 * @param f - item to be updated
+	 */
+	public void updateSize(FileItem f) {
+		if (f.getId() == null || Type.Folder == f.getType()) {
+			return;
+		}
+		State prev = getState(f.getId());
+		if (prev == null) {
+			return;
+		}
+		Long size = calcSize(f);
+		f.setDiskSize(size);
+		em.createNamedQuery("setFileDiskSize").setParameter("id", f.getId()).setParameter("size", size).executeUpdate();
+		if (!prev.deleted) {
+			addSize(prev.path, (size == null ? 0 : size) - (prev.size == null ? 0 : prev.size));
+		}
+	}
+
+	/**
+	 * Stores number of pages of the item, used while document pages are being rendered,
+	 * other properties of the item are not touched
+	 *
+	 * @param f - item to be updated
+	 */
+	public void updateCount(FileItem f) {
+		if (f.getId() == null) {
+			return;
+		}
+		em.createNamedQuery("setFileCount").setParameter("id", f.getId()).setParameter("count", f.getCount()).executeUpdate();
+	}
+
+	private State getState(Long id) {
+		List<Object[]> list = em.createNamedQuery("getFileState", Object[].class)
+				.setParameter("id", id)
+				.setFlushMode(FlushModeType.COMMIT)
+				.getResultList();
+		return list.isEmpty() ? null : new State(list.get(0));
+	}
+
+	/**
+	 * @param parentId - id of the parent folder
+	 * @return path of the item with given parent, ids of all parents separated by {@link #SEPARATOR}
+	 */
+	private String getPath(Long parentId) {
+		if (parentId == null) {
+			return SEPARATOR;
+		}
+		List<String> list = em.createNamedQuery("getFilePath", String.class)
+				.setParameter("id", parentId)
+				.getResultList();
+		String path = list.isEmpty() || list.get(0) == null ? SEPARATOR : list.get(0);
+		return path + parentId + SEPARATOR;
 	}
 
-	private void updateChilds(FileItem f) {
-		for (FileItem child : getByParent(f.getId())) {
-			child.setOwnerId(f.getOwnerId());
-			child.setRoomId(f.getRoomId());
-			update(child);
-			if (Type.Folder == f.getType()) {
-				updateChilds(child);
+	private static List<Long> getIds(String path) {
+		List<Long> ids = new ArrayList<>();
+		if (path != null) {
+			for (String id : path.split(SEPARATOR)) {
+				if (!id.isEmpty()) {
+					ids.add(Long.valueOf(id));
+				}
 			}
 		}
+		return ids;
+	}
+
+	/**
+	 * @param path - path of the item, size of the folders in the path will be updated
+	 * @param delta - change of the size
+	 */
+	private void addSize(String path, long delta) {
+		List<Long> ids = getIds(path);
+		if (ids.isEmpty() || delta == 0) {
+			return;
+		}
+		// content of deleted folder was subtracted from its parents, the walk stops at deleted folder
+		Set<Long> deleted = new HashSet<>(em.createNamedQuery("getDeletedFileIds", Long.class)
+				.setParameter("ids", ids)
+				.getResultList());
+		if (!deleted.isEmpty()) {
+			int i = ids.size() - 1;
+			while (i > 0 && !deleted.contains(ids.get(i))) {
+				--i;
+			}
+			ids = ids.subList(i, ids.size());
+		}
+		em.createNamedQuery("addFileDiskSize")
+				.setParameter("ids", ids)
+				.setParameter("delta", delta)
+				.executeUpdate();
+	}
+
+	/**
+	 * Paths of items created before paths were stored are being calculated once
+	 */
+	private void checkPaths() {
+		if (pathsChecked) {
+			return;
+		}
+		synchronized (pathsLock) {
+			if (pathsChecked) {
+				return;
+			}
+			List<Object[]> list = em.createNamedQuery("getFilesWithoutPath", Object[].class).getResultList();
+			if (list.isEmpty()) {
+				pathsChecked = true;
+				return;
+			}
+			log.info("Calculating paths of {} file items", list.size());
+			Map<Long, Long> parents = new HashMap<>();
+			for (Object[] r : list) {
+				parents.put((Long)r[0], (Long)r[1]);
+			}
+			Map<Long, String> paths = new HashMap<>();
+			for (Long id : parents.keySet()) {
+				em.createNamedQuery("setFilePath")
+						.setParameter("id", id)
+						.setParameter("path", calcPath(id, parents, paths))
+						.executeUpdate();
+			}
+		}
+		// paths are checked only if stored, in case of rollback next call will calculate them again
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					if (STATUS_COMMITTED == status) {
+						pathsChecked = true;
+					}
+				}
+			});
+		}
+	}
+
+	private String calcPath(Long id, Map<Long, Long> parents, Map<Long, String> paths) {
+		String path = paths.get(id);
+		if (path == null) {
+			Long parentId = parents.get(id);
+			if (parentId == null) {
+				path = SEPARATOR;
+			} else if (paths.containsKey(parentId)) {
+				// path of the parent is calculated, but not yet stored
+				path = paths.get(parentId) + parentId + SEPARATOR;
+			} else if (parents.containsKey(parentId)) {
+				paths.put(id, SEPARATOR); // guard against cycles in broken data
+				path = calcPath(parentId, parents, paths) + parentId + SEPARATOR;
+			} else {
+				path = getPath(parentId);
+			}
+			paths.put(id, path);
+		}
+		return path;
 	}
 
 	/**
@@ -172,6 +417,9 @@ public class FileItemDao extends BaseFileItemDao {
 		if (f == null) {
 			return null;
 		}
+		checkPaths();
+		// the state need to be read before the object is modified
+		State prev = getState(f.getId());
 
 		if (parentId < 0) {
 			if (parentId == -1) {
@@ -188,10 +436,7 @@ public class FileItemDao extends BaseFileItemDao {
 			f.setParentId(parentId);
 			f.setOwnerId(null);
 		}
-		if (Type.Folder == f.getType()) {
-			updateChilds(f);
-		}
-		return update(f);
+		return update(f, prev);
 	}
 
 	public List<BaseFileItem> getAllRoomFiles(String search, int start, int count, Long roomId/*, Long ownerId*/, List<Group> groups) {
@@ -212,11 +457,26 @@ public class FileItemDao extends BaseFileItemDao {
 	}
 
 	public long getOwnSize(Long userId) {
-		return getSize(getByOwner(userId));
+		Object[] r = em.createNamedQuery("getFilesSizeByOwner", Object[].class)
+				.setParameter("ownerId", userId)
+				.getSingleResult();
+		return isComplete(r) ? getSum(r) : getSize(getByOwner(userId));
 	}
 
 	public long getRoomSize(Long roomId) {
-		return getSize(getByRoom(roomId));
+		Object[] r = em.createNamedQuery("getFilesSizeByRoom", Object[].class)
+				.setParameter("roomId", roomId)
+				.getSingleResult();
+		return isComplete(r) ? getSum(r) : getSize(getByRoom(roomId));
+	}
+
+	// all items have their size calculated
+	private static boolean isComplete(Object[] r) {
+		return ((Number)r[1]).longValue() == ((Number)r[2]).longValue();
+	}
+
+	private static long getSum(Object[] r) {
+		return r[0] == null ? 0 : ((Number)r[0]).longValue();
 	}
 
 	public long getSize(List<FileItem> list) {
@@ -227,33 +487,87 @@ public class FileItemDao extends BaseFileItemDao {
 		return size;
 	}
 
+	/**
+	 * @param f - item to get size of
+	 * @return stored size of the item, for folders: total size of the content,
+	 * size is calculated and stored if missing (items created before size was stored)
+	 */
 	public long getSize(FileItem f) {
-		long size = 0;
-		try {
-			if (f.exists()) {
-				File base = OmFileHelper.getUploadFilesDir();
-				switch (f.getType()) {
-					case Image:
-					case Presentation:
-					case Video:
-						File tFolder = new File(base, f.getHash());
-
-						if (tFolder.exists()) {
-							size += OmFileHelper.getSize(tFolder);
-						}
-						break;
-					default:
-						break;
-				}
+		Long size = f.getDiskSize();
+		if (size == null) {
+			size = fillSize(f, true);
+		}
+		return size == null ? 0 : size;
+	}
+
+	/**
+	 * Calculates and stores missing size of the item
+	 *
+	 * @param f - the item
+	 * @param propagate - if size of the file should be added to parent folders,
+	 * sizes of folders are never propagated since the content is already accounted
+	 * @return calculated size
+	 */
+	private Long fillSize(FileItem f, boolean propagate) {
+		Long size;
+		if (Type.Folder == f.getType()) {
+			long total = 0;
+			for (FileItem child : getByParent(f.getId())) {
+				total += getSize(child);
 			}
-			if (Type.Folder == f.getType()) {
-				for (FileItem child : getByParent(f.getId())) {
-					size += getSize(child);
-				}
+			size = total;
+		} else {
+			size = calcSize(f);
+			if (size == null) {
+				return null;
+			}
+		}
+		f.setDiskSize(size);
+		if (f.getId() != null) {
+			em.createNamedQuery("setFileDiskSize").setParameter("id", f.getId()).setParameter("size", size).executeUpdate();
+			if (propagate && Type.Folder != f.getType() && !f.isDeleted()) {
+				addSize(f.getPath(), size);
 			}
-		} catch (Exception err) {
-			log.error("[getSize] ", err);
 		}
 		return size;
 	}
+
+	/**
+	 * @param f - the item
+	 * @return size of the files of the item on disk or {@code null} if files are not (yet) exist
+	 */
+	private static Long calcSize(FileItem f) {
+		try {
+			switch (f.getType()) {
+				case Image:
+				case Presentation:
+				case Video:
+					File tFolder = new File(OmFileHelper.getUploadFilesDir(), f.getHash());
+					return tFolder.exists() ? OmFileHelper.getSize(tFolder) : null;
+				default:
+					return Long.valueOf(0);
+			}
+		} catch (Exception err) {
+			log.error("[calcSize] ", err);
+		}
+		return null;
+	}
+
+	private static class State {
+		private final Long parentId;
+		private final Long size;
+		private final boolean deleted;
+		private final String path;
+		private final Long ownerId;
+		private final Long roomId;
+
+		State(Object[] r) {
+			parentId = (Long)r[0];
+			size = (Long)r[1];
+			deleted = Boolean.TRUE.equals(r[2]);
+			path = (String)r[3];
+			ownerId = (Long)r[4];
+			roomId = (Long)r[5];
+		}
+	}
 }
@@ -40,13 +40,11 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.collections4.CollectionUtils;
 import org.apache.openmeetings.db.dao.IDataProviderDao;
 import org.apache.openmeetings.db.entity.label.StringLabel;
 import org.apache.openmeetings.util.OmFileHelper;
 import org.apache.openmeetings.util.XmlExport;
 import org.apache.wicket.extensions.markup.html.repeater.util.SortParam;
-import org.apache.wicket.util.string.Strings;
 import org.dom4j.Document;
 import org.dom4j.Element;
 import org.dom4j.io.SAXReader;
@@ -67,7 +65,8 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 	public static final String APP_RESOURCES_EN = "Application.properties.xml";
 	public static final String APP_RESOURCES = "Application_%s.properties.xml";
 	private static final LinkedHashMap<Long, Locale> languages = new LinkedHashMap<>();
-	private static final ConcurrentHashMap<Locale, List<StringLabel>> labelCache = new ConcurrentHashMap<>();
+	private static final Map<Locale, Long> languageIds = new ConcurrentHashMap<>();
+	private static final ConcurrentHashMap<Locale, LabelIndex> labelCache = new ConcurrentHashMap<>();
 	private static final Set<String> keys = new HashSet<>();
 	private static Class<?> appClass = null;
 
@@ -86,8 +85,9 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 			id = e.getKey();
 		}
 		languages.put(id + 1, l);
+		languageIds.put(l, id + 1);
 		storeLanguages();
-		labelCache.put(l, new ArrayList<StringLabel>());
+		labelCache.put(l, new LabelIndex(new ArrayList<StringLabel>()));
 	}
 
 	public static String getString(String key, long langId) {
@@ -105,6 +105,7 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 			Document document = reader.read(getLangFile());
 			Element root = document.getRootElement();
 			languages.clear();
+			languageIds.clear();
 			for (Iterator<Element> it = root.elementIterator("lang"); it.hasNext();) {
 				Element item = it.next();
 				Long id = Long.valueOf(item.attributeValue("id"));
@@ -112,7 +113,9 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 				if (id == 3L) {
 					continue;
 				}
-				languages.put(id, Locale.forLanguageTag(code));
+				Locale l = Locale.forLanguageTag(code);
+				languages.put(id, l);
+				languageIds.putIfAbsent(l, id);
 			}
 		} catch (Exception e) {
 			log.error("Error while building language map");
@@ -130,7 +133,7 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 	private static void storeLabels(Locale l) throws Exception {
 		Document d = XmlExport.createDocument();
 		Element r = XmlExport.createRoot(d);
-		List<StringLabel> labels = new ArrayList<>(labelCache.get(l));
+		List<StringLabel> labels = new ArrayList<>(getIndex(l).values());
 		Collections.sort(labels, new LabelComparator());
 		for (StringLabel sl : labels) {
 			r.addElement(ENTRY_ELEMENT).addAttribute(KEY_ATTR, sl.getKey()).addCDATA(sl.getValue());
@@ -147,7 +150,7 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 		if (!f.exists()) {
 			f.createNewFile();
 		}
-		labelCache.put(l, labels);
+		labelCache.put(l, new LabelIndex(labels));
 		storeLabels(l);
 	}
 
@@ -169,16 +172,8 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 		return labels;
 	}
 
-	private static List<StringLabel> getLabels(Locale l, final String search) {
-		if (!labelCache.containsKey(l)) {
-			List<StringLabel> ll = getLabels(l);
-			labelCache.putIfAbsent(l, ll);
-		}
-		List<StringLabel> result = new ArrayList<>(labelCache.containsKey(l) ? labelCache.get(l) : new ArrayList<StringLabel>());
-		if (!Strings.isEmpty(search)) {
-			CollectionUtils.filter(result, o -> o != null && (o.getKey().contains(search) || o.getValue().contains(search)));
-		}
-		return result;
+	private static LabelIndex getIndex(Locale l) {
+		return labelCache.computeIfAbsent(l, k -> new LabelIndex(getLabels(k)));
 	}
 
 	@Override
@@ -206,14 +201,8 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 	}
 
 	public static Long getLanguage(Locale loc, Long def) {
-		if (loc != null) {
-			for (Map.Entry<Long, Locale> e : languages.entrySet()) {
-				if (loc.equals(e.getValue())) {
-					return e.getKey();
-				}
-			}
-		}
-		return def;
+		Long id = loc == null ? null : languageIds.get(loc);
+		return id == null ? def : id;
 	}
 
 	public static Set<Map.Entry<Long, Locale>> getLanguages() {
@@ -221,11 +210,7 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 	}
 
 	public static List<StringLabel> get(Locale l, final String search, int start, int count, final SortParam<String> sort) {
-		List<StringLabel> result = getLabels(l, search);
-		if (sort != null) {
-			Collections.sort(result, new LabelComparator(sort));
-		}
-		return result.subList(start, start + count > result.size() ? result.size() : start + count);
+		return getIndex(l).get(search, start, count, sort);
 	}
 
 	@Override
@@ -239,7 +224,7 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 	}
 
 	public static long count(Locale l, final String search) {
-		return getLabels(l, search).size();
+		return getIndex(l).count(search);
 	}
 
 	@Override
@@ -248,11 +233,11 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 	}
 
 	public static StringLabel update(Locale l, StringLabel entity) throws Exception {
-		List<StringLabel> labels = labelCache.get(l);
+		LabelIndex labels = getIndex(l);
 		if (!labels.contains(entity)) {
-			labels.add(entity);
 			keys.add(entity.getKey());
 		}
+		labels.put(entity); //value might be changed
 		storeLabels(l);
 		return entity;
 	}
@@ -263,9 +248,7 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 	}
 
 	public static void delete(Locale l, StringLabel entity) throws Exception {
-		List<StringLabel> labels = labelCache.get(l);
-		if (labels.contains(entity)) {
-			labels.remove(entity);
+		if (getIndex(l).remove(entity)) {
 			keys.remove(entity.getKey());
 			storeLabels(l);
 		}
@@ -278,6 +261,7 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 				break;
 			}
 		}
+		languageIds.remove(l);
 		labelCache.remove(l);
 		try {
 			URL u = appClass.getResource(getLabelFileName(l));
@@ -292,12 +276,13 @@ public class LabelDao implements IDataProviderDao<StringLabel>{
 		}
 	}
 
-	private static class LabelComparator implements Comparator<StringLabel>, Serializable {
+	static class LabelComparator implements Comparator<StringLabel>, Serializable {
 		private static final long serialVersionUID = 1L;
+		static final SortParam<String> DEFAULT_SORT = new SortParam<>(KEY_ATTR, true);
 		final SortParam<String> sort;
 
 		LabelComparator() {
-			this.sort = new SortParam<>(KEY_ATTR, true);
+			this.sort = DEFAULT_SORT;
 		}
 
 		LabelComparator(SortParam<String> sort) {
@@ -0,0 +1,216 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dao.label;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.openmeetings.db.dao.label.LabelDao.LabelComparator;
+import org.apache.openmeetings.db.entity.label.StringLabel;
+import org.apache.wicket.extensions.markup.html.repeater.util.SortParam;
+import org.apache.wicket.util.string.Strings;
+
+/**
+ * Labels of single locale indexed by key, sorted by key and value,
+ * substring search is performed using trigram index of keys and values
+ *
+ * @author solomax
+ *
+ */
+class LabelIndex {
+	private static final int GRAM = 3;
+	private final Map<String, StringLabel> labels = new ConcurrentHashMap<>();
+	// trigram -> keys of labels containing it in key or value, might be outdated, results are verified
+	private final Map<String, Set<String>> grams = new ConcurrentHashMap<>();
+	// replaced on change, so sorting started before the change is not cached in the new map
+	private volatile Map<SortParam<String>, StringLabel[]> sorted = new ConcurrentHashMap<>();
+	private volatile Search last;
+	// incremented on every change, search result is cached only if it was built within the same generation
+	private volatile long generation;
+
+	LabelIndex(Collection<StringLabel> list) {
+		for (StringLabel sl : list) {
+			labels.put(sl.getKey(), sl);
+			index(sl);
+		}
+	}
+
+	private static Set<String> grams(String str) {
+		Set<String> result = new HashSet<>();
+		if (str != null) {
+			for (int i = 0; i + GRAM <= str.length(); ++i) {
+				result.add(str.substring(i, i + GRAM));
+			}
+		}
+		return result;
+	}
+
+	private void index(StringLabel sl) {
+		Set<String> g = grams(sl.getKey());
+		g.addAll(grams(sl.getValue()));
+		for (String gram : g) {
+			grams.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(sl.getKey());
+		}
+	}
+
+	private void changed() {
+		++generation;
+		sorted = new ConcurrentHashMap<>();
+		last = null;
+	}
+
+	Collection<StringLabel> values() {
+		return labels.values();
+	}
+
+	boolean contains(StringLabel sl) {
+		return labels.containsKey(sl.getKey());
+	}
+
+	synchronized void put(StringLabel sl) {
+		labels.put(sl.getKey(), sl);
+		index(sl);
+		changed();
+	}
+
+	synchronized boolean remove(StringLabel sl) {
+		StringLabel prev = labels.remove(sl.getKey());
+		if (prev != null) {
+			Set<String> g = grams(prev.getKey());
+			g.addAll(grams(prev.getValue()));
+			for (String gram : g) {
+				Set<String> set = grams.get(gram);
+				if (set != null) {
+					set.remove(prev.getKey());
+				}
+			}
+			changed();
+		}
+		return prev != null;
+	}
+
+	private static boolean matches(StringLabel sl, String search) {
+		return sl != null && (sl.getKey().contains(search) || (sl.getValue() != null && sl.getValue().contains(search)));
+	}
+
+	/**
+	 * @return candidates for the search, the smallest set of given
+	 * search trigrams, or results of previous narrower search
+	 */
+	private Collection<StringLabel> candidates(String search, long gen) {
+		Search prev = last;
+		if (prev != null && prev.generation == gen && search.contains(prev.search)) {
+			return prev.found;
+		}
+		if (search.length() < GRAM) {
+			return labels.values();
+		}
+		Set<String> keys = null;
+		for (String gram : grams(search)) {
+			Set<String> set = grams.get(gram);
+			if (set == null) {
+				return Collections.emptySet();
+			}
+			if (keys == null || set.size() < keys.size()) {
+				keys = set;
+			}
+		}
+		List<StringLabel> result = new ArrayList<>(keys.size());
+		for (String key : keys) {
+			StringLabel sl = labels.get(key);
+			if (sl != null) {
+				result.add(sl);
+			}
+		}
+		return result;
+	}
+
+	private Search search(String search) {
+		final long gen = generation;
+		Search prev = last;
+		if (prev != null && prev.generation == gen && prev.search.equals(search)) {
+			return prev;
+		}
+		List<StringLabel> found = new ArrayList<>();
+		for (StringLabel sl : candidates(search, gen)) {
+			if (matches(sl, search)) {
+				found.add(sl);
+			}
+		}
+		Search s = new Search(search, found, gen);
+		synchronized (this) {
+			// labels might be changed while searching, stale result should not be cached
+			if (generation == gen) {
+				last = s;
+			}
+		}
+		return s;
+	}
+
+	private StringLabel[] sorted(SortParam<String> sort) {
+		return sorted.computeIfAbsent(sort, k -> {
+			StringLabel[] arr = labels.values().toArray(new StringLabel[0]);
+			Arrays.sort(arr, new LabelComparator(k));
+			return arr;
+		});
+	}
+
+	long count(String search) {
+		return Strings.isEmpty(search) ? labels.size() : search(search).found.size();
+	}
+
+	List<StringLabel> get(String search, int start, int count, SortParam<String> sort) {
+		if (Strings.isEmpty(search)) {
+			StringLabel[] arr = sorted(sort == null ? LabelComparator.DEFAULT_SORT : sort);
+			return Collections.unmodifiableList(Arrays.asList(arr)
+					.subList(Math.min(start, arr.length), Math.min(start + count, arr.length)));
+		}
+		Search s = search(search);
+		List<StringLabel> result = s.found;
+		if (sort != null) {
+			result = s.sorted.computeIfAbsent(sort, k -> {
+				List<StringLabel> list = new ArrayList<>(s.found);
+				list.sort(new LabelComparator(k));
+				return list;
+			});
+		}
+		return Collections.unmodifiableList(result
+				.subList(Math.min(start, result.size()), Math.min(start + count, result.size())));
+	}
+
+	private static class Search {
+		private final String search;
+		private final List<StringLabel> found;
+		private final long generation;
+		private final Map<SortParam<String>, List<StringLabel>> sorted = new ConcurrentHashMap<>();
+
+		Search(String search, List<StringLabel> found, long generation) {
+			this.search = search;
+			this.found = found;
+			this.generation = generation;
+		}
+	}
+}
@@ -18,23 +18,37 @@
  */
 package org.apache.openmeetings.db.dao.server;
 
+import static org.apache.openmeetings.util.OpenmeetingsVariables.getWicketApplicationName;
+
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
 
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.jdbc.sql.SQLServerDictionary;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactory;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerSPI;
+import org.apache.openjpa.persistence.OpenJPAPersistence;
+import org.apache.openmeetings.IApplication;
 import org.apache.openmeetings.db.entity.room.StreamClient;
 import org.apache.openmeetings.db.entity.server.Sessiondata;
+import org.apache.openmeetings.db.manager.ISessionManager;
 import org.apache.openmeetings.db.manager.IStreamClientManager;
+import org.apache.wicket.Application;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  *
@@ -50,6 +64,11 @@ public class SessiondataDao {
 
 	@Autowired
 	private IStreamClientManager streamClientManager;
+	@Autowired
+	private ISessionManager sessionManager;
+	// id -> last refresh time, accumulated by check and written by flushRefreshed
+	private final Map<Long, Date> refreshed = new ConcurrentHashMap<>();
+	private volatile Boolean mssql;
 
 	private static Sessiondata newInstance() {
 		log.debug("startsession :: startsession");
@@ -91,7 +110,7 @@ public class SessiondataDao {
 	}
 
 	/**
-	 * Serches {@link Sessiondata} object by sessionId
+	 * Serches {@link Sessiondata} object by sessionId, cached object is returned if available
 	 *
 	 * @param sid - sessionId
 	 * @return {@link Sessiondata} with sessionId == SID, or null if not found
@@ -100,21 +119,41 @@ public class SessiondataDao {
 		if (sid == null) {
 			return null;
 		}
-		//MSSql find nothing in case SID is passed as-is without wildcarting '%SID%'
+		Sessiondata sd = sessionManager.get(sid);
+		if (sd != null) {
+			return sd;
+		}
+		//DB is only queried in case of cache miss, exact match is able to use session_id_idx
 		List<Sessiondata> sessions = em.createNamedQuery("getSessionById", Sessiondata.class)
-				.setParameter("sessionId", String.format("%%%s%%", sid)).getResultList();
-
-		if (sessions == null || sessions.isEmpty()) {
-			return null;
+				.setParameter("sessionId", sid).getResultList();
+		if (sessions.isEmpty() && isMssql()) {
+			//MSSql might find nothing in case SID is passed as-is without wildcarting '%SID%'
+			sessions = em.createNamedQuery("getSessionByIdLike", Sessiondata.class)
+					.setParameter("sessionId", String.format("%%%s%%", sid)).getResultList();
+		}
+		for (Sessiondata s : sessions) {
+			if (sid.equals(s.getSessionId())) {
+				sd = s;
+				break;
+			}
 		}
-		Sessiondata sd = sessions.get(0);
-		if (sd == null || sd.getUserId() == null || sd.getUserId().equals(new Long(0)) || !sid.equals(sd.getSessionId())) {
+		if (sd == null || sd.getUserId() == null || sd.getUserId().equals(new Long(0))) {
 			return null;
 		}
+		sessionManager.put(sd);
 		return sd;
 	}
 
+	private boolean isMssql() {
+		if (mssql == null) {
+			JDBCConfiguration cfg = (JDBCConfiguration)((OpenJPAEntityManagerSPI)OpenJPAPersistence.cast(em)).getConfiguration();
+			mssql = cfg.getDBDictionaryInstance() instanceof SQLServerDictionary;
+		}
+		return mssql;
+	}
+
 	/**
+	 * Refresh time is stored in memory and written to the database by {@link #flushRefreshed()}
 	 *
 	 * @param sid - sid of {@link Sessiondata} to check
 	 * @return - {@link Sessiondata} for given sid or new {@link Sessiondata}
@@ -125,7 +164,76 @@ public class SessiondataDao {
 		if (sd == null) {
 			return newInstance();
 		}
-		return update(sd);
+		Date now = new Date();
+		sd.setRefreshed(now);
+		refreshed.put(sd.getId(), now);
+		return sd;
+	}
+
+	/**
+	 * Writes refresh times accumulated by {@link #check(String)} to the database
+	 */
+	public void flushRefreshed() {
+		if (refreshed.isEmpty()) {
+			return;
+		}
+		List<Long> flushed = new ArrayList<>();
+		for (Long id : refreshed.keySet()) {
+			Date date = refreshed.remove(id);
+			if (date != null && em.createNamedQuery("updateSessionRefreshed")
+						.setParameter("refreshed", date)
+						.setParameter("id", id)
+						.executeUpdate() > 0)
+			{
+				flushed.add(id);
+			}
+		}
+		log.trace("flushRefreshed: {}", flushed.size());
+		if (!flushed.isEmpty()) {
+			evictRefreshed(flushed, true);
+		}
+	}
+
+	/**
+	 * Should be called in case refresh times were written on other cluster node
+	 *
+	 * @param ids - ids of refreshed sessions
+	 */
+	public void evictRefreshed(List<Long> ids) {
+		evictRefreshed(ids, false);
+	}
+
+	/**
+	 * Refresh times are written by bulk update bypassing JPA caches: sessions are evicted
+	 * from the data cache, query results over sessions from the query cache,
+	 * other cluster nodes are notified after commit
+	 */
+	private void evictRefreshed(List<Long> ids, boolean publish) {
+		OpenJPAEntityManagerFactory emf = OpenJPAPersistence.cast(em).getEntityManagerFactory();
+		emf.getStoreCache().evictAll(Sessiondata.class, ids);
+		emf.getQueryResultCache().evictAll(Sessiondata.class);
+		if (!publish) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			publishSessionsRefreshed(ids);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCompletion(int status) {
+				if (STATUS_COMMITTED == status) {
+					publishSessionsRefreshed(ids);
+				}
+			}
+		});
+	}
+
+	private static void publishSessionsRefreshed(List<Long> ids) {
+		IApplication iapp = (IApplication)Application.get(getWicketApplicationName());
+		if (iapp != null) {
+			iapp.publishSessionsRefreshed(ids);
+		}
 	}
 
 	/**
@@ -151,12 +259,12 @@ public class SessiondataDao {
 	public void clearSessionTable(long timeout) {
 		try {
 			log.trace("****** clearSessionTable: ");
+			flushRefreshed();
 			List<Sessiondata> l = getSessionToDelete(new Date(System.currentTimeMillis() - timeout));
 			if (!l.isEmpty()) {
 				log.debug("clearSessionTable: {}", l.size());
 				for (Sessiondata sData : l) {
-					sData = em.find(Sessiondata.class, sData.getId());
-					em.remove(sData);
+					remove(sData.getId());
 				}
 			}
 		} catch (Exception err) {
@@ -179,9 +287,9 @@ public class SessiondataDao {
 				}
 				String sid = aux.substring(start, end);
 
-				Sessiondata sData = check(sid);
+				Sessiondata sData = find(sid);
 				if (sData != null) {
-					em.remove(sData);
+					remove(sData.getId());
 				}
 			}
 		} catch (Exception err) {
@@ -189,14 +297,41 @@ public class SessiondataDao {
 		}
 	}
 
+	private void remove(Long id) {
+		refreshed.remove(id);
+		Sessiondata sd = em.find(Sessiondata.class, id);
+		if (sd != null) {
+			em.remove(sd);
+			evict(sd.getSessionId());
+		}
+	}
+
 	public Sessiondata update(Sessiondata sd) {
 		sd.setRefreshed(new Date());
 
 		if (sd.getId() == null) {
 			em.persist(sd);
 		} else {
+			refreshed.remove(sd.getId());
 			sd = em.merge(sd);
 		}
+		evict(sd.getSessionId());
 		return sd;
 	}
+
+	/**
+	 * Removes session from the cache now and once transaction is completed
+	 * (stale object might be cached by concurrent request before commit)
+	 */
+	private void evict(String sid) {
+		sessionManager.remove(sid);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					sessionManager.remove(sid);
+				}
+			});
+		}
+	}
 }
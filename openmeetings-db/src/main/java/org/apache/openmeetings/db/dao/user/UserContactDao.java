@@ -127,6 +127,12 @@ public class UserContactDao {
 		return em.createNamedQuery("getUserContacts", UserContact.class).getResultList();
 	}
 
+	public List<UserContact> get(int start, int count) {
+		return em.createNamedQuery("getUserContacts", UserContact.class)
+				.setFirstResult(start).setMaxResults(count)
+				.getResultList();
+	}
+
 	public Long updateContactStatus(Long id, boolean pending) {
 		try {
 			UserContact uc = get(id);
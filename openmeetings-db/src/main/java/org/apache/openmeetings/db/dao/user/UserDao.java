@@ -24,6 +24,7 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.PARAM_USER_ID;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getDefaultLang;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getDefaultTimezone;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getMinLoginLength;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.getWicketApplicationName;
 
 import java.io.File;
 import java.security.NoSuchAlgorithmException;
@@ -37,6 +38,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
@@ -46,6 +48,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.openjpa.persistence.OpenJPAEntityManager;
 import org.apache.openjpa.persistence.OpenJPAPersistence;
 import org.apache.openjpa.persistence.OpenJPAQuery;
+import org.apache.openmeetings.IApplication;
 import org.apache.openmeetings.db.dao.IGroupAdminDataProviderDao;
 import org.apache.openmeetings.db.dao.label.LabelDao;
 import org.apache.openmeetings.db.entity.user.Address;
@@ -60,11 +63,14 @@ import org.apache.openmeetings.util.OmException;
 import org.apache.openmeetings.util.OmFileHelper;
 import org.apache.openmeetings.util.crypt.CryptProvider;
 import org.apache.openmeetings.util.crypt.ICrypt;
+import org.apache.wicket.Application;
 import org.apache.wicket.util.string.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * CRUD operations for {@link User}
@@ -80,6 +86,10 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 
 	@PersistenceContext
 	private EntityManager em;
+	// userId -> rights bitmask, see AuthLevelUtil.toMask
+	private final Map<Long, Long> rightsCache = new ConcurrentHashMap<>();
+	// userId -> profile picture, evicted together with rights
+	private final Map<Long, Picture> pictureCache = new ConcurrentHashMap<>();
 
 	public static Set<Right> getDefaultRights() {
 		Set<Right> rights = new HashSet<>();
@@ -251,6 +261,7 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 			u.setUpdated(new Date());
 			u = em.merge(u);
 		}
+		evictRights(u.getId(), true);
 		return u;
 	}
 
@@ -384,6 +395,10 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 	}
 
 	public List<User> getAllBackupUsers() {
+		return getAllBackupUsers(0, Integer.MAX_VALUE);
+	}
+
+	public List<User> getAllBackupUsers(int start, int count) {
 		OpenJPAEntityManager oem = OpenJPAPersistence.cast(em);
 		boolean qrce = oem.getFetchPlan().getQueryResultCacheEnabled();
 		try {
@@ -392,6 +407,8 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 			@SuppressWarnings("unchecked")
 			OpenJPAQuery<User> kq = OpenJPAPersistence.cast(q);
 			kq.getFetchPlan().addFetchGroups("backupexport", "groupUsers");
+			kq.setFirstResult(start);
+			kq.setMaxResults(count);
 			return kq.getResultList();
 		} finally {
 			oem.getFetchPlan().setQueryResultCacheEnabled(qrce);
@@ -619,22 +636,90 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 	}
 
 	public Set<Right> getRights(Long id) {
-		Set<Right> rights = new HashSet<>();
+		return AuthLevelUtil.toRights(getRightsMask(id));
+	}
+
+	/**
+	 * @param id - id of the user
+	 * @param level - right to be checked
+	 * @return {@code true} if user has the right, cached rights are used
+	 */
+	public boolean hasRight(Long id, Right level) {
+		return AuthLevelUtil.check(getRightsMask(id), level);
+	}
 
+	private long getRightsMask(Long id) {
 		if (id == null) {
-			return rights;
+			return 0;
 		}
 		// For direct access of linked users
 		if (id.longValue() < 0) {
-			rights.add(Right.Room);
-			return rights;
+			return AuthLevelUtil.toMask(Right.Room);
 		}
+		return rightsCache.computeIfAbsent(id, k -> {
+			User u = get(k);
+			return u == null ? 0L : AuthLevelUtil.toMask(u.getRights());
+		});
+	}
 
-		User u = get(id);
-		if (u != null) {
-			return u.getRights();
+	/**
+	 * @param id - id of the user
+	 * @return profile picture uri and version of the user, cached value is used
+	 */
+	public Picture getPicture(Long id) {
+		if (id == null) {
+			return Picture.NONE;
+		}
+		return pictureCache.computeIfAbsent(id, k -> {
+			User u = get(k);
+			return u == null ? Picture.NONE : new Picture(u);
+		});
+	}
+
+	/**
+	 * Should be called in case user was changed on other cluster node
+	 *
+	 * @param id - id of the changed user
+	 */
+	public void evictRights(Long id) {
+		evictRights(id, false);
+	}
+
+	/**
+	 * Rights are evicted now and once transaction is completed
+	 * (stale rights might be cached by concurrent request before commit),
+	 * other cluster nodes are notified after commit
+	 */
+	private void evictRights(Long id, boolean publish) {
+		if (id == null) {
+			return;
+		}
+		rightsCache.remove(id);
+		pictureCache.remove(id);
+		if (!publish) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			publishRightsUpdate(id);
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCompletion(int status) {
+				rightsCache.remove(id);
+				pictureCache.remove(id);
+				if (STATUS_COMMITTED == status) {
+					publishRightsUpdate(id);
+				}
+			}
+		});
+	}
+
+	private static void publishRightsUpdate(Long id) {
+		IApplication iapp = (IApplication)Application.get(getWicketApplicationName());
+		if (iapp != null) {
+			iapp.publishRightsUpdate(id);
 		}
-		return rights;
 	}
 
 	/**
@@ -683,4 +768,39 @@ public class UserDao implements IGroupAdminDataProviderDao<User> {
 				.setParameter("date", new Date(System.currentTimeMillis() - ttl))
 				.getResultList();
 	}
+
+	/**
+	 * Profile picture of the user, version is changed on every update of the user
+	 */
+	public static class Picture {
+		public static final Picture NONE = new Picture(null, 0);
+		private final String uri;
+		private final long version;
+
+		Picture(User u) {
+			this(u.getPictureuri(), getVersion(u));
+		}
+
+		private Picture(String uri, long version) {
+			this.uri = uri;
+			this.version = version;
+		}
+
+		public String getUri() {
+			return uri;
+		}
+
+		public long getVersion() {
+			return version;
+		}
+
+		/**
+		 * @param u - the user
+		 * @return version of the picture, time of the last update of the user
+		 */
+		public static long getVersion(User u) {
+			Date d = u.getUpdated() == null ? u.getInserted() : u.getUpdated();
+			return d == null ? 0 : d.getTime();
+		}
+	}
 }
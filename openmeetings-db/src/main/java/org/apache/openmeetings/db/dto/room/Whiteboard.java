@@ -26,13 +26,18 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.openmeetings.db.entity.file.FileItem;
 import org.apache.openmeetings.util.NullStringer;
@@ -62,7 +67,13 @@ public class Whiteboard implements Serializable {
 	private ZoomMode zoomMode = ZoomMode.pageWidth;
 	private int width = DEFAULT_WIDTH;
 	private int height = DEFAULT_HEIGHT;
-	private Map<String, String> roomItems = Collections.synchronizedMap(new LinkedHashMap<>());
+	// items by uid, items in order of creation, uids by slide (Presentations are not included), uids by file type, uids by file id
+	private final Map<String, Item> roomItems = new ConcurrentHashMap<>();
+	private final NavigableMap<Long, Item> ordered = new ConcurrentSkipListMap<>();
+	private final Map<Integer, Set<String>> bySlide = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> byFileType = new ConcurrentHashMap<>();
+	private final Map<Long, Set<String>> byFileId = new ConcurrentHashMap<>();
+	private final AtomicLong itemSeq = new AtomicLong();
 	private Date created = new Date();
 	private int slide = 0;
 	private String name;
@@ -108,49 +119,188 @@ public class Whiteboard implements Serializable {
 		this.zoomMode = zoomMode;
 	}
 
-	public void clear() {
+	public synchronized void clear() {
 		roomItems.clear();
+		ordered.clear();
+		bySlide.clear();
+		byFileType.clear();
+		byFileId.clear();
 		width = DEFAULT_WIDTH;
 		height = DEFAULT_HEIGHT;
 	}
 
 	public Whiteboard put(String uid, JSONObject obj) {
-		roomItems.put(uid, obj.toString(new NullStringer()));
+		add(new Item(uid, obj));
 		return this;
 	}
 
+	/**
+	 * @param uid - uid of the object
+	 * @return copy of the object, can be modified by the caller
+	 */
 	public JSONObject get(String uid) {
-		String obj = roomItems.get(uid);
-		return obj == null ? null : new JSONObject(obj);
+		Item item = roomItems.get(uid);
+		return item == null ? null : new JSONObject(item.json);
+	}
+
+	String getRaw(String uid) {
+		Item item = roomItems.get(uid);
+		return item == null ? null : item.json;
+	}
+
+	void putRaw(String uid, String obj) {
+		if (obj == null) {
+			remove(uid);
+		} else {
+			add(new Item(uid, new JSONObject(obj)));
+		}
+	}
+
+	/**
+	 * @return items in order of creation, used by {@link WhiteboardsSerializer}
+	 */
+	Collection<Item> items() {
+		return ordered.values();
 	}
 
 	public boolean contains(String uid) {
 		return roomItems.containsKey(uid);
 	}
 
+	/**
+	 * @param uid - uid of the object
+	 * @param fileId - id of the file
+	 * @return {@code true} if object with given uid refers to the file, JSON is not parsed
+	 */
+	public boolean containsFile(String uid, long fileId) {
+		Item item = roomItems.get(uid);
+		return item != null && item.fileId != null && item.fileId == fileId;
+	}
+
+	/**
+	 * @param fileId - id of the file
+	 * @return {@code true} if any object refers to the file
+	 */
+	public boolean containsFile(long fileId) {
+		Set<String> uids = byFileId.get(fileId);
+		return uids != null && !uids.isEmpty();
+	}
+
+	/**
+	 * @param fileId - id of the file
+	 * @return uids of objects referring to the file
+	 */
+	public Set<String> getFileUids(long fileId) {
+		Set<String> uids = byFileId.get(fileId);
+		return uids == null ? Collections.emptySet() : new HashSet<>(uids);
+	}
+
+	private synchronized void add(Item item) {
+		Item prev = roomItems.get(item.uid);
+		if (prev == null) {
+			item.seq = itemSeq.getAndIncrement();
+		} else {
+			item.seq = prev.seq;
+			unindex(prev);
+		}
+		roomItems.put(item.uid, item);
+		ordered.put(item.seq, item);
+		if (item.slide > -1) {
+			bySlide.computeIfAbsent(item.slide, k -> ConcurrentHashMap.newKeySet()).add(item.uid);
+		}
+		if (item.fileType != null) {
+			byFileType.computeIfAbsent(item.fileType, k -> ConcurrentHashMap.newKeySet()).add(item.uid);
+		}
+		if (item.fileId != null) {
+			byFileId.computeIfAbsent(item.fileId, k -> ConcurrentHashMap.newKeySet()).add(item.uid);
+		}
+	}
+
+	private void unindex(Item item) {
+		if (item.slide > -1) {
+			Set<String> uids = bySlide.get(item.slide);
+			if (uids != null) {
+				uids.remove(item.uid);
+			}
+		}
+		if (item.fileType != null) {
+			Set<String> uids = byFileType.get(item.fileType);
+			if (uids != null) {
+				uids.remove(item.uid);
+			}
+		}
+		if (item.fileId != null) {
+			Set<String> uids = byFileId.get(item.fileId);
+			if (uids != null) {
+				uids.remove(item.uid);
+			}
+		}
+	}
+
+	/**
+	 * Removes all objects of the slide, Presentations are kept
+	 *
+	 * @param slide - slide to be cleared
+	 * @return array of removed objects
+	 */
 	public JSONArray clearSlide(int slide) {
 		JSONArray arr = new JSONArray();
-		roomItems.entrySet().removeIf(e -> {
-				JSONObject o = new JSONObject(e.getValue());
-				boolean match = !FileItem.Type.Presentation.name().equals(o.optString(ATTR_FILE_TYPE)) && o.optInt(ATTR_SLIDE, -1) == slide;
-				if (match) {
-					arr.put(e);
+		Set<String> uids = bySlide.get(slide);
+		if (uids != null) {
+			for (String uid : uids) {
+				JSONObject o = remove(uid);
+				if (o != null) {
+					arr.put(o);
 				}
-				return match;
-			});
+			}
+		}
 		return arr;
 	}
 
+	/**
+	 * @return objects in order of creation, returned objects are shared and should not be modified
+	 */
 	public List<JSONObject> list() {
-		List<JSONObject> items = new LinkedList<>();
-		for (Entry<String, String> e : roomItems.entrySet()) {
-			items.add(new JSONObject(e.getValue()));
+		List<JSONObject> items = new ArrayList<>(ordered.size());
+		for (Item item : ordered.values()) {
+			items.add(item.getObject());
 		}
 		return items;
 	}
 
-	public JSONObject remove(Object oid) {
-		return new JSONObject(roomItems.remove(oid));
+	/**
+	 * @param fileTypes - file types of objects to be returned
+	 * @return objects of given file types, returned objects are shared and should not be modified
+	 */
+	public List<JSONObject> listByType(String... fileTypes) {
+		List<JSONObject> items = new ArrayList<>();
+		for (String type : fileTypes) {
+			Set<String> uids = byFileType.get(type);
+			if (uids == null) {
+				continue;
+			}
+			for (String uid : uids) {
+				Item item = roomItems.get(uid);
+				if (item != null) {
+					items.add(item.getObject());
+				}
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * @param oid - uid of the object
+	 * @return removed object or {@code null} if there was no such object
+	 */
+	public synchronized JSONObject remove(Object oid) {
+		Item item = roomItems.remove(oid);
+		if (item == null) {
+			return null;
+		}
+		ordered.remove(item.seq);
+		unindex(item);
+		return new JSONObject(item.json);
 	}
 
 	public boolean isEmpty() {
@@ -196,8 +346,8 @@ public class Whiteboard implements Serializable {
 		json.remove("id"); //filtering
 		json.remove("empty"); //filtering
 		JSONObject items = new JSONObject();
-		for (Entry<String, String> e : roomItems.entrySet()) {
-			JSONObject o = new JSONObject(e.getValue());
+		for (Item item : ordered.values()) {
+			JSONObject o = new JSONObject(item.json);
 			//filtering
 			if ("Clipart".equals(o.opt("omType"))) {
 				if (o.has(PARAM__SRC)) {
@@ -207,7 +357,7 @@ public class Whiteboard implements Serializable {
 				o.remove(PARAM_SRC);
 			}
 			o.remove(PARAM__SRC);
-			items.put(e.getKey(), o);
+			items.put(item.uid, o);
 		}
 		json.put(ITEMS_KEY, items);
 		return json;
@@ -222,4 +372,44 @@ public class Whiteboard implements Serializable {
 		}
 		return null;
 	}
+
+	/**
+	 * Whiteboard object, stored as JSON string, parsed object is created on demand
+	 */
+	static class Item implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final String uid;
+		private final String json;
+		private final int slide;
+		private final String fileType;
+		private final Long fileId;
+		private long seq;
+		private transient volatile JSONObject obj;
+
+		Item(String uid, JSONObject o) {
+			this.uid = uid;
+			this.json = o.toString(new NullStringer());
+			this.fileType = o.has(ATTR_FILE_TYPE) ? o.optString(ATTR_FILE_TYPE) : null;
+			this.slide = FileItem.Type.Presentation.name().equals(fileType) ? -1 : o.optInt(ATTR_SLIDE, -1);
+			long id = o.optLong(ATTR_FILE_ID, -1);
+			this.fileId = id < 0 ? null : id;
+		}
+
+		String getUid() {
+			return uid;
+		}
+
+		String getJson() {
+			return json;
+		}
+
+		JSONObject getObject() {
+			JSONObject o = obj;
+			if (o == null) {
+				o = new JSONObject(json);
+				obj = o;
+			}
+			return o;
+		}
+	}
 }
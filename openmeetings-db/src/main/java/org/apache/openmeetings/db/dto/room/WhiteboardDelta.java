@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dto.room;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Set of {@link Whiteboard} items changed within single replication window,
+ * each item is keyed by whiteboard id and item uid, {@code null} value
+ * means the item was removed
+ *
+ * @author solomax
+ *
+ */
+public class WhiteboardDelta implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private final Long roomId;
+	private long version;
+	private final Map<Long, Map<String, String>> items = new HashMap<>();
+
+	public WhiteboardDelta(Long roomId) {
+		this.roomId = roomId;
+	}
+
+	public Long getRoomId() {
+		return roomId;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public WhiteboardDelta setVersion(long version) {
+		this.version = version;
+		return this;
+	}
+
+	/**
+	 * Adds current state of the items to the delta
+	 *
+	 * @param wb - whiteboard items belong to
+	 * @param uids - uids of changed items
+	 * @return this for chaining
+	 */
+	public WhiteboardDelta add(Whiteboard wb, Set<String> uids) {
+		Map<String, String> wbItems = items.computeIfAbsent(wb.getId(), k -> new HashMap<>());
+		for (String uid : uids) {
+			wbItems.put(uid, wb.getRaw(uid));
+		}
+		return this;
+	}
+
+	public boolean isEmpty() {
+		return items.isEmpty();
+	}
+
+	/**
+	 * Applies the changes to the local copy of whiteboards,
+	 * changes of the whiteboards missing in the copy are ignored
+	 *
+	 * @param wbs - whiteboards to be updated
+	 */
+	public void apply(Whiteboards wbs) {
+		for (Map.Entry<Long, Map<String, String>> e : items.entrySet()) {
+			Whiteboard wb = wbs.get(e.getKey());
+			if (wb == null) {
+				continue;
+			}
+			for (Map.Entry<String, String> item : e.getValue().entrySet()) {
+				wb.putRaw(item.getKey(), item.getValue());
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		int count = 0;
+		for (Map<String, String> wbItems : items.values()) {
+			count += wbItems.size();
+		}
+		return "WhiteboardDelta [roomId=" + roomId + ", version=" + version + ", whiteboards=" + items.size() + ", items=" + count + "]";
+	}
+}
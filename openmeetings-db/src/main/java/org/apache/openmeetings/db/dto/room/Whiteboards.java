@@ -27,16 +27,26 @@ import java.util.concurrent.atomic.AtomicLong;
 public class Whiteboards implements Serializable {
 	private static final long serialVersionUID = 1L;
 	private Long roomId;
-	private final String uid = UUID.randomUUID().toString();
+	private final String uid;
 	private Map<Long, Whiteboard> whiteboards = new ConcurrentHashMap<>();
 	private volatile AtomicLong whiteboardId = new AtomicLong(0);
 	private volatile AtomicLong activeWb = new AtomicLong(0);
+	// replication version, assigned by the owner of the cluster copy
+	private volatile long version = 0;
 
 	public Whiteboards() {
-		//def constructor
+		this(null);
 	}
 
 	public Whiteboards(Long roomId) {
+		this(UUID.randomUUID().toString(), roomId);
+	}
+
+	/**
+	 * Used by {@link WhiteboardsSerializer} to restore replicated whiteboards
+	 */
+	Whiteboards(String uid, Long roomId) {
+		this.uid = uid;
 		this.roomId = roomId;
 	}
 
@@ -74,6 +84,14 @@ public class Whiteboards implements Serializable {
 		whiteboards.put(wb.getId(), wb);
 	}
 
+	long getNextId() {
+		return whiteboardId.get();
+	}
+
+	void setNextId(long id) {
+		whiteboardId.set(id);
+	}
+
 	public String getUid() {
 		return uid;
 	}
@@ -85,4 +103,12 @@ public class Whiteboards implements Serializable {
 	public void setActiveWb(long wbId) {
 		activeWb.set(wbId);
 	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
 }
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dto.room;
+
+import static org.apache.openmeetings.db.util.SerializationHelper.WHITEBOARDS_TYPE_ID;
+import static org.apache.openmeetings.db.util.SerializationHelper.readDate;
+import static org.apache.openmeetings.db.util.SerializationHelper.readEnum;
+import static org.apache.openmeetings.db.util.SerializationHelper.readLong;
+import static org.apache.openmeetings.db.util.SerializationHelper.readVersion;
+import static org.apache.openmeetings.db.util.SerializationHelper.writeDate;
+import static org.apache.openmeetings.db.util.SerializationHelper.writeEnum;
+import static org.apache.openmeetings.db.util.SerializationHelper.writeLong;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.apache.openmeetings.db.dto.room.Whiteboard.Item;
+import org.apache.openmeetings.db.dto.room.Whiteboard.ZoomMode;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+/**
+ * Compact cluster serializer of {@link Whiteboards}, items are stored as raw JSON
+ * strings in order of creation
+ *
+ * @author solomax
+ *
+ */
+public class WhiteboardsSerializer implements StreamSerializer<Whiteboards> {
+	private static final int VERSION = 2;
+	private static final ZoomMode[] ZOOM_MODES = ZoomMode.values();
+
+	@Override
+	public int getTypeId() {
+		return WHITEBOARDS_TYPE_ID;
+	}
+
+	@Override
+	public void write(ObjectDataOutput out, Whiteboards wbs) throws IOException {
+		out.writeByte(VERSION);
+		out.writeUTF(wbs.getUid());
+		writeLong(out, wbs.getRoomId());
+		out.writeLong(wbs.getNextId());
+		out.writeLong(wbs.getActiveWb());
+		out.writeLong(wbs.getVersion());
+		Collection<Whiteboard> list = wbs.getWhiteboards().values();
+		out.writeInt(list.size());
+		for (Whiteboard wb : list) {
+			write(out, wb);
+		}
+	}
+
+	private static void write(ObjectDataOutput out, Whiteboard wb) throws IOException {
+		out.writeLong(wb.getId());
+		out.writeUTF(wb.getName());
+		writeDate(out, wb.getCreated());
+		out.writeDouble(wb.getZoom());
+		writeEnum(out, wb.getZoomMode());
+		out.writeInt(wb.getWidth());
+		out.writeInt(wb.getHeight());
+		out.writeInt(wb.getSlide());
+		Collection<Item> items = wb.items();
+		out.writeInt(items.size());
+		for (Item item : items) {
+			out.writeUTF(item.getUid());
+			out.writeUTF(item.getJson());
+		}
+	}
+
+	@Override
+	public Whiteboards read(ObjectDataInput in) throws IOException {
+		int layout = readVersion(in, VERSION, Whiteboards.class);
+		String uid = in.readUTF();
+		Whiteboards wbs = new Whiteboards(uid, readLong(in));
+		wbs.setNextId(in.readLong());
+		wbs.setActiveWb(in.readLong());
+		if (layout > 1) {
+			wbs.setVersion(in.readLong());
+		}
+		for (int i = in.readInt(); i > 0; --i) {
+			wbs.update(readWhiteboard(in));
+		}
+		return wbs;
+	}
+
+	private static Whiteboard readWhiteboard(ObjectDataInput in) throws IOException {
+		Whiteboard wb = new Whiteboard();
+		wb.setId(in.readLong());
+		wb.setName(in.readUTF());
+		wb.setCreated(readDate(in));
+		wb.setZoom(in.readDouble());
+		wb.setZoomMode(readEnum(in, ZOOM_MODES));
+		wb.setWidth(in.readInt());
+		wb.setHeight(in.readInt());
+		wb.setSlide(in.readInt());
+		for (int i = in.readInt(); i > 0; --i) {
+			wb.putRaw(in.readUTF(), in.readUTF());
+		}
+		return wb;
+	}
+
+	@Override
+	public void destroy() {
+		//no-op
+	}
+}
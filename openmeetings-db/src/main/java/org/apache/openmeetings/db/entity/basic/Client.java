@@ -75,6 +75,8 @@ public class Client implements IClient, IWsClient {
 	private int height = 0;
 	private String serverId = null;
 	private Long recordingId;
+	private long version = 0;
+	private transient int dirty = 0;
 
 	public Client(String sessionId, int pageId, Long userId, UserDao dao) {
 		this.sessionId = sessionId;
@@ -95,6 +97,18 @@ public class Client implements IClient, IWsClient {
 		this.remoteAddress = rcl.getRemoteAddress();
 	}
 
+	/**
+	 * Used by {@link ClientSerializer} to restore replicated client
+	 */
+	Client(String sessionId, int pageId, String uid, String sid, Date connectedSince, User user) {
+		this.sessionId = sessionId;
+		this.pageId = pageId;
+		this.uid = uid;
+		this.sid = sid;
+		this.connectedSince = connectedSince;
+		this.user = user;
+	}
+
 	@Override
 	public String getSessionId() {
 		return sessionId;
@@ -111,7 +125,7 @@ public class Client implements IClient, IWsClient {
 
 	public Client updateUser(UserDao dao) {
 		user = dao.get(user.getId());
-		return this;
+		return mark(ClientDelta.USER);
 	}
 
 	@Override
@@ -148,6 +162,7 @@ public class Client implements IClient, IWsClient {
 		activities.clear();
 		rights.clear();
 		streams.clear();
+		mark(ClientDelta.RIGHTS | ClientDelta.ACTIVITIES | ClientDelta.STREAMS);
 	}
 
 	public boolean hasRight(Right right) {
@@ -168,16 +183,19 @@ public class Client implements IClient, IWsClient {
 				rights.add(right);
 			}
 		}
+		mark(ClientDelta.RIGHTS);
 	}
 
 	public void deny(Right... _rights) {
 		for (Right right : _rights) {
 			rights.remove(right);
 		}
+		mark(ClientDelta.RIGHTS);
 	}
 
 	public void clearActivities() {
 		activities.clear();
+		mark(ClientDelta.ACTIVITIES);
 	}
 
 	public boolean hasAnyActivity(Activity... aa) {
@@ -217,7 +235,7 @@ public class Client implements IClient, IWsClient {
 				break;
 			default:
 		}
-		return this;
+		return mark(ClientDelta.ACTIVITIES);
 	}
 
 	public Client remove(Activity a) {
@@ -233,17 +251,17 @@ public class Client implements IClient, IWsClient {
 				break;
 			default:
 		}
-		return this;
+		return mark(ClientDelta.ACTIVITIES);
 	}
 
 	public Client addStream(String _uid) {
 		streams.add(_uid);
-		return this;
+		return mark(ClientDelta.STREAMS);
 	}
 
 	public Client removeStream(String _uid) {
 		streams.remove(_uid);
-		return this;
+		return mark(ClientDelta.STREAMS);
 	}
 
 	public List<String> getStreams() {
@@ -270,7 +288,7 @@ public class Client implements IClient, IWsClient {
 
 	public Client setRoom(Room room) {
 		this.room = room;
-		return this;
+		return mark(ClientDelta.ROOM);
 	}
 
 	public Pod getPod() {
@@ -279,6 +297,7 @@ public class Client implements IClient, IWsClient {
 
 	public void setPod(Pod pod) {
 		this.pod = pod;
+		mark(ClientDelta.POD);
 	}
 
 	public boolean isCamEnabled() {
@@ -291,7 +310,7 @@ public class Client implements IClient, IWsClient {
 
 	public Client setCam(int cam) {
 		this.cam = cam;
-		return this;
+		return mark(ClientDelta.AV);
 	}
 
 	public boolean isMicEnabled() {
@@ -304,7 +323,7 @@ public class Client implements IClient, IWsClient {
 
 	public Client setMic(int mic) {
 		this.mic = mic;
-		return this;
+		return mark(ClientDelta.AV);
 	}
 
 	@Override
@@ -314,7 +333,7 @@ public class Client implements IClient, IWsClient {
 
 	public Client setWidth(int width) {
 		this.width = width;
-		return this;
+		return mark(ClientDelta.AV);
 	}
 
 	@Override
@@ -324,7 +343,7 @@ public class Client implements IClient, IWsClient {
 
 	public Client setHeight(int height) {
 		this.height = height;
-		return this;
+		return mark(ClientDelta.AV);
 	}
 
 	@Override
@@ -353,6 +372,7 @@ public class Client implements IClient, IWsClient {
 		} else {
 			activities.remove(Activity.record);
 		}
+		mark(ClientDelta.ACTIVITIES);
 	}
 
 	@Override
@@ -363,6 +383,7 @@ public class Client implements IClient, IWsClient {
 	@Override
 	public void setRecordingId(Long recordingId) {
 		this.recordingId = recordingId;
+		mark(ClientDelta.RECORDING);
 	}
 
 	@Override
@@ -456,6 +477,98 @@ public class Client implements IClient, IWsClient {
 		width = c.width;
 		height = c.height;
 		recordingId = c.recordingId;
+		version = c.version;
+	}
+
+	private Client mark(int field) {
+		dirty |= field;
+		return this;
+	}
+
+	/**
+	 * @return live set of rights, used by {@link ClientDelta} and {@link ClientSerializer}
+	 */
+	Set<Right> getRights() {
+		return rights;
+	}
+
+	/**
+	 * @return live set of activities, used by {@link ClientDelta} and {@link ClientSerializer}
+	 */
+	Set<Activity> getActivities() {
+		return activities;
+	}
+
+	/**
+	 * @return live set of stream uids, used by {@link ClientDelta} and {@link ClientSerializer}
+	 */
+	Set<String> getStreamSet() {
+		return streams;
+	}
+
+	/**
+	 * Marks all fields as replicated
+	 */
+	void resetDirty() {
+		dirty = 0;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public void setVersion(long version) {
+		this.version = version;
+	}
+
+	/**
+	 * Collects fields changed since previous call
+	 *
+	 * @param force - all fields will be collected if {@code true}
+	 * @return delta of changed fields, {@code null} if nothing was changed
+	 */
+	public ClientDelta flush(boolean force) {
+		int mask = force ? ClientDelta.ALL : dirty;
+		dirty = 0;
+		return mask == 0 ? null : new ClientDelta(this, mask);
+	}
+
+	/**
+	 * Applies changed fields to this client, version is not being modified
+	 *
+	 * @param d - delta to be applied
+	 */
+	public void apply(ClientDelta d) {
+		if (d.has(ClientDelta.USER)) {
+			user = d.getUser();
+		}
+		if (d.has(ClientDelta.ROOM)) {
+			room = d.getRoom();
+		}
+		if (d.has(ClientDelta.RIGHTS)) {
+			rights.retainAll(d.getRights());
+			rights.addAll(d.getRights());
+		}
+		if (d.has(ClientDelta.ACTIVITIES)) {
+			activities.retainAll(d.getActivities());
+			activities.addAll(d.getActivities());
+		}
+		if (d.has(ClientDelta.STREAMS)) {
+			streams.retainAll(d.getStreams());
+			streams.addAll(d.getStreams());
+		}
+		if (d.has(ClientDelta.POD)) {
+			pod = d.getPod();
+		}
+		if (d.has(ClientDelta.AV)) {
+			cam = d.getCam();
+			mic = d.getMic();
+			width = d.getWidth();
+			height = d.getHeight();
+		}
+		if (d.has(ClientDelta.RECORDING)) {
+			recordingId = d.getRecordingId();
+		}
 	}
 
 	@Override
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.entity.basic;
+
+import java.io.Serializable;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.openmeetings.db.entity.basic.Client.Activity;
+import org.apache.openmeetings.db.entity.basic.Client.Pod;
+import org.apache.openmeetings.db.entity.room.Room;
+import org.apache.openmeetings.db.entity.room.Room.Right;
+import org.apache.openmeetings.db.entity.user.User;
+
+/**
+ * Set of {@link Client} fields changed since last replication,
+ * only fields marked in {@link #getMask()} are being transferred
+ *
+ * @author solomax
+ *
+ */
+public class ClientDelta implements Serializable {
+	private static final long serialVersionUID = 1L;
+	public static final int USER = 1;
+	public static final int ROOM = 1 << 1;
+	public static final int RIGHTS = 1 << 2;
+	public static final int ACTIVITIES = 1 << 3;
+	public static final int STREAMS = 1 << 4;
+	public static final int POD = 1 << 5;
+	public static final int AV = 1 << 6;
+	public static final int RECORDING = 1 << 7;
+	public static final int ALL = USER | ROOM | RIGHTS | ACTIVITIES | STREAMS | POD | AV | RECORDING;
+
+	private final String uid;
+	private final int mask;
+	private long version;
+	private User user;
+	private Room room;
+	private Set<Right> rights;
+	private Set<Activity> activities;
+	private Set<String> streams;
+	private Pod pod;
+	private int cam;
+	private int mic;
+	private int width;
+	private int height;
+	private Long recordingId;
+
+	ClientDelta(Client c, int mask) {
+		this.uid = c.getUid();
+		this.mask = mask;
+		if (has(USER)) {
+			user = c.getUser();
+		}
+		if (has(ROOM)) {
+			room = c.getRoom();
+		}
+		if (has(RIGHTS)) {
+			rights = c.getRights().isEmpty() ? EnumSet.noneOf(Right.class) : EnumSet.copyOf(c.getRights());
+		}
+		if (has(ACTIVITIES)) {
+			activities = c.getActivities().isEmpty() ? EnumSet.noneOf(Activity.class) : EnumSet.copyOf(c.getActivities());
+		}
+		if (has(STREAMS)) {
+			streams = new HashSet<>(c.getStreamSet());
+		}
+		if (has(POD)) {
+			pod = c.getPod();
+		}
+		if (has(AV)) {
+			cam = c.getCam();
+			mic = c.getMic();
+			width = c.getWidth();
+			height = c.getHeight();
+		}
+		if (has(RECORDING)) {
+			recordingId = c.getRecordingId();
+		}
+	}
+
+	public boolean has(int field) {
+		return (mask & field) != 0;
+	}
+
+	public String getUid() {
+		return uid;
+	}
+
+	public int getMask() {
+		return mask;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public ClientDelta setVersion(long version) {
+		this.version = version;
+		return this;
+	}
+
+	User getUser() {
+		return user;
+	}
+
+	Room getRoom() {
+		return room;
+	}
+
+	Set<Right> getRights() {
+		return rights;
+	}
+
+	Set<Activity> getActivities() {
+		return activities;
+	}
+
+	Set<String> getStreams() {
+		return streams;
+	}
+
+	Pod getPod() {
+		return pod;
+	}
+
+	int getCam() {
+		return cam;
+	}
+
+	int getMic() {
+		return mic;
+	}
+
+	int getWidth() {
+		return width;
+	}
+
+	int getHeight() {
+		return height;
+	}
+
+	Long getRecordingId() {
+		return recordingId;
+	}
+
+	@Override
+	public String toString() {
+		return "ClientDelta [uid=" + uid + ", version=" + version + ", mask=" + Integer.toBinaryString(mask) + "]";
+	}
+}
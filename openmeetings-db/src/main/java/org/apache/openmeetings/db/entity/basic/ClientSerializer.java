@@ -0,0 +1,118 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.entity.basic;
+
+import static org.apache.openmeetings.db.util.SerializationHelper.CLIENT_TYPE_ID;
+import static org.apache.openmeetings.db.util.SerializationHelper.fromMask;
+import static org.apache.openmeetings.db.util.SerializationHelper.readEnum;
+import static org.apache.openmeetings.db.util.SerializationHelper.readLong;
+import static org.apache.openmeetings.db.util.SerializationHelper.readStrings;
+import static org.apache.openmeetings.db.util.SerializationHelper.readVersion;
+import static org.apache.openmeetings.db.util.SerializationHelper.toMask;
+import static org.apache.openmeetings.db.util.SerializationHelper.writeEnum;
+import static org.apache.openmeetings.db.util.SerializationHelper.writeLong;
+import static org.apache.openmeetings.db.util.SerializationHelper.writeStrings;
+
+import java.io.IOException;
+import java.util.Date;
+
+import org.apache.openmeetings.db.entity.basic.Client.Activity;
+import org.apache.openmeetings.db.entity.basic.Client.Pod;
+import org.apache.openmeetings.db.entity.room.Room;
+import org.apache.openmeetings.db.entity.room.Room.Right;
+import org.apache.openmeetings.db.entity.user.User;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+/**
+ * Compact cluster serializer of {@link Client}, rights and activities are stored
+ * as bitmasks, user and room entities are delegated to default serialization
+ *
+ * @author solomax
+ *
+ */
+public class ClientSerializer implements StreamSerializer<Client> {
+	private static final int VERSION = 1;
+	private static final Right[] RIGHTS = Right.values();
+	private static final Activity[] ACTIVITIES = Activity.values();
+	private static final Pod[] PODS = Pod.values();
+
+	@Override
+	public int getTypeId() {
+		return CLIENT_TYPE_ID;
+	}
+
+	@Override
+	public void write(ObjectDataOutput out, Client c) throws IOException {
+		out.writeByte(VERSION);
+		out.writeUTF(c.getSessionId());
+		out.writeInt(c.getPageId());
+		out.writeUTF(c.getUid());
+		out.writeUTF(c.getSid());
+		out.writeLong(c.getConnectedSince().getTime());
+		out.writeObject(c.getUser());
+		out.writeObject(c.getRoom());
+		out.writeUTF(c.getRemoteAddress());
+		out.writeLong(toMask(c.getRights()));
+		out.writeLong(toMask(c.getActivities()));
+		writeStrings(out, c.getStreamSet());
+		writeEnum(out, c.getPod());
+		out.writeInt(c.getCam());
+		out.writeInt(c.getMic());
+		out.writeInt(c.getWidth());
+		out.writeInt(c.getHeight());
+		out.writeUTF(c.getServerId());
+		writeLong(out, c.getRecordingId());
+		out.writeLong(c.getVersion());
+	}
+
+	@Override
+	public Client read(ObjectDataInput in) throws IOException {
+		readVersion(in, VERSION, Client.class);
+		String sessionId = in.readUTF();
+		int pageId = in.readInt();
+		String uid = in.readUTF();
+		String sid = in.readUTF();
+		Date connectedSince = new Date(in.readLong());
+		User user = in.readObject();
+		Client c = new Client(sessionId, pageId, uid, sid, connectedSince, user);
+		c.setRoom(in.<Room>readObject());
+		c.setRemoteAddress(in.readUTF());
+		fromMask(in.readLong(), RIGHTS, c.getRights());
+		fromMask(in.readLong(), ACTIVITIES, c.getActivities());
+		readStrings(in, c.getStreamSet());
+		c.setPod(readEnum(in, PODS));
+		c.setCam(in.readInt());
+		c.setMic(in.readInt());
+		c.setWidth(in.readInt());
+		c.setHeight(in.readInt());
+		c.setServerId(in.readUTF());
+		c.setRecordingId(readLong(in));
+		c.setVersion(in.readLong());
+		c.resetDirty(); // restored client has no local changes
+		return c;
+	}
+
+	@Override
+	public void destroy() {
+		//no-op
+	}
+}
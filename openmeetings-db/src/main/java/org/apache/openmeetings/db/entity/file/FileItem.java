@@ -44,6 +44,22 @@ import org.simpleframework.xml.Root;
 	, @NamedQuery(name = "getFileFilteredByGroup", query = "SELECT f FROM FileItem f WHERE f.deleted = false AND f.ownerId IS NULL "
 			+ "AND f.groupId = :groupId AND f.parentId IS NULL AND f.type IN :filter "
 			+ "ORDER BY f.type ASC, f.name")
+	, @NamedQuery(name = "getFileState", query = "SELECT f.parentId, f.diskSize, f.deleted, f.path, f.ownerId, f.roomId "
+			+ "FROM FileItem f WHERE f.id = :id")
+	, @NamedQuery(name = "getFilePath", query = "SELECT f.path FROM FileItem f WHERE f.id = :id")
+	, @NamedQuery(name = "getFilesWithoutPath", query = "SELECT f.id, f.parentId FROM FileItem f WHERE f.path IS NULL")
+	, @NamedQuery(name = "setFilePath", query = "UPDATE FileItem f SET f.path = :path WHERE f.id = :id")
+	, @NamedQuery(name = "getDeletedFileIds", query = "SELECT f.id FROM FileItem f WHERE f.deleted = true AND f.id IN :ids")
+	, @NamedQuery(name = "moveFileContent", query = "UPDATE FileItem f SET f.path = CONCAT(:path, SUBSTRING(f.path, :pos))"
+			+ ", f.ownerId = :ownerId, f.roomId = :roomId WHERE f.path LIKE :prefix")
+	, @NamedQuery(name = "setFileDiskSize", query = "UPDATE FileItem f SET f.diskSize = :size WHERE f.id = :id")
+	, @NamedQuery(name = "setFileCount", query = "UPDATE FileItem f SET f.count = :count WHERE f.id = :id")
+	, @NamedQuery(name = "addFileDiskSize", query = "UPDATE FileItem f SET f.diskSize = f.diskSize + :delta "
+			+ "WHERE f.id IN :ids AND f.diskSize IS NOT NULL")
+	, @NamedQuery(name = "getFilesSizeByRoom", query = "SELECT SUM(f.diskSize), COUNT(f.id), COUNT(f.diskSize) FROM FileItem f "
+			+ "WHERE f.deleted = false AND f.roomId = :roomId AND f.ownerId IS NULL AND f.parentId IS NULL")
+	, @NamedQuery(name = "getFilesSizeByOwner", query = "SELECT SUM(f.diskSize), COUNT(f.id), COUNT(f.diskSize) FROM FileItem f "
+			+ "WHERE f.deleted = false AND f.ownerId = :ownerId AND f.parentId IS NULL")
 })
 @Root
 public class FileItem extends BaseFileItem {
@@ -53,6 +69,14 @@ public class FileItem extends BaseFileItem {
 	@Element(data = true, required = false)
 	private Long size;
 
+	// space occupied on disk, for folders: total size of the content, maintained by FileItemDao
+	@Column(name = "disk_size")
+	private Long diskSize;
+
+	// ids of all parent folders: /id1/id2/
+	@Column(name = "path")
+	private String path;
+
 	@Column(name = "external_id")
 	private String externalId;
 
@@ -79,6 +103,22 @@ public class FileItem extends BaseFileItem {
 		this.size = fileSize;
 	}
 
+	public Long getDiskSize() {
+		return diskSize;
+	}
+
+	public void setDiskSize(Long diskSize) {
+		this.diskSize = diskSize;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
 	public String getExternalId() {
 		return externalId;
 	}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.entity.room;
+
+import static org.apache.openmeetings.db.util.SerializationHelper.STREAM_CLIENT_TYPE_ID;
+import static org.apache.openmeetings.db.util.SerializationHelper.readDate;
+import static org.apache.openmeetings.db.util.SerializationHelper.readEnum;
+import static org.apache.openmeetings.db.util.SerializationHelper.readInt;
+import static org.apache.openmeetings.db.util.SerializationHelper.readLong;
+import static org.apache.openmeetings.db.util.SerializationHelper.readVersion;
+import static org.apache.openmeetings.db.util.SerializationHelper.writeDate;
+import static org.apache.openmeetings.db.util.SerializationHelper.writeEnum;
+import static org.apache.openmeetings.db.util.SerializationHelper.writeInt;
+import static org.apache.openmeetings.db.util.SerializationHelper.writeLong;
+
+import java.io.IOException;
+
+import org.apache.openmeetings.db.entity.basic.IClient.Type;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.StreamSerializer;
+
+/**
+ * Compact cluster serializer of {@link StreamClient}, boolean flags are stored as single bitmask
+ *
+ * @author solomax
+ *
+ */
+public class StreamClientSerializer implements StreamSerializer<StreamClient> {
+	private static final int VERSION = 1;
+	private static final Type[] TYPES = Type.values();
+	private static final int MOD = 1;
+	private static final int SUPER_MOD = 1 << 1;
+	private static final int NATIVE_SSL = 1 << 2;
+	private static final int RECORDING_STARTED = 1 << 3;
+	private static final int SHARING_STARTED = 1 << 4;
+	private static final int PUBLISH_STARTED = 1 << 5;
+	private static final int BROADCASTING = 1 << 6;
+	private static final int ALLOW_RECORDING = 1 << 7;
+	private static final int MIC_MUTED = 1 << 8;
+
+	private static int flag(boolean value, int flag) {
+		return value ? flag : 0;
+	}
+
+	private static boolean has(int flags, int flag) {
+		return (flags & flag) != 0;
+	}
+
+	@Override
+	public int getTypeId() {
+		return STREAM_CLIENT_TYPE_ID;
+	}
+
+	@Override
+	public void write(ObjectDataOutput out, StreamClient c) throws IOException {
+		out.writeByte(VERSION);
+		out.writeShort(flag(c.isMod(), MOD)
+				| flag(c.isSuperMod(), SUPER_MOD)
+				| flag(c.isNativeSsl(), NATIVE_SSL)
+				| flag(c.isRecordingStarted(), RECORDING_STARTED)
+				| flag(c.isSharingStarted(), SHARING_STARTED)
+				| flag(c.isPublishStarted(), PUBLISH_STARTED)
+				| flag(c.isBroadcasting(), BROADCASTING)
+				| flag(c.isAllowRecording(), ALLOW_RECORDING)
+				| flag(c.isMicMuted(), MIC_MUTED));
+		writeEnum(out, c.getType());
+		out.writeUTF(c.getScope());
+		out.writeInt(c.getWidth());
+		out.writeInt(c.getHeight());
+		out.writeUTF(c.getUid());
+		out.writeUTF(c.getSid());
+		writeDate(out, c.getConnectedSince());
+		out.writeUTF(c.getRemoteAddress());
+		out.writeInt(c.getUserport());
+		writeDate(out, c.getRoomEnter());
+		out.writeUTF(c.getBroadcastId());
+		out.writeUTF(c.getLogin());
+		writeLong(out, c.getUserId());
+		out.writeUTF(c.getFirstname());
+		out.writeUTF(c.getLastname());
+		out.writeUTF(c.getEmail());
+		out.writeUTF(c.getLastLogin());
+		out.writeUTF(c.getLanguage());
+		out.writeUTF(c.getAvsettings());
+		out.writeUTF(c.getSwfurl());
+		out.writeUTF(c.getTcUrl());
+		writeLong(out, c.getRecordingId());
+		writeLong(out, c.getMetaId());
+		out.writeUTF(c.getExternalUserId());
+		out.writeUTF(c.getExternalUserType());
+		writeInt(out, c.getInterviewPodId());
+		out.writeUTF(c.getServerId());
+	}
+
+	@Override
+	public StreamClient read(ObjectDataInput in) throws IOException {
+		readVersion(in, VERSION, StreamClient.class);
+		StreamClient c = new StreamClient();
+		int flags = in.readShort();
+		c.setMod(has(flags, MOD));
+		c.setSuperMod(has(flags, SUPER_MOD));
+		c.setNativeSsl(has(flags, NATIVE_SSL));
+		c.setRecordingStarted(has(flags, RECORDING_STARTED));
+		c.setSharingStarted(has(flags, SHARING_STARTED));
+		c.setPublishStarted(has(flags, PUBLISH_STARTED));
+		c.setBroadcasting(has(flags, BROADCASTING));
+		c.setAllowRecording(has(flags, ALLOW_RECORDING));
+		c.setMicMuted(has(flags, MIC_MUTED));
+		c.setType(readEnum(in, TYPES));
+		c.setScope(in.readUTF());
+		c.setWidth(in.readInt());
+		c.setHeight(in.readInt());
+		c.setUid(in.readUTF());
+		c.setSid(in.readUTF());
+		c.setConnectedSince(readDate(in));
+		c.setRemoteAddress(in.readUTF());
+		c.setUserport(in.readInt());
+		c.setRoomEnter(readDate(in));
+		c.setBroadcastId(in.readUTF());
+		c.setLogin(in.readUTF());
+		c.setUserId(readLong(in));
+		c.setFirstname(in.readUTF());
+		c.setLastname(in.readUTF());
+		c.setEmail(in.readUTF());
+		c.setLastLogin(in.readUTF());
+		c.setLanguage(in.readUTF());
+		c.setAvsettings(in.readUTF());
+		c.setSwfurl(in.readUTF());
+		c.setTcUrl(in.readUTF());
+		c.setRecordingId(readLong(in));
+		c.setMetaId(readLong(in));
+		c.setExternalUserId(in.readUTF());
+		c.setExternalUserType(in.readUTF());
+		c.setInterviewPodId(readInt(in));
+		c.setServerId(in.readUTF());
+		return c;
+	}
+
+	@Override
+	public void destroy() {
+		//no-op
+	}
+}
@@ -32,9 +32,13 @@ import javax.persistence.NamedQuery;
 import javax.persistence.Table;
 import javax.xml.bind.annotation.XmlRootElement;
 
+import org.apache.openjpa.persistence.jdbc.Index;
+
 @Entity
 @NamedQueries({
-		@NamedQuery(name = "getSessionById", query = "SELECT s FROM Sessiondata s WHERE s.sessionId LIKE :sessionId"),
+		@NamedQuery(name = "getSessionById", query = "SELECT s FROM Sessiondata s WHERE s.sessionId = :sessionId"),
+		@NamedQuery(name = "getSessionByIdLike", query = "SELECT s FROM Sessiondata s WHERE s.sessionId LIKE :sessionId"),
+		@NamedQuery(name = "updateSessionRefreshed", query = "UPDATE Sessiondata s SET s.refreshed = :refreshed WHERE s.id = :id"),
 		@NamedQuery(name = "getSessionToDelete", query = "SELECT s FROM Sessiondata s WHERE s.refreshed < :refreshed AND s.permanent = false")
 })
 @Table(name = "sessiondata")
@@ -53,6 +57,7 @@ public class Sessiondata implements Serializable {
 	private Long roomId;
 
 	@Column(name = "session_id")
+	@Index(name = "session_id_idx")
 	private String sessionId;
 
 	@Column(name = "created")
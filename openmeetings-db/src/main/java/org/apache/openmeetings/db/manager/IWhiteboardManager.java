@@ -19,7 +19,16 @@
 package org.apache.openmeetings.db.manager;
 
 import org.apache.openmeetings.db.dto.room.Whiteboards;
+import org.apache.openmeetings.db.entity.file.FileItem;
 
 public interface IWhiteboardManager {
 	Whiteboards get(Long roomId);
+
+	/**
+	 * Raises number of pages of the objects referring to the document,
+	 * should be called while pages of the document are being rendered
+	 *
+	 * @param f - document with updated number of pages
+	 */
+	void updateCount(FileItem f);
 }
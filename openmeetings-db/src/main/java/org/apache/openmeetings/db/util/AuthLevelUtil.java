@@ -18,6 +18,7 @@
  */
 package org.apache.openmeetings.db.util;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -36,11 +37,47 @@ public class AuthLevelUtil {
 	private AuthLevelUtil() {}
 
 	public static boolean check(Set<User.Right> rights, User.Right level) {
-		boolean result = rights.contains(level);
-		log.debug(String.format("Level %s :: %s", level, result ? "[GRANTED]" : "[DENIED]"));
+		return log(level, rights.contains(level));
+	}
+
+	/**
+	 * @param rights - rights bitmask, see {@link #toMask(Set)}
+	 * @param level - right to be checked
+	 * @return {@code true} if the right is set in the bitmask
+	 */
+	public static boolean check(long rights, User.Right level) {
+		return log(level, (rights & toMask(level)) != 0);
+	}
+
+	private static boolean log(User.Right level, boolean result) {
+		log.debug("Level {} :: {}", level, result ? "[GRANTED]" : "[DENIED]");
 		return result;
 	}
 
+	public static long toMask(User.Right right) {
+		return 1L << right.ordinal();
+	}
+
+	public static long toMask(Set<User.Right> rights) {
+		long mask = 0;
+		if (rights != null) {
+			for (User.Right r : rights) {
+				mask |= toMask(r);
+			}
+		}
+		return mask;
+	}
+
+	public static Set<User.Right> toRights(long mask) {
+		Set<User.Right> rights = EnumSet.noneOf(User.Right.class);
+		for (User.Right r : User.Right.values()) {
+			if ((mask & toMask(r)) != 0) {
+				rights.add(r);
+			}
+		}
+		return rights;
+	}
+
 	public static boolean hasUserLevel(Set<User.Right> rights) {
 		return check(rights, User.Right.Room);
 	}
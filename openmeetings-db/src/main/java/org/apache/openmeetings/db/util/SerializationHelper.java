@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.util;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Date;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+/**
+ * Helpers for compact cluster serializers, every serialized object starts with
+ * layout version, enum sets are stored as bitmasks, nullable values are
+ * prefixed with presence flag
+ *
+ * @author solomax
+ *
+ */
+public class SerializationHelper {
+	public static final int CLIENT_TYPE_ID = 1;
+	public static final int STREAM_CLIENT_TYPE_ID = 2;
+	public static final int WHITEBOARDS_TYPE_ID = 3;
+
+	private SerializationHelper() {}
+
+	/**
+	 * Reads layout version and checks it is known to this node
+	 *
+	 * @param in - input to read from
+	 * @param current - latest version known
+	 * @param clazz - class being read, used for error reporting
+	 * @return layout version of the serialized object
+	 * @throws IOException in case version is unknown
+	 */
+	public static int readVersion(ObjectDataInput in, int current, Class<?> clazz) throws IOException {
+		int version = in.readByte();
+		if (version < 1 || version > current) {
+			throw new IOException("Unsupported layout version " + version + " of " + clazz.getSimpleName());
+		}
+		return version;
+	}
+
+	public static <E extends Enum<E>> long toMask(Collection<E> set) {
+		long mask = 0;
+		for (E e : set) {
+			mask |= 1L << e.ordinal();
+		}
+		return mask;
+	}
+
+	public static <E extends Enum<E>> void fromMask(long mask, E[] values, Collection<E> target) {
+		for (E e : values) {
+			if ((mask & (1L << e.ordinal())) != 0) {
+				target.add(e);
+			}
+		}
+	}
+
+	public static void writeEnum(ObjectDataOutput out, Enum<?> e) throws IOException {
+		out.writeByte(e == null ? -1 : e.ordinal());
+	}
+
+	public static <E extends Enum<E>> E readEnum(ObjectDataInput in, E[] values) throws IOException {
+		int idx = in.readByte();
+		return idx < 0 ? null : values[idx];
+	}
+
+	public static void writeLong(ObjectDataOutput out, Long l) throws IOException {
+		out.writeBoolean(l != null);
+		if (l != null) {
+			out.writeLong(l);
+		}
+	}
+
+	public static Long readLong(ObjectDataInput in) throws IOException {
+		return in.readBoolean() ? in.readLong() : null;
+	}
+
+	public static void writeInt(ObjectDataOutput out, Integer i) throws IOException {
+		out.writeBoolean(i != null);
+		if (i != null) {
+			out.writeInt(i);
+		}
+	}
+
+	public static Integer readInt(ObjectDataInput in) throws IOException {
+		return in.readBoolean() ? in.readInt() : null;
+	}
+
+	public static void writeDate(ObjectDataOutput out, Date d) throws IOException {
+		writeLong(out, d == null ? null : d.getTime());
+	}
+
+	public static Date readDate(ObjectDataInput in) throws IOException {
+		Long l = readLong(in);
+		return l == null ? null : new Date(l);
+	}
+
+	public static void writeStrings(ObjectDataOutput out, Collection<String> strings) throws IOException {
+		out.writeInt(strings.size());
+		for (String s : strings) {
+			out.writeUTF(s);
+		}
+	}
+
+	public static void readStrings(ObjectDataInput in, Collection<String> target) throws IOException {
+		for (int i = in.readInt(); i > 0; --i) {
+			target.add(in.readUTF());
+		}
+	}
+}
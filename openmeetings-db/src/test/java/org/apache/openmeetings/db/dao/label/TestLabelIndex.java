@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * 'License') +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dao.label;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.openmeetings.db.entity.label.StringLabel;
+import org.apache.wicket.extensions.markup.html.repeater.util.SortParam;
+import org.junit.Test;
+
+public class TestLabelIndex {
+	private static LabelIndex create() {
+		return new LabelIndex(Arrays.asList(
+				new StringLabel("10", "Conference room")
+				, new StringLabel("2", "Room list")
+				, new StringLabel("room.title", "Title")
+				, new StringLabel("1", "Contacts")));
+	}
+
+	@Test
+	public void paging() {
+		LabelIndex idx = create();
+		assertEquals("All labels should be counted", 4, idx.count(null));
+		List<StringLabel> page = idx.get(null, 1, 2, null);
+		assertEquals("Page should be returned", 2, page.size());
+		assertEquals("Numeric keys should be sorted as numbers", "2", page.get(0).getKey());
+		assertEquals("Numeric keys should be sorted as numbers", "10", page.get(1).getKey());
+		assertEquals("Last page should be truncated", 1, idx.get(null, 3, 10, null).size());
+		assertTrue("Page after end should be empty", idx.get(null, 10, 10, null).isEmpty());
+		assertEquals("Descending sort should be supported", "Title", idx.get(null, 0, 1, new SortParam<>("value", false)).get(0).getValue());
+	}
+
+	@Test
+	public void search() {
+		LabelIndex idx = create();
+		assertEquals("Both key and value should be searched", 2, idx.count("room"));
+		assertEquals("Narrower search should be correct", 1, idx.count("room."));
+		assertEquals("Short search should be correct", 1, idx.count("Ro"));
+		assertEquals("Not found search should be correct", 0, idx.count("xyz"));
+		assertEquals("Sorted search should be correct", "room.title"
+				, idx.get("oom", 0, 10, new SortParam<>("value", false)).get(0).getKey());
+	}
+
+	@Test
+	public void modify() {
+		LabelIndex idx = create();
+		assertEquals(1, idx.count("Contacts"));
+		idx.put(new StringLabel("1", "Users"));
+		assertEquals("Old value should not be found", 0, idx.count("Contacts"));
+		assertEquals("New value should be found", 1, idx.count("Users"));
+		assertTrue("Label should be removed", idx.remove(new StringLabel("1", null)));
+		assertEquals("Removed label should not be found", 0, idx.count("Users"));
+		assertEquals("Removed label should not be counted", 3, idx.count(null));
+	}
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * 'License') +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dto.room;
+
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_FILE_ID;
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_FILE_TYPE;
+import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_SLIDE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.apache.openmeetings.db.entity.file.FileItem;
+import org.junit.Test;
+
+import com.github.openjson.JSONArray;
+import com.github.openjson.JSONObject;
+
+public class TestWhiteboard {
+	private static JSONObject item(String uid, int slide) {
+		return new JSONObject().put("uid", uid).put(ATTR_SLIDE, slide);
+	}
+
+	@Test
+	public void order() {
+		Whiteboard wb = new Whiteboard("test");
+		wb.put("c", item("c", 0)).put("a", item("a", 0)).put("b", item("b", 0));
+		wb.put("a", item("a", 1));
+		List<JSONObject> list = wb.list();
+		assertEquals("Modified object should keep its position", "a", list.get(1).getString("uid"));
+		assertEquals("Modified object should be updated", 1, list.get(1).getInt(ATTR_SLIDE));
+		assertEquals("Objects should be in order of creation", "b", list.get(2).getString("uid"));
+	}
+
+	@Test
+	public void clearSlide() {
+		Whiteboard wb = new Whiteboard("test");
+		wb.put("p", item("p", 1).put(ATTR_FILE_TYPE, FileItem.Type.Presentation.name()))
+				.put("a", item("a", 1))
+				.put("b", item("b", 2))
+				.put("c", item("c", 1));
+		wb.put("c", item("c", 2));
+		JSONArray arr = wb.clearSlide(1);
+		assertEquals("Only objects of the slide should be removed", 1, arr.length());
+		assertEquals("Only objects of the slide should be removed", "a", arr.getJSONObject(0).getString("uid"));
+		assertTrue("Presentation should be kept", wb.contains("p"));
+		assertTrue("Moved object should be kept", wb.contains("c"));
+		assertEquals("Cleared slide should be empty", 0, wb.clearSlide(1).length());
+		assertNull("Removed object should not be found", wb.remove("a"));
+	}
+
+	@Test
+	public void listByType() {
+		Whiteboard wb = new Whiteboard("test");
+		wb.put("v", item("v", 0).put(ATTR_FILE_TYPE, FileItem.Type.Video.name()))
+				.put("i", item("i", 0).put(ATTR_FILE_TYPE, FileItem.Type.Image.name()))
+				.put("a", item("a", 0));
+		List<JSONObject> list = wb.listByType(FileItem.Type.Video.name(), FileItem.Type.Recording.name());
+		assertEquals("Only videos should be listed", 1, list.size());
+		assertEquals("Only videos should be listed", "v", list.get(0).getString("uid"));
+		wb.remove("v");
+		assertTrue("Removed video should not be listed", wb.listByType(FileItem.Type.Video.name()).isEmpty());
+		wb.clear();
+		assertFalse("Whiteboard should be empty", wb.contains("i"));
+	}
+
+	@Test
+	public void containsFile() {
+		Whiteboard wb = new Whiteboard("test");
+		wb.put("i", item("i", 0).put(ATTR_FILE_ID, 5L))
+				.put("a", item("a", 0));
+		assertTrue("Object should refer to the file", wb.containsFile("i", 5L));
+		assertTrue("File should be found", wb.containsFile(5L));
+		assertFalse("Object should not refer to other file", wb.containsFile("i", 6L));
+		assertFalse("Object without file should not refer to the file", wb.containsFile("a", 5L));
+		wb.put("i", item("i", 0).put(ATTR_FILE_ID, 6L));
+		assertFalse("Replaced file should not be found", wb.containsFile(5L));
+		assertTrue("New file should be found", wb.containsFile("i", 6L));
+		wb.remove("i");
+		assertFalse("Removed file should not be found", wb.containsFile(6L));
+	}
+}
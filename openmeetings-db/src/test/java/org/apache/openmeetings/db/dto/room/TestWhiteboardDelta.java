@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * 'License') +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * 'AS IS' BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dto.room;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import com.github.openjson.JSONObject;
+
+public class TestWhiteboardDelta {
+	private static JSONObject item(String uid, int left) {
+		return new JSONObject().put("uid", uid).put("left", left);
+	}
+
+	@Test
+	public void apply() {
+		Whiteboards src = new Whiteboards(1L).add(new Whiteboard("src"));
+		Whiteboards dst = new Whiteboards(1L).add(new Whiteboard("dst"));
+		Whiteboard wb = src.get(0L);
+		wb.put("a", item("a", 1)).put("b", item("b", 2));
+		dst.get(0L).put("b", item("b", 0)).put("c", item("c", 3));
+		wb.put("b", item("b", 5));
+
+		WhiteboardDelta d = new WhiteboardDelta(1L).add(wb, new HashSet<>(Arrays.asList("a", "b", "c")));
+		assertFalse("Delta should not be empty", d.isEmpty());
+		d.apply(dst);
+		Whiteboard res = dst.get(0L);
+		assertEquals("Item should be added", 1, res.get("a").getInt("left"));
+		assertEquals("Item should be modified", 5, res.get("b").getInt("left"));
+		assertFalse("Item should be removed", res.contains("c"));
+	}
+
+	@Test
+	public void missingWhiteboard() {
+		Whiteboards src = new Whiteboards(1L).add(new Whiteboard("src")).add(new Whiteboard("src 1"));
+		Whiteboard wb = src.get(1L).put("a", item("a", 1));
+		Whiteboards dst = new Whiteboards(1L).add(new Whiteboard("dst"));
+
+		new WhiteboardDelta(1L).add(wb, new HashSet<>(Arrays.asList("a"))).apply(dst);
+		assertTrue("Existing whiteboard should not be changed", dst.get(0L).isEmpty());
+	}
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.util;
+
+import static org.apache.openmeetings.db.util.AuthLevelUtil.check;
+import static org.apache.openmeetings.db.util.AuthLevelUtil.toMask;
+import static org.apache.openmeetings.db.util.AuthLevelUtil.toRights;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.apache.openmeetings.db.entity.user.User.Right;
+import org.junit.Test;
+
+public class TestAuthLevelUtil {
+	@Test
+	public void testMask() {
+		Set<Right> rights = EnumSet.of(Right.Login, Right.Room, Right.Soap);
+		long mask = toMask(rights);
+		for (Right r : Right.values()) {
+			assertEquals("Bitmask and set check should match", check(rights, r), check(mask, r));
+		}
+		assertEquals("Rights should be restored from bitmask", rights, toRights(mask));
+	}
+
+	@Test
+	public void testEmpty() {
+		assertEquals("Empty mask expected", 0L, toMask((Set<Right>)null));
+		assertTrue("Empty rights expected", toRights(0L).isEmpty());
+		assertFalse("Right should not be granted", check(0L, Right.Admin));
+	}
+}
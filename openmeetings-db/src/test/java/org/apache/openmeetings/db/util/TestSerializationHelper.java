@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+
+import org.apache.openmeetings.db.dto.room.Whiteboard;
+import org.apache.openmeetings.db.dto.room.Whiteboards;
+import org.apache.openmeetings.db.dto.room.WhiteboardsSerializer;
+import org.apache.openmeetings.db.entity.basic.Client;
+import org.apache.openmeetings.db.entity.basic.Client.Activity;
+import org.apache.openmeetings.db.entity.basic.Client.Pod;
+import org.apache.openmeetings.db.entity.basic.ClientSerializer;
+import org.apache.openmeetings.db.entity.basic.IClient.Type;
+import org.apache.openmeetings.db.entity.room.Room;
+import org.apache.openmeetings.db.entity.room.Room.Right;
+import org.apache.openmeetings.db.entity.room.StreamClient;
+import org.apache.openmeetings.db.entity.room.StreamClientSerializer;
+import org.apache.openmeetings.db.entity.user.User;
+import org.junit.Test;
+
+import com.github.openjson.JSONObject;
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.config.SerializerConfig;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+
+public class TestSerializationHelper {
+	private final InternalSerializationService ss = new DefaultSerializationServiceBuilder()
+			.setConfig(new SerializationConfig()
+					.addSerializerConfig(new SerializerConfig().setTypeClass(Client.class).setImplementation(new ClientSerializer()))
+					.addSerializerConfig(new SerializerConfig().setTypeClass(StreamClient.class).setImplementation(new StreamClientSerializer()))
+					.addSerializerConfig(new SerializerConfig().setTypeClass(Whiteboards.class).setImplementation(new WhiteboardsSerializer())))
+			.build();
+
+	private <T> T copy(T o) {
+		return ss.toObject(ss.toData(o));
+	}
+
+	@Test
+	public void client() {
+		User u = new User();
+		u.setId(1L);
+		u.setFirstname("first");
+		Room r = new Room();
+		r.setId(2L);
+		StreamClient sc = new StreamClient();
+		sc.setUid(UUID.randomUUID().toString());
+		Client c = new Client(sc, u).setRoom(r).allow(Right.audio, Right.exclusive).set(Activity.broadcastAV)
+				.addStream("s1").setCam(1).setWidth(320);
+		c.setPod(Pod.left);
+		c.setRecordingId(5L);
+		c.setVersion(7L);
+
+		Client res = copy(c);
+		assertEquals(c.getUid(), res.getUid());
+		assertEquals(c.getSid(), res.getSid());
+		assertEquals(c.getSessionId(), res.getSessionId());
+		assertEquals(c.getConnectedSince(), res.getConnectedSince());
+		assertEquals("first", res.getFirstname());
+		assertEquals(Long.valueOf(2L), res.getRoomId());
+		assertTrue("Rights should be restored", res.hasRight(Right.audio) && res.hasRight(Right.exclusive) && !res.hasRight(Right.video));
+		assertTrue("Activities should be restored", res.hasActivity(Activity.broadcastA) && res.hasActivity(Activity.broadcastV));
+		assertEquals(c.getStreams(), res.getStreams());
+		assertEquals(Pod.left, res.getPod());
+		assertEquals(1, res.getCam());
+		assertEquals(-1, res.getMic());
+		assertEquals(320, res.getWidth());
+		assertEquals(Long.valueOf(5L), res.getRecordingId());
+		assertEquals(7L, res.getVersion());
+		assertNull("Restored client should have no changes", res.flush(false));
+	}
+
+	@Test
+	public void streamClient() {
+		StreamClient c = new StreamClient();
+		c.setScope("12");
+		c.setUid(UUID.randomUUID().toString());
+		c.setBroadcastId("b1");
+		c.setUserId(3L);
+		c.setSharingStarted(true);
+		c.setMicMuted(true);
+		c.setAllowRecording(false);
+		c.setInterviewPodId(2);
+		c.setType(Type.sharing);
+
+		StreamClient res = copy(c);
+		assertEquals(Long.valueOf(12L), res.getRoomId());
+		assertEquals(c.getUid(), res.getUid());
+		assertEquals("b1", res.getBroadCastID());
+		assertEquals(Long.valueOf(3L), res.getUserId());
+		assertTrue("Flags should be restored", res.isSharingStarted() && res.isMicMuted() && !res.isAllowRecording() && !res.isMod());
+		assertEquals(Integer.valueOf(2), res.getInterviewPodId());
+		assertNull(res.getMetaId());
+		assertNull(res.getEmail());
+		assertEquals(Type.sharing, res.getType());
+	}
+
+	@Test
+	public void whiteboards() {
+		Whiteboards wbs = new Whiteboards(1L).add(new Whiteboard("a")).add(new Whiteboard("b"));
+		wbs.setActiveWb(1L);
+		wbs.setVersion(7L);
+		Whiteboard wb = wbs.get(1L);
+		wb.setSlide(2);
+		wb.put("i2", new JSONObject().put("uid", "i2").put(Whiteboard.ATTR_SLIDE, 2));
+		wb.put("i1", new JSONObject().put("uid", "i1").put(Whiteboard.ATTR_SLIDE, 2));
+
+		Whiteboards res = copy(wbs);
+		assertEquals(wbs.getUid(), res.getUid());
+		assertEquals(Long.valueOf(1L), res.getRoomId());
+		assertEquals(1L, res.getActiveWb());
+		assertEquals(7L, res.getVersion());
+		assertEquals(2, res.count());
+		Whiteboard rwb = res.get(1L);
+		assertEquals("b", rwb.getName());
+		assertEquals(2, rwb.getSlide());
+		assertEquals("Order of items should be kept", "i2", rwb.list().get(0).getString("uid"));
+		assertEquals(2, rwb.clearSlide(2).length());
+		res.add(new Whiteboard("c"));
+		assertEquals("Id sequence should be restored", "c", res.get(2L).getName());
+	}
+}
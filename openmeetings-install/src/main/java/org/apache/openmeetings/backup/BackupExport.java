@@ -23,28 +23,44 @@ import static org.apache.openmeetings.util.OmFileHelper.BACKUP_DIR;
 import static org.apache.openmeetings.util.OmFileHelper.BCKP_RECORD_FILES;
 import static org.apache.openmeetings.util.OmFileHelper.BCKP_ROOM_FILES;
 import static org.apache.openmeetings.util.OmFileHelper.CSS_DIR;
+import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_FLV;
+import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_JPG;
+import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_MP4;
+import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_PNG;
 import static org.apache.openmeetings.util.OmFileHelper.IMPORT_DIR;
 import static org.apache.openmeetings.util.OmFileHelper.getCustomCss;
 import static org.apache.openmeetings.util.OmFileHelper.getStreamsHibernateDir;
 import static org.apache.openmeetings.util.OmFileHelper.getUploadDir;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Function;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
-import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
 import org.apache.openmeetings.backup.converter.AppointmentConverter;
 import org.apache.openmeetings.backup.converter.AppointmentReminderTypeConverter;
 import org.apache.openmeetings.backup.converter.BaseFileItemConverter;
@@ -102,6 +118,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 /**
+ * Backup is written section by section, sections are serialized in parallel
+ * into temporary files and copied into the zip in fixed order, big tables
+ * are read page by page so memory usage doesn't depend on the amount of data
  *
  * @author sebastianwagner
  *
@@ -115,6 +134,12 @@ public class BackupExport {
 			+ "you should use the BackupPanel to modify or change this file \n"
 			+ "see http://openmeetings.apache.org/Upgrade.html for Details \n"
 			+ "###############################################\n";
+	private static final int PAGE_SIZE = 1000;
+	// each thread holds DB connection while its section is being written
+	private static final int THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+	// already compressed files are stored as is, deflating them again only costs CPU
+	private static final Set<String> STORED_EXTENSIONS = new HashSet<>(Arrays.asList(
+			EXTENSION_FLV, EXTENSION_JPG, EXTENSION_MP4, EXTENSION_PNG, "jpeg", "gif", "webm", "mp3", "ogg", "zip"));
 
 	@Autowired
 	private AppointmentDao appointmentDao;
@@ -153,40 +178,45 @@ public class BackupExport {
 		if (zip.getParentFile() != null && !zip.getParentFile().exists()) {
 			zip.getParentFile().mkdirs();
 		}
+		List<Section> sections = Arrays.asList(
+				new Section("organizations.xml", 5, this::exportGroups)
+				, new Section("users.xml", 10, this::exportUsers)
+				, new Section("rooms.xml", 15, this::exportRoom)
+				, new Section("rooms_organisation.xml", 17, this::exportRoomGroup)
+				, new Section("roomFiles.xml", 17, this::exportRoomFile)
+				, new Section("calendars.xml", 22, this::exportCalendar)
+				, new Section("appointements.xml", 25, this::exportAppointment)
+				, new Section("meetingmembers.xml", 30, this::exportMeetingMember)
+				, new Section("ldapconfigs.xml", 35, this::exportLdap)
+				, new Section("oauth2servers.xml", 45, this::exportOauth)
+				, new Section("privateMessages.xml", 50, this::exportPrivateMsg)
+				, new Section("privateMessageFolder.xml", 55, this::exportPrivateMsgFolder)
+				, new Section("userContacts.xml", 60, this::exportContacts)
+				, new Section("fileExplorerItems.xml", 65, this::exportFile)
+				, new Section("flvRecordings.xml", 70, this::exportRecording)
+				, new Section("roompolls.xml", 75, this::exportPoll)
+				, new Section("configs.xml", 80, this::exportConfig)
+				, new Section("chat_messages.xml", 85, this::exportChat));
+		Path tmpDir = zip.getAbsoluteFile().getParentFile().toPath();
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
 		try (FileOutputStream fos = new FileOutputStream(zip); ZipOutputStream zos = new ZipOutputStream(fos)) {
-			Serializer ser = new Persister();
-
 			progressHolder.setProgress(0);
-			/*
-			 * ##################### Backup Groups
-			 */
-			writeList(ser, zos, "version.xml", "version", Arrays.asList(BackupVersion.get()));
+			for (Section s : sections) {
+				s.start(pool, tmpDir);
+			}
+			writeList(new Persister(), zos, "version.xml", "version", Arrays.asList(BackupVersion.get()));
 			progressHolder.setProgress(2);
-			exportGroups(zos, progressHolder);
-			exportUsers(zos, progressHolder);
-			exportRoom(zos, progressHolder);
-			exportRoomGroup(zos, progressHolder);
-			exportRoomFile(zos, progressHolder);
-			exportCalendar(zos, progressHolder);
-			exportAppointment(zos, progressHolder);
-			exportMeetingMember(zos, progressHolder);
-			exportLdap(zos, progressHolder, ser);
-			exportOauth(zos, progressHolder);
-			exportPrivateMsg(zos, progressHolder);
-			exportPrivateMsgFolder(zos, progressHolder, ser);
-			exportContacts(zos, progressHolder);
-			exportFile(zos, progressHolder);
-			exportRecording(zos, progressHolder);
-			exportPoll(zos, progressHolder);
-			exportConfig(zos, progressHolder);
-			exportChat(zos, progressHolder);
+			for (Section s : sections) {
+				s.copy(zos);
+				progressHolder.setProgress(s.progress);
+			}
 
 			if (includeFiles) {
 				//##################### Backup Room Files
 				for (File file : getUploadDir().listFiles()) {
 					String fName = file.getName();
 					if (file.isDirectory() && !IMPORT_DIR.equals(fName) && !BACKUP_DIR.equals(fName)) {
-						log.debug("### " + file.getName());
+						log.debug("### {}", fName);
 						writeZipDir(BCKP_ROOM_FILES, file.getParentFile().toURI(), file, zos);
 					}
 				}
@@ -201,16 +231,21 @@ public class BackupExport {
 					writeZip(CSS_DIR, customCss.getParentFile().toURI(), customCss, zos);
 				}
 			}
+		} finally {
+			pool.shutdownNow();
+			for (Section s : sections) {
+				s.cleanup();
+			}
 		}
 		progressHolder.setProgress(100);
 		log.debug("---Done");
 	}
 
-	private static <T extends HistoricalEntity> void bindDate(Registry registry, List<T> list) throws Exception {
-		bindDate(registry, list, HistoricalEntity::getInserted);
+	private static <T extends HistoricalEntity> List<T> bindDate(Registry registry, List<T> list) throws Exception {
+		return bindDate(registry, list, HistoricalEntity::getInserted);
 	}
 
-	private static <T> void bindDate(Registry registry, List<T> list, Function<T, ?> func) throws Exception {
+	private static <T> List<T> bindDate(Registry registry, List<T> list, Function<T, ?> func) throws Exception {
 		if (list != null) {
 			for (T e : list) {
 				Object d = func.apply(e);
@@ -221,41 +256,37 @@ public class BackupExport {
 				}
 			}
 		}
+		return list;
 	}
 	/*
 	 * ##################### Backup  Groups
 	 */
-	private void exportGroups(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+	private void exportGroups(OutputStream os) throws Exception {
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer ser = new Persister(strategy);
 		List<Group> list = groupDao.get(0, Integer.MAX_VALUE);
 		bindDate(registry, list);
-		writeList(ser, zos, "organizations.xml", "organisations", list);
-		progressHolder.setProgress(5);
+		writeList(ser, os, "organisations", list);
 	}
 
 	/*
 	 * ##################### Backup Users
 	 */
-	private void exportUsers(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+	private void exportUsers(OutputStream os) throws Exception {
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer ser = new Persister(strategy);
 
 		registry.bind(Group.class, GroupConverter.class);
 		registry.bind(Salutation.class, SalutationConverter.class);
-		List<User> list = userDao.getAllBackupUsers();
-		bindDate(registry, list);
-
-		writeList(ser, zos, "users.xml", "users", list);
-		progressHolder.setProgress(10);
+		writeList(ser, os, "users", (start, count) -> bindDate(registry, userDao.getAllBackupUsers(start, count)));
 	}
 
 	/*
 	 * ##################### Backup Room
 	 */
-	private void exportRoom(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+	private void exportRoom(OutputStream os) throws Exception {
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
@@ -264,14 +295,13 @@ public class BackupExport {
 		registry.bind(Room.Type.class, RoomTypeConverter.class);
 		List<Room> list = roomDao.get();
 		bindDate(registry, list);
-		writeList(serializer, zos, "rooms.xml", "rooms", list);
-		progressHolder.setProgress(15);
+		writeList(serializer, os, "rooms", list);
 	}
 
 	/*
 	 * ##################### Backup Room Groups
 	 */
-	private void exportRoomGroup(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+	private void exportRoomGroup(OutputStream os) throws Exception {
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
@@ -279,14 +309,13 @@ public class BackupExport {
 		registry.bind(Group.class, GroupConverter.class);
 		registry.bind(Room.class, RoomConverter.class);
 
-		writeList(serializer, zos, "rooms_organisation.xml", "room_organisations", roomDao.getGroups());
-		progressHolder.setProgress(17);
+		writeList(serializer, os, "room_organisations", roomDao.getGroups());
 	}
 
 	/*
 	 * ##################### Backup Room Files
 	 */
-	private void exportRoomFile(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+	private void exportRoomFile(OutputStream os) throws Exception {
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
@@ -294,29 +323,26 @@ public class BackupExport {
 		registry.bind(FileItem.class, BaseFileItemConverter.class);
 		registry.bind(Recording.class, BaseFileItemConverter.class);
 
-		writeList(serializer, zos, "roomFiles.xml", "RoomFiles", roomDao.getFiles());
-		progressHolder.setProgress(17);
+		writeList(serializer, os, "RoomFiles", roomDao.getFiles());
 	}
 
 	/*
 	 * ##################### Backup Calendars
 	 */
-	private void exportCalendar(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+	private void exportCalendar(OutputStream os) throws Exception {
 		List<OmCalendar> list = calendarDao.get();
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
 		registry.bind(User.class, UserConverter.class);
 
-		writeList(serializer, zos, "calendars.xml", "calendars", list);
-		progressHolder.setProgress(22);
+		writeList(serializer, os, "calendars", list);
 	}
 
 	/*
 	 * ##################### Backup Appointments
 	 */
-	private void exportAppointment(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
-		List<Appointment> list = appointmentDao.get();
+	private void exportAppointment(OutputStream os) throws Exception {
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
@@ -324,16 +350,14 @@ public class BackupExport {
 		registry.bind(User.class, UserConverter.class);
 		registry.bind(Appointment.Reminder.class, AppointmentReminderTypeConverter.class);
 		registry.bind(Room.class, RoomConverter.class);
-		bindDate(registry, list);
 
-		writeList(serializer, zos, "appointements.xml", "appointments", list);
-		progressHolder.setProgress(25);
+		writeList(serializer, os, "appointments", (start, count) -> bindDate(registry, appointmentDao.get(start, count)));
 	}
 
 	/*
 	 * ##################### Backup Meeting Members
 	 */
-	private void exportMeetingMember(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+	private void exportMeetingMember(OutputStream os) throws Exception {
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
@@ -341,107 +365,95 @@ public class BackupExport {
 		registry.bind(User.class, UserConverter.class);
 		registry.bind(Appointment.class, AppointmentConverter.class);
 
-		writeList(serializer, zos, "meetingmembers.xml",
-				"meetingmembers", meetingMemberDao.getMeetingMembers());
-		progressHolder.setProgress(30);
+		writeList(serializer, os, "meetingmembers", meetingMemberDao::getMeetingMembers);
 	}
 
 	/*
 	 * ##################### LDAP Configs
 	 */
-	private void exportLdap(ZipOutputStream zos, ProgressHolder progressHolder, Serializer ser) throws Exception {
+	private void exportLdap(OutputStream os) throws Exception {
 		List<LdapConfig> ldapList = ldapConfigDao.get();
 		if (!ldapList.isEmpty()) {
 			ldapList.remove(0);
 		}
-		writeList(ser, zos, "ldapconfigs.xml", "ldapconfigs", ldapList);
-		progressHolder.setProgress(35);
+		writeList(new Persister(), os, "ldapconfigs", ldapList);
 	}
 
 	/*
 	 * ##################### OAuth2 servers
 	 */
-	private void exportOauth(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+	private void exportOauth(OutputStream os) throws Exception {
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
 		List<OAuthServer> list = auth2Dao.get(0, Integer.MAX_VALUE);
 		bindDate(registry, list);
-		writeList(serializer, zos, "oauth2servers.xml", "oauth2servers", list);
-		progressHolder.setProgress(45);
+		writeList(serializer, os, "oauth2servers", list);
 	}
 
 	/*
 	 * ##################### Private Messages
 	 */
-	private void exportPrivateMsg(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
-		List<PrivateMessage> list = privateMessageDao.get(0, Integer.MAX_VALUE);
+	private void exportPrivateMsg(OutputStream os) throws Exception {
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
 
 		registry.bind(User.class, UserConverter.class);
 		registry.bind(Room.class, RoomConverter.class);
-		bindDate(registry, list, PrivateMessage::getInserted);
-		writeList(serializer, zos, "privateMessages.xml", "privatemessages", list);
-		progressHolder.setProgress(50);
+		writeList(serializer, os, "privatemessages"
+				, (start, count) -> bindDate(registry, privateMessageDao.get(start, count), PrivateMessage::getInserted));
 	}
 
 	/*
 	 * ##################### Private Message Folders
 	 */
-	private void exportPrivateMsgFolder(ZipOutputStream zos, ProgressHolder progressHolder, Serializer ser) throws Exception {
-		writeList(ser, zos, "privateMessageFolder.xml",
-				"privatemessagefolders", privateMessageFolderDao.get(0, Integer.MAX_VALUE));
-		progressHolder.setProgress(55);
+	private void exportPrivateMsgFolder(OutputStream os) throws Exception {
+		writeList(new Persister(), os, "privatemessagefolders", privateMessageFolderDao.get(0, Integer.MAX_VALUE));
 	}
 
 	/*
 	 * ##################### User Contacts
 	 */
-	private void exportContacts(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+	private void exportContacts(OutputStream os) throws Exception {
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
 
 		registry.bind(User.class, UserConverter.class);
 
-		writeList(serializer, zos, "userContacts.xml", "usercontacts", userContactDao.get());
-		progressHolder.setProgress(60);
+		writeList(serializer, os, "usercontacts", userContactDao::get);
 	}
 
 	/*
 	 * ##################### File-Explorer
 	 */
-	private void exportFile(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
-		List<FileItem> list = fileItemDao.get();
+	private void exportFile(OutputStream os) throws Exception {
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
 
-		bindDate(registry, list);
-		writeList(serializer, zos, "fileExplorerItems.xml", "fileExplorerItems", list);
-		progressHolder.setProgress(65);
+		writeList(serializer, os, "fileExplorerItems", (start, count) -> bindDate(registry, fileItemDao.get(start, count)));
 	}
 
 	/*
 	 * ##################### Recordings
 	 */
-	private void exportRecording(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+	private void exportRecording(OutputStream os) throws Exception {
+		// metadata is fetched with recordings, so the list is not paged
 		List<Recording> list = recordingDao.get();
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
 
 		bindDate(registry, list);
-		writeList(serializer, zos, "flvRecordings.xml", "flvrecordings", list);
-		progressHolder.setProgress(70);
+		writeList(serializer, os, "flvrecordings", list);
 	}
 
 	/*
 	 * ##################### Polls
 	 */
-	private void exportPoll(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+	private void exportPoll(OutputStream os) throws Exception {
 		List<RoomPoll> list = pollManager.get();
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
@@ -451,35 +463,31 @@ public class BackupExport {
 		registry.bind(Room.class, RoomConverter.class);
 		registry.bind(RoomPoll.Type.class, PollTypeConverter.class);
 		bindDate(registry, list, RoomPoll::getCreated);
-		writeList(serializer, zos, "roompolls.xml", "roompolls", list);
-		progressHolder.setProgress(75);
+		writeList(serializer, os, "roompolls", list);
 	}
 
 	/*
 	 * ##################### Config
 	 */
-	private void exportConfig(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
+	private void exportConfig(OutputStream os) throws Exception {
 		List<Configuration> list = configurationDao.get(0, Integer.MAX_VALUE);
 		Serializer serializer = getConfigSerializer(list);
 
-		writeList(serializer, zos, "configs.xml", "configs", list);
-		progressHolder.setProgress(80);
+		writeList(serializer, os, "configs", list);
 	}
 
 	/*
 	 * ##################### Chat
 	 */
-	private void exportChat(ZipOutputStream zos, ProgressHolder progressHolder) throws Exception {
-		List<ChatMessage> list = chatDao.get(0, Integer.MAX_VALUE);
+	private void exportChat(OutputStream os) throws Exception {
 		Registry registry = new Registry();
 		registry.bind(User.class, UserConverter.class);
 		registry.bind(Room.class, RoomConverter.class);
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
 
-		bindDate(registry, list, ChatMessage::getSent);
-		writeList(serializer, zos, "chat_messages.xml", "chat_messages", list);
-		progressHolder.setProgress(85);
+		writeList(serializer, os, "chat_messages"
+				, (start, count) -> bindDate(registry, chatDao.get(start, count), ChatMessage::getSent));
 	}
 
 	private static Serializer getConfigSerializer(List<Configuration> list) throws Exception {
@@ -492,28 +500,37 @@ public class BackupExport {
 		return serializer;
 	}
 
-	private static <T> ByteArrayOutputStream stream(Serializer ser, String listElement, List<T> list) throws Exception {
-		ByteArrayOutputStream baos = new ByteArrayOutputStream(10 * 1024); //10K
-		writeList(ser, baos, listElement, list);
-		return baos;
-	}
-
 	private static <T> void writeList(Serializer ser, ZipOutputStream zos, String fileName, String listElement, List<T> list) throws Exception {
 		ZipEntry e = new ZipEntry(fileName);
 		zos.putNextEntry(e);
-		ByteArrayOutputStream baos = stream(ser, listElement, list);
-		zos.write(baos.toByteArray());
+		writeList(ser, zos, listElement, list);
 		zos.closeEntry();
 	}
 
 	private static <T> void writeList(Serializer ser, OutputStream os, String listElement, List<T> list) throws Exception {
+		writeList(ser, os, listElement, (start, count) -> start == 0 ? list : null);
+	}
+
+	/**
+	 * Writes all items returned by the pager, next page is requested until
+	 * the page smaller than {@link #PAGE_SIZE} is returned, XML is streamed
+	 * directly into the given stream
+	 */
+	private static <T> void writeList(Serializer ser, OutputStream os, String listElement, Pager<T> pager) throws Exception {
 		Format format = new Format("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
-		OutputNode doc = NodeBuilder.write(new OutputStreamWriter(os, UTF_8), format);
+		Writer writer = new OutputStreamWriter(os, UTF_8);
+		OutputNode doc = NodeBuilder.write(writer, format);
 		OutputNode root = doc.getChild("root");
 		root.setComment(BACKUP_COMMENT);
 		OutputNode listNode = root.getChild(listElement);
 
-		if (list != null) {
+		int start = 0;
+		List<T> list;
+		do {
+			list = pager.get(start, PAGE_SIZE);
+			if (list == null) {
+				break;
+			}
 			for (T t : list) {
 				try {
 					ser.write(t, listNode);
@@ -521,17 +538,42 @@ public class BackupExport {
 					log.debug("Exception While writing node of type: " + t.getClass(), e);
 				}
 			}
-		}
+			start += list.size();
+		} while (list.size() == PAGE_SIZE);
 		root.commit();
+		writer.flush();
+	}
+
+	private static boolean isStored(File file) {
+		return STORED_EXTENSIONS.contains(FilenameUtils.getExtension(file.getName()).toLowerCase(Locale.ROOT));
+	}
+
+	private static long crc(Path path) throws IOException {
+		CRC32 crc = new CRC32();
+		ByteBuffer buf = ByteBuffer.allocateDirect(64 * 1024);
+		try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+			while (ch.read(buf) > -1) {
+				buf.flip();
+				crc.update(buf);
+				buf.clear();
+			}
+		}
+		return crc.getValue();
 	}
 
 	private void writeZip(String prefix, URI base, File file, ZipOutputStream zos) throws IOException {
 		String path = prefix + "/" + base.relativize(file.toURI()).toString();
-		log.debug("Writing '" + path + "' to zip file");
+		log.debug("Writing '{}' to zip file", path);
 		ZipEntry zipEntry = new ZipEntry(path);
+		if (isStored(file)) {
+			long size = file.length();
+			zipEntry.setMethod(ZipEntry.STORED);
+			zipEntry.setSize(size);
+			zipEntry.setCompressedSize(size);
+			zipEntry.setCrc(crc(file.toPath()));
+		}
 		zos.putNextEntry(zipEntry);
-
-		FileUtils.copyFile(file, zos);
+		Files.copy(file.toPath(), zos);
 		zos.closeEntry();
 	}
 
@@ -548,11 +590,81 @@ public class BackupExport {
 	public static void main(String[] args) throws Exception {
 		List<Configuration> list = ImportInitvalues.initialCfgs(new InstallationConfig());
 		Serializer ser = getConfigSerializer(list);
-		ByteArrayOutputStream baos = stream(ser, "configs", list);
 		File f = new File(args[0]);
 		if (!f.exists() && !f.getParentFile().exists()) {
 			f.getParentFile().mkdirs();
 		}
-		Files.write(Paths.get(args[0]), baos.toByteArray(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try (OutputStream os = Files.newOutputStream(Paths.get(args[0]), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			writeList(ser, os, "configs", list);
+		}
+	}
+
+	@FunctionalInterface
+	private interface Pager<T> {
+		/**
+		 * @return page of items, {@code null} if there are no more items
+		 */
+		List<T> get(int start, int count) throws Exception;
+	}
+
+	@FunctionalInterface
+	private interface SectionWriter {
+		void write(OutputStream os) throws Exception;
+	}
+
+	/**
+	 * Single XML file of the backup, being written into temporary file by the pool thread
+	 */
+	private static class Section {
+		private final String fileName;
+		private final int progress;
+		private final SectionWriter writer;
+		private volatile Path tmp;
+		private Future<Path> result;
+
+		Section(String fileName, int progress, SectionWriter writer) {
+			this.fileName = fileName;
+			this.progress = progress;
+			this.writer = writer;
+		}
+
+		void start(ExecutorService pool, Path dir) {
+			result = pool.submit(() -> {
+				tmp = Files.createTempFile(dir, "backup", ".xml");
+				try (OutputStream os = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+					writer.write(os);
+				}
+				return tmp;
+			});
+		}
+
+		void copy(ZipOutputStream zos) throws Exception {
+			Path path;
+			try {
+				path = result.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				throw cause instanceof Exception ? (Exception)cause : e;
+			}
+			zos.putNextEntry(new ZipEntry(fileName));
+			Files.copy(path, zos);
+			zos.closeEntry();
+			Files.delete(path);
+			tmp = null;
+		}
+
+		void cleanup() {
+			if (result != null) {
+				result.cancel(true);
+			}
+			Path path = tmp;
+			if (path != null) {
+				try {
+					Files.deleteIfExists(path);
+				} catch (IOException e) {
+					log.warn("Unable to delete temporary file {}", path, e);
+				}
+			}
+		}
 	}
 }
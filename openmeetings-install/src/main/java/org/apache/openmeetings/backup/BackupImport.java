@@ -90,7 +90,10 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_ENAB
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_EXTEN_CONTEXT;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_ROOM_PREFIX;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PASS;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_POOL_SIZE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PORT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_RATE_LIMIT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_RETRY_DELAY;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SERVER;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SYSTEM_EMAIL;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_TIMEOUT;
@@ -100,6 +103,7 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_USE
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getDefaultTimezone;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getMinLoginLength;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -112,6 +116,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
@@ -190,11 +195,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Component
 public class BackupImport {
 	private static final Logger log = LoggerFactory.getLogger(BackupImport.class);
 	private static final String LDAP_EXT_TYPE = "LDAP";
+	private static final String PRIVATE_MSG_FILE = "privateMessages.xml";
+	private static final String PRIVATE_MSG_LIST = "privatemessages";
+	private static final int BATCH_SIZE = 100;
 	private static final Map<String, String> outdatedConfigKeys = new HashMap<>();
 	private static final Map<String, Configuration.Type> configTypes = new HashMap<>();
 	static {
@@ -246,6 +256,9 @@ public class BackupImport {
 		configTypes.put(CONFIG_SMTP_PORT, Configuration.Type.number);
 		configTypes.put(CONFIG_SMTP_TIMEOUT_CON, Configuration.Type.number);
 		configTypes.put(CONFIG_SMTP_TIMEOUT, Configuration.Type.number);
+		configTypes.put(CONFIG_SMTP_POOL_SIZE, Configuration.Type.number);
+		configTypes.put(CONFIG_SMTP_RATE_LIMIT, Configuration.Type.number);
+		configTypes.put(CONFIG_SMTP_RETRY_DELAY, Configuration.Type.number);
 		configTypes.put(CONFIG_DEFAULT_LANG, Configuration.Type.number);
 		configTypes.put(CONFIG_DOCUMENT_DPI, Configuration.Type.number);
 		configTypes.put(CONFIG_DOCUMENT_QUALITY, Configuration.Type.number);
@@ -304,14 +317,17 @@ public class BackupImport {
 	@Autowired
 	private DocumentConverter docConverter;
 
-	private final Map<Long, Long> userMap = new HashMap<>();
-	private final Map<Long, Long> groupMap = new HashMap<>();
-	private final Map<Long, Long> calendarMap = new HashMap<>();
-	private final Map<Long, Long> appointmentMap = new HashMap<>();
-	private final Map<Long, Long> roomMap = new HashMap<>();
-	private final Map<Long, Long> fileItemMap = new HashMap<>();
-	private final Map<Long, Long> messageFolderMap = new HashMap<>();
-	private final Map<Long, Long> userContactMap = new HashMap<>();
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final IdMap userMap = new IdMap();
+	private final IdMap groupMap = new IdMap();
+	private final IdMap calendarMap = new IdMap();
+	private final IdMap appointmentMap = new IdMap();
+	private final IdMap roomMap = new IdMap();
+	private final IdMap fileItemMap = new IdMap();
+	private final IdMap messageFolderMap = new IdMap();
+	private final IdMap userContactMap = new IdMap();
 	private final Map<String, String> fileMap = new HashMap<>();
 
 	private static File validate(String ename, File intended) throws IOException {
@@ -352,11 +368,16 @@ public class BackupImport {
 	}
 
 	public void performImport(InputStream is) throws Exception {
+		performImport(is, new ProgressHolder());
+	}
+
+	public void performImport(InputStream is, ProgressHolder progressHolder) throws Exception {
 		userMap.clear();
 		groupMap.clear();
 		calendarMap.clear();
 		appointmentMap.clear();
 		roomMap.clear();
+		fileItemMap.clear();
 		messageFolderMap.clear();
 		userContactMap.clear();
 		fileMap.clear();
@@ -364,7 +385,9 @@ public class BackupImport {
 		messageFolderMap.put(SENT_FOLDER_ID, SENT_FOLDER_ID);
 		messageFolderMap.put(TRASH_FOLDER_ID, TRASH_FOLDER_ID);
 
+		progressHolder.setProgress(0);
 		File f = unzip(is);
+		progressHolder.setProgress(5);
 		Registry registry = new Registry();
 		Strategy strategy = new RegistryStrategy(registry);
 		RegistryMatcher matcher = new RegistryMatcher();
@@ -375,56 +398,74 @@ public class BackupImport {
 
 		BackupVersion ver = getVersion(simpleSerializer, f);
 		importConfigs(f);
+		progressHolder.setProgress(8);
 		importGroups(f, simpleSerializer);
+		progressHolder.setProgress(10);
 		Long defaultLdapId = importLdap(f, simpleSerializer);
+		progressHolder.setProgress(12);
 		importOauth(f, simpleSerializer);
+		progressHolder.setProgress(14);
 		importUsers(f, defaultLdapId);
+		progressHolder.setProgress(25);
 		importRooms(f);
+		progressHolder.setProgress(30);
 		importRoomGroups(f);
+		progressHolder.setProgress(33);
 		importChat(f);
+		progressHolder.setProgress(45);
 		importCalendars(f);
+		progressHolder.setProgress(47);
 		importAppointments(f);
+		progressHolder.setProgress(52);
 		importMeetingMembers(f);
+		progressHolder.setProgress(57);
 		importRecordings(f);
+		progressHolder.setProgress(62);
 		importPrivateMsgFolders(f, simpleSerializer);
+		progressHolder.setProgress(64);
 		importContacts(f);
+		progressHolder.setProgress(67);
 		importPrivateMsgs(f);
-		List<FileItem> files = importFiles(f);
+		progressHolder.setProgress(75);
+		// only old files might require conversion, there is no need to keep others in memory
+		List<FileItem> files = importFiles(f, ver.compareTo(BackupVersion.get("4.0.0")) < 0);
+		progressHolder.setProgress(82);
 		importPolls(f);
+		progressHolder.setProgress(85);
 		importRoomFiles(f);
+		progressHolder.setProgress(88);
 
 		log.info("Room files import complete, starting copy of files and folders");
 		/*
 		 * ##################### Import real files and folders
 		 */
 		importFolders(f);
+		progressHolder.setProgress(95);
 
-		if (ver.compareTo(BackupVersion.get("4.0.0")) < 0) {
-			for (BaseFileItem bfi : files) {
-				if (bfi.isDeleted()) {
-					continue;
-				}
-				if (BaseFileItem.Type.Presentation == bfi.getType()) {
-					convertOldPresentation((FileItem)bfi);
-					fileItemDao._update(bfi);
-				}
-				if (BaseFileItem.Type.WmlFile == bfi.getType()) {
-					try {
-						Whiteboard wb = WbConverter.convert((FileItem)bfi);
-						wb.save(bfi.getFile().toPath());
-					} catch (Exception e) {
-						log.error("Unexpected error while converting WB", e);
-					}
+		for (BaseFileItem bfi : files) {
+			if (BaseFileItem.Type.Presentation == bfi.getType()) {
+				convertOldPresentation((FileItem)bfi);
+				fileItemDao._update(bfi);
+				fileItemDao.updateSize((FileItem)bfi);
+			}
+			if (BaseFileItem.Type.WmlFile == bfi.getType()) {
+				try {
+					Whiteboard wb = WbConverter.convert((FileItem)bfi);
+					wb.save(bfi.getFile().toPath());
+				} catch (Exception e) {
+					log.error("Unexpected error while converting WB", e);
 				}
 			}
 		}
 		log.info("File explorer item import complete, clearing temp files");
 
 		FileUtils.deleteDirectory(f);
+		progressHolder.setProgress(100);
 	}
 
 	private static BackupVersion getVersion(Serializer ser, File f) throws Exception {
-		List<BackupVersion> list = readList(ser, f, "version.xml", "version", BackupVersion.class, true);
+		List<BackupVersion> list = new ArrayList<>();
+		readList(ser, f, "version.xml", "version", BackupVersion.class, true, list::add);
 		return list.isEmpty() ? new BackupVersion() : list.get(0);
 	}
 
@@ -441,10 +482,9 @@ public class BackupImport {
 		registry.bind(Date.class, DateConverter.class);
 		registry.bind(User.class, new UserConverter(userDao, userMap));
 
-		List<Configuration> list = readList(serializer, f, "configs.xml", "configs", Configuration.class);
-		for (Configuration c : list) {
+		readList(serializer, f, "configs.xml", "configs", Configuration.class, c -> {
 			if (c.getKey() == null || c.isDeleted()) {
-				continue;
+				return;
 			}
 			String newKey = outdatedConfigKeys.get(c.getKey());
 			if (newKey != null) {
@@ -475,7 +515,7 @@ public class BackupImport {
 				}
 			}
 			cfgDao.update(c, null);
-		}
+		});
 	}
 
 	/*
@@ -483,13 +523,12 @@ public class BackupImport {
 	 */
 	private void importGroups(File f, Serializer simpleSerializer) throws Exception {
 		log.info("Configs import complete, starting group import");
-		List<Group> list = readList(simpleSerializer, f, "organizations.xml", "organisations", Group.class);
-		for (Group o : list) {
+		readList(simpleSerializer, f, "organizations.xml", "organisations", Group.class, o -> {
 			Long oldId = o.getId();
 			o.setId(null);
 			o = groupDao.update(o, null);
 			groupMap.put(oldId, o.getId());
-		}
+		});
 	}
 
 	/*
@@ -497,18 +536,17 @@ public class BackupImport {
 	 */
 	private Long importLdap(File f, Serializer simpleSerializer) throws Exception {
 		log.info("Groups import complete, starting LDAP config import");
-		Long defaultLdapId = cfgDao.getLong(CONFIG_DEFAULT_LDAP_ID, null);
-		List<LdapConfig> list = readList(simpleSerializer, f, "ldapconfigs.xml", "ldapconfigs", LdapConfig.class);
-		for (LdapConfig c : list) {
+		Long[] defaultLdapId = {cfgDao.getLong(CONFIG_DEFAULT_LDAP_ID, null)};
+		readList(simpleSerializer, f, "ldapconfigs.xml", "ldapconfigs", LdapConfig.class, c -> {
 			if (!"local DB [internal]".equals(c.getName())) {
 				c.setId(null);
 				c = ldapConfigDao.update(c, null);
-				if (defaultLdapId == null) {
-					defaultLdapId = c.getId();
+				if (defaultLdapId[0] == null) {
+					defaultLdapId[0] = c.getId();
 				}
 			}
-		}
-		return defaultLdapId;
+		});
+		return defaultLdapId[0];
 	}
 
 	/*
@@ -516,11 +554,10 @@ public class BackupImport {
 	 */
 	private void importOauth(File f, Serializer simpleSerializer) throws Exception {
 		log.info("Ldap config import complete, starting OAuth2 server import");
-		List<OAuthServer> list = readList(simpleSerializer, f, "oauth2servers.xml", "oauth2servers", OAuthServer.class);
-		for (OAuthServer s : list) {
+		readList(simpleSerializer, f, "oauth2servers.xml", "oauth2servers", OAuthServer.class, s -> {
 			s.setId(null);
 			auth2Dao.update(s, null);
-		}
+		});
 	}
 
 	/*
@@ -547,65 +584,68 @@ public class BackupImport {
 		registry.bind(Group.class, new GroupConverter(groupDao, groupMap));
 		registry.bind(Salutation.class, SalutationConverter.class);
 		registry.bind(Date.class, DateConverter.class);
-		List<User> list = readList(ser, f, "users.xml", "users", User.class);
 		int minLoginLength = getMinLoginLength();
-		for (User u : list) {
-			if (u.getLogin() == null) {
-				continue;
-			}
-			// check that email is unique
-			if (u.getAddress() != null && u.getAddress().getEmail() != null && User.Type.user == u.getType()) {
-				if (userEmailMap.containsKey(u.getAddress().getEmail())) {
-					log.warn("Email is duplicated for user " + u.toString());
-					String updateEmail = String.format("modified_by_import_<%s>%s", UUID.randomUUID(), u.getAddress().getEmail());
-					u.getAddress().setEmail(updateEmail);
+		try (Batch batch = new Batch("User")) {
+			readList(ser, f, "users.xml", "users", User.class, u -> {
+				if (u.getLogin() == null) {
+					return;
 				}
-				userEmailMap.put(u.getAddress().getEmail(), Integer.valueOf(userEmailMap.size()));
-			}
-			if (userLoginMap.containsKey(u.getLogin())) {
-				log.warn("Login is duplicated for user " + u.toString());
-				String updateLogin = String.format("modified_by_import_<%s>%s", UUID.randomUUID(), u.getLogin());
-				u.setLogin(updateLogin);
-			}
-			userLoginMap.put(u.getLogin(), Integer.valueOf(userLoginMap.size()));
-			if (u.getGroupUsers() != null) {
-				for (GroupUser gu : u.getGroupUsers()) {
-					gu.setUser(u);
+				// check that email is unique
+				if (u.getAddress() != null && u.getAddress().getEmail() != null && User.Type.user == u.getType()) {
+					if (userEmailMap.containsKey(u.getAddress().getEmail())) {
+						log.warn("Email is duplicated for user " + u.toString());
+						String updateEmail = String.format("modified_by_import_<%s>%s", UUID.randomUUID(), u.getAddress().getEmail());
+						u.getAddress().setEmail(updateEmail);
+					}
+					userEmailMap.put(u.getAddress().getEmail(), Integer.valueOf(userEmailMap.size()));
+				}
+				if (userLoginMap.containsKey(u.getLogin())) {
+					log.warn("Login is duplicated for user " + u.toString());
+					String updateLogin = String.format("modified_by_import_<%s>%s", UUID.randomUUID(), u.getLogin());
+					u.setLogin(updateLogin);
+				}
+				userLoginMap.put(u.getLogin(), Integer.valueOf(userLoginMap.size()));
+				if (u.getGroupUsers() != null) {
+					for (GroupUser gu : u.getGroupUsers()) {
+						gu.setUser(u);
+					}
+				}
+				if (u.getType() == User.Type.contact && u.getLogin().length() < minLoginLength) {
+					u.setLogin(UUID.randomUUID().toString());
 				}
-			}
-			if (u.getType() == User.Type.contact && u.getLogin().length() < minLoginLength) {
-				u.setLogin(UUID.randomUUID().toString());
-			}
 
-			String tz = u.getTimeZoneId();
-			if (tz == null) {
-				u.setTimeZoneId(jNameTimeZone);
-				u.setForceTimeZoneCheck(true);
-			} else {
-				u.setForceTimeZoneCheck(false);
-			}
+				String tz = u.getTimeZoneId();
+				if (tz == null) {
+					u.setTimeZoneId(jNameTimeZone);
+					u.setForceTimeZoneCheck(true);
+				} else {
+					u.setForceTimeZoneCheck(false);
+				}
 
-			Long userId = u.getId();
-			u.setId(null);
-			if (u.getSipUser() != null && u.getSipUser().getId() != 0) {
-				u.getSipUser().setId(0);
-			}
-			if (LDAP_EXT_TYPE.equals(u.getExternalType()) && User.Type.external != u.getType()) {
-				log.warn("Found LDAP user in 'old' format, external_type == 'LDAP':: " + u);
-				u.setType(User.Type.ldap);
-				u.setExternalType(null);
-				if (u.getDomainId() == null) {
-					u.setDomainId(defaultLdapId); //domainId was not supported in old versions of OM
+				Long userId = u.getId();
+				u.setId(null);
+				if (u.getSipUser() != null && u.getSipUser().getId() != 0) {
+					u.getSipUser().setId(0);
 				}
-			}
-			if (!Strings.isEmpty(u.getExternalType())) {
-				u.setType(User.Type.external);
-			}
-			if (AuthLevelUtil.hasLoginLevel(u.getRights()) && !Strings.isEmpty(u.getActivatehash())) {
-				u.setActivatehash(null);
-			}
-			userDao.update(u, Long.valueOf(-1));
-			userMap.put(userId, u.getId());
+				if (LDAP_EXT_TYPE.equals(u.getExternalType()) && User.Type.external != u.getType()) {
+					log.warn("Found LDAP user in 'old' format, external_type == 'LDAP':: " + u);
+					u.setType(User.Type.ldap);
+					u.setExternalType(null);
+					if (u.getDomainId() == null) {
+						u.setDomainId(defaultLdapId); //domainId was not supported in old versions of OM
+					}
+				}
+				if (!Strings.isEmpty(u.getExternalType())) {
+					u.setType(User.Type.external);
+				}
+				if (AuthLevelUtil.hasLoginLevel(u.getRights()) && !Strings.isEmpty(u.getActivatehash())) {
+					u.setActivatehash(null);
+				}
+				batch.add(() -> {
+					User saved = userDao.update(u, Long.valueOf(-1));
+					return () -> userMap.put(userId, saved.getId());
+				});
+			});
 		}
 	}
 
@@ -624,22 +664,25 @@ public class BackupImport {
 		registry.bind(User.class, new UserConverter(userDao, userMap));
 		registry.bind(Room.Type.class, RoomTypeConverter.class);
 		registry.bind(Date.class, DateConverter.class);
-		List<Room> list = readList(ser, f, "rooms.xml", "rooms", Room.class);
-		for (Room r : list) {
-			Long roomId = r.getId();
-
-			// We need to reset ids as openJPA reject to store them otherwise
-			r.setId(null);
-			if (r.getModerators() != null) {
-				for (Iterator<RoomModerator> i = r.getModerators().iterator(); i.hasNext();) {
-					RoomModerator rm = i.next();
-					if (rm.getUser().getId() == null) {
-						i.remove();
+		try (Batch batch = new Batch("Room")) {
+			readList(ser, f, "rooms.xml", "rooms", Room.class, r -> {
+				Long roomId = r.getId();
+
+				// We need to reset ids as openJPA reject to store them otherwise
+				r.setId(null);
+				if (r.getModerators() != null) {
+					for (Iterator<RoomModerator> i = r.getModerators().iterator(); i.hasNext();) {
+						RoomModerator rm = i.next();
+						if (rm.getUser().getId() == null) {
+							i.remove();
+						}
 					}
 				}
-			}
-			r = roomDao.update(r, null);
-			roomMap.put(roomId, r.getId());
+				batch.add(() -> {
+					Room saved = roomDao.update(r, null);
+					return () -> roomMap.put(roomId, saved.getId());
+				});
+			});
 		}
 	}
 
@@ -655,19 +698,26 @@ public class BackupImport {
 		registry.bind(Group.class, new GroupConverter(groupDao, groupMap));
 		registry.bind(Room.class, new RoomConverter(roomDao, roomMap));
 
-		List<RoomGroup> list = readList(serializer, f, "rooms_organisation.xml", "room_organisations", RoomGroup.class);
-		for (RoomGroup ro : list) {
-			Room r = roomDao.get(ro.getRoom().getId());
-			if (r == null || ro.getGroup() == null || ro.getGroup().getId() == null) {
-				continue;
-			}
-			if (r.getGroups() == null) {
-				r.setGroups(new ArrayList<>());
-			}
-			ro.setId(null);
-			ro.setRoom(r);
-			r.getGroups().add(ro);
-			roomDao.update(r, null);
+		try (Batch batch = new Batch("Room group")) {
+			readList(serializer, f, "rooms_organisation.xml", "room_organisations", RoomGroup.class, ro -> {
+				if (ro.getRoom().getId() == null || ro.getGroup() == null || ro.getGroup().getId() == null) {
+					return;
+				}
+				batch.add(() -> {
+					Room r = roomDao.get(ro.getRoom().getId());
+					if (r == null) {
+						return null;
+					}
+					if (r.getGroups() == null) {
+						r.setGroups(new ArrayList<>());
+					}
+					ro.setId(null);
+					ro.setRoom(r);
+					r.getGroups().add(ro);
+					roomDao.update(r, null);
+					return null;
+				});
+			});
 		}
 	}
 
@@ -684,13 +734,17 @@ public class BackupImport {
 		registry.bind(Room.class, new RoomConverter(roomDao, roomMap));
 		registry.bind(Date.class, DateConverter.class);
 
-		List<ChatMessage> list = readList(serializer, f, "chat_messages.xml", "chat_messages", ChatMessage.class);
-		for (ChatMessage m : list) {
-			m.setId(null);
-			if (m.getFromUser() == null || m.getFromUser().getId() == null) {
-				continue;
-			}
-			chatDao.update(m, m.getSent());
+		try (Batch batch = new Batch("Chat message")) {
+			readList(serializer, f, "chat_messages.xml", "chat_messages", ChatMessage.class, m -> {
+				m.setId(null);
+				if (m.getFromUser() == null || m.getFromUser().getId() == null) {
+					return;
+				}
+				batch.add(() -> {
+					chatDao.update(m, m.getSent());
+					return null;
+				});
+			});
 		}
 	}
 
@@ -703,12 +757,15 @@ public class BackupImport {
 		Strategy strategy = new RegistryStrategy(registry);
 		Serializer serializer = new Persister(strategy);
 		registry.bind(User.class, new UserConverter(userDao, userMap));
-		List<OmCalendar> list = readList(serializer, f, "calendars.xml", "calendars", OmCalendar.class, true);
-		for (OmCalendar c : list) {
-			Long id = c.getId();
-			c.setId(null);
-			c = calendarDao.update(c);
-			calendarMap.put(id, c.getId());
+		try (Batch batch = new Batch("Calendar")) {
+			readList(serializer, f, "calendars.xml", "calendars", OmCalendar.class, true, c -> {
+				Long id = c.getId();
+				c.setId(null);
+				batch.add(() -> {
+					OmCalendar saved = calendarDao.update(c);
+					return () -> calendarMap.put(id, saved.getId());
+				});
+			});
 		}
 	}
 
@@ -727,25 +784,28 @@ public class BackupImport {
 		registry.bind(Date.class, DateConverter.class);
 		registry.bind(OmCalendar.class, new OmCalendarConverter(calendarDao, calendarMap));
 
-		List<Appointment> list = readList(serializer, f, "appointements.xml", "appointments", Appointment.class);
-		for (Appointment a : list) {
-			Long appId = a.getId();
+		try (Batch batch = new Batch("Appointment")) {
+			readList(serializer, f, "appointements.xml", "appointments", Appointment.class, a -> {
+				Long appId = a.getId();
 
-			// We need to reset this as openJPA reject to store them otherwise
-			a.setId(null);
-			if (a.getOwner() != null && a.getOwner().getId() == null) {
-				a.setOwner(null);
-			}
-			if (a.getRoom() == null || a.getRoom().getId() == null) {
-				log.warn("Appointment without room was found, skipping: {}", a);
-				continue;
-			}
-			if (a.getStart() == null || a.getEnd() == null) {
-				log.warn("Appointment without start/end time was found, skipping: {}", a);
-				continue;
-			}
-			a = appointmentDao.update(a, null, false);
-			appointmentMap.put(appId, a.getId());
+				// We need to reset this as openJPA reject to store them otherwise
+				a.setId(null);
+				if (a.getOwner() != null && a.getOwner().getId() == null) {
+					a.setOwner(null);
+				}
+				if (a.getRoom() == null || a.getRoom().getId() == null) {
+					log.warn("Appointment without room was found, skipping: {}", a);
+					return;
+				}
+				if (a.getStart() == null || a.getEnd() == null) {
+					log.warn("Appointment without start/end time was found, skipping: {}", a);
+					return;
+				}
+				batch.add(() -> {
+					Appointment saved = appointmentDao.update(a, null, false);
+					return () -> appointmentMap.put(appId, saved.getId());
+				});
+			});
 		}
 	}
 
@@ -762,10 +822,14 @@ public class BackupImport {
 
 		registry.bind(User.class, new UserConverter(userDao, userMap));
 		registry.bind(Appointment.class, new AppointmentConverter(appointmentDao, appointmentMap));
-		List<MeetingMember> list = readList(ser, f, "meetingmembers.xml", "meetingmembers", MeetingMember.class);
-		for (MeetingMember ma : list) {
-			ma.setId(null);
-			meetingMemberDao.update(ma);
+		try (Batch batch = new Batch("Meeting member")) {
+			readList(ser, f, "meetingmembers.xml", "meetingmembers", MeetingMember.class, ma -> {
+				ma.setId(null);
+				batch.add(() -> {
+					meetingMemberDao.update(ma);
+					return null;
+				});
+			});
 		}
 	}
 
@@ -783,33 +847,36 @@ public class BackupImport {
 		matcher.bind(Integer.class, IntegerTransform.class);
 		registry.bind(Date.class, DateConverter.class);
 		registry.bind(Recording.Status.class, RecordingStatusConverter.class);
-		List<Recording> list = readList(ser, f, "flvRecordings.xml", "flvrecordings", Recording.class);
-		for (Recording r : list) {
-			Long recId = r.getId();
-			r.setId(null);
-			if (r.getRoomId() != null) {
-				r.setRoomId(roomMap.get(r.getRoomId()));
-			}
-			if (r.getOwnerId() != null) {
-				r.setOwnerId(userMap.get(r.getOwnerId()));
-			}
-			if (r.getMetaData() != null) {
-				for (RecordingMetaData meta : r.getMetaData()) {
-					meta.setId(null);
-					meta.setRecording(r);
+		try (Batch batch = new Batch("Recording")) {
+			readList(ser, f, "flvRecordings.xml", "flvrecordings", Recording.class, r -> {
+				Long recId = r.getId();
+				r.setId(null);
+				if (r.getRoomId() != null) {
+					r.setRoomId(roomMap.get(r.getRoomId()));
 				}
-			}
-			if (!Strings.isEmpty(r.getHash()) && r.getHash().startsWith(RECORDING_FILE_NAME)) {
-				String name = getFileName(r.getHash());
-				r.setHash(UUID.randomUUID().toString());
-				fileMap.put(String.format(FILE_NAME_FMT, name, EXTENSION_JPG), String.format(FILE_NAME_FMT, r.getHash(), EXTENSION_PNG));
-				fileMap.put(String.format("%s.%s.%s", name, EXTENSION_FLV, EXTENSION_MP4), String.format(FILE_NAME_FMT, r.getHash(), EXTENSION_MP4));
-			}
-			if (Strings.isEmpty(r.getHash())) {
-				r.setHash(UUID.randomUUID().toString());
-			}
-			r = recordingDao.update(r);
-			fileItemMap.put(recId, r.getId());
+				if (r.getOwnerId() != null) {
+					r.setOwnerId(userMap.get(r.getOwnerId()));
+				}
+				if (r.getMetaData() != null) {
+					for (RecordingMetaData meta : r.getMetaData()) {
+						meta.setId(null);
+						meta.setRecording(r);
+					}
+				}
+				if (!Strings.isEmpty(r.getHash()) && r.getHash().startsWith(RECORDING_FILE_NAME)) {
+					String name = getFileName(r.getHash());
+					r.setHash(UUID.randomUUID().toString());
+					fileMap.put(String.format(FILE_NAME_FMT, name, EXTENSION_JPG), String.format(FILE_NAME_FMT, r.getHash(), EXTENSION_PNG));
+					fileMap.put(String.format("%s.%s.%s", name, EXTENSION_FLV, EXTENSION_MP4), String.format(FILE_NAME_FMT, r.getHash(), EXTENSION_MP4));
+				}
+				if (Strings.isEmpty(r.getHash())) {
+					r.setHash(UUID.randomUUID().toString());
+				}
+				batch.add(() -> {
+					Recording saved = recordingDao.update(r);
+					return () -> fileItemMap.put(recId, saved.getId());
+				});
+			});
 		}
 	}
 
@@ -818,9 +885,7 @@ public class BackupImport {
 	 */
 	private void importPrivateMsgFolders(File f, Serializer simpleSerializer) throws Exception {
 		log.info("Recording import complete, starting private message folder import");
-		List<PrivateMessageFolder> list = readList(simpleSerializer, f, "privateMessageFolder.xml"
-			, "privatemessagefolders", PrivateMessageFolder.class);
-		for (PrivateMessageFolder p : list) {
+		readList(simpleSerializer, f, "privateMessageFolder.xml", "privatemessagefolders", PrivateMessageFolder.class, p -> {
 			Long folderId = p.getId();
 			PrivateMessageFolder storedFolder = privateMessageFolderDao.get(folderId);
 			if (storedFolder == null) {
@@ -828,7 +893,7 @@ public class BackupImport {
 				Long newFolderId = privateMessageFolderDao.addPrivateMessageFolderObj(p);
 				messageFolderMap.put(folderId, newFolderId);
 			}
-		}
+		});
 	}
 
 	/*
@@ -842,22 +907,47 @@ public class BackupImport {
 
 		registry.bind(User.class, new UserConverter(userDao, userMap));
 
-		List<UserContact> list = readList(serializer, f, "userContacts.xml", "usercontacts", UserContact.class);
-		for (UserContact uc : list) {
-			Long ucId = uc.getId();
-			UserContact storedUC = userContactDao.get(ucId);
+		try (Batch batch = new Batch("User contact")) {
+			readList(serializer, f, "userContacts.xml", "usercontacts", UserContact.class, uc -> {
+				Long ucId = uc.getId();
+				UserContact storedUC = userContactDao.get(ucId);
 
-			if (storedUC == null && uc.getContact() != null && uc.getContact().getId() != null) {
-				uc.setId(null);
-				if (uc.getOwner() != null && uc.getOwner().getId() == null) {
-					uc.setOwner(null);
+				if (storedUC == null && uc.getContact() != null && uc.getContact().getId() != null) {
+					uc.setId(null);
+					if (uc.getOwner() != null && uc.getOwner().getId() == null) {
+						uc.setOwner(null);
+					}
+					batch.add(() -> {
+						UserContact saved = userContactDao.update(uc);
+						return () -> userContactMap.put(ucId, saved.getId());
+					});
 				}
-				uc = userContactDao.update(uc);
-				userContactMap.put(ucId, uc.getId());
-			}
+			});
 		}
 	}
 
+	/**
+	 * Messages of old backups have no negative (system) folder ids,
+	 * only folder ids are checked, messages are not being parsed
+	 */
+	private static boolean isOldPrivateMsgs(File f) throws Exception {
+		boolean[] old = {true};
+		readNodes(f, PRIVATE_MSG_FILE, PRIVATE_MSG_LIST, false, item -> {
+			Long folderId = null;
+			InputNode child;
+			while ((child = item.getNext()) != null) {
+				if ("privateMessageFolderId".equals(child.getName())) {
+					folderId = importLongType(child.getValue());
+				} else {
+					child.skip();
+				}
+			}
+			old[0] = folderId != null && folderId.longValue() >= 0;
+			return old[0];
+		});
+		return old[0];
+	}
+
 	/*
 	 * ##################### Import Private Messages
 	 */
@@ -871,44 +961,42 @@ public class BackupImport {
 		registry.bind(Room.class, new RoomConverter(roomDao, roomMap));
 		registry.bind(Date.class, DateConverter.class);
 
-		List<PrivateMessage> list = readList(serializer, f, "privateMessages.xml", "privatemessages", PrivateMessage.class);
-		boolean oldBackup = true;
-		for (PrivateMessage p : list) {
-			if (p.getFolderId() == null || p.getFolderId().longValue() < 0) {
-				oldBackup = false;
-				break;
-			}
-		}
-		for (PrivateMessage p : list) {
-			p.setId(null);
-			p.setFolderId(messageFolderMap.get(p.getFolderId()));
-			p.setUserContactId(userContactMap.get(p.getUserContactId()));
-			if (p.getRoom() != null && p.getRoom().getId() == null) {
-				p.setRoom(null);
-			}
-			if (p.getTo() != null && p.getTo().getId() == null) {
-				p.setTo(null);
-			}
-			if (p.getFrom() != null && p.getFrom().getId() == null) {
-				p.setFrom(null);
-			}
-			if (p.getOwner() != null && p.getOwner().getId() == null) {
-				p.setOwner(null);
-			}
-			if (oldBackup && p.getOwner() != null && p.getOwner().getId() != null
-					&& p.getFrom() != null && p.getFrom().getId() != null
-					&& p.getOwner().getId() == p.getFrom().getId())
-			{
-				p.setFolderId(SENT_FOLDER_ID);
-			}
-			privateMessageDao.update(p, null);
+		boolean oldBackup = isOldPrivateMsgs(f);
+		try (Batch batch = new Batch("Private message")) {
+			readList(serializer, f, PRIVATE_MSG_FILE, PRIVATE_MSG_LIST, PrivateMessage.class, p -> {
+				p.setId(null);
+				p.setFolderId(messageFolderMap.get(p.getFolderId()));
+				p.setUserContactId(userContactMap.get(p.getUserContactId()));
+				if (p.getRoom() != null && p.getRoom().getId() == null) {
+					p.setRoom(null);
+				}
+				if (p.getTo() != null && p.getTo().getId() == null) {
+					p.setTo(null);
+				}
+				if (p.getFrom() != null && p.getFrom().getId() == null) {
+					p.setFrom(null);
+				}
+				if (p.getOwner() != null && p.getOwner().getId() == null) {
+					p.setOwner(null);
+				}
+				if (oldBackup && p.getOwner() != null && p.getOwner().getId() != null
+						&& p.getFrom() != null && p.getFrom().getId() != null
+						&& p.getOwner().getId() == p.getFrom().getId())
+				{
+					p.setFolderId(SENT_FOLDER_ID);
+				}
+				batch.add(() -> {
+					privateMessageDao.update(p, null);
+					return null;
+				});
+			});
 		}
 	}
 
 	/*
 	 * ##################### Import File-Explorer Items
 	 */
-	private List<FileItem> importFiles(File f) throws Exception {
+	private List<FileItem> importFiles(File f, boolean convert) throws Exception {
 		log.info("Private message import complete, starting file explorer item import");
 		List<FileItem> result = new ArrayList<>();
 		Registry registry = new Registry();
@@ -919,25 +1007,33 @@ public class BackupImport {
 		matcher.bind(Long.class, LongTransform.class);
 		matcher.bind(Integer.class, IntegerTransform.class);
 		registry.bind(Date.class, DateConverter.class);
-		List<FileItem> list = readList(ser, f, "fileExplorerItems.xml", "fileExplorerItems", FileItem.class);
-		for (FileItem file : list) {
-			Long fId = file.getId();
-			// We need to reset this as openJPA reject to store them otherwise
-			file.setId(null);
-			Long roomId = file.getRoomId();
-			file.setRoomId(roomMap.containsKey(roomId) ? roomMap.get(roomId) : null);
-			if (file.getOwnerId() != null) {
-				file.setOwnerId(userMap.get(file.getOwnerId()));
-			}
-			if (file.getParentId() != null && file.getParentId().longValue() <= 0L) {
-				file.setParentId(null);
-			}
-			if (Strings.isEmpty(file.getHash())) {
-				file.setHash(UUID.randomUUID().toString());
-			}
-			file = fileItemDao.update(file);
-			result.add(file);
-			fileItemMap.put(fId, file.getId());
+		try (Batch batch = new Batch("File explorer item")) {
+			readList(ser, f, "fileExplorerItems.xml", "fileExplorerItems", FileItem.class, file -> {
+				Long fId = file.getId();
+				// We need to reset this as openJPA reject to store them otherwise
+				file.setId(null);
+				file.setRoomId(roomMap.get(file.getRoomId()));
+				if (file.getOwnerId() != null) {
+					file.setOwnerId(userMap.get(file.getOwnerId()));
+				}
+				if (file.getParentId() != null && file.getParentId().longValue() <= 0L) {
+					file.setParentId(null);
+				}
+				if (Strings.isEmpty(file.getHash())) {
+					file.setHash(UUID.randomUUID().toString());
+				}
+				batch.add(() -> {
+					FileItem saved = fileItemDao.update(file);
+					return () -> {
+						fileItemMap.put(fId, saved.getId());
+						if (convert && !saved.isDeleted()
+								&& (BaseFileItem.Type.Presentation == saved.getType() || BaseFileItem.Type.WmlFile == saved.getType()))
+						{
+							result.add(saved);
+						}
+					};
+				});
+			});
 		}
 		return result;
 	}
@@ -958,22 +1054,26 @@ public class BackupImport {
 		registry.bind(RoomPoll.Type.class, PollTypeConverter.class);
 		registry.bind(Date.class, DateConverter.class);
 
-		List<RoomPoll> list = readList(serializer, f, "roompolls.xml", "roompolls", RoomPoll.class);
-		for (RoomPoll rp : list) {
-			rp.setId(null);
-			if (rp.getRoom() == null || rp.getRoom().getId() == null) {
-				//room was deleted
-				continue;
-			}
-			if (rp.getCreator() == null || rp.getCreator().getId() == null) {
-				rp.setCreator(null);
-			}
-			for (RoomPollAnswer rpa : rp.getAnswers()) {
-				if (rpa.getVotedUser() == null || rpa.getVotedUser().getId() == null) {
-					rpa.setVotedUser(null);
+		try (Batch batch = new Batch("Room poll")) {
+			readList(serializer, f, "roompolls.xml", "roompolls", RoomPoll.class, rp -> {
+				rp.setId(null);
+				if (rp.getRoom() == null || rp.getRoom().getId() == null) {
+					//room was deleted
+					return;
 				}
-			}
-			pollDao.update(rp);
+				if (rp.getCreator() == null || rp.getCreator().getId() == null) {
+					rp.setCreator(null);
+				}
+				for (RoomPollAnswer rpa : rp.getAnswers()) {
+					if (rpa.getVotedUser() == null || rpa.getVotedUser().getId() == null) {
+						rpa.setVotedUser(null);
+					}
+				}
+				batch.add(() -> {
+					pollDao.update(rp);
+					return null;
+				});
+			});
 		}
 	}
 
@@ -988,51 +1088,64 @@ public class BackupImport {
 
 		registry.bind(BaseFileItem.class, new BaseFileItemConverter(fileItemDao, fileItemMap));
 
-		List<RoomFile> list = readList(serializer, f, "roomFiles.xml", "RoomFiles", RoomFile.class, true);
-		for (RoomFile rf : list) {
-			Room r = roomDao.get(roomMap.get(rf.getRoomId()));
-			if (r == null || rf.getFile() == null || rf.getFile().getId() == null) {
-				continue;
-			}
-			if (r.getFiles() == null) {
-				r.setFiles(new ArrayList<>());
-			}
-			rf.setId(null);
-			rf.setRoomId(r.getId());
-			r.getFiles().add(rf);
-			roomDao.update(r, null);
+		try (Batch batch = new Batch("Room file")) {
+			readList(serializer, f, "roomFiles.xml", "RoomFiles", RoomFile.class, true, rf -> {
+				if (rf.getFile() == null || rf.getFile().getId() == null) {
+					return;
+				}
+				batch.add(() -> {
+					Room r = roomDao.get(roomMap.get(rf.getRoomId()));
+					if (r == null) {
+						return null;
+					}
+					if (r.getFiles() == null) {
+						r.setFiles(new ArrayList<>());
+					}
+					rf.setId(null);
+					rf.setRoomId(r.getId());
+					r.getFiles().add(rf);
+					roomDao.update(r, null);
+					return null;
+				});
+			});
 		}
 	}
 
-	private static <T> List<T> readList(Serializer ser, File baseDir, String fileName, String listNodeName, Class<T> clazz) throws Exception {
-		return readList(ser, baseDir, fileName, listNodeName, clazz, false);
+	private static <T> void readList(Serializer ser, File baseDir, String fileName, String listNodeName, Class<T> clazz, ItemHandler<T> handler) throws Exception {
+		readList(ser, baseDir, fileName, listNodeName, clazz, false, handler);
 	}
 
-	private static <T> List<T> readList(Serializer ser, File baseDir, String fileName, String listNodeName, Class<T> clazz, boolean notThow) throws Exception {
-		List<T> list = new ArrayList<>();
+	/**
+	 * Items are read one by one and passed to the handler, the list is never materialized
+	 */
+	private static <T> void readList(Serializer ser, File baseDir, String fileName, String listNodeName, Class<T> clazz, boolean notThow, ItemHandler<T> handler) throws Exception {
+		readNodes(baseDir, fileName, listNodeName, notThow, item -> {
+			handler.handle(ser.read(clazz, item, false));
+			return true;
+		});
+	}
+
+	private static void readNodes(File baseDir, String fileName, String listNodeName, boolean notThow, NodeHandler handler) throws Exception {
 		File xml = new File(baseDir, fileName);
 		if (!xml.exists()) {
 			final String msg = fileName + " missing";
 			if (notThow) {
 				log.debug(msg);
-				return list;
+				return;
 			} else {
 				throw new BackupException(msg);
 			}
 		}
-		try (InputStream rootIs = new FileInputStream(xml)) {
+		try (InputStream rootIs = new BufferedInputStream(new FileInputStream(xml))) {
 			InputNode root = NodeBuilder.read(rootIs);
 			InputNode listNode = root.getNext();
 			if (listNodeName.equals(listNode.getName())) {
 				InputNode item = listNode.getNext();
-				while (item != null) {
-					T o = ser.read(clazz, item, false);
-					list.add(o);
+				while (item != null && handler.handle(item)) {
 					item = listNode.getNext();
 				}
 			}
 		}
-		return list;
 	}
 
 	private static Long getProfileId(File f) {
@@ -1138,4 +1251,70 @@ public class BackupImport {
 			}
 		}
 	}
+
+	@FunctionalInterface
+	private interface ItemHandler<T> {
+		void handle(T item) throws Exception;
+	}
+
+	@FunctionalInterface
+	private interface NodeHandler {
+		/**
+		 * @return {@code false} to stop reading
+		 */
+		boolean handle(InputNode item) throws Exception;
+	}
+
+	/**
+	 * Entities are being stored {@link #BATCH_SIZE} per transaction,
+	 * each step stores single entity and returns action to be performed
+	 * after commit (ids are assigned by the database and only available then)
+	 */
+	private class Batch implements AutoCloseable {
+		private final String name;
+		private final List<Supplier<Runnable>> steps = new ArrayList<>(BATCH_SIZE);
+		private final long start = System.currentTimeMillis();
+		private int count = 0;
+
+		Batch(String name) {
+			this.name = name;
+		}
+
+		void add(Supplier<Runnable> step) {
+			steps.add(step);
+			if (steps.size() >= BATCH_SIZE) {
+				flush();
+			}
+		}
+
+		private void flush() {
+			if (steps.isEmpty()) {
+				return;
+			}
+			try {
+				List<Runnable> after = new TransactionTemplate(transactionManager).execute(status -> {
+					List<Runnable> list = new ArrayList<>(steps.size());
+					for (Supplier<Runnable> step : steps) {
+						Runnable r = step.get();
+						if (r != null) {
+							list.add(r);
+						}
+					}
+					return list;
+				});
+				for (Runnable r : after) {
+					r.run();
+				}
+				count += steps.size();
+			} finally {
+				steps.clear();
+			}
+		}
+
+		@Override
+		public void close() {
+			flush();
+			log.info("{} import complete, {} items in {} ms", name, count, System.currentTimeMillis() - start);
+		}
+	}
 }
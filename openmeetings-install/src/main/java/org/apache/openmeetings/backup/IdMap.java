@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.backup;
+
+import java.util.Arrays;
+
+/**
+ * Maps ids of imported entities to ids of stored entities, open addressing
+ * over primitive arrays is used to avoid boxing of millions of ids
+ *
+ * @author solomax
+ *
+ */
+public class IdMap {
+	private static final long EMPTY = Long.MIN_VALUE;
+	private static final int INITIAL_CAPACITY = 1024;
+	private long[] keys;
+	private long[] values;
+	private int size;
+
+	public IdMap() {
+		init(INITIAL_CAPACITY);
+	}
+
+	private void init(int capacity) {
+		keys = new long[capacity];
+		values = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+	}
+
+	private static int hash(long key) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h ^ (h >>> 32));
+	}
+
+	private int index(long key) {
+		int mask = keys.length - 1;
+		int i = hash(key) & mask;
+		while (keys[i] != EMPTY && keys[i] != key) {
+			i = (i + 1) & mask;
+		}
+		return i;
+	}
+
+	public void put(long oldId, long newId) {
+		if (oldId == EMPTY) {
+			throw new IllegalArgumentException("Unsupported id: " + oldId);
+		}
+		int i = index(oldId);
+		if (keys[i] == EMPTY) {
+			keys[i] = oldId;
+			if (++size * 2 > keys.length) {
+				values[i] = newId;
+				rehash();
+				return;
+			}
+		}
+		values[i] = newId;
+	}
+
+	public void put(Long oldId, Long newId) {
+		if (oldId != null && newId != null) {
+			put(oldId.longValue(), newId.longValue());
+		}
+	}
+
+	private void rehash() {
+		long[] oldKeys = keys;
+		long[] oldValues = values;
+		init(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; ++i) {
+			if (oldKeys[i] != EMPTY) {
+				int j = index(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+				++size;
+			}
+		}
+	}
+
+	public boolean containsKey(long oldId) {
+		return oldId != EMPTY && keys[index(oldId)] != EMPTY;
+	}
+
+	/**
+	 * @param oldId - id of imported entity
+	 * @param def - value to be returned if id is not mapped
+	 * @return id of stored entity or {@code def}
+	 */
+	public long get(long oldId, long def) {
+		if (oldId == EMPTY) {
+			return def;
+		}
+		int i = index(oldId);
+		return keys[i] == EMPTY ? def : values[i];
+	}
+
+	/**
+	 * @param oldId - id of imported entity
+	 * @return id of stored entity or {@code null} if id is not mapped
+	 */
+	public Long get(Long oldId) {
+		if (oldId == null || !containsKey(oldId)) {
+			return null;
+		}
+		return get(oldId.longValue(), 0);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		init(INITIAL_CAPACITY);
+	}
+}
@@ -20,8 +20,7 @@ package org.apache.openmeetings.backup.converter;
 
 import static org.apache.commons.lang3.math.NumberUtils.toLong;
 
-import java.util.Map;
-
+import org.apache.openmeetings.backup.IdMap;
 import org.apache.openmeetings.db.dao.calendar.AppointmentDao;
 import org.apache.openmeetings.db.entity.calendar.Appointment;
 import org.simpleframework.xml.convert.Converter;
@@ -30,13 +29,13 @@ import org.simpleframework.xml.stream.OutputNode;
 
 public class AppointmentConverter implements Converter<Appointment> {
 	private AppointmentDao appointmentDao;
-	private Map<Long, Long> idMap;
+	private IdMap idMap;
 
 	public AppointmentConverter() {
 		//default constructor is for export
 	}
 
-	public AppointmentConverter(AppointmentDao appointmentDao, Map<Long, Long> idMap) {
+	public AppointmentConverter(AppointmentDao appointmentDao, IdMap idMap) {
 		this.appointmentDao = appointmentDao;
 		this.idMap = idMap;
 	}
@@ -44,7 +43,7 @@ public class AppointmentConverter implements Converter<Appointment> {
 	@Override
 	public Appointment read(InputNode node) throws Exception {
 		long oldId = toLong(node.getValue());
-		Long newId = idMap.containsKey(oldId) ? idMap.get(oldId) : oldId;
+		Long newId = idMap.get(oldId, oldId);
 
 		Appointment a = appointmentDao.getAny(newId);
 		return a == null ? new Appointment() : a;
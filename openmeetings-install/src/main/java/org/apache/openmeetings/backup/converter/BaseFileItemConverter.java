@@ -20,8 +20,7 @@ package org.apache.openmeetings.backup.converter;
 
 import static org.apache.commons.lang3.math.NumberUtils.toLong;
 
-import java.util.Map;
-
+import org.apache.openmeetings.backup.IdMap;
 import org.apache.openmeetings.db.dao.file.FileItemDao;
 import org.apache.openmeetings.db.entity.file.BaseFileItem;
 import org.apache.openmeetings.db.entity.file.FileItem;
@@ -31,13 +30,13 @@ import org.simpleframework.xml.stream.OutputNode;
 
 public class BaseFileItemConverter implements Converter<BaseFileItem> {
 	private FileItemDao fileDao;
-	private Map<Long, Long> idMap;
+	private IdMap idMap;
 
 	public BaseFileItemConverter() {
 		//default constructor is for export
 	}
 
-	public BaseFileItemConverter(FileItemDao fileDao, Map<Long, Long> idMap) {
+	public BaseFileItemConverter(FileItemDao fileDao, IdMap idMap) {
 		this.fileDao = fileDao;
 		this.idMap = idMap;
 	}
@@ -45,7 +44,7 @@ public class BaseFileItemConverter implements Converter<BaseFileItem> {
 	@Override
 	public BaseFileItem read(InputNode node) throws Exception {
 		long oldId = toLong(node.getValue());
-		long newId = idMap.containsKey(oldId) ? idMap.get(oldId) : oldId;
+		long newId = idMap.get(oldId, oldId);
 
 		BaseFileItem r = fileDao.get(newId);
 		return r == null ? new FileItem() : r;
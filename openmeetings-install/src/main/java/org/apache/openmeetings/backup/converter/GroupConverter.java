@@ -20,8 +20,7 @@ package org.apache.openmeetings.backup.converter;
 
 import static org.apache.commons.lang3.math.NumberUtils.toLong;
 
-import java.util.Map;
-
+import org.apache.openmeetings.backup.IdMap;
 import org.apache.openmeetings.db.dao.user.GroupDao;
 import org.apache.openmeetings.db.entity.user.Group;
 import org.simpleframework.xml.convert.Converter;
@@ -30,13 +29,13 @@ import org.simpleframework.xml.stream.OutputNode;
 
 public class GroupConverter implements Converter<Group> {
 	private GroupDao groupDao;
-	private Map<Long, Long> idMap;
+	private IdMap idMap;
 
 	public GroupConverter() {
 		//default constructor is for export
 	}
 
-	public GroupConverter(GroupDao groupDao, Map<Long, Long> idMap) {
+	public GroupConverter(GroupDao groupDao, IdMap idMap) {
 		this.groupDao = groupDao;
 		this.idMap = idMap;
 	}
@@ -44,7 +43,7 @@ public class GroupConverter implements Converter<Group> {
 	@Override
 	public Group read(InputNode node) throws Exception {
 		long oldId = toLong(node.getValue());
-		long newId = idMap.containsKey(oldId) ? idMap.get(oldId) : oldId;
+		long newId = idMap.get(oldId, oldId);
 
 		Group o = groupDao.get(newId);
 		return o == null ? new Group() : o;
@@ -20,8 +20,7 @@ package org.apache.openmeetings.backup.converter;
 
 import static org.apache.commons.lang3.math.NumberUtils.toLong;
 
-import java.util.Map;
-
+import org.apache.openmeetings.backup.IdMap;
 import org.apache.openmeetings.db.dao.calendar.OmCalendarDao;
 import org.apache.openmeetings.db.entity.calendar.OmCalendar;
 import org.simpleframework.xml.convert.Converter;
@@ -30,13 +29,13 @@ import org.simpleframework.xml.stream.OutputNode;
 
 public class OmCalendarConverter implements Converter<OmCalendar> {
 	private OmCalendarDao calendarDao;
-	private Map<Long, Long> idMap;
+	private IdMap idMap;
 
 	public OmCalendarConverter() {
 		//default constructor is for export
 	}
 
-	public OmCalendarConverter(OmCalendarDao calendarDao, Map<Long, Long> idMap) {
+	public OmCalendarConverter(OmCalendarDao calendarDao, IdMap idMap) {
 		this.calendarDao = calendarDao;
 		this.idMap = idMap;
 	}
@@ -44,7 +43,7 @@ public class OmCalendarConverter implements Converter<OmCalendar> {
 	@Override
 	public OmCalendar read(InputNode node) throws Exception {
 		long oldId = toLong(node.getValue());
-		Long newId = idMap.containsKey(oldId) ? idMap.get(oldId) : oldId;
+		Long newId = idMap.get(oldId, oldId);
 
 		OmCalendar c = calendarDao.get(newId);
 		return c == null ? new OmCalendar() : c;
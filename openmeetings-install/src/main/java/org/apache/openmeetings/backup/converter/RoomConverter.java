@@ -20,8 +20,7 @@ package org.apache.openmeetings.backup.converter;
 
 import static org.apache.commons.lang3.math.NumberUtils.toLong;
 
-import java.util.Map;
-
+import org.apache.openmeetings.backup.IdMap;
 import org.apache.openmeetings.db.dao.room.RoomDao;
 import org.apache.openmeetings.db.entity.room.Room;
 import org.simpleframework.xml.convert.Converter;
@@ -30,13 +29,13 @@ import org.simpleframework.xml.stream.OutputNode;
 
 public class RoomConverter implements Converter<Room> {
 	private RoomDao roomDao;
-	private Map<Long, Long> idMap;
+	private IdMap idMap;
 
 	public RoomConverter() {
 		//default constructor is for export
 	}
 
-	public RoomConverter(RoomDao roomDao, Map<Long, Long> idMap) {
+	public RoomConverter(RoomDao roomDao, IdMap idMap) {
 		this.roomDao = roomDao;
 		this.idMap = idMap;
 	}
@@ -44,7 +43,7 @@ public class RoomConverter implements Converter<Room> {
 	@Override
 	public Room read(InputNode node) throws Exception {
 		long oldId = toLong(node.getValue());
-		long newId = idMap.containsKey(oldId) ? idMap.get(oldId) : oldId;
+		long newId = idMap.get(oldId, oldId);
 
 		Room r = roomDao.get(newId);
 		return r == null ? new Room() : r;
@@ -20,8 +20,7 @@ package org.apache.openmeetings.backup.converter;
 
 import static org.apache.commons.lang3.math.NumberUtils.toLong;
 
-import java.util.Map;
-
+import org.apache.openmeetings.backup.IdMap;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.user.User;
 import org.simpleframework.xml.convert.Converter;
@@ -30,13 +29,13 @@ import org.simpleframework.xml.stream.OutputNode;
 
 public class UserConverter implements Converter<User> {
 	private UserDao userDao;
-	private Map<Long, Long> idMap;
+	private IdMap idMap;
 
 	public UserConverter() {
 		//default constructor is for export
 	}
 
-	public UserConverter(UserDao userDao, Map<Long, Long> idMap) {
+	public UserConverter(UserDao userDao, IdMap idMap) {
 		this.userDao = userDao;
 		this.idMap = idMap;
 	}
@@ -44,7 +43,7 @@ public class UserConverter implements Converter<User> {
 	@Override
 	public User read(InputNode node) throws Exception {
 		long oldId = toLong(node.getValue());
-		Long newId = idMap.containsKey(oldId) ? idMap.get(oldId) : oldId;
+		Long newId = idMap.get(oldId, oldId);
 
 		User u = userDao.get(newId);
 		return u == null ? new User() : u;
@@ -82,7 +82,10 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_ENAB
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_EXTEN_CONTEXT;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SIP_ROOM_PREFIX;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PASS;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_POOL_SIZE;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PORT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_RATE_LIMIT;
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_RETRY_DELAY;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SERVER;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SYSTEM_EMAIL;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_TIMEOUT;
@@ -137,6 +140,7 @@ public class ImportInitvalues {
 	private static final String VER_3_0_3 = "3.0.3";
 	private static final String VER_3_3_0 = "3.3.0";
 	private static final String VER_4_0_0 = "4.0.0";
+	private static final String VER_5_0_0 = "5.0.0";
 	private static final String CLIENT_PLACEHOLDER = "<put your client_id>";
 	private static final String SECRET_PLACEHOLDER = "<put your client_secret>";
 	private static final String EMAIL_PARAM = "email";
@@ -215,6 +219,15 @@ public class ImportInitvalues {
 		addCfg(list, CONFIG_SMTP_TIMEOUT, "30000", Configuration.Type.number,
 				"Socket I/O timeout value in milliseconds. Default is 30 seconds (30000).", VER_1_9);
 
+		addCfg(list, CONFIG_SMTP_POOL_SIZE, "3", Configuration.Type.number,
+				"Number of SMTP connections used to send queued e-mails. Default is 3.", VER_5_0_0);
+
+		addCfg(list, CONFIG_SMTP_RATE_LIMIT, "0", Configuration.Type.number,
+				"Maximum number of e-mails sent per second, 0 means no limit. Default is 0.", VER_5_0_0);
+
+		addCfg(list, CONFIG_SMTP_RETRY_DELAY, "30000", Configuration.Type.number,
+				"Delay before first retry of failed e-mail in milliseconds, doubled for each next retry. Default is 30 seconds (30000).", VER_5_0_0);
+
 		addCfg(list, CONFIG_APPLICATION_NAME, DEFAULT_APP_NAME, Configuration.Type.string, "Name of the Browser Title window", VER_3_0);
 
 		// "1" == "EN"
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.backup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class TestIdMap {
+	@Test
+	public void testPutGet() {
+		IdMap map = new IdMap();
+		map.put(Long.valueOf(-1), Long.valueOf(-1));
+		map.put(5L, 10L);
+		map.put(5L, 11L);
+		map.put(null, Long.valueOf(3));
+		assertEquals(2, map.size());
+		assertEquals(Long.valueOf(11), map.get(Long.valueOf(5)));
+		assertEquals(Long.valueOf(-1), map.get(Long.valueOf(-1)));
+		assertNull(map.get((Long)null));
+		assertNull(map.get(Long.valueOf(6)));
+		assertEquals(6L, map.get(6L, 6L));
+	}
+
+	@Test
+	public void testGrow() {
+		IdMap map = new IdMap();
+		for (long i = 0; i < 10000; ++i) {
+			map.put(i * 7, i);
+		}
+		assertEquals(10000, map.size());
+		for (long i = 0; i < 10000; ++i) {
+			assertEquals(i, map.get(i * 7, -1));
+		}
+		assertFalse(map.containsKey(1));
+		map.clear();
+		assertEquals(0, map.size());
+		assertFalse(map.containsKey(7));
+		assertTrue(map.get(7, -1) < 0);
+	}
+}
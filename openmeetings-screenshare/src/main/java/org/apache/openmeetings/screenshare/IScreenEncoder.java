@@ -27,7 +27,12 @@ public interface IScreenEncoder {
 
 	VideoData getUnalteredFrame();
 
-	VideoData encode(int[][] img) throws IOException;
+	VideoData encode(int[] img) throws IOException;
+
+	/**
+	 * @return buffer which can be reused to capture next frame, or {@code null}
+	 */
+	int[] getBuffer();
 
 	void reset();
 }
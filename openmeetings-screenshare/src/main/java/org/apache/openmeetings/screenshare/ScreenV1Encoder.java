@@ -25,39 +25,56 @@ import static org.red5.io.IoConstants.FLAG_FRAMETYPE_KEYFRAME;
 import java.awt.Rectangle;
 import java.awt.Robot;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
 import java.util.zip.Deflater;
 
 import org.apache.mina.core.buffer.IoBuffer;
 import org.apache.openmeetings.screenshare.gui.ScreenDimensions;
 import org.red5.server.net.rtmp.event.VideoData;
 
+/**
+ * Screen is split into tiles of {@code blockSize}, only tiles changed since
+ * previous frame are compressed, tiles are processed in parallel each thread
+ * using its own {@link Deflater} and buffers
+ */
 public class ScreenV1Encoder extends BaseScreenEncoder {
-	private int[][] last = null;
+	private static final ThreadLocal<TileBuffers> buffers = ThreadLocal.withInitial(TileBuffers::new);
+	private int[] last = null;
+	private int[] spare = null;
 	private static final int DEFAULT_BLOCK_SIZE = 32;
 	private static final int DEFAULT_SCREEN_WIDTH = 1920;
 	private static final int DEFAULT_SCREEN_HEIGHT = 1080;
 	private int keyFrameIndex;
 	private int frameCount = 0;
-	private int blockSize = DEFAULT_BLOCK_SIZE;
+	private final int blockSize;
 	private ByteArrayOutputStream ba = new ByteArrayOutputStream(50 + 3 * DEFAULT_SCREEN_WIDTH * DEFAULT_SCREEN_HEIGHT);
-	private byte[] areaBuf = null;
-	private Deflater d = new Deflater(Deflater.DEFAULT_COMPRESSION);
-	private byte[] zipBuf = null;
 	private VideoData unalteredFrame = null;
 	private final ScreenDimensions dim;
+	private final int width;
+	private final int height;
+	private final Rectangle[] tiles;
 
 	public ScreenV1Encoder(ScreenDimensions dim) {
+		this(dim, DEFAULT_BLOCK_SIZE);
+	}
+
+	public ScreenV1Encoder(ScreenDimensions dim, int blockSize) {
 		this.dim = dim;
+		this.blockSize = blockSize;
 		this.keyFrameIndex = 3 * dim.getFps();
 		if (blockSize < 16 || blockSize > 256 || blockSize % 16 != 0) {
 			throw new RuntimeException("Invalid block size passed: " + blockSize + " should be: 'from 16 to 256 in multiples of 16'");
 		}
-
-		areaBuf = new byte[3 * blockSize * blockSize];
-		zipBuf = new byte[3 * blockSize * blockSize];
+		width = dim.getResizeX();
+		height = dim.getResizeY();
+		tiles = getTiles(new Rectangle(width, height));
 	}
 
 	private static VideoData getData(byte[] data) {
@@ -76,15 +93,12 @@ public class ScreenV1Encoder extends BaseScreenEncoder {
 		if (unalteredFrame == null) {
 			ByteArrayOutputStream arr = new ByteArrayOutputStream(200);
 
-			Rectangle _area = new Rectangle(dim.getResizeX(), dim.getResizeY());
 			//header
 			arr.write(getTag(FLAG_FRAMETYPE_INTERFRAME, FLAG_CODEC_SCREEN));
-			writeShort(arr, _area.width + ((blockSize / 16 - 1) << 12));
-			writeShort(arr, _area.height + ((blockSize / 16 - 1) << 12));
-			Rectangle area = getNextBlock(_area, null);
-			while (area.width > 0 && area.height > 0) {
+			writeShort(arr, width + ((blockSize / 16 - 1) << 12));
+			writeShort(arr, height + ((blockSize / 16 - 1) << 12));
+			for (int i = 0; i < tiles.length; ++i) {
 				writeShort(arr, 0);
-				area = getNextBlock(_area, area);
 			}
 			unalteredFrame = getData(arr.toByteArray());
 		}
@@ -98,32 +112,67 @@ public class ScreenV1Encoder extends BaseScreenEncoder {
 		return unalteredFrame;
 	}
 
+	/**
+	 * @param img - pixels of the frame row by row, array is kept till next frame
+	 * is encoded, so caller should use {@link #getBuffer()} to capture the next frame
+	 */
 	@Override
-	public synchronized VideoData encode(int[][] img) throws IOException {
+	public synchronized VideoData encode(int[] img) throws IOException {
 		ba.reset();
-		Rectangle imgArea = new Rectangle(img.length, img[0].length);
-		Rectangle area = getNextBlock(imgArea, null);
-		boolean isKeyFrame = (frameCount++ % keyFrameIndex) == 0 || last == null;
+		final boolean isKeyFrame = (frameCount++ % keyFrameIndex) == 0 || last == null;
+		final int[] prev = last;
+
+		byte[][] blocks = new byte[tiles.length][];
+		IntStream.range(0, tiles.length).parallel().forEach(i -> {
+			if (isKeyFrame || changed(img, prev, tiles[i])) {
+				blocks[i] = compress(img, tiles[i]);
+			}
+		});
 
 		//header
 		ba.write(getTag(isKeyFrame ? FLAG_FRAMETYPE_KEYFRAME : FLAG_FRAMETYPE_INTERFRAME, FLAG_CODEC_SCREEN));
-		writeShort(ba, imgArea.width + ((blockSize / 16 - 1) << 12));
-		writeShort(ba, imgArea.height + ((blockSize / 16 - 1) << 12));
-
-		while (area.width > 0 && area.height > 0) {
-			writeBytesIfChanged(ba, isKeyFrame, img, area);
-			area = getNextBlock(imgArea, area);
+		writeShort(ba, width + ((blockSize / 16 - 1) << 12));
+		writeShort(ba, height + ((blockSize / 16 - 1) << 12));
+		for (byte[] block : blocks) {
+			if (block == null) {
+				writeShort(ba, 0);
+			} else {
+				writeShort(ba, block.length);
+				ba.write(block);
+			}
+		}
+		if (prev != img) {
+			spare = prev;
 		}
 		last = img;
 		return getData(ba.toByteArray());
 	}
 
+	@Override
+	public synchronized int[] getBuffer() {
+		return spare;
+	}
+
 	@Override
 	public void reset() {
 		last = null;
+		spare = null;
 		unalteredFrame = null;
 	}
 
+	/**
+	 * @return tiles in the order required by Screen Video: from bottom-left to top-right, row by row
+	 */
+	private Rectangle[] getTiles(Rectangle img) {
+		List<Rectangle> result = new ArrayList<>();
+		Rectangle area = getNextBlock(img, null);
+		while (area.width > 0 && area.height > 0) {
+			result.add(area);
+			area = getNextBlock(img, area);
+		}
+		return result.toArray(new Rectangle[0]);
+	}
+
 	private Rectangle getNextBlock(Rectangle img, Rectangle _prev) {
 		Rectangle prev;
 		if (_prev == null) {
@@ -146,30 +195,35 @@ public class ScreenV1Encoder extends BaseScreenEncoder {
 		return img.intersection(prev);
 	}
 
-	private void writeBytesIfChanged(ByteArrayOutputStream ba, boolean isKeyFrame, int[][] img, Rectangle area) throws IOException {
-		boolean changed = isKeyFrame;
+	private boolean changed(int[] img, int[] prev, Rectangle area) {
+		if (prev == null) {
+			return true;
+		}
+		for (int y = area.y; y < area.y + area.height; ++y) {
+			int start = y * width + area.x;
+			for (int i = start; i < start + area.width; ++i) {
+				if (img[i] != prev[i]) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private byte[] compress(int[] img, Rectangle area) {
+		TileBuffers b = buffers.get();
+		byte[] areaBuf = b.getArea(3 * blockSize * blockSize);
 		int count = 0;
 		for (int y = area.y + area.height - 1; y >= area.y; --y) {
-			for (int x = area.x; x < area.x + area.width; ++x) {
-				int pixel = img[x][y];
-				if (!changed && (last == null || pixel != last[x][y])) {
-					changed = true;
-				}
+			int start = y * width + area.x;
+			for (int i = start; i < start + area.width; ++i) {
+				int pixel = img[i];
 				areaBuf[count++] = (byte)(pixel & 0xFF);			// Blue component
 				areaBuf[count++] = (byte)((pixel >> 8) & 0xFF);		// Green component
 				areaBuf[count++] = (byte)((pixel >> 16) & 0xFF);	// Red component
 			}
 		}
-		if (changed) {
-			d.reset();
-			d.setInput(areaBuf, 0, count);
-			d.finish();
-			int written = d.deflate(zipBuf);
-			writeShort(ba, written);
-			ba.write(zipBuf, 0, written);
-		} else {
-			writeShort(ba, 0);
-		}
+		return b.deflate(areaBuf, count);
 	}
 
 	public int getTag(final int frame, final int codec) {
@@ -181,14 +235,70 @@ public class ScreenV1Encoder extends BaseScreenEncoder {
 		os.write( n       & 0xFF);
 	}
 
-	public static int[][] getImage(ScreenDimensions dim, Rectangle screen, Robot robot) {
-		int[][] buffer = new int[dim.getResizeX()][dim.getResizeY()];
-		BufferedImage image = resize(robot.createScreenCapture(screen), new Rectangle(dim.getResizeX(), dim.getResizeY()));
-		for (int x = 0; x < image.getWidth(); ++x) {
-			for (int y = 0; y < image.getHeight(); ++y) {
-				buffer[x][y] = image.getRGB(x, y);
+	/**
+	 * Captures the screen into given buffer, pixels are stored row by row
+	 *
+	 * @param dim - screen dimensions
+	 * @param screen - area of the screen to be captured
+	 * @param robot - robot to capture the screen
+	 * @param buffer - buffer to be reused, can be {@code null}
+	 * @return buffer with captured pixels, new array is created if passed buffer can't be used
+	 */
+	public static int[] getImage(ScreenDimensions dim, Rectangle screen, Robot robot, int[] buffer) {
+		return getImage(dim, robot.createScreenCapture(screen), buffer);
+	}
+
+	/**
+	 * Resizes captured image and copies its pixels into given buffer row by row
+	 *
+	 * @param dim - screen dimensions
+	 * @param capture - captured image
+	 * @param buffer - buffer to be reused, can be {@code null}
+	 * @return buffer with captured pixels, new array is created if passed buffer can't be used
+	 */
+	public static int[] getImage(ScreenDimensions dim, BufferedImage capture, int[] buffer) {
+		final int w = dim.getResizeX();
+		final int h = dim.getResizeY();
+		int[] result = buffer == null || buffer.length != w * h ? new int[w * h] : buffer;
+		BufferedImage image = resize(capture, new Rectangle(w, h));
+		if (image.getRaster().getTransferType() == DataBuffer.TYPE_INT && image.getRaster().getNumDataElements() == 1) {
+			// packed int pixels are copied without per-pixel color conversion
+			image.getRaster().getDataElements(0, 0, w, h, result);
+		} else {
+			image.getRGB(0, 0, w, h, result, 0, w);
+		}
+		return result;
+	}
+
+	/**
+	 * Per-thread compression state
+	 */
+	private static class TileBuffers {
+		private final Deflater d = new Deflater(Deflater.DEFAULT_COMPRESSION);
+		private byte[] area = new byte[0];
+		private byte[] zip = new byte[0];
+
+		byte[] getArea(int size) {
+			if (area.length < size) {
+				area = new byte[size];
+				// compressed data might be slightly bigger than original
+				zip = new byte[size + size / 100 + 64];
+			}
+			return area;
+		}
+
+		byte[] deflate(byte[] data, int len) {
+			d.reset();
+			d.setInput(data, 0, len);
+			d.finish();
+			int written = 0;
+			while (!d.finished()) {
+				if (written == zip.length) {
+					zip = Arrays.copyOf(zip, 2 * zip.length);
+				}
+				written += d.deflate(zip, written, zip.length - written);
 			}
+			return Arrays.copyOf(zip, written);
 		}
-		return buffer;
 	}
 }
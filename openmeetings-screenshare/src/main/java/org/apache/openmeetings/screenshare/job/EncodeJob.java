@@ -42,7 +42,6 @@ public class EncodeJob implements Job {
 	private Robot robot;
 	private ScreenDimensions dim;
 	private Rectangle screen = null;
-	private int[][] image = null;
 
 	public EncodeJob() {
 		try {
@@ -66,9 +65,9 @@ public class EncodeJob implements Job {
 		if (log.isTraceEnabled()) {
 			start = System.currentTimeMillis();
 		}
-		image = ScreenV1Encoder.getImage(dim, screen, robot);
+		int[] image = ScreenV1Encoder.getImage(dim, screen, robot, capture.getEncoder().getBuffer());
 		if (log.isTraceEnabled()) {
-			log.trace(String.format("encode: Image was captured in %s ms, size %sk", System.currentTimeMillis() - start, 4 * image.length * image[0].length / 1024));
+			log.trace(String.format("encode: Image was captured in %s ms, size %sk", System.currentTimeMillis() - start, 4 * image.length / 1024));
 			start = System.currentTimeMillis();
 		}
 		try {
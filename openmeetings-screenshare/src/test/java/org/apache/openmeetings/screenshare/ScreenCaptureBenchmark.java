@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.screenshare;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openmeetings.screenshare.gui.ScreenDimensions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures {@link BaseScreenEncoder#resize(BufferedImage, Rectangle)} and
+ * {@link ScreenV1Encoder#getImage(ScreenDimensions, BufferedImage, int[])} on synthetic
+ * desktop image, same as {@link java.awt.Robot} would capture, score is frames per second
+ *
+ * Can be started with: mvn test-compile exec:java -Dexec.mainClass=org.apache.openmeetings.screenshare.ScreenCaptureBenchmark -Dexec.classpathScope=test
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class ScreenCaptureBenchmark {
+	@Param({"1280x720", "1920x1080", "3840x2160"})
+	public String resolution;
+	@Param({"1.0", "0.5"})
+	public double scale;
+	private BufferedImage capture;
+	private ScreenDimensions dim;
+	private int[] buffer;
+
+	@Setup
+	public void setup() {
+		ScreenDimensions screen = ScreenEncoderBenchmark.getDim(resolution);
+		int width = screen.getResizeX();
+		int height = screen.getResizeY();
+		capture = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		ScreenFrames.SCROLL.fill(((DataBufferInt)capture.getRaster().getDataBuffer()).getData(), width, height, 0);
+		dim = screen;
+		dim.setResizeX((int)(width * scale));
+		dim.setResizeY((int)(height * scale));
+		buffer = null;
+	}
+
+	@Benchmark
+	public BufferedImage resize() {
+		return BaseScreenEncoder.resize(capture, new Rectangle(dim.getResizeX(), dim.getResizeY()));
+	}
+
+	@Benchmark
+	public int[] getImage() {
+		buffer = ScreenV1Encoder.getImage(dim, capture, buffer);
+		return buffer;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ScreenCaptureBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.screenshare;
+
+import java.awt.Dimension;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openmeetings.screenshare.gui.ScreenDimensions;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.red5.server.net.rtmp.event.VideoData;
+
+/**
+ * Measures {@link ScreenV1Encoder#encode(int[])} on synthetic frame sequences,
+ * score is encoded frames per second, {@code bytes} counter is encoded bytes per second
+ * (divide by score to get bytes per frame), allocation rate is reported by GC profiler
+ *
+ * Can be started with: mvn test-compile exec:java -Dexec.mainClass=org.apache.openmeetings.screenshare.ScreenEncoderBenchmark -Dexec.classpathScope=test
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class ScreenEncoderBenchmark {
+	private static final int FRAMES = 6;
+	@Param({"1280x720", "1920x1080", "3840x2160"})
+	public String resolution;
+	@Param({"16", "32", "64"})
+	public int blockSize;
+	@Param({"STATIC", "SCROLL", "VIDEO"})
+	public ScreenFrames frames;
+	private int[][] sequence;
+	private ScreenV1Encoder encoder;
+	private int index;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+		}
+	}
+
+	static ScreenDimensions getDim(String resolution) {
+		String[] wh = resolution.split("x");
+		int width = Integer.parseInt(wh[0]);
+		int height = Integer.parseInt(wh[1]);
+		ScreenDimensions dim = new ScreenDimensions(new Dimension(width, height));
+		dim.setResizeX(width);
+		dim.setResizeY(height);
+		return dim;
+	}
+
+	@Setup
+	public void setup() {
+		ScreenDimensions dim = getDim(resolution);
+		sequence = frames.generate(dim.getResizeX(), dim.getResizeY(), FRAMES);
+		encoder = new ScreenV1Encoder(dim, blockSize);
+		index = 0;
+	}
+
+	@Benchmark
+	public VideoData encode(Counters counters) throws IOException {
+		VideoData data = encoder.encode(sequence[index++ % FRAMES]);
+		counters.bytes += data.getData().limit();
+		return data;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ScreenEncoderBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
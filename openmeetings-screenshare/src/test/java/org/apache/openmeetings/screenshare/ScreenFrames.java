@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.screenshare;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Synthetic frame sequences used by screen sharing benchmarks, pixels are stored row by row
+ */
+public enum ScreenFrames {
+	/**
+	 * desktop with several windows, nothing changes between frames
+	 */
+	STATIC {
+		@Override
+		void fill(int[] frame, int width, int height, int index) {
+			desktop(frame, width, height);
+		}
+	}
+	/**
+	 * editor window with text scrolled by one line every frame
+	 */
+	, SCROLL {
+		@Override
+		void fill(int[] frame, int width, int height, int index) {
+			desktop(frame, width, height);
+			int top = height / 8, bottom = height - height / 8;
+			int left = width / 8, right = width - width / 8;
+			for (int y = top; y < bottom; ++y) {
+				int line = (y - top) / LINE_HEIGHT + index;
+				boolean text = (y - top) % LINE_HEIGHT < LINE_HEIGHT - 4;
+				Random rnd = new Random(line);
+				int length = (right - left) / 2 + rnd.nextInt((right - left) / 2);
+				Arrays.fill(frame, y * width + left, y * width + right, WHITE);
+				if (text) {
+					for (int x = left; x < left + length; ++x) {
+						// glyph-like pattern, stable for the line
+						if (((x * 31 + y * 17 + line * 7) & 7) < 3) {
+							frame[y * width + x] = BLACK;
+						}
+					}
+				}
+			}
+		}
+	}
+	/**
+	 * video player taking most of the screen, every pixel of the video changes every frame
+	 */
+	, VIDEO {
+		@Override
+		void fill(int[] frame, int width, int height, int index) {
+			desktop(frame, width, height);
+			Random rnd = new Random(index);
+			int top = height / 10, bottom = height - height / 10;
+			int left = width / 10, right = width - width / 10;
+			for (int y = top; y < bottom; ++y) {
+				for (int x = left; x < right; ++x) {
+					// moving gradient with noise, hard to compress as real video
+					int r = (x + index * 8) & 0xFF;
+					int g = (y + index * 4) & 0xFF;
+					int b = rnd.nextInt(0x40);
+					frame[y * width + x] = (r << 16) | (g << 8) | b;
+				}
+			}
+		}
+	};
+
+	private static final int LINE_HEIGHT = 18;
+	private static final int BACKGROUND = 0x3A6EA5;
+	private static final int WHITE = 0xFFFFFF;
+	private static final int BLACK = 0x000000;
+	private static final int TITLE = 0x1F4E79;
+
+	abstract void fill(int[] frame, int width, int height, int index);
+
+	private static void desktop(int[] frame, int width, int height) {
+		Arrays.fill(frame, BACKGROUND);
+		Random rnd = new Random(0);
+		for (int i = 0; i < 5; ++i) {
+			int w = width / 4 + rnd.nextInt(width / 3);
+			int h = height / 4 + rnd.nextInt(height / 3);
+			int x0 = rnd.nextInt(width - w);
+			int y0 = rnd.nextInt(height - h);
+			for (int y = y0; y < y0 + h; ++y) {
+				Arrays.fill(frame, y * width + x0, y * width + x0 + w, y - y0 < 24 ? TITLE : WHITE);
+			}
+		}
+	}
+
+	/**
+	 * @param width - width of the frame
+	 * @param height - height of the frame
+	 * @param count - number of frames
+	 * @return sequence of frames, each frame is separate array as it is in real capture
+	 */
+	int[][] generate(int width, int height, int count) {
+		int[][] frames = new int[count][];
+		for (int i = 0; i < count; ++i) {
+			frames[i] = new int[width * height];
+			fill(frames[i], width, height, i);
+		}
+		return frames;
+	}
+}
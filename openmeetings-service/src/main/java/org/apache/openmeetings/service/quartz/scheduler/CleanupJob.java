@@ -156,6 +156,18 @@ public class CleanupJob extends AbstractJob {
 		}
 	}
 
+	public void flushSessions() {
+		log.trace("CleanupJob.flushSessions");
+		if (!isInitComplete()) {
+			return;
+		}
+		try {
+			sessionDao.flushRefreshed();
+		} catch (Exception err){
+			log.error("execute",err);
+		}
+	}
+
 	public void cleanExpiredRecordings() {
 		log.trace("CleanupJob.cleanExpiredRecordings");
 		processExpiringRecordings(true, (rec, days) -> {
@@ -66,6 +66,9 @@ public class OpenmeetingsVariables {
 	public static final String CONFIG_SMTP_TLS = "mail.smtp.starttls.enable";
 	public static final String CONFIG_SMTP_TIMEOUT_CON = "mail.smtp.connection.timeout";
 	public static final String CONFIG_SMTP_TIMEOUT = "mail.smtp.timeout";
+	public static final String CONFIG_SMTP_POOL_SIZE = "mail.smtp.pool.size";
+	public static final String CONFIG_SMTP_RATE_LIMIT = "mail.smtp.rate.limit";
+	public static final String CONFIG_SMTP_RETRY_DELAY = "mail.smtp.retry.delay";
 	public static final String CONFIG_PATH_IMAGEMAGIC = "path.imagemagick";
 	public static final String CONFIG_PATH_SOX = "path.sox";
 	public static final String CONFIG_PATH_FFMPEG = "path.ffmpeg";
@@ -32,6 +32,7 @@ import org.apache.openmeetings.backup.ProgressHolder;
 import org.apache.openmeetings.util.CalendarPatterns;
 import org.apache.openmeetings.util.OmFileHelper;
 import org.apache.openmeetings.web.admin.AdminBasePanel;
+import org.apache.openmeetings.web.app.ChatManager;
 import org.apache.openmeetings.web.util.upload.BootstrapFileUploadBehavior;
 import org.apache.wicket.ajax.AbstractAjaxTimerBehavior;
 import org.apache.wicket.ajax.AjaxRequestTarget;
@@ -71,6 +72,8 @@ public class BackupPanel extends AdminBasePanel {
 	private BackupExport backupExport;
 	@SpringBean
 	private BackupImport backupImport;
+	@SpringBean
+	private ChatManager chatManager;
 
 	/**
 	 * Form to handle upload files
@@ -202,6 +205,7 @@ public class BackupPanel extends AdminBasePanel {
 						log.error("Exception on panel backup upload ", e);
 						feedback.error(e);
 					}
+					chatManager.reset();
 					// repaint the feedback panel so that it is hidden
 					target.add(feedback);
 				}
@@ -18,6 +18,7 @@
  */
 package org.apache.openmeetings.web.admin.connection;
 
+import static org.apache.openmeetings.core.util.WebSocketHelper.getBroadcaster;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.ATTR_CLASS;
 
 import java.lang.reflect.Field;
@@ -44,6 +45,7 @@ import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.repeater.Item;
 import org.apache.wicket.markup.repeater.RepeatingView;
+import org.apache.wicket.model.Model;
 import org.apache.wicket.spring.injection.annot.SpringBean;
 
 import com.googlecode.wicket.jquery.ui.form.button.ButtonBehavior;
@@ -83,6 +85,16 @@ public class ConnectionsPanel extends AdminBasePanel {
 		};
 		final WebMarkupContainer container = new WebMarkupContainer("container");
 		final WebMarkupContainer details = new WebMarkupContainer("details");
+		// statistics of WebSocket broadcast engine of this node
+		final Label broadcaster = new Label("broadcaster", Model.of("")) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void onConfigure() {
+				super.onConfigure();
+				setDefaultModelObject(String.valueOf(getBroadcaster()));
+			}
+		};
 		SearchableDataView<IClient> dataView = new SearchableDataView<IClient>("clientList", sdp) {
 			private static final long serialVersionUID = 1L;
 
@@ -101,7 +113,7 @@ public class ConnectionsPanel extends AdminBasePanel {
 							Client c = (Client)_c;
 							cm.invalidate(c.getUserId(), c.getSessionId());
 						}
-						target.add(container, details.setVisible(false));
+						target.add(container, broadcaster, details.setVisible(false));
 					}
 				};
 				confirm.setOutputMarkupId(true).add(new ButtonBehavior(String.format("#%s", confirm.getMarkupId())));
@@ -153,13 +165,13 @@ public class ConnectionsPanel extends AdminBasePanel {
 				item.add(AttributeModifier.append(ATTR_CLASS, ROW_CLASS));
 			}
 		};
-		add(container.add(dataView).setOutputMarkupId(true), details.setVisible(false).setOutputMarkupPlaceholderTag(true));
+		add(container.add(dataView).setOutputMarkupId(true), broadcaster.setOutputMarkupId(true), details.setVisible(false).setOutputMarkupPlaceholderTag(true));
 		add(new PagedEntityListPanel("navigator", dataView) {
 			private static final long serialVersionUID = 1L;
 
 			@Override
 			protected void onEvent(AjaxRequestTarget target) {
-				target.add(container);
+				target.add(container, broadcaster);
 			}
 		});
 	}
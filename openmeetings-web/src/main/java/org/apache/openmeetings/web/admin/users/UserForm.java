@@ -48,6 +48,7 @@ import org.apache.openmeetings.db.entity.user.User.Type;
 import org.apache.openmeetings.db.util.AuthLevelUtil;
 import org.apache.openmeetings.service.mail.EmailManager;
 import org.apache.openmeetings.web.admin.AdminBaseForm;
+import org.apache.openmeetings.web.app.ChatManager;
 import org.apache.openmeetings.web.common.ComunityUserForm;
 import org.apache.openmeetings.web.common.GeneralUserForm;
 import org.apache.openmeetings.web.util.DateLabel;
@@ -100,6 +101,8 @@ public class UserForm extends AdminBaseForm<User> {
 	@SpringBean
 	private UserDao userDao;
 	@SpringBean
+	private ChatManager chatManager;
+	@SpringBean
 	private EmailManager emainManager;
 	@SpringBean
 	private LdapConfigDao ldapDao;
@@ -237,6 +240,7 @@ public class UserForm extends AdminBaseForm<User> {
 
 	private void purgeUser(AjaxRequestTarget target) {
 		userDao.purge(getModelObject(), getUserId());
+		chatManager.reset();
 		updateForm(target);
 	}
 
@@ -54,6 +54,7 @@ import org.apache.openmeetings.core.util.WebSocketHelper;
 import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
 import org.apache.openmeetings.db.dao.label.LabelDao;
 import org.apache.openmeetings.db.dao.record.RecordingDao;
+import org.apache.openmeetings.db.dao.server.SessiondataDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.basic.Client;
 import org.apache.openmeetings.db.entity.record.Recording;
@@ -141,6 +142,9 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 	private static final Logger log = LoggerFactory.getLogger(Application.class);
 	private static boolean isInstalled;
 	private static final String INVALID_SESSIONS_KEY = "INVALID_SESSIONS_KEY";
+	private static final String CONFIG_UPDATE_KEY = "CONFIG_UPDATE_KEY";
+	private static final String RIGHTS_UPDATE_KEY = "RIGHTS_UPDATE_KEY";
+	private static final String SESSIONS_REFRESH_KEY = "SESSIONS_REFRESH_KEY";
 	public static final String NAME_ATTR_KEY = "name";
 	//additional maps for faster searching should be created
 	private DashboardContext dashboardContext;
@@ -157,6 +161,9 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 	private String xFrameOptions = HEADER_XFRAME_SAMEORIGIN;
 	private String contentSecurityPolicy = OpenmeetingsVariables.HEADER_CSP_SELF;
 	private ITopic<IClusterWsMessage> hazelWsTopic;
+	private ITopic<String> hazelCfgTopic;
+	private ITopic<Long> hazelRightsTopic;
+	private ITopic<List<Long>> hazelSessionsTopic;
 
 	@Autowired
 	private ApplicationContext ctx;
@@ -167,6 +174,8 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 	@Autowired
 	private UserDao userDao;
 	@Autowired
+	private SessiondataDao sessionDao;
+	@Autowired
 	private ClientManager cm;
 	@Autowired
 	private StreamClientManager scm;
@@ -176,6 +185,7 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 	@Override
 	protected void init() {
 		setWicketApplicationName(super.getName());
+		WebSocketHelper.startBroadcaster(this);
 		getSecuritySettings().setAuthenticationStrategy(new OmAuthenticationStrategy());
 		getApplicationSettings().setAccessDeniedPage(AccessDeniedPage.class);
 		getComponentInstantiationListeners().add(new SpringComponentInjector(this, ctx, true));
@@ -189,6 +199,27 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 				}
 				WbWebSocketHelper.send(msg.getMessageObject());
 			});
+		hazelCfgTopic = hazelcast.getTopic(CONFIG_UPDATE_KEY);
+		hazelCfgTopic.addMessageListener(msg -> {
+				if (msg.getPublishingMember().localMember()) {
+					return;
+				}
+				cfgDao.reload(msg.getMessageObject());
+			});
+		hazelRightsTopic = hazelcast.getTopic(RIGHTS_UPDATE_KEY);
+		hazelRightsTopic.addMessageListener(msg -> {
+				if (msg.getPublishingMember().localMember()) {
+					return;
+				}
+				userDao.evictRights(msg.getMessageObject());
+			});
+		hazelSessionsTopic = hazelcast.getTopic(SESSIONS_REFRESH_KEY);
+		hazelSessionsTopic.addMessageListener(msg -> {
+				if (msg.getPublishingMember().localMember()) {
+					return;
+				}
+				sessionDao.evictRefreshed(msg.getMessageObject());
+			});
 		hazelcast.getCluster().addMembershipListener(new MembershipListener() {
 			@Override
 			public void memberRemoved(MembershipEvent evt) {
@@ -309,6 +340,12 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 		}
 	}
 
+	@Override
+	protected void onDestroy() {
+		WebSocketHelper.stopBroadcaster(this);
+		super.onDestroy();
+	}
+
 	private static class NoVersionMapper extends MountedMapper {
 		public NoVersionMapper(final Class<? extends IRequestablePage> pageClass) {
 			this("/", pageClass);
@@ -551,6 +588,21 @@ public class Application extends AuthenticatedWebApplication implements IApplica
 		hazelWsTopic.publish(msg);
 	}
 
+	@Override
+	public void publishConfigUpdate(String key) {
+		hazelCfgTopic.publish(key);
+	}
+
+	@Override
+	public void publishRightsUpdate(Long userId) {
+		hazelRightsTopic.publish(userId);
+	}
+
+	@Override
+	public void publishSessionsRefreshed(List<Long> ids) {
+		hazelSessionsTopic.publish(new ArrayList<>(ids));
+	}
+
 	private static String getWsUrl(Url reqUrl) {
 		final boolean insecure = "http".equalsIgnoreCase(reqUrl.getProtocol());
 		String delim = ":";
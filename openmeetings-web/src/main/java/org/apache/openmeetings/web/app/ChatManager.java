@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import static org.apache.openmeetings.core.util.WebSocketHelper.ID_ALL;
+import static org.apache.openmeetings.core.util.WebSocketHelper.ID_ROOM_PREFIX;
+import static org.apache.openmeetings.core.util.WebSocketHelper.ID_USER_PREFIX;
+import static org.apache.openmeetings.db.util.FormatHelper.getDisplayName;
+
+import java.io.Serializable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.NoResultException;
+
+import org.apache.commons.lang3.time.FastDateFormat;
+import org.apache.openmeetings.db.dao.basic.ChatDao;
+import org.apache.openmeetings.db.entity.basic.ChatMessage;
+import org.apache.openmeetings.db.entity.user.User;
+import org.apache.openmeetings.db.util.FormatHelper;
+import org.apache.openmeetings.db.util.LocaleHelper;
+import org.apache.openmeetings.db.util.TimezoneUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.github.openjson.JSONObject;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import com.hazelcast.core.MessageListener;
+
+/**
+ * Write-through cache of recent chat messages
+ *
+ * Last {@link #HISTORY_SIZE} messages of global chat, of every room and of every user
+ * are kept in memory, histories are loaded from {@link ChatDao} on first access.
+ * Each node has its own copy, changes are replicated as {@link ChatEvent}.
+ * Viewer independent part of the message JSON is serialized once per locale/time zone
+ *
+ * @author solomax
+ *
+ */
+@Component
+public class ChatManager {
+	private static final Logger log = LoggerFactory.getLogger(ChatManager.class);
+	private static final String CHAT_KEY = "CHAT_KEY";
+	public static final int HISTORY_SIZE = 30;
+	private static final int MAX_HISTORIES = 1000;
+	private static final Duration USER_RECENT = Duration.ofHours(1L);
+	private volatile History global = new History();
+	private final Map<Long, History> rooms = lru();
+	private final Map<Long, History> approved = lru();
+	private final Map<Long, History> users = lru();
+
+	@Autowired
+	private Application app;
+	@Autowired
+	private ChatDao chatDao;
+
+	private static Map<Long, History> lru() {
+		return Collections.synchronizedMap(new LinkedHashMap<Long, History>(16, .75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, History> eldest) {
+				return size() > MAX_HISTORIES;
+			}
+		});
+	}
+
+	private ITopic<ChatEvent> topic() {
+		return app.hazelcast.getTopic(CHAT_KEY);
+	}
+
+	@PostConstruct
+	void init() {
+		topic().addMessageListener(new ChatListener());
+	}
+
+	private void publish(ChatEvent e) {
+		topic().publish(e);
+	}
+
+	public List<Entry> getGlobal() {
+		return global.list(() -> chatDao.getGlobal(0, HISTORY_SIZE));
+	}
+
+	public List<Entry> getRoom(long roomId, boolean all) {
+		if (all) {
+			return rooms.computeIfAbsent(roomId, k -> new History())
+					.list(() -> chatDao.getRoom(roomId, 0, HISTORY_SIZE, true));
+		}
+		return approved.computeIfAbsent(roomId, k -> new History())
+				.list(() -> chatDao.getRoom(roomId, 0, HISTORY_SIZE, false));
+	}
+
+	/**
+	 * @param userId - id of the user
+	 * @return private messages sent or received by the user within last hour
+	 */
+	public List<Entry> getUserRecent(long userId) {
+		final Date since = new Date(System.currentTimeMillis() - USER_RECENT.toMillis());
+		List<Entry> list = users.computeIfAbsent(userId, k -> new History())
+				.list(() -> chatDao.getUser(userId, 0, HISTORY_SIZE));
+		List<Entry> result = new ArrayList<>(list.size());
+		for (Entry e : list) {
+			if (e.m.getSent().after(since)) {
+				result.add(e);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Stores new message and adds it to loaded histories
+	 *
+	 * @param m - message to be sent
+	 * @return stored message
+	 */
+	public ChatMessage add(ChatMessage m) {
+		ChatMessage msg = chatDao.update(m);
+		put(msg);
+		publish(new ChatEvent(ChatEvent.Type.add, msg.getId()));
+		return msg;
+	}
+
+	/**
+	 * Marks room message as moderated
+	 *
+	 * @param m - message to be accepted
+	 * @return stored message
+	 */
+	public ChatMessage accept(ChatMessage m) {
+		m.setNeedModeration(false);
+		ChatMessage msg = chatDao.update(m);
+		put(msg);
+		publish(new ChatEvent(ChatEvent.Type.add, msg.getId()));
+		return msg;
+	}
+
+	public void clearGlobal() {
+		chatDao.deleteGlobal();
+		onClearGlobal();
+		publish(new ChatEvent(ChatEvent.Type.clearGlobal, null));
+	}
+
+	public void clearRoom(Long roomId) {
+		chatDao.deleteRoom(roomId);
+		onClearRoom(roomId);
+		publish(new ChatEvent(ChatEvent.Type.clearRoom, roomId));
+	}
+
+	public void clearUser(Long userId) {
+		chatDao.deleteUser(userId);
+		onClearUser(userId);
+		publish(new ChatEvent(ChatEvent.Type.clearUser, userId));
+	}
+
+	/**
+	 * Drops all cached histories, should be called after chat messages were changed in DB directly
+	 */
+	public void reset() {
+		onReset();
+		publish(new ChatEvent(ChatEvent.Type.reset, null));
+	}
+
+	private void put(ChatMessage m) {
+		if (m.getToRoom() != null) {
+			Long roomId = m.getToRoom().getId();
+			History h = rooms.get(roomId);
+			if (h != null) {
+				h.put(m);
+			}
+			if (!m.isNeedModeration()) {
+				h = approved.get(roomId);
+				if (h != null) {
+					h.put(m);
+				}
+			}
+		} else if (m.getToUser() != null) {
+			for (Long userId : new Long[] {m.getFromUser().getId(), m.getToUser().getId()}) {
+				History h = users.get(userId);
+				if (h != null) {
+					h.put(m);
+				}
+			}
+		} else {
+			global.put(m);
+		}
+	}
+
+	private void onClearGlobal() {
+		global = new History();
+	}
+
+	private void onClearRoom(Long roomId) {
+		rooms.remove(roomId);
+		approved.remove(roomId);
+	}
+
+	private void onClearUser(Long userId) {
+		users.remove(userId);
+		List<History> list;
+		synchronized (users) {
+			list = new ArrayList<>(users.values());
+		}
+		for (History h : list) {
+			h.remove(m -> m.getToRoom() == null && m.getToUser() != null && userId.equals(m.getToUser().getId()));
+		}
+	}
+
+	private void onReset() {
+		onClearGlobal();
+		rooms.clear();
+		approved.clear();
+		users.clear();
+	}
+
+	private static String formatKey(User u) {
+		return LocaleHelper.getLocale(u) + "|" + TimezoneUtil.getTimeZone(u).getID();
+	}
+
+	private static String merge(String o1, String o2) {
+		return new StringBuilder(o1.length() + o2.length())
+				.append(o1, 0, o1.length() - 1)
+				.append(',')
+				.append(o2, 1, o2.length())
+				.toString();
+	}
+
+	/**
+	 * The same as {@link org.apache.openmeetings.core.util.WebSocketHelper#getMessage(User, List, BiConsumer)},
+	 * viewer independent parts are taken from cache
+	 *
+	 * @param curUser - the viewer
+	 * @param list - messages to be serialized
+	 * @param uFmt - additional author formatter
+	 * @return serialized chat message
+	 */
+	public static String getMessage(User curUser, Collection<Entry> list, BiConsumer<JSONObject, User> uFmt) {
+		final String key = formatKey(curUser);
+		final Map<Long, JSONObject> authors = new HashMap<>();
+		StringBuilder sb = new StringBuilder("{\"type\":\"chat\",\"msg\":[");
+		String delim = "";
+		for (Entry e : list) {
+			ChatMessage m = e.m;
+			JSONObject from = authors.computeIfAbsent(m.getFromUser().getId(), id -> {
+				JSONObject o = new JSONObject()
+						.put("id", id)
+						.put("displayName", m.getFromName())
+						.put("name", getDisplayName(m.getFromUser()));
+				if (uFmt != null) {
+					uFmt.accept(o, m.getFromUser());
+				}
+				return o;
+			});
+			JSONObject viewer = new JSONObject();
+			if (m.getToUser() != null) {
+				User u = curUser.getId().equals(m.getToUser().getId()) ? m.getFromUser() : m.getToUser();
+				viewer.put("scope", ID_USER_PREFIX + u.getId()).put("scopeName", getDisplayName(u));
+			}
+			viewer.put("from", from)
+				.put("actions", curUser.getId().equals(m.getFromUser().getId()) ? "short" : "full");
+			sb.append(delim).append(merge(e.getJson(key, curUser), viewer.toString()));
+			delim = ",";
+		}
+		return sb.append("]}").toString();
+	}
+
+	public static class Entry {
+		private final ChatMessage m;
+		private final Map<String, String> json = new HashMap<>();
+
+		Entry(ChatMessage m) {
+			this.m = m;
+		}
+
+		public ChatMessage getMessage() {
+			return m;
+		}
+
+		private synchronized String getJson(String key, User u) {
+			return json.computeIfAbsent(key, k -> {
+				final FastDateFormat fullFmt = FormatHelper.getDateTimeFormat(u);
+				final FastDateFormat dateFmt = FormatHelper.getDateFormat(u);
+				final FastDateFormat timeFmt = FormatHelper.getTimeFormat(u);
+				String smsg = m.getMessage();
+				smsg = smsg == null ? smsg : " " + smsg.replaceAll("&nbsp;", " ") + " ";
+				JSONObject o = new JSONObject();
+				if (m.getToUser() == null) {
+					if (m.getToRoom() != null) {
+						o.put("scope", ID_ROOM_PREFIX + m.getToRoom().getId())
+							.put("needModeration", m.isNeedModeration());
+					} else {
+						o.put("scope", ID_ALL);
+					}
+				}
+				return o.put("id", m.getId())
+						.put("message", smsg)
+						.put("sent", fullFmt.format(m.getSent()))
+						.put("date", dateFmt.format(m.getSent()))
+						.put("time", timeFmt.format(m.getSent()))
+						.toString();
+			});
+		}
+	}
+
+	/**
+	 * Last {@link ChatManager#HISTORY_SIZE} messages ordered by sent date (newest first)
+	 */
+	static class History {
+		private static final Comparator<Entry> CMP = Comparator.<Entry, Date>comparing(e -> e.m.getSent())
+				.thenComparing(e -> e.m.getId())
+				.reversed();
+		private final List<Entry> entries = new ArrayList<>(HISTORY_SIZE + 1);
+		private boolean loaded = false;
+
+		synchronized List<Entry> list(Supplier<List<ChatMessage>> loader) {
+			if (!loaded) {
+				for (ChatMessage m : loader.get()) {
+					put(m);
+				}
+				loaded = true;
+			}
+			return new ArrayList<>(entries);
+		}
+
+		/**
+		 * Adds the message or replaces the one with the same id
+		 *
+		 * @param m - message to be added
+		 */
+		synchronized void put(ChatMessage m) {
+			entries.removeIf(e -> e.m.getId().equals(m.getId()));
+			Entry e = new Entry(m);
+			int idx = Collections.binarySearch(entries, e, CMP);
+			entries.add(idx < 0 ? -idx - 1 : idx, e);
+			while (entries.size() > HISTORY_SIZE) {
+				entries.remove(entries.size() - 1);
+			}
+		}
+
+		synchronized void remove(Predicate<ChatMessage> filter) {
+			entries.removeIf(e -> filter.test(e.m));
+		}
+	}
+
+	public static class ChatEvent implements Serializable {
+		private static final long serialVersionUID = 1L;
+		enum Type {
+			add
+			, clearGlobal
+			, clearRoom
+			, clearUser
+			, reset
+		}
+		private final Type type;
+		private final Long id;
+
+		ChatEvent(Type type, Long id) {
+			this.type = type;
+			this.id = id;
+		}
+
+		@Override
+		public String toString() {
+			return "ChatEvent [type=" + type + ", id=" + id + "]";
+		}
+	}
+
+	public class ChatListener implements MessageListener<ChatEvent> {
+		@Override
+		public void onMessage(Message<ChatEvent> msg) {
+			if (msg.getPublishingMember().localMember()) {
+				return;
+			}
+			ChatEvent e = msg.getMessageObject();
+			log.trace("ChatListener::onMessage {}", e);
+			switch (e.type) {
+				case add:
+					try {
+						put(chatDao.get(e.id));
+					} catch (NoResultException ex) {
+						log.debug("Chat message {} was removed", e.id);
+					}
+					break;
+				case clearGlobal:
+					onClearGlobal();
+					break;
+				case clearRoom:
+					onClearRoom(e.id);
+					break;
+				case clearUser:
+					onClearUser(e.id);
+					break;
+				case reset:
+					onReset();
+					break;
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.openmeetings.db.entity.basic.Client;
+import org.apache.wicket.util.collections.ConcurrentHashSet;
+
+/**
+ * Local secondary indexes of online clients: userId, sessionId and serverId to uids
+ *
+ * Is maintained by {@link ClientManager} based on cluster events, so lookups
+ * doesn't require iteration over distributed map
+ *
+ * @author solomax
+ *
+ */
+public class ClientIndex {
+	private final Map<Long, Set<String>> byUser = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> bySession = new ConcurrentHashMap<>();
+	private final Map<String, Set<String>> byServer = new ConcurrentHashMap<>();
+
+	public void add(Client c) {
+		add(byUser, c.getUserId(), c.getUid());
+		add(bySession, c.getSessionId(), c.getUid());
+		add(byServer, c.getServerId(), c.getUid());
+	}
+
+	public void remove(Client c) {
+		remove(byUser, c.getUserId(), c.getUid());
+		remove(bySession, c.getSessionId(), c.getUid());
+		remove(byServer, c.getServerId(), c.getUid());
+	}
+
+	public Set<String> byUser(Long userId) {
+		return get(byUser, userId);
+	}
+
+	public Set<String> bySession(String sessionId) {
+		return get(bySession, sessionId);
+	}
+
+	public Set<String> byServer(String serverId) {
+		return get(byServer, serverId);
+	}
+
+	public void clear() {
+		byUser.clear();
+		bySession.clear();
+		byServer.clear();
+	}
+
+	private static <K> void add(Map<K, Set<String>> idx, K key, String uid) {
+		if (key == null) {
+			return;
+		}
+		idx.compute(key, (k, v) -> {
+			Set<String> uids = v == null ? new ConcurrentHashSet<>() : v;
+			uids.add(uid);
+			return uids;
+		});
+	}
+
+	private static <K> void remove(Map<K, Set<String>> idx, K key, String uid) {
+		if (key == null) {
+			return;
+		}
+		idx.computeIfPresent(key, (k, v) -> {
+			v.remove(uid);
+			return v.isEmpty() ? null : v;
+		});
+	}
+
+	private static <K> Set<String> get(Map<K, Set<String>> idx, K key) {
+		Set<String> uids = key == null ? null : idx.get(key);
+		return uids == null ? Collections.emptySet() : Collections.unmodifiableSet(uids);
+	}
+}
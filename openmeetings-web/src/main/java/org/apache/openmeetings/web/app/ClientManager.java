@@ -20,12 +20,12 @@ package org.apache.openmeetings.web.app;
 
 import static org.apache.openmeetings.core.util.WebSocketHelper.sendRoom;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
@@ -35,10 +35,12 @@ import javax.annotation.PostConstruct;
 import org.apache.openmeetings.core.remote.KurentoHandler;
 import org.apache.openmeetings.db.dao.log.ConferenceLogDao;
 import org.apache.openmeetings.db.entity.basic.Client;
+import org.apache.openmeetings.db.entity.basic.ClientDelta;
 import org.apache.openmeetings.db.entity.basic.IClient;
 import org.apache.openmeetings.db.entity.log.ConferenceLog;
 import org.apache.openmeetings.db.manager.IClientManager;
 import org.apache.openmeetings.db.util.ws.RoomMessage;
+import org.apache.openmeetings.db.util.ws.TextRoomMessage;
 import org.apache.wicket.util.collections.ConcurrentHashSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,10 +49,12 @@ import org.springframework.stereotype.Component;
 
 import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.IMap;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import com.hazelcast.core.MessageListener;
+import com.hazelcast.map.AbstractEntryProcessor;
 import com.hazelcast.map.listener.EntryAddedListener;
 import com.hazelcast.map.listener.EntryRemovedListener;
-import com.hazelcast.map.listener.EntryUpdatedListener;
-import com.hazelcast.query.Predicates;
 
 @Component
 public class ClientManager implements IClientManager {
@@ -58,8 +62,11 @@ public class ClientManager implements IClientManager {
 	private static final String ROOMS_KEY = "ROOMS_KEY";
 	private static final String ONLINE_USERS_KEY = "ONLINE_USERS_KEY";
 	private static final String UID_BY_SID_KEY = "UID_BY_SID_KEY";
+	private static final String CLIENT_DELTA_KEY = "CLIENT_DELTA_KEY";
+	private static final String ROOM_MEMBER_KEY = "ROOM_MEMBER_KEY";
 	private final Map<String, Client> onlineClients = new ConcurrentHashMap<>();
 	private final Map<Long, Set<String>> onlineRooms = new ConcurrentHashMap<>();
+	private final ClientIndex index = new ClientIndex();
 
 	@Autowired
 	private ConferenceLogDao confLogDao;
@@ -80,27 +87,118 @@ public class ClientManager implements IClientManager {
 		return app.hazelcast.getMap(ROOMS_KEY);
 	}
 
+	private ITopic<ClientDelta> deltas() {
+		return app.hazelcast.getTopic(CLIENT_DELTA_KEY);
+	}
+
+	private ITopic<RoomMember> members() {
+		return app.hazelcast.getTopic(ROOM_MEMBER_KEY);
+	}
+
 	@PostConstruct
 	void init() {
 		map().addEntryListener(new ClientListener(), true);
-		rooms().addEntryListener(new RoomListener(), true);
+		map().addEntryListener(new ClientRemovedListener(), false);
+		members().addMessageListener(new RoomMemberListener());
+		deltas().addMessageListener(new DeltaListener());
+		for (Client c : map().values()) {
+			addLocal(c);
+		}
+		for (Map.Entry<Long, Set<String>> e : rooms().entrySet()) {
+			for (String uid : e.getValue()) {
+				addLocal(e.getKey(), uid);
+			}
+		}
+	}
+
+	private void addLocal(Client c) {
+		Client prev = onlineClients.putIfAbsent(c.getUid(), c);
+		if (prev == null) {
+			index.add(c);
+		} else if (prev != c) {
+			// late cluster event might bring older copy
+			synchronized (prev) {
+				if (c.getVersion() > prev.getVersion()) {
+					prev.merge(c);
+				}
+			}
+		}
+	}
+
+	private void removeLocal(String uid) {
+		Client c = onlineClients.remove(uid);
+		if (c != null) {
+			index.remove(c);
+		}
+	}
+
+	private void addLocal(Long roomId, String uid) {
+		onlineRooms.computeIfAbsent(roomId, k -> new ConcurrentHashSet<>()).add(uid);
+	}
+
+	private void removeLocal(Long roomId, String uid) {
+		onlineRooms.computeIfPresent(roomId, (k, v) -> {
+			v.remove(uid);
+			return v.isEmpty() ? null : v;
+		});
 	}
 
 	public void add(Client c) {
 		log.debug("Adding online client: {}, room: {}", c.getUid(), c.getRoom());
 		c.setServerId(Application.get().getServerId());
 		map().put(c.getUid(), c);
-		onlineClients.put(c.getUid(), c);
+		addLocal(c);
 		mapBySid().put(c.getSid(), c.getUid());
 	}
 
+	/**
+	 * Only fields changed since previous update are being replicated:
+	 * the delta is applied to the cluster copy by the partition owner
+	 * and then published to other nodes
+	 */
 	@Override
 	public Client update(Client c) {
-		onlineClients.get(c.getUid()).merge(c);
-		map().put(c.getUid(), c);
+		final String uid = c.getUid();
+		Client local = onlineClients.get(uid);
+		if (local == null) {
+			log.warn("Update of the client being removed {}", uid);
+			return c;
+		}
+		if (local != c) {
+			local.merge(c);
+		}
+		ClientDelta d = c.flush(local != c);
+		if (d != null) {
+			Object ver = map().executeOnKey(uid, new ApplyDelta(d));
+			if (ver != null) {
+				d.setVersion((Long)ver);
+				synchronized (local) {
+					if (d.getVersion() == local.getVersion() + 1) {
+						local.setVersion(d.getVersion());
+					} else {
+						// deltas of other nodes were applied in between, but not yet received
+						reload(local);
+					}
+				}
+				c.setVersion(local.getVersion());
+				deltas().publish(d);
+			}
+		}
 		return c;
 	}
 
+	/**
+	 * Replaces local copy with the cluster one if the latter is newer, version is being updated as well
+	 *
+	 * @param c - local copy of the client
+	 */
+	private void reload(Client c) {
+		Client full = map().get(c.getUid());
+		if (full != null && full.getVersion() > c.getVersion()) {
+			c.merge(full);
+		}
+	}
+
 	@Override
 	public Client get(String uid) {
 		return uid == null ? null : onlineClients.get(uid);
@@ -127,7 +225,7 @@ public class ClientManager implements IClientManager {
 		Long roomId = c.getRoomId();
 		removeFromRoom(c);
 		if (roomId != null) {
-			sendRoom(new RoomMessage(roomId, c, RoomMessage.Type.roomExit));
+			sendRoom(new TextRoomMessage(roomId, c, RoomMessage.Type.roomExit, c.getUid()));
 			confLogDao.add(
 					ConferenceLog.Type.roomLeave
 					, c.getUserId(), "0", roomId
@@ -143,16 +241,16 @@ public class ClientManager implements IClientManager {
 			kHandler.remove((Client)c);
 			log.debug("Removing online client: {}, roomId: {}", c.getUid(), c.getRoomId());
 			map().remove(c.getUid());
-			onlineClients.remove(c.getUid());
+			removeLocal(c.getUid());
 			mapBySid().remove(c.getSid());
 		}
 	}
 
 	public void clean(String serverId) {
-		Map<String, Client> clients = map();
-		for (Map.Entry<String, Client> e : clients.entrySet()) {
-			if (serverId.equals(e.getValue().getServerId())) {
-				exit(e.getValue());
+		for (String uid : new ArrayList<>(index.byServer(serverId))) {
+			Client c = get(uid);
+			if (c != null && serverId.equals(c.getServerId())) {
+				exit(c);
 			}
 		}
 	}
@@ -165,21 +263,18 @@ public class ClientManager implements IClientManager {
 	/**
 	 * This method will return count of users in room _after_ adding
 	 *
+	 * Membership is changed by single atomic operation on the partition owner,
+	 * only the uid being added is published to other nodes
+	 *
 	 * @param c - client to be added to the room
 	 * @return count of users in room _after_ adding
 	 */
 	public int addToRoom(Client c) {
 		Long roomId = c.getRoom().getId();
 		log.debug("Adding online room client: {}, room: {}", c.getUid(), roomId);
-		IMap<Long, Set<String>> rooms = rooms();
-		rooms.lock(roomId);
-		rooms.putIfAbsent(roomId, new ConcurrentHashSet<String>());
-		Set<String> set = rooms.get(roomId);
-		set.add(c.getUid());
-		final int count = set.size();
-		rooms.put(roomId, set);
-		onlineRooms.put(roomId, set);
-		rooms.unlock(roomId);
+		final int count = (Integer)rooms().executeOnKey(roomId, new AddToRoom(c.getUid()));
+		addLocal(roomId, c.getUid());
+		members().publish(new RoomMember(roomId, c.getUid(), true));
 		update(c);
 		return count;
 	}
@@ -188,15 +283,9 @@ public class ClientManager implements IClientManager {
 		Long roomId = _c.getRoomId();
 		log.debug("Removing online room client: {}, room: {}", _c.getUid(), roomId);
 		if (roomId != null) {
-			IMap<Long, Set<String>> rooms = rooms();
-			rooms.lock(roomId);
-			Set<String> clients = rooms.get(roomId);
-			if (clients != null) {
-				clients.remove(_c.getUid());
-				rooms.put(roomId, clients);
-				onlineRooms.put(roomId, clients);
-			}
-			rooms.unlock(roomId);
+			rooms().executeOnKey(roomId, new RemoveFromRoom(_c.getUid()));
+			removeLocal(roomId, _c.getUid());
+			members().publish(new RoomMember(roomId, _c.getUid(), false));
 			/* FIXME TODO KurentoHandler
 			if (_c instanceof StreamClient) {
 				StreamClient sc = (StreamClient)_c;
@@ -224,14 +313,7 @@ public class ClientManager implements IClientManager {
 	}
 
 	public boolean isOnline(Long userId) {
-		boolean isUserOnline = false;
-		for (Map.Entry<String, Client> e : map().entrySet()) {
-			if (e.getValue().getUserId().equals(userId)) {
-				isUserOnline = true;
-				break;
-			}
-		}
-		return isUserOnline;
+		return !index.byUser(userId).isEmpty();
 	}
 
 	public List<Client> list() {
@@ -240,7 +322,18 @@ public class ClientManager implements IClientManager {
 
 	@Override
 	public Collection<Client> listByUser(Long userId) {
-		return map().values(Predicates.equal("userId", userId));
+		return list(index.byUser(userId));
+	}
+
+	private List<Client> list(Collection<String> uids) {
+		List<Client> clients = new ArrayList<>(uids.size());
+		for (String uid : uids) {
+			Client c = get(uid);
+			if (c != null) {
+				clients.add(c);
+			}
+		}
+		return clients;
 	}
 
 	@Override
@@ -266,40 +359,31 @@ public class ClientManager implements IClientManager {
 
 	public Set<Long> listRoomIds(Long userId) {
 		Set<Long> result = new HashSet<>();
-		for (Entry<Long, Set<String>> me : onlineRooms.entrySet()) {
-			for (String uid : me.getValue()) {
-				Client c = get(uid);
-				if (c != null && c.getUserId().equals(userId)) {
-					result.add(me.getKey());
-				}
+		for (Client c : listByUser(userId)) {
+			if (c.getRoomId() != null) {
+				result.add(c.getRoomId());
 			}
 		}
 		return result;
 	}
 
 	public boolean isInRoom(long roomId, long userId) {
-		Set<String> clients = onlineRooms.get(roomId);
-		if (clients != null) {
-			for (String uid : clients) {
-				Client c = get(uid);
-				if (c != null && c.getUserId().equals(userId)) {
-					return true;
-				}
+		for (Client c : listByUser(userId)) {
+			if (c.getRoomId() != null && c.getRoomId() == roomId) {
+				return true;
 			}
 		}
 		return false;
 	}
 
 	private Client getByKeys(Long userId, String sessionId) {
-		Client client = null;
-		for (Map.Entry<String, Client> e : map().entrySet()) {
-			Client c = e.getValue();
-			if (c.getUserId().equals(userId) && c.getSessionId().equals(sessionId)) {
-				client = c;
-				break;
+		for (String uid : index.bySession(sessionId)) {
+			Client c = get(uid);
+			if (c != null && c.getUserId().equals(userId)) {
+				return c;
 			}
 		}
-		return client;
+		return null;
 	}
 
 	public void invalidate(Long userId, String sessionId) {
@@ -313,56 +397,156 @@ public class ClientManager implements IClientManager {
 		}
 	}
 
-	public class ClientListener implements
-			EntryAddedListener<String, Client>
-			, EntryUpdatedListener<String, Client>
-			, EntryRemovedListener<String, Client>
-	{
+	public class ClientListener implements EntryAddedListener<String, Client> {
 		@Override
 		public void entryAdded(EntryEvent<String, Client> event) {
 			log.trace("ClientListener::Add");
-			final String uid = event.getKey();
-			if (onlineClients.containsKey(uid)) {
-				onlineClients.get(uid).merge(event.getValue());
-			} else {
-				onlineClients.put(uid, event.getValue());
+			addLocal(event.getValue());
+		}
+	}
+
+	/**
+	 * Is registered without value, only key is necessary to remove client
+	 */
+	public class ClientRemovedListener implements EntryRemovedListener<String, Client> {
+		@Override
+		public void entryRemoved(EntryEvent<String, Client> event) {
+			log.trace("ClientListener::Remove");
+			removeLocal(event.getKey());
+		}
+	}
+
+	public class DeltaListener implements MessageListener<ClientDelta> {
+		@Override
+		public void onMessage(Message<ClientDelta> msg) {
+			if (msg.getPublishingMember().localMember()) {
+				return;
 			}
+			final ClientDelta d = msg.getMessageObject();
+			log.trace("DeltaListener::onMessage {}", d);
+			Client c = onlineClients.get(d.getUid());
+			if (c == null) {
+				return;
+			}
+			synchronized (c) {
+				if (d.getVersion() <= c.getVersion()) {
+					// duplicate or stale delta, already included in local copy
+					return;
+				}
+				if (d.getVersion() == c.getVersion() + 1) {
+					c.apply(d);
+					c.setVersion(d.getVersion());
+				} else {
+					// some delta was missed or delayed, full copy should be fetched
+					reload(c);
+				}
+			}
+		}
+	}
+
+	private static class ApplyDelta extends AbstractEntryProcessor<String, Client> {
+		private static final long serialVersionUID = 1L;
+		private final ClientDelta delta;
+
+		ApplyDelta(ClientDelta delta) {
+			this.delta = delta;
 		}
 
 		@Override
-		public void entryUpdated(EntryEvent<String, Client> event) {
-			log.trace("ClientListener::Update");
-			onlineClients.get(event.getKey()).merge(event.getValue());
+		public Object process(Map.Entry<String, Client> entry) {
+			Client c = entry.getValue();
+			if (c == null) {
+				return null;
+			}
+			c.apply(delta);
+			c.setVersion(c.getVersion() + 1);
+			entry.setValue(c);
+			return c.getVersion();
+		}
+	}
+
+	static class AddToRoom extends AbstractEntryProcessor<Long, Set<String>> {
+		private static final long serialVersionUID = 1L;
+		private final String uid;
+
+		AddToRoom(String uid) {
+			this.uid = uid;
 		}
 
 		@Override
-		public void entryRemoved(EntryEvent<String, Client> event) {
-			log.trace("ClientListener::Remove");
-			onlineClients.remove(event.getKey());
+		public Object process(Map.Entry<Long, Set<String>> entry) {
+			Set<String> set = entry.getValue();
+			if (set == null) {
+				set = new HashSet<>();
+			}
+			set.add(uid);
+			entry.setValue(set);
+			return set.size();
 		}
 	}
 
-	public class RoomListener implements
-			EntryAddedListener<Long, Set<String>>
-			, EntryUpdatedListener<Long, Set<String>>
-			, EntryRemovedListener<Long, Set<String>>
-	{
+	static class RemoveFromRoom extends AbstractEntryProcessor<Long, Set<String>> {
+		private static final long serialVersionUID = 1L;
+		private final String uid;
+
+		RemoveFromRoom(String uid) {
+			this.uid = uid;
+		}
+
 		@Override
-		public void entryAdded(EntryEvent<Long, Set<String>> event) {
-			log.trace("RoomListener::Add");
-			onlineRooms.put(event.getKey(), event.getValue());
+		public Object process(Map.Entry<Long, Set<String>> entry) {
+			Set<String> set = entry.getValue();
+			if (set != null && set.remove(uid)) {
+				// entry is removed as soon as the room is empty
+				entry.setValue(set.isEmpty() ? null : set);
+			}
+			return null;
 		}
+	}
 
+	public class RoomMemberListener implements MessageListener<RoomMember> {
 		@Override
-		public void entryUpdated(EntryEvent<Long, Set<String>> event) {
-			log.trace("RoomListener::Update");
-			onlineRooms.put(event.getKey(), event.getValue());
+		public void onMessage(Message<RoomMember> msg) {
+			if (msg.getPublishingMember().localMember()) {
+				return;
+			}
+			final RoomMember m = msg.getMessageObject();
+			log.trace("RoomMemberListener::onMessage {}", m);
+			if (m.isJoined()) {
+				addLocal(m.getRoomId(), m.getUid());
+			} else {
+				removeLocal(m.getRoomId(), m.getUid());
+			}
+		}
+	}
+
+	static class RoomMember implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private final Long roomId;
+		private final String uid;
+		private final boolean joined;
+
+		RoomMember(Long roomId, String uid, boolean joined) {
+			this.roomId = roomId;
+			this.uid = uid;
+			this.joined = joined;
+		}
+
+		Long getRoomId() {
+			return roomId;
+		}
+
+		String getUid() {
+			return uid;
+		}
+
+		boolean isJoined() {
+			return joined;
 		}
 
 		@Override
-		public void entryRemoved(EntryEvent<Long, Set<String>> event) {
-			log.trace("RoomListener::Remove");
-			onlineRooms.remove(event.getKey(), event.getValue());
+		public String toString() {
+			return "RoomMember [roomId=" + roomId + ", uid=" + uid + ", joined=" + joined + "]";
 		}
 	}
 }
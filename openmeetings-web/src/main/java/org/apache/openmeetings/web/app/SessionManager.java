@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openmeetings.db.entity.server.Sessiondata;
+import org.apache.openmeetings.db.manager.ISessionManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.hazelcast.core.IMap;
+
+@Component
+public class SessionManager implements ISessionManager {
+	private static final String SESSIONS_KEY = "SESSIONS_KEY";
+	// entry is re-read from DB after this period
+	private static final long SESSION_TTL = 10;
+
+	@Autowired
+	private Application app;
+
+	private IMap<String, Sessiondata> map() {
+		return app.hazelcast.getMap(SESSIONS_KEY);
+	}
+
+	@Override
+	public Sessiondata get(String sid) {
+		return map().get(sid);
+	}
+
+	@Override
+	public void put(Sessiondata sd) {
+		map().set(sd.getSessionId(), sd, SESSION_TTL, TimeUnit.MINUTES);
+	}
+
+	@Override
+	public void remove(String sid) {
+		if (sid != null) {
+			map().delete(sid);
+		}
+	}
+}
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.openmeetings.core.util.WebSocketHelper;
+import org.apache.openmeetings.db.entity.basic.Client;
+import org.apache.openmeetings.db.util.ws.RoomMessage;
+import org.apache.openmeetings.db.util.ws.TextRoomMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.github.openjson.JSONArray;
+import com.github.openjson.JSONObject;
+
+/**
+ * Channel for ephemeral room signals (typing indicators, raised hands, right requests)
+ *
+ * Signals are neither persisted nor replayed: only the latest state of every
+ * user/signal pair is kept, pending state is sent once per {@link #FLUSH_INTERVAL}
+ * as single frame per room. State of the same user/signal pair is sent
+ * not more often than once per {@link #USER_INTERVAL}
+ *
+ * @author solomax
+ *
+ */
+@Component
+public class SignalManager {
+	private static final Logger log = LoggerFactory.getLogger(SignalManager.class);
+	public static final String TYPE_SIGNALS = "signals";
+	public static final String TYPE_TYPING = "typing";
+	static final long FLUSH_INTERVAL = 250;
+	static final long USER_INTERVAL = 1000;
+	// roomId -> uid|signal -> latest state
+	private final Map<Long, Map<String, Signal>> pending = new ConcurrentHashMap<>();
+	// uid|signal -> time the state was last sent
+	private final Map<String, Long> sent = new ConcurrentHashMap<>();
+	private ScheduledExecutorService scheduler;
+
+	@PostConstruct
+	void init() {
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "room-signals");
+			t.setDaemon(true);
+			return t;
+		});
+		scheduler.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdown();
+		}
+	}
+
+	/**
+	 * @param roomId - id of the room
+	 * @param c - typing client
+	 * @param active - if typing was started or stopped
+	 */
+	public void typing(Long roomId, Client c, boolean active) {
+		put(new Signal(roomId, c, TYPE_TYPING, null, active));
+	}
+
+	/**
+	 * Sends room message with client uid as text, message of the same type
+	 * sent by the same client within the window are collapsed
+	 *
+	 * @param c - client sent the message
+	 * @param type - type of the message
+	 */
+	public void send(Client c, RoomMessage.Type type) {
+		put(new Signal(c.getRoomId(), c, type.name(), type, true));
+	}
+
+	private void put(Signal s) {
+		if (s.roomId == null) {
+			return;
+		}
+		pending.compute(s.roomId, (k, v) -> {
+			Map<String, Signal> signals = v == null ? new ConcurrentHashMap<>() : v;
+			signals.put(s.key, s);
+			return signals;
+		});
+	}
+
+	void flush() {
+		try {
+			final long now = System.currentTimeMillis();
+			sent.values().removeIf(time -> now - time >= USER_INTERVAL);
+			for (Map.Entry<Long, Map<String, Signal>> e : pending.entrySet()) {
+				flush(e.getKey(), e.getValue());
+				pending.computeIfPresent(e.getKey(), (k, v) -> v.isEmpty() ? null : v);
+			}
+		} catch (Exception e) {
+			log.error("Unexpected error while sending room signals", e);
+		}
+	}
+
+	private void flush(Long roomId, Map<String, Signal> signals) {
+		final long now = System.currentTimeMillis();
+		JSONArray arr = new JSONArray();
+		List<Signal> messages = new ArrayList<>();
+		for (Signal s : signals.values()) {
+			if (sent.putIfAbsent(s.key, now) != null) {
+				continue; // rate limited, latest state is kept till next window
+			}
+			signals.remove(s.key, s);
+			if (s.msgType == null) {
+				arr.put(new JSONObject()
+						.put("uid", s.client.getUid())
+						.put("type", s.type)
+						.put("active", s.active));
+			} else {
+				messages.add(s);
+			}
+		}
+		if (arr.length() > 0) {
+			log.trace("Sending {} signals to room {}", arr.length(), roomId);
+			sendRoom(roomId, new JSONObject()
+					.put("type", TYPE_SIGNALS)
+					.put(TYPE_SIGNALS, arr));
+		}
+		for (Signal s : messages) {
+			sendRoom(new TextRoomMessage(roomId, s.client, s.msgType, s.client.getUid()));
+		}
+	}
+
+	void sendRoom(Long roomId, JSONObject msg) {
+		WebSocketHelper.sendRoom(roomId, msg);
+	}
+
+	void sendRoom(RoomMessage msg) {
+		WebSocketHelper.sendRoom(msg);
+	}
+
+	private static class Signal {
+		private final Long roomId;
+		private final Client client;
+		private final String type;
+		private final RoomMessage.Type msgType;
+		private final boolean active;
+		private final String key;
+
+		Signal(Long roomId, Client client, String type, RoomMessage.Type msgType, boolean active) {
+			this.roomId = roomId;
+			this.client = client;
+			this.type = type;
+			this.msgType = msgType;
+			this.active = active;
+			this.key = client.getUid() + "|" + type;
+		}
+	}
+}
@@ -50,6 +50,7 @@ import org.apache.openmeetings.db.entity.server.Sessiondata;
 import org.apache.openmeetings.db.entity.user.User;
 import org.apache.openmeetings.db.manager.IStreamClientManager;
 import org.apache.openmeetings.db.util.ws.RoomMessage;
+import org.apache.openmeetings.db.util.ws.TextRoomMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -147,7 +148,7 @@ public class StreamClientManager implements IStreamClientManager {
 					client.setMic(0);
 					client.setRoom(roomDao.get(rcl.getRoomId()));
 					clientManager.add(client);
-					WebSocketHelper.sendRoom(new RoomMessage(client.getRoom().getId(), client, RoomMessage.Type.roomEnter));
+					WebSocketHelper.sendRoom(new TextRoomMessage(client.getRoom().getId(), client, RoomMessage.Type.roomEnter, client.getUid()));
 				}
 			} else if (client == null && Client.Type.sip == rcl.getType()) {
 				rcl.setLogin(SIP_USER_NAME);
@@ -165,7 +166,7 @@ public class StreamClientManager implements IStreamClientManager {
 				client.set(Activity.broadcastA);
 				client.setRoom(roomDao.get(rcl.getRoomId()));
 				clientManager.addToRoom(client);
-				WebSocketHelper.sendRoom(new RoomMessage(client.getRoom().getId(), client, RoomMessage.Type.roomEnter));
+				WebSocketHelper.sendRoom(new TextRoomMessage(client.getRoom().getId(), client, RoomMessage.Type.roomEnter, client.getUid()));
 			} else {
 				return null;
 			}
@@ -19,40 +19,72 @@
 package org.apache.openmeetings.web.app;
 
 import static org.apache.openmeetings.util.OpenmeetingsVariables.getDefaultLang;
+import static org.apache.openmeetings.web.room.wb.WbWebSocketHelper.getObjWbJson;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.apache.openmeetings.db.dao.label.LabelDao;
 import org.apache.openmeetings.db.dto.room.Whiteboard;
+import org.apache.openmeetings.db.dto.room.WhiteboardDelta;
 import org.apache.openmeetings.db.dto.room.Whiteboards;
+import org.apache.openmeetings.db.entity.file.FileItem;
 import org.apache.openmeetings.db.manager.IWhiteboardManager;
+import org.apache.openmeetings.web.room.wb.WbAction;
+import org.apache.openmeetings.web.room.wb.WbWebSocketHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.github.openjson.JSONArray;
+import com.github.openjson.JSONObject;
 import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.IMap;
-import com.hazelcast.map.listener.EntryAddedListener;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+import com.hazelcast.core.MessageListener;
+import com.hazelcast.map.AbstractEntryProcessor;
 import com.hazelcast.map.listener.EntryRemovedListener;
-import com.hazelcast.map.listener.EntryUpdatedListener;
+import com.hazelcast.query.Predicate;
 
 /**
  * Hazelcast based Whiteboard manager
  *
+ * Changes are collected locally and replicated once per {@link #FLUSH_INTERVAL}:
+ * changed items are published as {@link WhiteboardDelta}, structural changes
+ * (whiteboard added/removed/activated/resized etc.) are published as full snapshot.
+ * Both are applied to the cluster map copy first, the owner of the copy assigns
+ * the version, so the map is always current: nodes detecting version gap
+ * reload the room from the map, rooms not held locally are loaded on demand
+ *
  * @author sebawagner
  *
  */
 @Component
 public class WhiteboardManager implements IWhiteboardManager {
 	private static final Logger log = LoggerFactory.getLogger(WhiteboardManager.class);
-	private final Map<Long, Whiteboards> onlineWbs = new ConcurrentHashMap<>();
 	private static final String WBS_KEY = "WBS_KEY";
+	private static final String WBS_DELTA_KEY = "WBS_DELTA_KEY";
+	private static final String ATTR_COUNT = "count";
+	static final long FLUSH_INTERVAL = 100;
+	private final Map<Long, Whiteboards> onlineWbs = new ConcurrentHashMap<>();
+	// roomId -> wbId -> uids of changed items, the value is only accessed inside compute/after remove
+	private final Map<Long, Map<Long, Set<String>>> pendingItems = new ConcurrentHashMap<>();
+	private final Set<Long> pendingFull = ConcurrentHashMap.newKeySet();
+	private ScheduledExecutorService scheduler;
 
 	@Autowired
 	private Application app;
@@ -61,9 +93,31 @@ public class WhiteboardManager implements IWhiteboardManager {
 		return app.hazelcast.getMap(WBS_KEY);
 	}
 
+	private ITopic<Object> deltas() {
+		return app.hazelcast.getTopic(WBS_DELTA_KEY);
+	}
+
 	@PostConstruct
 	void init() {
-		map().addEntryListener(new WbListener(), true);
+		map().addEntryListener(new WbListener(), false);
+		deltas().addMessageListener(new WbDeltaListener());
+		for (Entry<Long, Whiteboards> e : map().entrySet()) {
+			onlineWbs.putIfAbsent(e.getKey(), e.getValue());
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "wb-replication");
+			t.setDaemon(true);
+			return t;
+		});
+		scheduler.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL, FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdown();
+			flush();
+		}
 	}
 
 	public boolean tryLock(Long roomId) {
@@ -83,7 +137,7 @@ public class WhiteboardManager implements IWhiteboardManager {
 	}
 
 	public boolean contains(Long roomId) {
-		return map().containsKey(roomId);
+		return onlineWbs.containsKey(roomId) || map().containsKey(roomId);
 	}
 
 	@Override
@@ -96,6 +150,9 @@ public class WhiteboardManager implements IWhiteboardManager {
 			return null;
 		}
 		Whiteboards wbs = onlineWbs.get(roomId);
+		if (wbs == null) {
+			wbs = fromCluster(roomId);
+		}
 		if (wbs == null) {
 			wbs = new Whiteboards(roomId);
 			Whiteboard wb = add(wbs, langId);
@@ -105,6 +162,83 @@ public class WhiteboardManager implements IWhiteboardManager {
 		return wbs;
 	}
 
+	/**
+	 * Checks if the object is placed on any whiteboard of the room,
+	 * uses item indexes only, missing whiteboards are not created
+	 *
+	 * @param roomId - id of the room
+	 * @param ruid - uid of the room whiteboards, as known by the client
+	 * @param uid - uid of the object
+	 * @param fileId - id of the file the object should refer to, {@code null} to check the object only
+	 * @return {@code true} if the object is found
+	 */
+	public boolean isOnWhiteboard(Long roomId, String ruid, String uid, Long fileId) {
+		if (roomId == null || ruid == null || uid == null) {
+			return false;
+		}
+		Whiteboards wbs = onlineWbs.get(roomId);
+		if (wbs == null) {
+			// room is not held locally, check is performed by the owner of the cluster copy, the room is not cached
+			return Boolean.TRUE.equals(map().executeOnKey(roomId, new IsOnWhiteboard(ruid, uid, fileId)));
+		}
+		return isOnWhiteboard(wbs, ruid, uid, fileId);
+	}
+
+	private static boolean isOnWhiteboard(Whiteboards wbs, String ruid, String uid, Long fileId) {
+		if (wbs == null || !ruid.equals(wbs.getUid())) {
+			return false;
+		}
+		for (Whiteboard wb : wbs.getWhiteboards().values()) {
+			if (fileId == null ? wb.contains(uid) : wb.containsFile(uid, fileId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void updateCount(FileItem f) {
+		if (f.getId() == null) {
+			return;
+		}
+		final long fileId = f.getId();
+		Set<Long> rooms = new HashSet<>();
+		for (Whiteboards wbs : onlineWbs.values()) {
+			if (containsFile(wbs, fileId)) {
+				rooms.add(wbs.getRoomId());
+			}
+		}
+		// cluster copies are checked by the owners of the entries, whiteboards are not transferred
+		rooms.addAll(map().keySet(new ContainsFile(fileId)));
+		for (Long roomId : rooms) {
+			for (Whiteboard wb : get(roomId).getWhiteboards().values()) {
+				Set<String> uids = new HashSet<>();
+				JSONArray arr = new JSONArray();
+				for (String uid : wb.getFileUids(f.getId())) {
+					JSONObject o = wb.get(uid);
+					if (o != null && o.optInt(ATTR_COUNT, 0) < f.getCount()) {
+						wb.put(uid, o.put(ATTR_COUNT, f.getCount()));
+						uids.add(uid);
+						arr.put(new JSONObject().put("uid", uid).put(ATTR_COUNT, f.getCount()));
+					}
+				}
+				if (!uids.isEmpty()) {
+					updateItems(roomId, wb, uids);
+					WbWebSocketHelper.sendWbAll(roomId, WbAction.setCount, getObjWbJson(wb.getId(), arr));
+				}
+			}
+		}
+	}
+
+	private static boolean containsFile(Whiteboards wbs, long fileId) {
+		for (Whiteboard wb : wbs.getWhiteboards().values()) {
+			if (wb.containsFile(fileId)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public Set<Entry<Long, Whiteboard>> list(long roomId) {
 		Whiteboards wbs = get(roomId);
 		return wbs.getWhiteboards().entrySet();
@@ -146,38 +280,269 @@ public class WhiteboardManager implements IWhiteboardManager {
 		update(wbs);
 	}
 
+	/**
+	 * Should be called after properties of the whiteboard itself were changed,
+	 * all whiteboards of the room will be replicated
+	 *
+	 * @param roomId - id of the room
+	 * @param wb - changed whiteboard
+	 */
 	public void update(long roomId, Whiteboard wb) {
 		Whiteboards wbs = get(roomId);
 		wbs.update(wb);
 		update(wbs);
 	}
 
+	/**
+	 * Should be called after items were added, modified or removed,
+	 * only changed items will be replicated
+	 *
+	 * @param roomId - id of the room
+	 * @param wb - whiteboard items belong to
+	 * @param uids - uids of changed items
+	 */
+	public void updateItems(long roomId, Whiteboard wb, Collection<String> uids) {
+		if (uids.isEmpty()) {
+			return;
+		}
+		get(roomId).update(wb);
+		pendingItems.compute(roomId, (k, v) -> {
+			Map<Long, Set<String>> items = v == null ? new HashMap<>() : v;
+			items.computeIfAbsent(wb.getId(), id -> new HashSet<>()).addAll(uids);
+			return items;
+		});
+	}
+
+	public void updateItem(long roomId, Whiteboard wb, String uid) {
+		updateItems(roomId, wb, Collections.singleton(uid));
+	}
+
 	private void update(Whiteboards wbs) {
 		onlineWbs.put(wbs.getRoomId(), wbs);
-		new Thread(() -> map().put(wbs.getRoomId(), wbs)).start();
+		pendingFull.add(wbs.getRoomId());
 	}
 
-	public class WbListener implements
-			EntryAddedListener<Long, Whiteboards>
-			, EntryUpdatedListener<Long, Whiteboards>
-			, EntryRemovedListener<Long, Whiteboards>
-	{
-		@Override
-		public void entryAdded(EntryEvent<Long, Whiteboards> event) {
-			log.trace("WbListener::Add");
-			onlineWbs.put(event.getKey(), event.getValue());
+	private Whiteboards fromCluster(Long roomId) {
+		Whiteboards wbs = map().get(roomId);
+		if (wbs != null) {
+			Whiteboards prev = onlineWbs.putIfAbsent(roomId, wbs);
+			return prev == null ? wbs : prev;
 		}
+		return null;
+	}
 
+	/**
+	 * Replaces local copy of the room with the cluster one, items changed locally
+	 * but not yet published are copied over, so they are not lost
+	 *
+	 * @param local - current local copy
+	 * @param full - up to date copy, {@code null} if the room was removed
+	 */
+	private void replace(Whiteboards local, Whiteboards full) {
+		final Long roomId = local.getRoomId();
+		if (full == null) {
+			onlineWbs.remove(roomId, local);
+			return;
+		}
+		pendingItems.computeIfPresent(roomId, (k, v) -> {
+			WhiteboardDelta d = new WhiteboardDelta(roomId);
+			for (Entry<Long, Set<String>> e : v.entrySet()) {
+				Whiteboard wb = local.get(e.getKey());
+				if (wb != null) {
+					d.add(wb, e.getValue());
+				}
+			}
+			d.apply(full);
+			return v;
+		});
+		onlineWbs.replace(roomId, local, full);
+	}
+
+	/**
+	 * Publishes changes collected since previous call
+	 */
+	void flush() {
+		try {
+			for (Long roomId : pendingFull) {
+				pendingFull.remove(roomId);
+				pendingItems.remove(roomId); // full copy contains all items
+				Whiteboards wbs = onlineWbs.get(roomId);
+				if (wbs != null) {
+					synchronized (wbs) {
+						// full copy overrides the cluster one, so the version is always ours
+						wbs.setVersion((Long)map().executeOnKey(roomId, new ApplyFull(wbs)));
+					}
+					deltas().publish(wbs);
+				}
+			}
+			for (Long roomId : pendingItems.keySet()) {
+				Map<Long, Set<String>> items = pendingItems.remove(roomId);
+				Whiteboards wbs = onlineWbs.get(roomId);
+				if (items == null || wbs == null) {
+					continue;
+				}
+				WhiteboardDelta d = new WhiteboardDelta(roomId);
+				for (Entry<Long, Set<String>> e : items.entrySet()) {
+					Whiteboard wb = wbs.get(e.getKey());
+					if (wb != null) {
+						d.add(wb, e.getValue());
+					}
+				}
+				if (d.isEmpty()) {
+					continue;
+				}
+				Object ver = map().executeOnKey(roomId, new ApplyDelta(d));
+				if (ver == null) {
+					log.debug("Room {} was removed from the cluster, delta is skipped", roomId);
+					continue;
+				}
+				d.setVersion((Long)ver);
+				synchronized (wbs) {
+					if (d.getVersion() == wbs.getVersion() + 1) {
+						wbs.setVersion(d.getVersion());
+					} else {
+						// changes of other nodes were applied in between, but not yet received
+						replace(wbs, map().get(roomId));
+					}
+				}
+				deltas().publish(d);
+			}
+		} catch (Exception e) {
+			log.error("Unexpected error while replicating whiteboards", e);
+		}
+	}
+
+	public class WbDeltaListener implements MessageListener<Object> {
 		@Override
-		public void entryUpdated(EntryEvent<Long, Whiteboards> event) {
-			log.trace("WbListener::Update");
-			onlineWbs.put(event.getKey(), event.getValue());
+		public void onMessage(Message<Object> msg) {
+			if (msg.getPublishingMember().localMember()) {
+				return;
+			}
+			Object o = msg.getMessageObject();
+			// rooms not held locally are skipped: they are loaded from the cluster map on demand,
+			// removed rooms are not re-added by late messages
+			if (o instanceof Whiteboards) {
+				Whiteboards wbs = (Whiteboards)o;
+				log.trace("WbDeltaListener::full {}, version {}", wbs.getRoomId(), wbs.getVersion());
+				Whiteboards local = onlineWbs.get(wbs.getRoomId());
+				if (local == null) {
+					return;
+				}
+				synchronized (local) {
+					if (wbs.getVersion() > local.getVersion()) {
+						replace(local, wbs);
+					}
+				}
+			} else if (o instanceof WhiteboardDelta) {
+				WhiteboardDelta d = (WhiteboardDelta)o;
+				log.trace("WbDeltaListener::delta {}", d);
+				Whiteboards local = onlineWbs.get(d.getRoomId());
+				if (local == null) {
+					return;
+				}
+				synchronized (local) {
+					if (d.getVersion() == local.getVersion() + 1) {
+						d.apply(local);
+						local.setVersion(d.getVersion());
+					} else if (d.getVersion() > local.getVersion()) {
+						// some delta was missed or is delayed, the map copy is current
+						replace(local, map().get(d.getRoomId()));
+					}
+				}
+			}
 		}
+	}
 
+	public class WbListener implements EntryRemovedListener<Long, Whiteboards> {
 		@Override
 		public void entryRemoved(EntryEvent<Long, Whiteboards> event) {
 			log.trace("WbListener::Remove");
 			onlineWbs.remove(event.getKey());
 		}
 	}
+
+	/**
+	 * Read-only check of the object placed on any whiteboard of the room, see {@link #isOnWhiteboard(Long, String, String, Long)}
+	 */
+	private static class IsOnWhiteboard extends AbstractEntryProcessor<Long, Whiteboards> {
+		private static final long serialVersionUID = 1L;
+		private final String ruid;
+		private final String uid;
+		private final Long fileId;
+
+		IsOnWhiteboard(String ruid, String uid, Long fileId) {
+			super(false);
+			this.ruid = ruid;
+			this.uid = uid;
+			this.fileId = fileId;
+		}
+
+		@Override
+		public Object process(Entry<Long, Whiteboards> entry) {
+			return isOnWhiteboard(entry.getValue(), ruid, uid, fileId);
+		}
+	}
+
+	/**
+	 * Selects rooms having objects referring to the file, evaluated by the owner of the entry
+	 */
+	private static class ContainsFile implements Predicate<Long, Whiteboards> {
+		private static final long serialVersionUID = 1L;
+		private final long fileId;
+
+		ContainsFile(long fileId) {
+			this.fileId = fileId;
+		}
+
+		@Override
+		public boolean apply(Entry<Long, Whiteboards> entry) {
+			Whiteboards wbs = entry.getValue();
+			return wbs != null && containsFile(wbs, fileId);
+		}
+	}
+
+	/**
+	 * Stores full copy of the room, version is assigned by the owner of the entry
+	 */
+	private static class ApplyFull extends AbstractEntryProcessor<Long, Whiteboards> {
+		private static final long serialVersionUID = 1L;
+		private final Whiteboards wbs;
+
+		ApplyFull(Whiteboards wbs) {
+			this.wbs = wbs;
+		}
+
+		@Override
+		public Object process(Entry<Long, Whiteboards> entry) {
+			Whiteboards prev = entry.getValue();
+			long version = (prev == null ? 0 : prev.getVersion()) + 1;
+			wbs.setVersion(version);
+			entry.setValue(wbs);
+			return version;
+		}
+	}
+
+	/**
+	 * Applies changed items to the cluster copy of the room, version is assigned by the owner of the entry
+	 */
+	private static class ApplyDelta extends AbstractEntryProcessor<Long, Whiteboards> {
+		private static final long serialVersionUID = 1L;
+		private final WhiteboardDelta delta;
+
+		ApplyDelta(WhiteboardDelta delta) {
+			this.delta = delta;
+		}
+
+		@Override
+		public Object process(Entry<Long, Whiteboards> entry) {
+			Whiteboards wbs = entry.getValue();
+			if (wbs == null) {
+				return null;
+			}
+			delta.apply(wbs);
+			wbs.setVersion(wbs.getVersion() + 1);
+			entry.setValue(wbs);
+			return wbs.getVersion();
+		}
+	}
 }
@@ -21,6 +21,7 @@ package org.apache.openmeetings.web.common;
 import static org.apache.openmeetings.web.util.ProfileImageResourceReference.getUrl;
 
 import org.apache.openmeetings.db.dao.user.UserDao;
+import org.apache.openmeetings.web.util.ProfileImageResourceReference.Size;
 import org.apache.wicket.spring.injection.annot.SpringBean;
 
 public class ProfileImagePanel extends ImagePanel {
@@ -36,6 +37,6 @@ public class ProfileImagePanel extends ImagePanel {
 
 	@Override
 	protected String getImageUrl() {
-		return getUrl(getRequestCycle(), userDao.get(userId));
+		return getUrl(getRequestCycle(), userId, userDao.getPicture(userId), Size.full);
 	}
 }
@@ -25,6 +25,7 @@ import java.io.File;
 import org.apache.openmeetings.core.converter.ImageConverter;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.util.StoredFile;
+import org.apache.openmeetings.web.util.ProfileImageResourceReference.Size;
 import org.apache.wicket.spring.injection.annot.SpringBean;
 
 public class UploadableProfileImagePanel extends UploadableImagePanel {
@@ -47,6 +48,6 @@ public class UploadableProfileImagePanel extends UploadableImagePanel {
 
 	@Override
 	protected String getImageUrl() {
-		return getUrl(getRequestCycle(), userDao.get(userId));
+		return getUrl(getRequestCycle(), userId, userDao.getPicture(userId), Size.full);
 	}
 }
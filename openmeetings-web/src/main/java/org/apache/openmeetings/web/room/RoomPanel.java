@@ -56,6 +56,7 @@ import org.apache.openmeetings.db.util.ws.TextRoomMessage;
 import org.apache.openmeetings.util.NullStringer;
 import org.apache.openmeetings.web.app.ClientManager;
 import org.apache.openmeetings.web.app.QuickPollManager;
+import org.apache.openmeetings.web.app.SignalManager;
 import org.apache.openmeetings.web.app.StreamClientManager;
 import org.apache.openmeetings.web.app.WebSession;
 import org.apache.openmeetings.web.common.BasePanel;
@@ -142,7 +143,7 @@ public class RoomPanel extends BasePanel {
 					.append("Room.setSize();")
 					.append(getQuickPollJs());
 			target.appendJavaScript(sb);
-			WebSocketHelper.sendRoom(new RoomMessage(r.getId(), _c, RoomMessage.Type.roomEnter));
+			WebSocketHelper.sendRoom(new TextRoomMessage(r.getId(), _c, RoomMessage.Type.roomEnter, _c.getUid()));
 			// play video from other participants
 			initVideos(target);
 			getMainPanel().getChat().roomEnter(r, target);
@@ -233,6 +234,8 @@ public class RoomPanel extends BasePanel {
 	private AppointmentDao apptDao;
 	@SpringBean
 	private QuickPollManager qpollManager;
+	@SpringBean
+	private SignalManager signalManager;
 
 	public RoomPanel(String id, Room r) {
 		super(id);
@@ -486,7 +489,7 @@ public class RoomPanel extends BasePanel {
 							handler.appendJavaScript(String.format("VideoManager.update(%s);"
 									, c.streamJson(_c.getSid(), self, scm).toString(new NullStringer())
 									));
-							sidebar.update(handler);
+							sidebar.updateUser(c, handler);
 							menu.update(handler);
 							wb.update(handler);
 							updateInterviewRecordingButtons(handler);
@@ -532,12 +535,23 @@ public class RoomPanel extends BasePanel {
 					}
 						break;
 					case roomEnter:
-						sidebar.update(handler);
+						{
+							Client c = m instanceof TextRoomMessage ? cm.get(((TextRoomMessage)m).getText()) : null;
+							if (c == null) {
+								sidebar.update(handler);
+							} else {
+								sidebar.addUser(c, handler);
+							}
+						}
 						menu.update(handler);
 						sidebar.addActivity(new Activity(m, Activity.Type.roomEnter), handler);
 						break;
 					case roomExit:
-						sidebar.update(handler);
+						if (m instanceof TextRoomMessage) {
+							sidebar.removeUser(((TextRoomMessage)m).getText(), handler);
+						} else {
+							sidebar.update(handler);
+						}
 						sidebar.addActivity(new Activity(m, Activity.Type.roomExit), handler);
 						break;
 					case roomClosed:
@@ -781,7 +795,7 @@ public class RoomPanel extends BasePanel {
 				break;
 		}
 		if (reqType != null) {
-			WebSocketHelper.sendRoom(new TextRoomMessage(getRoom().getId(), getClient(), reqType, getClient().getUid()));
+			signalManager.send(getClient(), reqType);
 		}
 	}
 
@@ -18,7 +18,6 @@
  */
 package org.apache.openmeetings.web.room;
 
-import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_FILE_ID;
 import static org.apache.openmeetings.db.dto.room.Whiteboard.ATTR_SLIDE;
 import static org.apache.openmeetings.util.OmFileHelper.EXTENSION_PNG;
 import static org.apache.openmeetings.util.OmFileHelper.JPG_MIME_TYPE;
@@ -28,13 +27,9 @@ import static org.apache.openmeetings.util.OmFileHelper.getPublicDir;
 import static org.apache.openmeetings.web.app.WebSession.getUserId;
 
 import java.io.File;
-import java.util.Map.Entry;
 
-import org.apache.directory.api.util.Strings;
 import org.apache.openmeetings.db.dao.file.FileItemDao;
 import org.apache.openmeetings.db.dao.user.GroupUserDao;
-import org.apache.openmeetings.db.dto.room.Whiteboard;
-import org.apache.openmeetings.db.dto.room.Whiteboards;
 import org.apache.openmeetings.db.entity.basic.Client;
 import org.apache.openmeetings.db.entity.file.FileItem;
 import org.apache.openmeetings.web.app.ClientManager;
@@ -47,8 +42,6 @@ import org.apache.wicket.request.resource.IResource.Attributes;
 import org.apache.wicket.spring.injection.annot.SpringBean;
 import org.apache.wicket.util.string.StringValue;
 
-import com.github.openjson.JSONObject;
-
 public class RoomResourceReference extends FileItemResourceReference<FileItem> {
 	private static final long serialVersionUID = 1L;
 	private static final String DEFAULT_NAME = "wb-room-file";
@@ -114,16 +107,8 @@ public class RoomResourceReference extends FileItemResourceReference<FileItem> {
 		}
 		String ruid = params.get("ruid").toString();
 		String wuid = params.get("wuid").toString();
-		if (c.getRoom() != null) {
-			Whiteboards wbs = wbManager.get(c.getRoom().getId());
-			if (!Strings.isEmpty(wuid) && !Strings.isEmpty(ruid) && ruid.equals(wbs.getUid())) {
-				for (Entry<Long, Whiteboard> e : wbs.getWhiteboards().entrySet()) {
-					JSONObject file = e.getValue().get(wuid);
-					if (file != null && f.getId().equals(file.optLong(ATTR_FILE_ID))) {
-						return f; // item IS on WB
-					}
-				}
-			}
+		if (c.getRoom() != null && wbManager.isOnWhiteboard(c.getRoom().getId(), ruid, wuid, f.getId())) {
+			return f; // item IS on WB
 		}
 		if (f.getGroupId() != null && groupUserDao.isUserInGroup(f.getGroupId(), getUserId())) {
 			return f;
@@ -131,14 +116,35 @@ public class RoomResourceReference extends FileItemResourceReference<FileItem> {
 		return null;
 	}
 
+	private static File getDeleted() {
+		return new File(getPublicDir(), String.format("deleted.%s", EXTENSION_PNG));
+	}
+
 	protected File getFile(FileItem f, String ext) {
 		File file = f.getFile(ext);
 		if (file == null || !file.exists()) {
-			file = new File(getPublicDir(), String.format("deleted.%s", EXTENSION_PNG));
+			file = getDeleted();
 		}
 		return file;
 	}
 
+	@Override
+	protected boolean isImmutable(FileItem f, File file, Attributes attr) {
+		if (f.isDeleted() || getDeleted().equals(file)) {
+			return false;
+		}
+		switch (f.getType()) {
+			case Image:
+				// converted before the item is stored, never changed
+				return true;
+			case Presentation:
+				// count only covers pages whose rendering is complete, the rest might be still written
+				return attr.getParameters().get(ATTR_SLIDE).toInt(0) < f.getCount();
+			default:
+				return false;
+		}
+	}
+
 	@Override
 	protected File getFile(FileItem f, Attributes attr) {
 		String ext = f.getType() == FileItem.Type.Presentation
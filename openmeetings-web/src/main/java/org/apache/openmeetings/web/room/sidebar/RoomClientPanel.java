@@ -23,6 +23,7 @@ import static org.apache.openmeetings.util.OpenmeetingsVariables.ATTR_TITLE;
 import static org.apache.openmeetings.web.app.WebSession.getUserId;
 import static org.apache.openmeetings.web.pages.BasePage.ALIGN_LEFT;
 import static org.apache.openmeetings.web.pages.BasePage.ALIGN_RIGHT;
+import static org.apache.openmeetings.web.util.ProfileImageResourceReference.getUrl;
 
 import org.apache.openmeetings.db.entity.basic.Client;
 import org.apache.openmeetings.db.entity.room.Room.Right;
@@ -33,23 +34,24 @@ import org.apache.openmeetings.web.room.RoomPanel;
 import org.apache.openmeetings.web.room.sidebar.icon.KickIcon;
 import org.apache.openmeetings.web.room.sidebar.icon.RefreshIcon;
 import org.apache.openmeetings.web.room.sidebar.icon.UserSpeaksIcon;
+import org.apache.openmeetings.web.util.ProfileImageResourceReference.Size;
 import org.apache.wicket.AttributeModifier;
 import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.basic.Label;
-import org.apache.wicket.markup.html.list.ListItem;
 import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.util.string.Strings;
 
 public class RoomClientPanel extends Panel {
 	private static final long serialVersionUID = 1L;
 
-	public RoomClientPanel(String id, ListItem<Client> item, final RoomPanel room) {
-		super(id, item.getModel());
+	public RoomClientPanel(String id, WebMarkupContainer item, final RoomPanel room) {
+		super(id, item.getDefaultModel());
 		setRenderBodyOnly(true);
-		Client c = item.getModelObject();
+		Client c = (Client)item.getDefaultModelObject();
 		final String uid = c.getUid();
 		item.setMarkupId(String.format("user%s", c.getUid()));
-		item.add(AttributeModifier.append("style", String.format("background-image: url(profile/%s);", c.getUserId())));
+		item.add(AttributeModifier.append("style", String.format("background-image: url(%s);", getUrl(RequestCycle.get(), c.getUser(), Size.medium))));
 		item.add(AttributeModifier.append("data-userid", c.getUserId()));
 		add(new RefreshIcon("refresh", uid));
 		final String name = getName(c);
@@ -23,8 +23,6 @@ import static org.apache.openmeetings.web.room.RoomBroadcaster.sendUpdatedClient
 import static org.apache.openmeetings.web.util.CallbackFunctionHelper.getNamedFunction;
 import static org.apache.wicket.ajax.attributes.CallbackParameter.explicit;
 
-import java.util.ArrayList;
-
 import org.apache.openmeetings.core.util.WebSocketHelper;
 import org.apache.openmeetings.db.entity.basic.Client;
 import org.apache.openmeetings.db.entity.basic.Client.Pod;
@@ -44,6 +42,7 @@ import org.apache.openmeetings.web.room.VideoSettings;
 import org.apache.openmeetings.web.room.activities.ActivitiesPanel;
 import org.apache.openmeetings.web.room.activities.Activity;
 import org.apache.openmeetings.web.util.ExtendedClientProperties;
+import org.apache.wicket.Component;
 import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.core.request.handler.IPartialPageRequestHandler;
@@ -52,9 +51,8 @@ import org.apache.wicket.markup.head.PriorityHeaderItem;
 import org.apache.wicket.markup.html.WebMarkupContainer;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.markup.html.form.Form;
-import org.apache.wicket.markup.html.list.ListItem;
-import org.apache.wicket.markup.html.list.ListView;
 import org.apache.wicket.markup.html.panel.Panel;
+import org.apache.wicket.markup.repeater.RepeatingView;
 import org.apache.wicket.model.Model;
 import org.apache.wicket.spring.injection.annot.SpringBean;
 import org.apache.wicket.util.string.StringValue;
@@ -91,14 +89,8 @@ public class RoomSidebar extends Panel {
 	private Client kickedClient;
 	private VideoSettings settings = new VideoSettings("settings");
 	private ActivitiesPanel activities;
-	private final ListView<Client> users = new ListView<Client>("user", new ArrayList<Client>()) {
-		private static final long serialVersionUID = 1L;
-
-		@Override
-		protected void populateItem(ListItem<Client> item) {
-			item.add(new RoomClientPanel("user", item, room));
-		}
-	};
+	// items are keyed by client uid, updated one by one on enter/exit
+	private final RepeatingView users = new RepeatingView("user");
 	private final AbstractDefaultAjaxBehavior roomAction = new AbstractDefaultAjaxBehavior() {
 		private static final long serialVersionUID = 1L;
 
@@ -281,11 +273,21 @@ public class RoomSidebar extends Panel {
 		response.render(new PriorityHeaderItem(getNamedFunction(FUNC_SETTINGS, avSettings, explicit(PARAM_SETTINGS))));
 	}
 
-	private ListView<Client> updateUsers() {
-		users.setList(cm.listByRoom(room.getRoom().getId()));
+	private RepeatingView updateUsers() {
+		users.removeAll();
+		for (Client c : cm.listByRoom(room.getRoom().getId())) {
+			users.add(newUser(c));
+		}
+		userCount.setDefaultModelObject(users.size());
 		return users;
 	}
 
+	private WebMarkupContainer newUser(Client c) {
+		WebMarkupContainer item = new WebMarkupContainer(c.getUid(), Model.of(c));
+		item.setOutputMarkupId(true);
+		return item.add(new RoomClientPanel("user", item, room));
+	}
+
 	private void updateShowFiles(IPartialPageRequestHandler handler) {
 		if (room.isInterview()) {
 			return;
@@ -300,10 +302,70 @@ public class RoomSidebar extends Panel {
 		}
 		updateShowFiles(handler);
 		updateUsers();
-		userCount.setDefaultModelObject(users.getList().size());
 		handler.add(selfRights.update(handler), userList, userCount);
 	}
 
+	/**
+	 * Adds single client to the list, the client is re-rendered in case it is already listed
+	 *
+	 * @param c - client entered the room
+	 * @param handler - handler to update
+	 */
+	public void addUser(Client c, IPartialPageRequestHandler handler) {
+		if (room.getRoom() == null || room.getClient() == null) {
+			return;
+		}
+		if (users.get(c.getUid()) != null) {
+			updateUser(c, handler);
+			return;
+		}
+		WebMarkupContainer item = newUser(c);
+		users.add(item);
+		userCount.setDefaultModelObject(users.size());
+		handler.prependJavaScript(String.format("$('#%s').append($('<div/>').attr('id', '%s'));", userList.getMarkupId(), item.getMarkupId()));
+		handler.add(item, userCount);
+	}
+
+	/**
+	 * Re-renders single client, whole list is re-rendered in case rights of the current client were changed
+	 *
+	 * @param c - updated client
+	 * @param handler - handler to update
+	 */
+	public void updateUser(Client c, IPartialPageRequestHandler handler) {
+		if (room.getRoom() == null || room.getClient() == null) {
+			return;
+		}
+		if (c.getUid().equals(room.getClient().getUid()) || users.get(c.getUid()) == null) {
+			update(handler);
+			return;
+		}
+		WebMarkupContainer item = newUser(c);
+		users.replace(item);
+		handler.add(item);
+	}
+
+	/**
+	 * Removes single client from the list
+	 *
+	 * @param uid - uid of the client exited the room
+	 * @param handler - handler to update
+	 */
+	public void removeUser(String uid, IPartialPageRequestHandler handler) {
+		if (room.getRoom() == null || room.getClient() == null) {
+			return;
+		}
+		Component item = users.get(uid);
+		if (item == null) {
+			update(handler);
+			return;
+		}
+		users.remove(item);
+		userCount.setDefaultModelObject(users.size());
+		handler.appendJavaScript(String.format("$('#%s').remove();", item.getMarkupId()));
+		handler.add(userCount);
+	}
+
 	public void updateFiles(IPartialPageRequestHandler handler) {
 		roomFiles.update(handler);
 	}
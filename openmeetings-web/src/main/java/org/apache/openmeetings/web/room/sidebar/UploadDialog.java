@@ -31,6 +31,7 @@ import org.apache.openmeetings.db.entity.file.BaseFileItem;
 import org.apache.openmeetings.db.entity.file.FileItem;
 import org.apache.openmeetings.util.process.ProcessResult;
 import org.apache.openmeetings.util.process.ProcessResultList;
+import org.apache.openmeetings.web.app.WhiteboardManager;
 import org.apache.openmeetings.web.room.RoomPanel;
 import org.apache.openmeetings.web.util.upload.BootstrapFileUploadBehavior;
 import org.apache.wicket.ajax.AjaxRequestTarget;
@@ -76,6 +77,8 @@ public class UploadDialog extends AbstractFormDialog<String> {
 	private FileProcessor processor;
 	@SpringBean
 	private FileItemLogDao fileLogDao;
+	@SpringBean
+	private WhiteboardManager wbm;
 
 	public UploadDialog(String id, RoomPanel room, RoomFilePanel roomFiles) {
 		super(id, "");
@@ -201,7 +204,7 @@ public class UploadDialog extends AbstractFormDialog<String> {
 				f.setInsertedBy(getUserId());
 
 				try {
-					ProcessResultList logs = processor.processFile(f, fu.getInputStream());
+					ProcessResultList logs = processor.processFile(f, fu.getInputStream(), (fi, from, to, ready) -> wbm.updateCount(fi));
 					for (ProcessResult res : logs.getJobs()) {
 						fileLogDao.add(res.getProcess(), f, res);
 					}
@@ -211,6 +214,8 @@ public class UploadDialog extends AbstractFormDialog<String> {
 					} else {
 						if (toWb.getModelObject()) {
 							room.getWb().sendFileToWb(f, clean);
+							// pages might be rendered while the file was being sent
+							wbm.updateCount(f);
 							clean = false;
 						}
 					}
@@ -39,4 +39,5 @@ public enum WbAction {
 	, stopRecording
 	, videoStatus
 	, loadVideos
+	, setCount //number of pages of the document being converted was raised
 }
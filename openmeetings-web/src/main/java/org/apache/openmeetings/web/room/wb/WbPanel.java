@@ -40,6 +40,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -249,21 +250,18 @@ public class WbPanel extends AbstractWbPanel {
 				JSONArray arr = new JSONArray();
 				for (Entry<Long, Whiteboard> entry : wbm.list(roomId)) {
 					Whiteboard wb = entry.getValue();
-					for (JSONObject o : wb.list()) {
-						String ft = o.optString(ATTR_FILE_TYPE);
-						if (BaseFileItem.Type.Recording.name().equals(ft) || BaseFileItem.Type.Video.name().equals(ft)) {
-							JSONObject _sts = o.optJSONObject(PARAM_STATUS);
-							if (_sts == null) {
-								continue;
-							}
-							JSONObject sts = new JSONObject(_sts.toString()); //copy
-							sts.put("pos", sts.getDouble("pos") + (System.currentTimeMillis() - sts.getLong("updated")) * 1. / 1000);
-							arr.put(new JSONObject()
-									.put("wbId", wb.getId())
-									.put("uid", o.getString("uid"))
-									.put(ATTR_SLIDE, o.getString(ATTR_SLIDE))
-									.put(PARAM_STATUS, sts));
+					for (JSONObject o : wb.listByType(BaseFileItem.Type.Recording.name(), BaseFileItem.Type.Video.name())) {
+						JSONObject _sts = o.optJSONObject(PARAM_STATUS);
+						if (_sts == null) {
+							continue;
 						}
+						JSONObject sts = new JSONObject(_sts.toString()); //copy
+						sts.put("pos", sts.getDouble("pos") + (System.currentTimeMillis() - sts.getLong("updated")) * 1. / 1000);
+						arr.put(new JSONObject()
+								.put("wbId", wb.getId())
+								.put("uid", o.getString("uid"))
+								.put(ATTR_SLIDE, o.getString(ATTR_SLIDE))
+								.put(PARAM_STATUS, sts));
 					}
 				}
 				sb.append(arr.toString()).append(");");
@@ -346,7 +344,7 @@ public class WbPanel extends AbstractWbPanel {
 					Whiteboard wb = wbm.get(roomId).get(obj.getLong("wbId"));
 					JSONObject o = obj.getJSONObject("obj");
 					wb.put(o.getString("uid"), o);
-					wbm.update(roomId, wb);
+					wbm.updateItem(roomId, wb, o.getString("uid"));
 					addUndo(wb.getId(), new UndoObject(UndoObject.Type.add, o));
 					sendWbOthers(WbAction.createObj, obj);
 				}
@@ -356,6 +354,7 @@ public class WbPanel extends AbstractWbPanel {
 					Whiteboard wb = wbm.get(roomId).get(obj.getLong("wbId"));
 					JSONArray arr = obj.getJSONArray("obj");
 					JSONArray undo = new JSONArray();
+					Set<String> uids = new HashSet<>();
 					for (int i = 0; i < arr.length(); ++i) {
 						JSONObject _o = arr.getJSONObject(i);
 						String uid = _o.getString("uid");
@@ -363,10 +362,11 @@ public class WbPanel extends AbstractWbPanel {
 						if (po != null) {
 							undo.put(po);
 							wb.put(uid, _o);
+							uids.add(uid);
 						}
 					}
 					if (arr.length() != 0) {
-						wbm.update(roomId, wb);
+						wbm.updateItems(roomId, wb, uids);
 						addUndo(wb.getId(), new UndoObject(UndoObject.Type.modify, undo));
 					}
 					sendWbOthers(WbAction.modifyObj, obj);
@@ -377,15 +377,17 @@ public class WbPanel extends AbstractWbPanel {
 					Whiteboard wb = wbm.get(roomId).get(obj.getLong("wbId"));
 					JSONArray arr = obj.getJSONArray("obj");
 					JSONArray undo = new JSONArray();
+					Set<String> uids = new HashSet<>();
 					for (int i = 0; i < arr.length(); ++i) {
 						JSONObject _o = arr.getJSONObject(i);
 						JSONObject u = wb.remove(_o.getString("uid"));
 						if (u != null) {
 							undo.put(u);
+							uids.add(_o.getString("uid"));
 						}
 					}
 					if (undo.length() != 0) {
-						wbm.update(roomId, wb);
+						wbm.updateItems(roomId, wb, uids);
 						addUndo(wb.getId(), new UndoObject(UndoObject.Type.remove, undo));
 					}
 					sendWbAll(WbAction.deleteObj, obj);
@@ -396,7 +398,11 @@ public class WbPanel extends AbstractWbPanel {
 					Whiteboard wb = wbm.get(roomId).get(obj.getLong("wbId"));
 					JSONArray arr = wb.clearSlide(obj.getInt(ATTR_SLIDE));
 					if (arr.length() != 0) {
-						wbm.update(roomId, wb);
+						Set<String> uids = new HashSet<>();
+						for (int i = 0; i < arr.length(); ++i) {
+							uids.add(arr.getJSONObject(i).getString("uid"));
+						}
+						wbm.updateItems(roomId, wb, uids);
 						addUndo(wb.getId(), new UndoObject(UndoObject.Type.remove, arr));
 					}
 					sendWbAll(WbAction.clearSlide, obj);
@@ -417,29 +423,33 @@ public class WbPanel extends AbstractWbPanel {
 							{
 								JSONObject o = new JSONObject(uo.getObject());
 								wb.remove(o.getString("uid"));
-								wbm.update(roomId, wb);
+								wbm.updateItem(roomId, wb, o.getString("uid"));
 								sendWbAll(WbAction.deleteObj, obj.put("obj", new JSONArray().put(o)));
 							}
 								break;
 							case remove:
 							{
 								JSONArray arr = new JSONArray(uo.getObject());
+								Set<String> uids = new HashSet<>();
 								for (int i  = 0; i < arr.length(); ++i) {
 									JSONObject o = arr.getJSONObject(i);
 									wb.put(o.getString("uid"), o);
+									uids.add(o.getString("uid"));
 								}
-								wbm.update(roomId, wb);
+								wbm.updateItems(roomId, wb, uids);
 								sendWbAll(WbAction.createObj, obj.put("obj", new JSONArray(uo.getObject())));
 							}
 								break;
 							case modify:
 							{
 								JSONArray arr = new JSONArray(uo.getObject());
+								Set<String> uids = new HashSet<>();
 								for (int i  = 0; i < arr.length(); ++i) {
 									JSONObject o = arr.getJSONObject(i);
 									wb.put(o.getString("uid"), o);
+									uids.add(o.getString("uid"));
 								}
-								wbm.update(roomId, wb);
+								wbm.updateItems(roomId, wb, uids);
 								sendWbAll(WbAction.modifyObj, obj.put("obj", arr));
 							}
 								break;
@@ -455,7 +465,7 @@ public class WbPanel extends AbstractWbPanel {
 					if (po != null && "video".equals(po.getString(ATTR_TYPE))) {
 						JSONObject ns = obj.getJSONObject(PARAM_STATUS);
 						po.put(PARAM_STATUS, ns.put("updated", System.currentTimeMillis()));
-						wbm.update(roomId, wb.put(uid, po));
+						wbm.updateItem(roomId, wb.put(uid, po), uid);
 						obj.put(ATTR_SLIDE, po.getInt(ATTR_SLIDE));
 						sendWbAll(WbAction.videoStatus, obj);
 					}
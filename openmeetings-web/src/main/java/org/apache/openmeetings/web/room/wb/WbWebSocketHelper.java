@@ -131,27 +131,26 @@ public class WbWebSocketHelper extends WebSocketHelper {
 		sendWbFile(roomId, wbId, ruid, file, fi, true);
 	}
 
-	//This is required cause WebSocketHelper will send message async
-	private static String patchUrl(String url, Client c) {
-		return String.format("%s&uid=%s", url, c.getUid());
+	//uid of each recipient is being inserted into pre-encoded message by WebSocketHelper
+	private static String patchUrl(String url) {
+		return String.format("%s&uid=%s", url, UID_PLACEHOLDER);
 	}
 
-	private static JSONObject patchUrls(BaseFileItem fi, Client c, JSONObject _f) {
-		JSONObject f = new JSONObject(_f.toString()); // deep copy to ensure thread safety
+	private static JSONObject patchUrls(BaseFileItem fi, JSONObject f) {
 		switch (fi.getType()) {
 			case Video:
-				f.put(PARAM__SRC, patchUrl(f.getString(PARAM__SRC), c));
-				f.put(PARAM__POSTER, patchUrl(f.getString(PARAM__POSTER), c));
+				f.put(PARAM__SRC, patchUrl(f.getString(PARAM__SRC)));
+				f.put(PARAM__POSTER, patchUrl(f.getString(PARAM__POSTER)));
 				break;
 			case Recording:
-				f.put(PARAM__SRC, patchUrl(f.getString(PARAM__SRC), c));
-				f.put(PARAM__POSTER, patchUrl(f.getString(PARAM__POSTER), c));
+				f.put(PARAM__SRC, patchUrl(f.getString(PARAM__SRC)));
+				f.put(PARAM__POSTER, patchUrl(f.getString(PARAM__POSTER)));
 				break;
 			case Presentation:
-				f.put(PARAM__SRC, patchUrl(f.getString(PARAM__SRC), c));
+				f.put(PARAM__SRC, patchUrl(f.getString(PARAM__SRC)));
 				break;
 			default:
-				f.put(PARAM_SRC, patchUrl(f.getString(PARAM_SRC), c));
+				f.put(PARAM_SRC, patchUrl(f.getString(PARAM_SRC)));
 				break;
 		}
 		return f;
@@ -161,22 +160,23 @@ public class WbWebSocketHelper extends WebSocketHelper {
 		if (publish) {
 			publish(new WsMessageWbFile(roomId, wbId, ruid, file, fi));
 		}
-		final JSONObject _f = addFileUrl(ruid, file, fi, null);
+		final JSONObject _f = patchUrls(fi, addFileUrl(ruid, file, fi, null));
 		WebSocketHelper.sendRoom(
 				roomId
 				, new JSONObject().put("type", "wb")
+					.put("func", WbAction.createObj.name())
+					.put("param", getObjWbJson(wbId, _f)).toString(new NullStringer())
 				, null
-				, (o, c) -> o.put("func", WbAction.createObj.name())
-							.put("param", getObjWbJson(wbId, patchUrls(fi, c, _f))).toString(new NullStringer()));
+				, UID_PLACEHOLDER);
 	}
 
 	private static void sendWb(Long roomId, WbAction meth, JSONObject obj, Predicate<Client> check) {
 		WebSocketHelper.sendRoom(
 				roomId
 				, new JSONObject().put("type", "wb")
+					.put("func", meth.name())
+					.put("param", obj).toString(new NullStringer())
 				, check
-				, (o, c) -> o.put("func", meth.name())
-							.put("param", obj).toString(new NullStringer())
-			);
+				, null);
 	}
 }
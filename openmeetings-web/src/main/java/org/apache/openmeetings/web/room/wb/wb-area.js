@@ -257,6 +257,10 @@ var DrawWbArea = function() {
 		if (!_inited) return;
 		self.getWb(json.wbId).modifyObj(json.obj);
 	};
+	self.setCount = function(json) {
+		if (!_inited) return;
+		self.getWb(json.wbId).setCount(json.obj);
+	};
 	self.deleteObj = function(json) {
 		if (!_inited) return;
 		self.getWb(json.wbId).removeObj(json.obj);
@@ -4,7 +4,7 @@ var Wb = function() {
 		, area = $('.room.wb.area .wb-area .tabs.ui-tabs'), bar = area.find('.wb-tabbar')
 		, extraProps = ['uid', 'fileId', 'fileType', 'count', 'slide', 'omType', '_src', 'formula'];
 	let a, t, z, s, f, mode, slide = 0, width = 0, height = 0
-			, zoom = 1., zoomMode = 'pageWidth', role = null;
+			, zoom = 1., zoomMode = 'pageWidth', role = null, docs = {};
 
 	function getBtn(m) {
 		return !!t ? t.find(".om-icon." + (m || mode)) : null;
@@ -346,6 +346,7 @@ var Wb = function() {
 				break;
 			case 'Presentation':
 			{
+				docs[_o.uid] = _o; //number of pages can be raised while the document is being converted
 				const ccount = canvases.length;
 				for (let i = 0; i < _o.count; ++i) {
 					if (canvases.length < i + 1) {
@@ -763,8 +764,18 @@ var Wb = function() {
 			_createObject(arr, _modifyHandler);
 		}
 	};
+	wb.setCount = function(arr) {
+		for (let i = 0; i < arr.length; ++i) {
+			const o = arr[i], _o = docs[o.uid];
+			if (!!_o && _o.count < o.count) {
+				_o.count = o.count;
+				_createHandler(_o);
+			}
+		}
+	};
 	wb.removeObj = function(arr) {
 		for (let i = 0; i < arr.length; ++i) {
+			delete docs[arr[i].uid];
 			_removeHandler(arr[i]);
 		}
 	};
@@ -777,6 +788,7 @@ var Wb = function() {
 		$('.room.wb.area .wb-video').remove();
 		canvases.splice(1);
 		canvases[0].clear();
+		docs = {};
 		_updateZoomPanel();
 	};
 	wb.clearSlide = function(_sl) {
@@ -27,24 +27,25 @@ import static org.apache.openmeetings.web.util.CallbackFunctionHelper.getNamedFu
 import static org.apache.openmeetings.web.util.ProfileImageResourceReference.getUrl;
 import static org.apache.wicket.ajax.attributes.CallbackParameter.explicit;
 
-import java.time.Duration;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.openmeetings.core.util.WebSocketHelper;
 import org.apache.openmeetings.db.dao.basic.ChatDao;
 import org.apache.openmeetings.db.dao.basic.ConfigurationDao;
-import org.apache.openmeetings.db.dao.room.RoomDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.basic.ChatMessage;
 import org.apache.openmeetings.db.entity.basic.Client;
 import org.apache.openmeetings.db.entity.room.Room;
 import org.apache.openmeetings.db.entity.user.User;
+import org.apache.openmeetings.web.app.ChatManager;
 import org.apache.openmeetings.web.app.ClientManager;
+import org.apache.openmeetings.web.app.SignalManager;
 import org.apache.openmeetings.web.common.MainPanel;
+import org.apache.openmeetings.web.util.ProfileImageResourceReference.Size;
 import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.markup.head.IHeaderResponse;
@@ -79,26 +80,18 @@ public class Chat extends Panel {
 					long msgId = getRequest().getRequestParameters().getParameterValue(PARAM_MSG_ID).toLong();
 					ChatMessage m = chatDao.get(msgId);
 					if (m.isNeedModeration() && isModerator(cm, getUserId(), roomId)) {
-						m.setNeedModeration(false);
-						chatDao.update(m);
+						chatManager.accept(m);
 						WebSocketHelper.sendRoom(m, getMessage(Arrays.asList(m)).put("mode",  "accept"));
 					} else {
 						log.error("It seems like we are being hacked!!!!");
 					}
 				} else if (type != null && type.indexOf("typing") > -1) {
-					WebSocketHelper.sendRoom(roomId
-							, new JSONObject().put(PARAM_TYPE, "typing")
-									.put("active", type.indexOf("start") > -1)
-									.put("uid", getUid()));
+					signalManager.typing(roomId, getClient(), type.indexOf("start") > -1);
 				}
 			} catch (Exception e) {
 				log.error("Unexpected exception while accepting chat message", e);
 			}
 		}
-
-		private String getUid() {
-			return getClient().getUid();
-		}
 	};
 
 	@SpringBean
@@ -110,7 +103,9 @@ public class Chat extends Panel {
 	@SpringBean
 	private UserDao userDao;
 	@SpringBean
-	private RoomDao roomDao;
+	private ChatManager chatManager;
+	@SpringBean
+	private SignalManager signalManager;
 
 	public Chat(String id) {
 		super(id);
@@ -137,7 +132,17 @@ public class Chat extends Panel {
 	}
 
 	public static JSONObject getMessage(User curUser, List<ChatMessage> list) {
-		return WebSocketHelper.getMessage(curUser, list, (o, u) -> o.put("img", getUrl(RequestCycle.get(), u)));
+		return WebSocketHelper.getMessage(curUser, list, Chat::addImage);
+	}
+
+	private static void addImage(JSONObject o, User u) {
+		o.put("img", getUrl(RequestCycle.get(), u, Size.small));
+	}
+
+	private CharSequence getHistory(List<ChatManager.Entry> list) {
+		final Client c = getClient();
+		final User curUser = c == null ? userDao.get(getUserId()) : c.getUser();
+		return ChatManager.getMessage(curUser, list, Chat::addImage);
 	}
 
 	public CharSequence getReinit() {
@@ -158,9 +163,9 @@ public class Chat extends Panel {
 	public CharSequence addRoom(Room r) {
 		StringBuilder sb = new StringBuilder();
 		sb.append(String.format("Chat.addTab('%1$s%2$d', '%3$s %2$d');", ID_ROOM_PREFIX, r.getId(), getString("406")));
-		List<ChatMessage> list = chatDao.getRoom(r.getId(), 0, 30, !r.isChatModerated() || isModerator(cm, getUserId(), r.getId()));
+		List<ChatManager.Entry> list = chatManager.getRoom(r.getId(), !r.isChatModerated() || isModerator(cm, getUserId(), r.getId()));
 		if (!list.isEmpty()) {
-			sb.append("Chat.addMessage(").append(getMessage(list).toString()).append(");");
+			sb.append("Chat.addMessage(").append(getHistory(list)).append(");");
 		}
 		return sb;
 	}
@@ -173,14 +178,17 @@ public class Chat extends Panel {
 
 		if (showDashboardChat) {
 			StringBuilder sb = new StringBuilder(getReinit());
-			List<ChatMessage> list = new ArrayList<>(chatDao.getGlobal(0, 30));
-			for(Long roomId : cm.listRoomIds(getUserId())) {
-				Room r = roomDao.get(roomId);
-				sb.append(addRoom(r));
+			List<ChatManager.Entry> list = new ArrayList<>(chatManager.getGlobal());
+			Set<Long> roomIds = new HashSet<>();
+			for (Client c : cm.listByUser(getUserId())) {
+				Room r = c.getRoom();
+				if (r != null && roomIds.add(r.getId())) {
+					sb.append(addRoom(r));
+				}
 			}
-			list.addAll(chatDao.getUserRecent(getUserId(), Date.from(Instant.now().minus(Duration.ofHours(1L))), 0, 30));
+			list.addAll(chatManager.getUserRecent(getUserId()));
 			if (!list.isEmpty()) {
-				sb.append("Chat.addMessage(").append(getMessage(list).toString()).append(");");
+				sb.append("Chat.addMessage(").append(getHistory(list)).append(");");
 			}
 			response.render(OnDomReadyHeaderItem.forScript(sb.toString()));
 		}
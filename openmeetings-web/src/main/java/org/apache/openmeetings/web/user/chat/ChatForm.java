@@ -33,13 +33,13 @@ import java.util.function.Predicate;
 
 import org.apache.openmeetings.core.remote.MobileService;
 import org.apache.openmeetings.core.util.WebSocketHelper;
-import org.apache.openmeetings.db.dao.basic.ChatDao;
 import org.apache.openmeetings.db.dao.room.RoomDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.basic.ChatMessage;
 import org.apache.openmeetings.db.entity.basic.Client;
 import org.apache.openmeetings.db.entity.room.Room;
 import org.apache.openmeetings.db.entity.user.User;
+import org.apache.openmeetings.web.app.ChatManager;
 import org.apache.openmeetings.web.app.ClientManager;
 import org.apache.openmeetings.web.common.MainPanel;
 import org.apache.wicket.Component;
@@ -67,7 +67,7 @@ public class ChatForm extends Form<Void> {
 	@SpringBean
 	private ClientManager cm;
 	@SpringBean
-	private ChatDao chatDao;
+	private ChatManager chatManager;
 	@SpringBean
 	private UserDao userDao;
 	@SpringBean
@@ -136,7 +136,7 @@ public class ChatForm extends Form<Void> {
 					{
 						return;
 					};
-					chatDao.update(m);
+					chatManager.add(m);
 					JSONObject msg = getChat().getMessage(Arrays.asList(m));
 					if (m.getToRoom() != null) {
 						mobileService.sendChatMessage(getUid(), m, getDateFormat()); //let's send to mobile users
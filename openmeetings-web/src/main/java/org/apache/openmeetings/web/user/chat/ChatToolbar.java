@@ -35,6 +35,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.openmeetings.db.dao.basic.ChatDao;
 import org.apache.openmeetings.db.entity.basic.ChatMessage;
 import org.apache.openmeetings.db.entity.user.User;
+import org.apache.openmeetings.web.app.ChatManager;
 import org.apache.openmeetings.web.app.ClientManager;
 import org.apache.openmeetings.web.common.ConfirmableAjaxBorder;
 import org.apache.openmeetings.web.pages.BasePage;
@@ -141,6 +142,8 @@ public class ChatToolbar extends Panel implements IWysiwygToolbar {
 	private ClientManager cm;
 	@SpringBean
 	private ChatDao chatDao;
+	@SpringBean
+	private ChatManager chatManager;
 
 	/**
 	 * Constructor
@@ -190,19 +193,19 @@ public class ChatToolbar extends Panel implements IWysiwygToolbar {
 				chatForm.process(
 					() -> {
 						if (admin) {
-							chatDao.deleteGlobal();
+							chatManager.clearGlobal();
 							clean(target, ID_ALL);
 						}
 						return true;
 					}
 					, r -> {
 						if (admin || isModerator(cm, getUserId(), r.getId())) {
-							chatDao.deleteRoom(r.getId());
+							chatManager.clearRoom(r.getId());
 							clean(target, scope);
 						}
 						return true;
 					}, u -> {
-						chatDao.deleteUser(u.getId());
+						chatManager.clearUser(u.getId());
 						clean(target, scope);
 						return true;
 					});
@@ -432,9 +432,13 @@ $(function() {
 					case "chat":
 						Chat.addMessage(m);
 						break;
-					case "typing":
+					case "signals":
 						if (typeof(typingActivity) === "function") {
-							typingActivity(m.uid, m.active);
+							m.signals.forEach(function(s) {
+								if (s.type === "typing") {
+									typingActivity(s.uid, s.active);
+								}
+							});
 						}
 						break;
 				}
@@ -24,6 +24,7 @@ import static org.apache.openmeetings.web.common.BasePanel.EVT_CLICK;
 import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.user.User;
 import org.apache.openmeetings.web.app.Application;
+import org.apache.openmeetings.web.app.ChatManager;
 import org.apache.openmeetings.web.app.WebSession;
 import org.apache.openmeetings.web.common.ComunityUserForm;
 import org.apache.openmeetings.web.common.FormActionsPanel;
@@ -57,6 +58,8 @@ public class ProfileForm extends Form<User> {
 
 	@SpringBean
 	private UserDao userDao;
+	@SpringBean
+	private ChatManager chatManager;
 
 	public ProfileForm(String id, final ChangePasswordDialog chPwdDlg) {
 		super(id);
@@ -103,6 +106,7 @@ public class ProfileForm extends Form<User> {
 			@Override
 			protected void onPurgeSubmit(AjaxRequestTarget target, Form<?> form) {
 				userDao.purge(getModelObject(), getUserId());
+				chatManager.reset();
 				WebSession.get().invalidateNow();
 				setResponsePage(Application.get().getSignInPageClass());
 			}
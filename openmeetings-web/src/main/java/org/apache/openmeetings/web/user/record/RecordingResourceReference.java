@@ -22,14 +22,9 @@ import static org.apache.openmeetings.web.app.WebSession.getExternalType;
 import static org.apache.openmeetings.web.app.WebSession.getRecordingId;
 import static org.apache.openmeetings.web.app.WebSession.getUserId;
 
-import java.util.Map.Entry;
-
-import org.apache.directory.api.util.Strings;
 import org.apache.openmeetings.db.dao.record.RecordingDao;
 import org.apache.openmeetings.db.dao.user.GroupUserDao;
 import org.apache.openmeetings.db.dao.user.UserDao;
-import org.apache.openmeetings.db.dto.room.Whiteboard;
-import org.apache.openmeetings.db.dto.room.Whiteboards;
 import org.apache.openmeetings.db.entity.basic.Client;
 import org.apache.openmeetings.db.entity.file.BaseFileItem.Type;
 import org.apache.openmeetings.db.entity.record.Recording;
@@ -101,15 +96,8 @@ public abstract class RecordingResourceReference extends FileItemResourceReferen
 			return r;
 		}
 		Client c = cm.get(uid);
-		if (c != null && c.getRoom() != null) {
-			Whiteboards wbs = wbm.get(c.getRoom().getId());
-			if (wbs != null && !Strings.isEmpty(ruid) && ruid.equals(wbs.getUid())) {
-				for (Entry<Long, Whiteboard> e : wbs.getWhiteboards().entrySet()) {
-					if (e.getValue().contains(r.getHash())) {
-						return r; // item IS on WB
-					}
-				}
-			}
+		if (c != null && c.getRoom() != null && wbm.isOnWhiteboard(c.getRoom().getId(), ruid, r.getHash(), null)) {
+			return r; // item IS on WB
 		}
 		if (r.getOwnerId() == null && r.getGroupId() == null) {
 			//public
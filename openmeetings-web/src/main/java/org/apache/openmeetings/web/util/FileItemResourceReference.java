@@ -24,16 +24,22 @@ import java.io.IOException;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.openmeetings.db.entity.file.BaseFileItem;
+import org.apache.wicket.request.Response;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.http.WebResponse;
 import org.apache.wicket.request.resource.IResource;
 import org.apache.wicket.request.resource.IResource.Attributes;
 import org.apache.wicket.resource.FileSystemResource;
 import org.apache.wicket.resource.FileSystemResourceReference;
+import org.apache.wicket.util.time.Time;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public abstract class FileItemResourceReference<T extends BaseFileItem> extends FileSystemResourceReference {
 	private static final long serialVersionUID = 1L;
 	protected static final Logger log = LoggerFactory.getLogger(FileItemResourceReference.class);
+	private static final String CACHE_IMMUTABLE = "private, max-age=31536000, immutable";
+	private static final String CACHE_REVALIDATE = "private, no-cache";
 
 	public FileItemResourceReference(String name) {
 		super(name);
@@ -45,6 +51,7 @@ public abstract class FileItemResourceReference<T extends BaseFileItem> extends
 			private static final long serialVersionUID = 1L;
 			private File file;
 			private T r;
+			private boolean immutable;
 
 			@Override
 			protected String getMimeType() throws IOException {
@@ -58,8 +65,26 @@ public abstract class FileItemResourceReference<T extends BaseFileItem> extends
 					file = getFile(r, attr);
 				}
 				if (file != null && file.exists()) {
-					ResourceResponse rr = createResourceResponse(attr, file.toPath());
-					rr.setFileName(getFileName(r));
+					// resources are authorized before conditional checks
+					final String etag = getETag(file);
+					final Time modified = Time.millis(file.lastModified() / 1000 * 1000); // HTTP dates have seconds precision
+					ResourceResponse rr;
+					if (isNotModified((WebRequest)attr.getRequest(), etag, modified)) {
+						rr = new ResourceResponse();
+						rr.setStatusCode(HttpServletResponse.SC_NOT_MODIFIED);
+						rr.setWriteCallback(new WriteCallback() {
+							@Override
+							public void writeData(Attributes attributes) throws IOException {
+								//no-op, no body for 304
+							}
+						});
+					} else {
+						rr = createResourceResponse(attr, file.toPath());
+						rr.setFileName(getFileName(r));
+					}
+					rr.setLastModified(modified);
+					rr.getHeaders().setHeader("ETag", etag);
+					immutable = isImmutable(r, file, attr);
 					return rr;
 				} else {
 					log.debug("No file item was found");
@@ -68,9 +93,53 @@ public abstract class FileItemResourceReference<T extends BaseFileItem> extends
 					return rr;
 				}
 			}
+
+			@Override
+			protected void configureCache(ResourceResponse data, Attributes attributes) {
+				Response response = attributes.getResponse();
+				if (response instanceof WebResponse) {
+					((WebResponse)response).setHeader("Cache-Control", immutable ? CACHE_IMMUTABLE : CACHE_REVALIDATE);
+				}
+			}
 		};
 	}
 
+	/**
+	 * @param file - file to be served
+	 * @return strong ETag based on modification time and size of the file
+	 */
+	private static String getETag(File file) {
+		return String.format("\"%s-%s\"", Long.toHexString(file.lastModified()), Long.toHexString(file.length()));
+	}
+
+	private static boolean isNotModified(WebRequest req, String etag, Time modified) {
+		String ifNoneMatch = req.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			for (String tag : ifNoneMatch.split(",")) {
+				String t = tag.trim();
+				if ("*".equals(t) || etag.equals(t)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		Time since = req.getIfModifiedSinceHeader();
+		return since != null && !modified.after(since);
+	}
+
+	/**
+	 * Content of some resources (i.e. converted slides) is never changed,
+	 * such resources are cached by browser without revalidation
+	 *
+	 * @param r - file item
+	 * @param file - file to be served
+	 * @param attr - request attributes
+	 * @return {@code true} if the file is never changed
+	 */
+	protected boolean isImmutable(T r, File file, Attributes attr) {
+		return false;
+	}
+
 	protected abstract String getMimeType(T r);
 	protected abstract String getFileName(T r);
 	protected abstract File getFile(T r, Attributes attr);
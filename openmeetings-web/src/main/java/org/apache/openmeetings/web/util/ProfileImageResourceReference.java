@@ -21,31 +21,66 @@ package org.apache.openmeetings.web.util;
 import static org.apache.openmeetings.util.OmFileHelper.JPG_MIME_TYPE;
 import static org.apache.openmeetings.util.OmFileHelper.SIP_USER_ID;
 
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import javax.imageio.ImageIO;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.openmeetings.db.dao.user.UserDao;
+import org.apache.openmeetings.db.dao.user.UserDao.Picture;
 import org.apache.openmeetings.db.entity.user.User;
 import org.apache.openmeetings.util.OmFileHelper;
 import org.apache.openmeetings.web.app.WebSession;
 import org.apache.wicket.injection.Injector;
+import org.apache.wicket.request.Response;
 import org.apache.wicket.request.cycle.RequestCycle;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.http.WebResponse;
 import org.apache.wicket.request.mapper.parameter.PageParameters;
-import org.apache.wicket.request.resource.ByteArrayResource;
+import org.apache.wicket.request.resource.AbstractResource;
 import org.apache.wicket.request.resource.IResource;
 import org.apache.wicket.request.resource.ResourceReference;
 import org.apache.wicket.spring.injection.annot.SpringBean;
-import org.apache.wicket.util.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Profile pictures, scaled pictures are kept in memory, keyed by user id, picture version and size
+ *
+ * Picture URL contains picture version, such URLs are cached by browser without revalidation,
+ * URLs without version or with outdated version are revalidated using ETag
+ */
 public class ProfileImageResourceReference extends ResourceReference {
 	private static final long serialVersionUID = 1L;
 	private static final Logger log = LoggerFactory.getLogger(ProfileImageResourceReference.class);
+	private static final String PARAM_ID = "id";
+	private static final String PARAM_VERSION = "anticache";
+	private static final String PARAM_SIZE = "size";
+	private static final String CACHE_IMMUTABLE = "private, max-age=31536000, immutable";
+	private static final String CACHE_REVALIDATE = "private, no-cache";
+	private static final long MAX_CACHE_BYTES = 16L * 1024 * 1024;
+	private static final ImageCache cache = new ImageCache(MAX_CACHE_BYTES);
+	public enum Size {
+		small(80) // chat messages
+		, medium(160) // participant list
+		, full(0);
+		private final int px;
+
+		Size(int px) {
+			this.px = px;
+		}
+	}
 	@SpringBean
 	private UserDao userDao;
 
@@ -54,16 +89,48 @@ public class ProfileImageResourceReference extends ResourceReference {
 		Injector.get().inject(this);
 	}
 
+	/**
+	 * @param rc - current request cycle
+	 * @param userId - id of the user, cached picture is used, so no DB access is performed in most cases
+	 * @return URL of the picture
+	 */
 	public String getUrl(RequestCycle rc, Long userId) {
-		return getUrl(rc, userDao.get(userId));
+		return getUrl(rc, userId, userDao.getPicture(userId), Size.full);
 	}
 
 	public static String getUrl(RequestCycle rc, User u) {
-		String uri = u.getPictureuri();
+		return getUrl(rc, u, Size.full);
+	}
+
+	/**
+	 * @param rc - current request cycle
+	 * @param u - the user, version of the picture is taken from the object, no DB or disk access is performed
+	 * @param size - size of the picture
+	 * @return URL of the picture
+	 */
+	public static String getUrl(RequestCycle rc, User u, Size size) {
+		return getUrl(rc, u.getId(), u.getPictureuri(), Picture.getVersion(u), size);
+	}
+
+	/**
+	 * @param rc - current request cycle
+	 * @param userId - id of the user
+	 * @param p - cached picture of the user, see {@link UserDao#getPicture(Long)}
+	 * @param size - size of the picture
+	 * @return URL of the picture
+	 */
+	public static String getUrl(RequestCycle rc, Long userId, Picture p, Size size) {
+		return getUrl(rc, userId, p.getUri(), p.getVersion(), size);
+	}
+
+	private static String getUrl(RequestCycle rc, Long userId, String pictureUri, long version, Size size) {
+		String uri = pictureUri;
 		if (!isAbsolute(uri)) {
-			File img = OmFileHelper.getUserProfilePicture(u.getId(), uri);
-			uri = rc.urlFor(new ProfileImageResourceReference()
-					, new PageParameters().add("id", u.getId()).add("anticache", img.lastModified())).toString();
+			PageParameters params = new PageParameters().add(PARAM_ID, userId).add(PARAM_VERSION, version);
+			if (Size.full != size) {
+				params.add(PARAM_SIZE, size.name());
+			}
+			uri = rc.urlFor(new ProfileImageResourceReference(), params).toString();
 		}
 		return uri;
 	}
@@ -78,46 +145,169 @@ public class ProfileImageResourceReference extends ResourceReference {
 		return absolute;
 	}
 
+	private static String getETag(Long userId, long version, Size size) {
+		return String.format("\"%s-%s-%s\"", userId, Long.toHexString(version), size.name());
+	}
+
+	private static boolean matches(WebRequest req, String etag) {
+		String ifNoneMatch = req.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			for (String tag : ifNoneMatch.split(",")) {
+				String t = tag.trim();
+				if ("*".equals(t) || etag.equals(t)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static byte[] load(Long userId, String uri, Size size) throws IOException {
+		File img = OmFileHelper.getUserProfilePicture(userId, uri);
+		if (Size.full == size) {
+			return Files.readAllBytes(img.toPath());
+		}
+		BufferedImage src = ImageIO.read(img);
+		if (src == null) {
+			return Files.readAllBytes(img.toPath());
+		}
+		double scale = Math.min(1., (double)size.px / Math.max(src.getWidth(), src.getHeight()));
+		int w = Math.max(1, (int)Math.round(src.getWidth() * scale));
+		int h = Math.max(1, (int)Math.round(src.getHeight() * scale));
+		BufferedImage dst = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g = dst.createGraphics();
+		try {
+			g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+			g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g.setColor(Color.WHITE);
+			g.fillRect(0, 0, w, h);
+			g.drawImage(src, 0, 0, w, h, null);
+		} finally {
+			g.dispose();
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		ImageIO.write(dst, "jpg", out);
+		return out.toByteArray();
+	}
+
 	@Override
 	public IResource getResource() {
-		return new ByteArrayResource(JPG_MIME_TYPE) {
+		return new AbstractResource() {
 			private static final long serialVersionUID = 1L;
-			private Long userId = null;
-			private String uri = null;
+			private boolean immutable = false;
 
 			@Override
 			protected ResourceResponse newResourceResponse(Attributes attributes) {
-				ResourceResponse rr;
-				if (WebSession.get().isSignedIn()) {
-					PageParameters params = attributes.getParameters();
-					try {
-						userId = params.get("id").toOptionalLong();
-						uri = SIP_USER_ID.equals(userId) ? null : userDao.get(userId).getPictureuri();
-					} catch (Exception e) {
-						// no-op, junk filter
-					}
-					rr = super.newResourceResponse(attributes);
-					rr.disableCaching();
-				} else {
+				ResourceResponse rr = new ResourceResponse();
+				if (!WebSession.get().isSignedIn()) {
 					log.debug("Not authorized");
-					rr = new ResourceResponse();
 					rr.setError(HttpServletResponse.SC_FORBIDDEN);
+					return rr;
+				}
+				PageParameters params = attributes.getParameters();
+				final Long userId;
+				final Size size;
+				try {
+					userId = params.get(PARAM_ID).toLong();
+					size = Size.valueOf(params.get(PARAM_SIZE).toString(Size.full.name()));
+				} catch (Exception e) {
+					// junk filter
+					rr.setError(HttpServletResponse.SC_NOT_FOUND);
+					return rr;
+				}
+				final Picture p = SIP_USER_ID.equals(userId) ? Picture.NONE : userDao.getPicture(userId);
+				if (isAbsolute(p.getUri())) {
+					rr.setError(HttpServletResponse.SC_NOT_FOUND);
+					return rr;
+				}
+				final String etag = getETag(userId, p.getVersion(), size);
+				immutable = params.get(PARAM_VERSION).toString("").equals(String.valueOf(p.getVersion()));
+				rr.getHeaders().setHeader("ETag", etag);
+				rr.setContentType(JPG_MIME_TYPE);
+				if (matches((WebRequest)attributes.getRequest(), etag)) {
+					rr.setStatusCode(HttpServletResponse.SC_NOT_MODIFIED);
+					rr.setWriteCallback(new WriteCallback() {
+						@Override
+						public void writeData(Attributes attributes) throws IOException {
+							//no-op, no body for 304
+						}
+					});
+					return rr;
 				}
+				final byte[] data;
+				try {
+					data = cache.get(userId, p, size);
+				} catch (IOException e) {
+					log.error("failed to get bytes from image", e);
+					rr.setError(HttpServletResponse.SC_NOT_FOUND);
+					return rr;
+				}
+				rr.setContentLength(data.length);
+				rr.setWriteCallback(new WriteCallback() {
+					@Override
+					public void writeData(Attributes attributes) throws IOException {
+						attributes.getResponse().write(data);
+					}
+				});
 				return rr;
 			}
 
 			@Override
-			protected byte[] getData(Attributes attributes) {
-				if (!isAbsolute(uri)) {
-					File img = OmFileHelper.getUserProfilePicture(userId, uri);
-					try (InputStream is = new FileInputStream(img)) {
-						return IOUtils.toByteArray(is);
-					} catch (Exception e) {
-						log.error("failed to get bytes from image", e);
-					}
+			protected void configureCache(ResourceResponse data, Attributes attributes) {
+				Response response = attributes.getResponse();
+				if (response instanceof WebResponse) {
+					((WebResponse)response).setHeader("Cache-Control", immutable ? CACHE_IMMUTABLE : CACHE_REVALIDATE);
 				}
-				return null;
 			}
 		};
 	}
+
+	/**
+	 * LRU cache of picture bytes bounded by total size
+	 */
+	static class ImageCache {
+		private final Map<String, byte[]> images = new LinkedHashMap<>(16, .75f, true);
+		private final long maxBytes;
+		private long bytes = 0;
+
+		@FunctionalInterface
+		interface Loader {
+			byte[] load() throws IOException;
+		}
+
+		ImageCache(long maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+
+		byte[] get(Long userId, Picture p, Size size) throws IOException {
+			return get(String.format("%s-%s-%s", userId, p.getVersion(), size.name()), () -> load(userId, p.getUri(), size));
+		}
+
+		byte[] get(String key, Loader loader) throws IOException {
+			synchronized (this) {
+				byte[] data = images.get(key);
+				if (data != null) {
+					return data;
+				}
+			}
+			byte[] data = loader.load();
+			synchronized (this) {
+				byte[] prev = images.put(key, data);
+				bytes += data.length - (prev == null ? 0 : prev.length);
+				for (Iterator<byte[]> i = images.values().iterator(); bytes > maxBytes && i.hasNext();) {
+					bytes -= i.next().length;
+					i.remove();
+				}
+			}
+			return data;
+		}
+
+		synchronized boolean contains(String key) {
+			return images.containsKey(key);
+		}
+
+		synchronized long getBytes() {
+			return bytes;
+		}
+	}
 }
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.backup;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.openmeetings.AbstractJUnitDefaults;
+import org.apache.openmeetings.db.entity.user.User;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class TestBackupExport extends AbstractJUnitDefaults {
+	@Autowired
+	private BackupExport backupExport;
+
+	@Test
+	public void export() throws Exception {
+		User u = createUser();
+		File dir = File.createTempFile("omexport", "");
+		dir.delete();
+		dir.mkdirs();
+		File zip = new File(dir, "backup.zip");
+		ProgressHolder progress = new ProgressHolder();
+		backupExport.performExport(zip, false, progress);
+		assertEquals("Export should be completed", 100, progress.getProgress());
+
+		List<String> names = new ArrayList<>();
+		String users = null;
+		try (ZipInputStream zis = new ZipInputStream(new FileInputStream(zip))) {
+			ZipEntry e;
+			while ((e = zis.getNextEntry()) != null) {
+				names.add(e.getName());
+				if ("users.xml".equals(e.getName())) {
+					users = IOUtils.toString(zis, UTF_8);
+				}
+			}
+		}
+		assertEquals("Version should be written first", "version.xml", names.get(0));
+		assertEquals("Sections should be written in fixed order", "organizations.xml", names.get(1));
+		assertEquals("Sections should be written in fixed order", "chat_messages.xml", names.get(names.size() - 1));
+		assertTrue("Exported users should contain created user", users != null && users.contains(u.getLogin()));
+		assertEquals("Temporary files should be removed", 1, dir.list().length);
+		zip.delete();
+		dir.delete();
+	}
+}
@@ -18,8 +18,10 @@
  */
 package org.apache.openmeetings.config;
 
+import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_PORT;
 import static org.apache.openmeetings.util.OpenmeetingsVariables.CONFIG_SMTP_SERVER;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 
 import java.util.List;
@@ -65,4 +67,31 @@ public class TestConfig extends AbstractJUnitDefaults {
 		}
 
 	}
+
+	@Test
+	public void getByKeys() {
+		List<Configuration> list = cfgDao.get(CONFIG_SMTP_PORT, "non.existent.key", CONFIG_SMTP_SERVER);
+		assertEquals("Value should be returned for each key", 3, list.size());
+		assertEquals("Values should be in order of keys", CONFIG_SMTP_PORT, list.get(0).getKey());
+		assertNull("Null should be returned for missing key", list.get(1));
+		assertEquals("Values should be in order of keys", CONFIG_SMTP_SERVER, list.get(2).getKey());
+	}
+
+	@Test
+	public void updateCached() {
+		Configuration c = cfgDao.get(CONFIG_SMTP_SERVER);
+		assertNotNull(c);
+		final String prev = c.getValue();
+		assertEquals("Cached value should be returned", prev, cfgDao.getString(CONFIG_SMTP_SERVER, null));
+		try {
+			c.setValue("cache.test.server");
+			cfgDao.update(c, null);
+			assertEquals("Updated value should be returned", "cache.test.server", cfgDao.getString(CONFIG_SMTP_SERVER, null));
+		} finally {
+			c = cfgDao.get(CONFIG_SMTP_SERVER);
+			c.setValue(prev);
+			cfgDao.update(c, null);
+		}
+		assertEquals("Restored value should be returned", prev, cfgDao.getString(CONFIG_SMTP_SERVER, null));
+	}
 }
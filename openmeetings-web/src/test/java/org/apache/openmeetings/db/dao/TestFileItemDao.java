@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.db.dao;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.UUID;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.openmeetings.AbstractJUnitDefaults;
+import org.apache.openmeetings.db.dao.file.FileItemDao;
+import org.apache.openmeetings.db.entity.file.BaseFileItem.Type;
+import org.apache.openmeetings.db.entity.file.FileItem;
+import org.apache.openmeetings.db.entity.user.User;
+import org.apache.openmeetings.util.OmFileHelper;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class TestFileItemDao extends AbstractJUnitDefaults {
+	private static final int SIZE = 1234;
+	@Autowired
+	private FileItemDao fileDao;
+
+	private FileItem create(String name, Type type, Long ownerId, Long parentId) {
+		FileItem f = new FileItem();
+		f.setName(name);
+		f.setHash(UUID.randomUUID().toString());
+		f.setType(type);
+		f.setOwnerId(parentId == null ? ownerId : null);
+		f.setParentId(parentId);
+		return fileDao.update(f);
+	}
+
+	private static String path(FileItem... parents) {
+		StringBuilder sb = new StringBuilder("/");
+		for (FileItem p : parents) {
+			sb.append(p.getId()).append('/');
+		}
+		return sb.toString();
+	}
+
+	@Test
+	public void testMoveFolder() throws Exception {
+		User u = createUser();
+		FileItem folder = create("folder", Type.Folder, u.getId(), null);
+		FileItem sub = create("sub", Type.Folder, null, folder.getId());
+		FileItem file = create("file.wml", Type.WmlFile, null, sub.getId());
+		FileItem target = create("target", Type.Folder, u.getId(), null);
+		assertEquals("Path should be stored", path(folder, sub), fileDao.get(file.getId()).getPath());
+
+		fileDao.move(folder.getId(), -2, u.getId(), 1L);
+		file = fileDao.get(file.getId());
+		assertNull("Content should be moved", file.getOwnerId());
+		assertEquals("Content should be moved", Long.valueOf(1), file.getRoomId());
+
+		fileDao.move(folder.getId(), target.getId(), u.getId(), 1L);
+		assertEquals("Content should be moved", path(target, folder, sub), fileDao.get(file.getId()).getPath());
+		assertEquals("Content should be moved", path(target, folder), fileDao.get(sub.getId()).getPath());
+
+		fileDao.move(target.getId(), sub.getId(), u.getId(), 1L);
+		assertNull("Folder should not be moved into itself", fileDao.get(target.getId()).getParentId());
+	}
+
+	@Test
+	public void testSizes() throws Exception {
+		User u = createUser();
+		FileItem folder = create("folder", Type.Folder, u.getId(), null);
+		FileItem sub = create("sub", Type.Folder, null, folder.getId());
+
+		FileItem img = new FileItem();
+		img.setName("image.png");
+		img.setHash(UUID.randomUUID().toString());
+		img.setType(Type.Image);
+		img.setParentId(sub.getId());
+		File dir = new File(OmFileHelper.getUploadFilesDir(), img.getHash());
+		FileUtils.writeByteArrayToFile(new File(dir, "image.png"), new byte[SIZE]);
+		try {
+			img = fileDao.update(img);
+			assertEquals("Size should be stored", SIZE, fileDao.getSize(fileDao.get(img.getId())));
+			assertEquals("Size should be added to the parent", SIZE, fileDao.getSize(fileDao.get(sub.getId())));
+			assertEquals("Size should be added to all parents", SIZE, fileDao.getSize(fileDao.get(folder.getId())));
+			assertEquals("Size should be added to owner", SIZE, fileDao.getOwnSize(u.getId()));
+
+			fileDao.move(img.getId(), -1, u.getId(), 0);
+			assertEquals("Size should be removed from the parent", 0, fileDao.getSize(fileDao.get(sub.getId())));
+			assertEquals("Size should be removed from all parents", 0, fileDao.getSize(fileDao.get(folder.getId())));
+			assertEquals("Moved file should be counted", SIZE, fileDao.getOwnSize(u.getId()));
+
+			fileDao.move(img.getId(), sub.getId(), u.getId(), 0);
+			assertEquals("Size should be added to the new parent", SIZE, fileDao.getSize(fileDao.get(folder.getId())));
+			fileDao.delete(fileDao.get(sub.getId()));
+			assertEquals("Size of deleted folder should be removed", 0, fileDao.getSize(fileDao.get(folder.getId())));
+			assertEquals("Size of deleted folder should not be counted", 0, fileDao.getOwnSize(u.getId()));
+
+			FileUtils.writeByteArrayToFile(new File(dir, "image.png"), new byte[2 * SIZE]);
+			fileDao.updateSize(fileDao.get(img.getId()));
+			assertEquals("Parents of deleted folder should not be changed", 0, fileDao.getSize(fileDao.get(folder.getId())));
+		} finally {
+			FileUtils.deleteQuietly(dir);
+		}
+	}
+}
@@ -18,9 +18,17 @@
  */
 package org.apache.openmeetings.userdata;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.UUID;
+
 import org.apache.openmeetings.AbstractJUnitDefaults;
 import org.apache.openmeetings.db.dao.server.SessiondataDao;
 import org.apache.openmeetings.db.entity.server.Sessiondata;
+import org.apache.openmeetings.db.manager.ISessionManager;
 import org.apache.openmeetings.util.crypt.CryptProvider;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,6 +36,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 public class TestAuth extends AbstractJUnitDefaults {
 	@Autowired
 	private SessiondataDao sessionDao;
+	@Autowired
+	private ISessionManager sessionManager;
 
 	@Test
 	public void testTestAuth() {
@@ -41,4 +51,36 @@ public class TestAuth extends AbstractJUnitDefaults {
 
 	}
 
+	@Test
+	public void testCheck() {
+		Sessiondata sd = sessionDao.create(1L, 1L);
+		Sessiondata checked = sessionDao.check(sd.getSessionId());
+		assertEquals("Existing session should be found", sd.getId(), checked.getId());
+		assertEquals("Cached session should be found", sd.getId(), sessionDao.check(sd.getSessionId()).getId());
+		assertNull("Partial sid should not match", sessionDao.find(sd.getSessionId().substring(1)));
+		sessionDao.flushRefreshed();
+		assertNotNull("Session should be valid after flush", sessionDao.find(sd.getSessionId()));
+
+		Sessiondata unknown = sessionDao.check(UUID.randomUUID().toString());
+		assertNull("New session should be returned for unknown sid", unknown.getId());
+	}
+
+	private Sessiondata fromDb(String sid) {
+		sessionManager.remove(sid);
+		return sessionDao.find(sid);
+	}
+
+	@Test
+	public void testRefreshBatching() throws InterruptedException {
+		Sessiondata sd = sessionDao.create(1L, 1L);
+		final long created = fromDb(sd.getSessionId()).getRefreshed().getTime();
+		Thread.sleep(1000); // DB might store time with seconds precision
+		final long checked = sessionDao.check(sd.getSessionId()).getRefreshed().getTime();
+		assertEquals("Refresh time should not be written on check", created, fromDb(sd.getSessionId()).getRefreshed().getTime());
+
+		sessionDao.flushRefreshed();
+		long stored = fromDb(sd.getSessionId()).getRefreshed().getTime();
+		assertTrue("Batched refresh time should be written on flush", stored > created);
+		assertEquals("Batched refresh time should be written on flush", checked, stored, 1000);
+	}
 }
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openmeetings.db.entity.basic.Client;
+import org.apache.openmeetings.db.entity.room.StreamClient;
+import org.apache.openmeetings.db.entity.user.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+
+/**
+ * Compares full scan of distributed online clients map with {@link ClientIndex} lookups
+ *
+ * Can be started with: mvn test-compile exec:java -Dexec.mainClass=org.apache.openmeetings.web.app.ClientIndexBenchmark -Dexec.classpathScope=test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClientIndexBenchmark {
+	private static final int CLIENTS = 10_000;
+	private static final int USERS = 2_000;
+	private static final int SERVERS = 4;
+	private HazelcastInstance hazelcast;
+	private IMap<String, Client> map;
+	private final Map<String, Client> local = new ConcurrentHashMap<>();
+	private final ClientIndex index = new ClientIndex();
+	private Client last;
+
+	@Setup
+	public void setup() {
+		Config cfg = new Config();
+		JoinConfig join = cfg.getNetworkConfig().getJoin();
+		join.getMulticastConfig().setEnabled(false);
+		join.getTcpIpConfig().setEnabled(false);
+		hazelcast = Hazelcast.newHazelcastInstance(cfg);
+		map = hazelcast.getMap("ONLINE_USERS_KEY");
+		for (int i = 0; i < CLIENTS; ++i) {
+			User u = new User();
+			u.setId((long)(i % USERS));
+			StreamClient sc = new StreamClient();
+			sc.setUid(UUID.randomUUID().toString());
+			sc.setSid(UUID.randomUUID().toString());
+			Client c = new Client(sc, u);
+			c.setServerId("server-" + (i % SERVERS));
+			map.put(c.getUid(), c);
+			local.put(c.getUid(), c);
+			index.add(c);
+			last = c;
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		hazelcast.shutdown();
+	}
+
+	@Benchmark
+	public boolean isOnlineScan() {
+		for (Map.Entry<String, Client> e : map.entrySet()) {
+			if (e.getValue().getUserId().equals(Long.valueOf(USERS))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Benchmark
+	public boolean isOnlineIndexed() {
+		return !index.byUser(Long.valueOf(USERS)).isEmpty();
+	}
+
+	@Benchmark
+	public Client getByKeysScan() {
+		for (Map.Entry<String, Client> e : map.entrySet()) {
+			Client c = e.getValue();
+			if (c.getUserId().equals(last.getUserId()) && c.getSessionId().equals(last.getSessionId())) {
+				return c;
+			}
+		}
+		return null;
+	}
+
+	@Benchmark
+	public Client getByKeysIndexed() {
+		for (String uid : index.bySession(last.getSessionId())) {
+			Client c = local.get(uid);
+			if (c != null && c.getUserId().equals(last.getUserId())) {
+				return c;
+			}
+		}
+		return null;
+	}
+
+	@Benchmark
+	public int cleanScan() {
+		int count = 0;
+		for (Map.Entry<String, Client> e : map.entrySet()) {
+			if ("server-1".equals(e.getValue().getServerId())) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	@Benchmark
+	public int cleanIndexed() {
+		int count = 0;
+		for (String uid : index.byServer("server-1")) {
+			if (local.get(uid) != null) {
+				++count;
+			}
+		}
+		return count;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(ClientIndexBenchmark.class.getSimpleName()).build()).run();
+	}
+}
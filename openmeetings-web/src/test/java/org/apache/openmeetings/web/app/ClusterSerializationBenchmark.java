@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.openmeetings.db.dto.room.Whiteboard;
+import org.apache.openmeetings.db.dto.room.Whiteboards;
+import org.apache.openmeetings.db.dto.room.WhiteboardsSerializer;
+import org.apache.openmeetings.db.entity.basic.Client;
+import org.apache.openmeetings.db.entity.basic.Client.Activity;
+import org.apache.openmeetings.db.entity.basic.ClientSerializer;
+import org.apache.openmeetings.db.entity.room.Room;
+import org.apache.openmeetings.db.entity.room.Room.Right;
+import org.apache.openmeetings.db.entity.room.StreamClient;
+import org.apache.openmeetings.db.entity.room.StreamClientSerializer;
+import org.apache.openmeetings.db.entity.user.User;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.github.openjson.JSONObject;
+import com.hazelcast.config.SerializationConfig;
+import com.hazelcast.config.SerializerConfig;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+
+/**
+ * Compares default java serialization of cluster replicated objects with compact serializers
+ * registered in hazelcast.xml, score is round-trips per millisecond, {@code bytes} counter
+ * is serialized bytes per millisecond (divide by score to get size of single object)
+ *
+ * Can be started with: mvn test-compile exec:java -Dexec.mainClass=org.apache.openmeetings.web.app.ClusterSerializationBenchmark -Dexec.classpathScope=test
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ClusterSerializationBenchmark {
+	private static final int WB_COUNT = 3;
+	private static final int WB_ITEMS = 200;
+	@Param({"java", "compact"})
+	public String serialization;
+	private InternalSerializationService ss;
+	private Client client;
+	private StreamClient stream;
+	private Whiteboards wbs;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			bytes = 0;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		SerializationConfig cfg = new SerializationConfig();
+		if ("compact".equals(serialization)) {
+			cfg.addSerializerConfig(new SerializerConfig().setTypeClass(Client.class).setImplementation(new ClientSerializer()))
+				.addSerializerConfig(new SerializerConfig().setTypeClass(StreamClient.class).setImplementation(new StreamClientSerializer()))
+				.addSerializerConfig(new SerializerConfig().setTypeClass(Whiteboards.class).setImplementation(new WhiteboardsSerializer()));
+		}
+		ss = new DefaultSerializationServiceBuilder().setConfig(cfg).build();
+
+		User u = new User();
+		u.setId(1L);
+		u.setLogin("login");
+		u.setFirstname("first");
+		u.setLastname("last");
+		Room r = new Room();
+		r.setId(1L);
+		r.setName("room");
+		stream = new StreamClient();
+		stream.setScope("1");
+		stream.setUid(UUID.randomUUID().toString());
+		stream.setSid(UUID.randomUUID().toString());
+		stream.setBroadcastId(UUID.randomUUID().toString());
+		stream.setUserId(u.getId());
+		stream.setLogin(u.getLogin());
+		stream.setFirstname(u.getFirstname());
+		stream.setLastname(u.getLastname());
+		stream.setRemoteAddress("127.0.0.1");
+		stream.setServerId("server-1");
+		stream.setBroadcasting(true);
+		client = new Client(stream, u).setRoom(r).allow(Right.audio, Right.video, Right.whiteBoard)
+				.set(Activity.broadcastAV).addStream(stream.getUid());
+		client.setServerId("server-1");
+		wbs = new Whiteboards(r.getId());
+		for (int i = 0; i < WB_COUNT; ++i) {
+			Whiteboard wb = new Whiteboard("wb " + i);
+			for (int j = 0; j < WB_ITEMS; ++j) {
+				String uid = UUID.randomUUID().toString();
+				wb.put(uid, new JSONObject().put("uid", uid).put("type", "path").put("slide", j % 5)
+						.put("left", j).put("top", j).put("stroke", "#ff0000"));
+			}
+			wbs.add(wb);
+		}
+	}
+
+	private Object roundTrip(Object o, Counters counters) {
+		Data d = ss.toData(o);
+		counters.bytes += d.totalSize();
+		return ss.toObject(d);
+	}
+
+	@Benchmark
+	public Object client(Counters counters) {
+		return roundTrip(client, counters);
+	}
+
+	@Benchmark
+	public Object streamClient(Counters counters) {
+		return roundTrip(stream, counters);
+	}
+
+	@Benchmark
+	public Object whiteboards(Counters counters) {
+		return roundTrip(wbs, counters);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ClusterSerializationBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
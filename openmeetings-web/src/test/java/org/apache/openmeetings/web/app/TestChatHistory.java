@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import static org.apache.openmeetings.web.app.ChatManager.HISTORY_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.openmeetings.db.entity.basic.ChatMessage;
+import org.apache.openmeetings.web.app.ChatManager.Entry;
+import org.apache.openmeetings.web.app.ChatManager.History;
+import org.junit.Test;
+
+public class TestChatHistory {
+	private static ChatMessage msg(long id, long sent) {
+		ChatMessage m = new ChatMessage();
+		m.setId(id);
+		m.setSent(new Date(sent));
+		m.setMessage("message " + id);
+		return m;
+	}
+
+	@Test
+	public void testLoadOnce() {
+		AtomicInteger loads = new AtomicInteger();
+		History h = new History();
+		for (int i = 0; i < 3; ++i) {
+			h.list(() -> {
+				loads.incrementAndGet();
+				List<ChatMessage> list = new ArrayList<>();
+				list.add(msg(2, 2000));
+				list.add(msg(1, 1000));
+				return list;
+			});
+		}
+		assertEquals("History should be loaded only once", 1, loads.get());
+	}
+
+	@Test
+	public void testOrderAndSize() {
+		History h = new History();
+		h.list(ArrayList::new);
+		for (long i = 1; i <= HISTORY_SIZE + 10; ++i) {
+			h.put(msg(i, (i % 2 == 0 ? 100000 : 0) + i * 1000));
+		}
+		List<Entry> list = h.list(ArrayList::new);
+		assertEquals("History should be bounded", HISTORY_SIZE, list.size());
+		for (int i = 1; i < list.size(); ++i) {
+			assertTrue("Newest message should go first"
+					, list.get(i - 1).getMessage().getSent().after(list.get(i).getMessage().getSent()));
+		}
+	}
+
+	@Test
+	public void testReplace() {
+		History h = new History();
+		h.list(ArrayList::new);
+		h.put(msg(1, 1000));
+		h.put(msg(2, 2000));
+		ChatMessage accepted = msg(1, 3000);
+		h.put(accepted);
+		List<Entry> list = h.list(ArrayList::new);
+		assertEquals("Message with the same id should be replaced", 2, list.size());
+		assertEquals(accepted, list.get(0).getMessage());
+		h.remove(m -> m.getId() == 2L);
+		assertEquals(1, h.list(ArrayList::new).size());
+	}
+}
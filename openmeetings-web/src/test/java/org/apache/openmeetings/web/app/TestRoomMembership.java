@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.openmeetings.web.app.ClientManager.AddToRoom;
+import org.apache.openmeetings.web.app.ClientManager.RemoveFromRoom;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+
+public class TestRoomMembership {
+	private static final int JOINS = 500;
+	private static final Long ROOM_ID = 1L;
+	private static HazelcastInstance hazelcast;
+
+	@BeforeClass
+	public static void setUp() {
+		Config cfg = new Config();
+		JoinConfig join = cfg.getNetworkConfig().getJoin();
+		join.getMulticastConfig().setEnabled(false);
+		join.getTcpIpConfig().setEnabled(false);
+		hazelcast = Hazelcast.newHazelcastInstance(cfg);
+	}
+
+	@AfterClass
+	public static void tearDown() {
+		hazelcast.shutdown();
+	}
+
+	private static List<Future<Object>> runAll(List<String> uids, boolean join) throws InterruptedException {
+		final IMap<Long, Set<String>> rooms = hazelcast.getMap("ROOMS_KEY");
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(50);
+		List<Future<Object>> results = new ArrayList<>();
+		for (String uid : uids) {
+			results.add(pool.submit(() -> {
+				start.await();
+				return rooms.executeOnKey(ROOM_ID, join ? new AddToRoom(uid) : new RemoveFromRoom(uid));
+			}));
+		}
+		start.countDown();
+		pool.shutdown();
+		assertTrue("All operations should complete", pool.awaitTermination(1, TimeUnit.MINUTES));
+		return results;
+	}
+
+	@Test
+	public void simultaneousJoins() throws Exception {
+		List<String> uids = new ArrayList<>();
+		for (int i = 0; i < JOINS; ++i) {
+			uids.add(UUID.randomUUID().toString());
+		}
+		final AtomicInteger first = new AtomicInteger();
+		boolean[] counts = new boolean[JOINS + 1];
+		for (Future<Object> f : runAll(uids, true)) {
+			int count = (Integer)f.get();
+			assertFalse("Each join should get unique count", counts[count]);
+			counts[count] = true;
+			if (count == 1) {
+				first.incrementAndGet();
+			}
+		}
+		assertEquals("Only one client should be first in the room", 1, first.get());
+		IMap<Long, Set<String>> rooms = hazelcast.getMap("ROOMS_KEY");
+		assertEquals("All clients should be in the room", JOINS, rooms.get(ROOM_ID).size());
+
+		runAll(uids, false);
+		assertFalse("Room should be removed after everybody left", rooms.containsKey(ROOM_ID));
+	}
+}
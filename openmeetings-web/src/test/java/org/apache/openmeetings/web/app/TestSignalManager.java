@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.app;
+
+import static org.apache.openmeetings.web.app.SignalManager.TYPE_SIGNALS;
+import static org.apache.openmeetings.web.app.SignalManager.TYPE_TYPING;
+import static org.apache.openmeetings.web.app.SignalManager.USER_INTERVAL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.apache.openmeetings.db.entity.basic.Client;
+import org.apache.openmeetings.db.entity.room.Room;
+import org.apache.openmeetings.db.entity.room.StreamClient;
+import org.apache.openmeetings.db.entity.user.User;
+import org.apache.openmeetings.db.util.ws.RoomMessage;
+import org.apache.openmeetings.db.util.ws.TextRoomMessage;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.openjson.JSONArray;
+import com.github.openjson.JSONObject;
+
+public class TestSignalManager {
+	private static final Long ROOM_ID = 1L;
+	private final List<JSONObject> frames = new ArrayList<>();
+	private final List<RoomMessage> messages = new ArrayList<>();
+	private SignalManager manager;
+
+	@Before
+	public void setUp() {
+		// scheduler is not started, flush is called by the test
+		manager = new SignalManager() {
+			@Override
+			void sendRoom(Long roomId, JSONObject msg) {
+				assertEquals(ROOM_ID, roomId);
+				frames.add(msg);
+			}
+
+			@Override
+			void sendRoom(RoomMessage msg) {
+				messages.add(msg);
+			}
+		};
+	}
+
+	private static Client getClient(long userId) {
+		User u = new User();
+		u.setId(userId);
+		u.setFirstname("first " + userId);
+		u.setLastname("last " + userId);
+		Room r = new Room();
+		r.setId(ROOM_ID);
+		StreamClient sc = new StreamClient();
+		sc.setUid(UUID.randomUUID().toString());
+		sc.setSid(UUID.randomUUID().toString());
+		return new Client(sc, u).setRoom(r);
+	}
+
+	private JSONArray lastSignals() {
+		assertFalse("Signals frame should be sent", frames.isEmpty());
+		JSONObject frame = frames.get(frames.size() - 1);
+		assertEquals(TYPE_SIGNALS, frame.getString("type"));
+		return frame.getJSONArray(TYPE_SIGNALS);
+	}
+
+	@Test
+	public void testCoalescing() {
+		Client c1 = getClient(1L);
+		Client c2 = getClient(2L);
+		manager.typing(ROOM_ID, c1, true);
+		manager.typing(ROOM_ID, c1, false);
+		manager.typing(ROOM_ID, c1, true);
+		manager.typing(ROOM_ID, c2, true);
+		manager.send(c1, RoomMessage.Type.haveQuestion);
+		manager.send(c1, RoomMessage.Type.haveQuestion);
+		manager.flush();
+
+		assertEquals("Signals of the room should be sent as single frame", 1, frames.size());
+		JSONArray arr = lastSignals();
+		assertEquals("Only latest state of every user should be sent", 2, arr.length());
+		for (int i = 0; i < arr.length(); ++i) {
+			JSONObject s = arr.getJSONObject(i);
+			assertEquals(TYPE_TYPING, s.getString("type"));
+			assertTrue("Latest state should be sent", s.getBoolean("active"));
+		}
+		assertEquals("Same message of the same client should be collapsed", 1, messages.size());
+		assertEquals(c1.getUid(), ((TextRoomMessage)messages.get(0)).getText());
+
+		manager.flush();
+		assertEquals("Nothing should be sent if there are no changes", 1, frames.size());
+		assertEquals(1, messages.size());
+	}
+
+	@Test
+	public void testRateLimit() throws InterruptedException {
+		Client c1 = getClient(1L);
+		Client c2 = getClient(2L);
+		manager.typing(ROOM_ID, c1, true);
+		manager.flush();
+		assertEquals(1, frames.size());
+
+		// same uid|type within the window is delayed, other types and users are not
+		manager.typing(ROOM_ID, c1, false);
+		manager.typing(ROOM_ID, c2, true);
+		manager.send(c1, RoomMessage.Type.haveQuestion);
+		manager.flush();
+		assertEquals(2, frames.size());
+		JSONArray arr = lastSignals();
+		assertEquals("Rate limited state should be kept", 1, arr.length());
+		assertEquals(c2.getUid(), arr.getJSONObject(0).getString("uid"));
+		assertEquals("Other type of the same client should not be limited", 1, messages.size());
+
+		manager.typing(ROOM_ID, c1, true);
+		manager.typing(ROOM_ID, c1, false);
+		manager.flush();
+		assertEquals("Limited state should not be sent within the window", 2, frames.size());
+
+		Thread.sleep(USER_INTERVAL);
+		manager.flush();
+		assertEquals(3, frames.size());
+		arr = lastSignals();
+		assertEquals(1, arr.length());
+		assertEquals(c1.getUid(), arr.getJSONObject(0).getString("uid"));
+		assertFalse("Latest state should be sent once window is passed", arr.getJSONObject(0).getBoolean("active"));
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.util;
+
+import static org.apache.openmeetings.util.OmFileHelper.PNG_MIME_TYPE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.openmeetings.db.entity.file.FileItem;
+import org.apache.wicket.mock.MockApplication;
+import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
+import org.apache.wicket.request.resource.IResource.Attributes;
+import org.apache.wicket.util.tester.WicketTester;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TestFileItemResourceReference {
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+	private WicketTester tester;
+	private File file;
+
+	private static class TestReference extends FileItemResourceReference<FileItem> {
+		private static final long serialVersionUID = 1L;
+		private final File file;
+		private final boolean immutable;
+
+		TestReference(File file, boolean immutable) {
+			super("test-file-item");
+			this.file = file;
+			this.immutable = immutable;
+		}
+
+		@Override
+		protected String getMimeType(FileItem r) {
+			return PNG_MIME_TYPE;
+		}
+
+		@Override
+		protected String getFileName(FileItem r) {
+			return file.getName();
+		}
+
+		@Override
+		protected File getFile(FileItem r, Attributes attr) {
+			return file;
+		}
+
+		@Override
+		protected FileItem getFileItem(Attributes attr) {
+			return file == null ? null : new FileItem();
+		}
+
+		@Override
+		protected boolean isImmutable(FileItem r, File f, Attributes attr) {
+			return immutable;
+		}
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		tester = new WicketTester(new MockApplication());
+		file = folder.newFile("page-0000.png");
+		Files.write(file.toPath(), new byte[] {1, 2, 3});
+	}
+
+	@After
+	public void tearDown() {
+		tester.destroy();
+	}
+
+	private MockHttpServletResponse get(TestReference ref, String ifNoneMatch) {
+		if (ifNoneMatch != null) {
+			tester.getRequest().setHeader("If-None-Match", ifNoneMatch);
+		}
+		tester.startResource(ref.getResource());
+		return tester.getLastResponse();
+	}
+
+	@Test
+	public void testCacheControl() {
+		MockHttpServletResponse r = get(new TestReference(file, true), null);
+		assertEquals(HttpServletResponse.SC_OK, r.getStatus());
+		assertTrue("Immutable resource should be cached without revalidation"
+				, r.getHeader("Cache-Control").contains("immutable"));
+
+		r = get(new TestReference(file, false), null);
+		assertEquals(HttpServletResponse.SC_OK, r.getStatus());
+		assertTrue("Mutable resource should be revalidated", r.getHeader("Cache-Control").contains("no-cache"));
+	}
+
+	@Test
+	public void testNotModified() {
+		TestReference ref = new TestReference(file, false);
+		String etag = get(ref, null).getHeader("ETag");
+		assertNotNull("ETag should be set", etag);
+
+		MockHttpServletResponse r = get(ref, etag);
+		assertEquals("Matching ETag should result in 304", HttpServletResponse.SC_NOT_MODIFIED, r.getStatus());
+		assertEquals("304 should have no body", 0, r.getBinaryContent().length);
+		assertEquals(etag, r.getHeader("ETag"));
+		assertTrue(r.getHeader("Cache-Control").contains("no-cache"));
+	}
+
+	@Test
+	public void testModified() throws IOException {
+		TestReference ref = new TestReference(file, false);
+		String etag = get(ref, null).getHeader("ETag");
+		Files.write(file.toPath(), new byte[] {1, 2, 3, 4});
+
+		MockHttpServletResponse r = get(ref, etag);
+		assertEquals("Changed file should be sent", HttpServletResponse.SC_OK, r.getStatus());
+		assertEquals(4, r.getBinaryContent().length);
+	}
+
+	@Test
+	public void testNotFound() {
+		MockHttpServletResponse r = get(new TestReference(null, true), null);
+		assertEquals(HttpServletResponse.SC_NOT_FOUND, r.getStatus());
+	}
+}
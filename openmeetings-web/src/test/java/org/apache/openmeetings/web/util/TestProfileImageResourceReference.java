@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License") +  you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.openmeetings.web.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.openmeetings.AbstractWicketTester;
+import org.apache.openmeetings.db.dao.user.UserDao.Picture;
+import org.apache.openmeetings.web.app.WebSession;
+import org.apache.openmeetings.web.util.ProfileImageResourceReference.ImageCache;
+import org.apache.wicket.protocol.http.mock.MockHttpServletResponse;
+import org.apache.wicket.request.mapper.parameter.PageParameters;
+import org.junit.Test;
+
+public class TestProfileImageResourceReference extends AbstractWicketTester {
+	private static ImageCache.Loader loader(int size, AtomicInteger loads) {
+		return () -> {
+			loads.incrementAndGet();
+			return new byte[size];
+		};
+	}
+
+	@Test
+	public void testCacheEviction() throws IOException {
+		ImageCache cache = new ImageCache(10);
+		AtomicInteger loads = new AtomicInteger();
+		cache.get("a", loader(4, loads));
+		cache.get("b", loader(4, loads));
+		assertEquals(8, cache.getBytes());
+
+		cache.get("a", loader(4, loads)); // 'a' is now most recently used
+		assertEquals("Cached value should not be re-loaded", 2, loads.get());
+
+		cache.get("c", loader(4, loads));
+		assertTrue("Total size should not exceed the limit", cache.getBytes() <= 10);
+		assertFalse("Least recently used entry should be evicted", cache.contains("b"));
+		assertTrue(cache.contains("a"));
+		assertTrue(cache.contains("c"));
+
+		byte[] big = cache.get("big", loader(11, loads));
+		assertEquals("Too big picture should still be returned", 11, big.length);
+		assertFalse("Too big picture should not be cached", cache.contains("big"));
+		assertEquals(0, cache.getBytes());
+	}
+
+	private MockHttpServletResponse get(PageParameters params, String ifNoneMatch) {
+		if (ifNoneMatch != null) {
+			tester.getRequest().setHeader("If-None-Match", ifNoneMatch);
+		}
+		tester.startResourceReference(new ProfileImageResourceReference(), params);
+		return tester.getLastResponse();
+	}
+
+	@Test
+	public void testNotModified() {
+		login(null, null);
+		Long userId = WebSession.getUserId();
+		Picture p = userDao.getPicture(userId);
+		PageParameters params = new PageParameters().add("id", userId).add("anticache", p.getVersion());
+
+		MockHttpServletResponse r = get(params, null);
+		assertEquals(HttpServletResponse.SC_OK, r.getStatus());
+		assertTrue("Picture should be sent", r.getBinaryContent().length > 0);
+		assertTrue("Versioned URL should be cached without revalidation"
+				, r.getHeader("Cache-Control").contains("immutable"));
+		String etag = r.getHeader("ETag");
+		assertNotNull("ETag should be set", etag);
+
+		r = get(new PageParameters().add("id", userId), etag);
+		assertEquals("Matching ETag should result in 304", HttpServletResponse.SC_NOT_MODIFIED, r.getStatus());
+		assertEquals("304 should have no body", 0, r.getBinaryContent().length);
+		assertTrue("URL without version should be revalidated", r.getHeader("Cache-Control").contains("no-cache"));
+
+		r = get(new PageParameters().add("id", userId), "\"outdated\"");
+		assertEquals("Picture should be sent for outdated ETag", HttpServletResponse.SC_OK, r.getStatus());
+		assertEquals(etag, r.getHeader("ETag"));
+	}
+}
@@ -32,7 +32,6 @@ import org.apache.openmeetings.db.dao.user.UserDao;
 import org.apache.openmeetings.db.entity.server.Sessiondata;
 import org.apache.openmeetings.db.entity.user.User;
 import org.apache.openmeetings.db.entity.user.User.Right;
-import org.apache.openmeetings.db.util.AuthLevelUtil;
 import org.apache.openmeetings.webservice.error.ServiceException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,8 +74,18 @@ public abstract class BaseWebService {
 		return new HashSet<>();
 	}
 
+	// this one is fail safe
+	boolean hasRight(Long id, User.Right level) {
+		try {
+			return userDao.hasRight(id, level);
+		} catch (Exception e) {
+			log.debug("Exception while checking rights", e);
+		}
+		return false;
+	}
+
 	<T> T performCall(String sid, User.Right level, Function<Sessiondata, T> action) {
-		return performCall(sid, sd -> AuthLevelUtil.check(getRights(sd.getUserId()), level), action);
+		return performCall(sid, sd -> hasRight(sd.getUserId(), level), action);
 	}
 
 	<T> T performCall(String sid, Predicate<Sessiondata> allowed, Function<Sessiondata, T> action) {
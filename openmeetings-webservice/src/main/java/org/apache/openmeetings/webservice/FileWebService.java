@@ -47,6 +47,7 @@ import org.apache.openmeetings.db.dto.file.FileItemDTO;
 import org.apache.openmeetings.db.entity.file.FileItem;
 import org.apache.openmeetings.db.entity.user.User;
 import org.apache.openmeetings.db.entity.user.User.Right;
+import org.apache.openmeetings.db.manager.IWhiteboardManager;
 import org.apache.openmeetings.db.util.AuthLevelUtil;
 import org.apache.openmeetings.util.process.ProcessResultList;
 import org.apache.openmeetings.webservice.error.ServiceException;
@@ -73,6 +74,8 @@ public class FileWebService extends BaseWebService {
 
 	@Autowired
 	private FileProcessor fileProcessor;
+	@Autowired
+	private IWhiteboardManager wbManager;
 
 	/**
 	 * deletes files or folders based on it id
@@ -158,7 +161,7 @@ public class FileWebService extends BaseWebService {
 			f.setInsertedBy(sd.getUserId());
 			if (stream != null) {
 				try {
-					ProcessResultList result = fileProcessor.processFile(f, stream);
+					ProcessResultList result = fileProcessor.processFile(f, stream, (fi, from, to, ready) -> wbManager.updateCount(fi));
 					if (result.hasError()) {
 						throw new ServiceException(result.getLogMessage());
 					}
@@ -18,6 +18,7 @@
  */
 package org.apache.openmeetings.webservice;
 
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -64,6 +65,11 @@ public class TestBaseService {
 		checkRights(new BaseWebService() {}.getRights(""));
 	}
 
+	@Test
+	public void testHasRight() {
+		assertFalse("Right should not be granted", new BaseWebService() {}.hasRight(1L, Right.Soap));
+	}
+
 	@Test
 	public void testPerformCall() {
 		checkException(() -> new BaseWebService() {}.performCall("", sd -> true